@@ -0,0 +1,113 @@
+package com.teenread.bench;
+
+import com.teenread.model.Book;
+import com.teenread.repository.BookRepository;
+import com.teenread.storage.CatalogueFile;
+import com.teenread.storage.MappedCatalogue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalogue read paths: findById and searchByTitle.
+ *
+ * Each operation is measured on one thread and on every available core
+ * ({@code *_contended}), the latter showing how the repository lock
+ * behaves when many request threads read at once. {@code storage=mapped}
+ * serves the same books from a memory-mapped catalogue file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BookRepositoryBenchmark {
+
+    @Param({"12", "1000", "100000", "1000000"})
+    int catalogueSize;
+
+    @Param({"heap", "mapped"})
+    String storage;
+
+    BookRepository repository;
+    Path file;
+
+    @Setup(Level.Trial)
+    public void buildCatalogue() throws IOException, InterruptedException {
+        if (storage.equals("heap")) {
+            repository = new BookRepository(SyntheticCatalogue.books(catalogueSize));
+            return;
+        }
+        file = Files.createTempFile("catalogue-bench", ".bin");
+        CatalogueFile.write(file, SyntheticCatalogue.books(catalogueSize));
+        repository = new BookRepository(MappedCatalogue.open(file));
+        // Measure indexed searches, not the scan used while indexing
+        repository.awaitIndexes();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // findById
+    // ---------------------------------------------------------------
+
+    @Benchmark
+    public Optional<Book> findById() {
+        return repository.findById(randomId());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Optional<Book> findById_contended() {
+        return repository.findById(randomId());
+    }
+
+    // ---------------------------------------------------------------
+    // searchByTitle
+    // ---------------------------------------------------------------
+
+    @Benchmark
+    public List<Book> searchByTitle_rare() {
+        return repository.searchByTitle(SyntheticCatalogue.RARE_KEYWORD);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<Book> searchByTitle_rare_contended() {
+        return repository.searchByTitle(SyntheticCatalogue.RARE_KEYWORD);
+    }
+
+    @Benchmark
+    public List<Book> searchByTitle_common() {
+        return repository.searchByTitle(SyntheticCatalogue.COMMON_KEYWORD);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, catalogueSize + 1L);
+    }
+}
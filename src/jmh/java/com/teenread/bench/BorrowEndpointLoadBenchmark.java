@@ -0,0 +1,161 @@
+package com.teenread.bench;
+
+import com.teenread.TeenReadApplication;
+import com.teenread.controller.CatalogueImportController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test of the borrow endpoints: the real application on an
+ * ephemeral port, with persistence (group-committed, fsync'd WAL) and the
+ * audit log writing to a temporary directory, driven over HTTP by more
+ * concurrent clients than Tomcat's default pool of 200 request threads.
+ *
+ * Each client owns one book and borrows then returns it, so there are no
+ * conflicts and every operation is two fsync'd state changes. Compare the
+ * throughput of the two thread modes:
+ *
+ *   platform – Tomcat's pool; requests beyond 200 queue for a thread while
+ *              the pool's threads sit parked in the group-commit wait
+ *   virtual  – spring.threads.virtual.enabled=true; every request gets its
+ *              own virtual thread, so all of them join the same fsync batch
+ *
+ * The client threads share the machine with the server; on few cores the
+ * numbers show the relative difference, not the server's ceiling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BorrowEndpointLoadBenchmark {
+
+    /** Concurrent HTTP clients – above Tomcat's default of 200 threads */
+    static final int CLIENTS = 400;
+
+    /** Enables the HTTP import the setup uses to add the clients' books */
+    static final String IMPORT_TOKEN = "load-test";
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    ConfigurableApplicationContext application;
+    HttpClient http;
+    String baseUrl;
+    Path dataDir;
+
+    /** Hands each client thread its own book */
+    final AtomicLong nextBookId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        dataDir = Files.createTempDirectory("teenread-load");
+        // Command-line arguments, so they win over application.properties
+        application = new SpringApplicationBuilder(TeenReadApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                "--app.persistence.enabled=true",
+                "--app.persistence.dir=" + dataDir.resolve("state"),
+                "--app.audit.file=" + dataDir.resolve("audit.log"),
+                "--app.import.http-token=" + IMPORT_TOKEN,
+                "--logging.level.root=WARN",
+                "--logging.level.com.teenread=WARN");
+        int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        importCatalogue();
+    }
+
+    /** Adds CLIENTS books (ids 1000001…) that no other request touches. */
+    private void importCatalogue() throws IOException, InterruptedException {
+        StringBuilder csv = new StringBuilder("id,title,author,available\n");
+        for (int i = 1; i <= CLIENTS; i++) {
+            csv.append(1_000_000 + i).append(",Load Test Book ").append(i).append(",Bench Author,true\n");
+        }
+        HttpResponse<String> response = http.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/api/books/import?format=csv"))
+                        .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                        .header("Content-Type", "text/csv")
+                        .header(CatalogueImportController.TOKEN_HEADER, IMPORT_TOKEN)
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Import failed: " + response.statusCode() + " " + response.body());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws IOException {
+        application.close();
+        http.close();
+        try (var files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /** One client: its book and prebuilt requests. */
+    @State(Scope.Thread)
+    public static class Client {
+        HttpRequest borrow;
+        HttpRequest giveBack;
+
+        @Setup(Level.Trial)
+        public void claimBook(BorrowEndpointLoadBenchmark bench) {
+            long bookId = 1_000_000 + bench.nextBookId.incrementAndGet();
+            String user = "load-" + bookId;
+            borrow = HttpRequest.newBuilder(URI.create(bench.baseUrl + "/api/borrow/" + bookId))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .header("X-User-Id", user)
+                    .build();
+            giveBack = HttpRequest.newBuilder(URI.create(bench.baseUrl + "/api/borrow/" + bookId + "/return"))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .header("X-User-Id", user)
+                    .build();
+        }
+    }
+
+    @Benchmark
+    @Threads(CLIENTS)
+    public int borrowAndReturn(Client client) throws IOException, InterruptedException {
+        return send(client.borrow) + send(client.giveBack);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
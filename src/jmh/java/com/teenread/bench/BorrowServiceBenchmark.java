@@ -0,0 +1,104 @@
+package com.teenread.bench;
+
+import com.teenread.model.BorrowedBook;
+import com.teenread.persistence.PersistenceService;
+import com.teenread.repository.BookRepository;
+import com.teenread.repository.BorrowedBookRepository;
+import com.teenread.repository.LoanHistoryRepository;
+import com.teenread.service.BorrowService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BorrowService.borrowBook, measured as a borrow + return round trip so the
+ * catalogue never runs out of available books however long the run is.
+ *
+ * On the contended variant two threads sometimes pick the same book; the
+ * loser's "already borrowed" rejection is part of the measured cost, just as
+ * it is for real readers racing for a book. Small catalogues therefore show
+ * the rejection path, large ones the uncontended one.
+ *
+ * With {@code durable=true} every borrow and return is written to a
+ * write-ahead log in a temporary directory and fsync'd, so the contended
+ * variant shows how well group commit amortises the fsyncs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BorrowServiceBenchmark {
+
+    @Param({"12", "1000", "100000", "1000000"})
+    int catalogueSize;
+
+    @Param({"false", "true"})
+    boolean durable;
+
+    BorrowService borrowService;
+    PersistenceService persistenceService;
+    Path dataDir;
+
+    @Setup(Level.Trial)
+    public void buildService() throws IOException {
+        BookRepository books = new BookRepository(SyntheticCatalogue.books(catalogueSize));
+        BorrowedBookRepository loans = new BorrowedBookRepository();
+        LoanHistoryRepository history = new LoanHistoryRepository(100_000);
+        dataDir = Files.createTempDirectory("teenread-bench");
+        persistenceService = new PersistenceService(books, loans, history,
+                durable, dataDir.toString(), 3600);
+        persistenceService.start();
+        borrowService = new BorrowService(books, loans, history, persistenceService);
+        ReflectionTestUtils.setField(borrowService, "dueDays", 14);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteLog() throws IOException {
+        persistenceService.stop();
+        try (var files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public BorrowedBook borrowAndReturn() {
+        return borrowAndReturn("reader");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public BorrowedBook borrowAndReturn_contended() {
+        return borrowAndReturn("reader-" + Thread.currentThread().threadId());
+    }
+
+    private BorrowedBook borrowAndReturn(String userId) {
+        long bookId = ThreadLocalRandom.current().nextLong(1, catalogueSize + 1L);
+        try {
+            borrowService.borrowBook(bookId, userId);
+        } catch (IllegalStateException alreadyBorrowed) {
+            return null;
+        }
+        return borrowService.returnBook(bookId, userId);
+    }
+}
@@ -0,0 +1,67 @@
+package com.teenread.bench;
+
+import com.teenread.model.Book;
+import com.teenread.repository.BookRepository;
+import com.teenread.storage.CatalogueFile;
+import com.teenread.storage.MappedCatalogue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time until the catalogue can serve requests: building the heap repository
+ * from Book objects versus mapping a catalogue file (indexes then build in
+ * the background). Single-shot, since startup happens once per process.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CatalogueStartupBenchmark {
+
+    @Param({"100000", "1000000"})
+    int catalogueSize;
+
+    List<Book> books;
+    Path file;
+
+    @Setup(Level.Trial)
+    public void writeCatalogue() throws IOException {
+        books = SyntheticCatalogue.books(catalogueSize);
+        file = Files.createTempFile("catalogue-bench", ".bin");
+        CatalogueFile.write(file, books);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public BookRepository heap() {
+        return new BookRepository(books);
+    }
+
+    @Benchmark
+    public BookRepository mapped() throws IOException {
+        return new BookRepository(MappedCatalogue.open(file));
+    }
+}
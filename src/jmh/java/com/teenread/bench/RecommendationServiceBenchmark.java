@@ -0,0 +1,58 @@
+package com.teenread.bench;
+
+import com.teenread.model.Book;
+import com.teenread.repository.BookRepository;
+import com.teenread.service.RecommendationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RecommendationService.getRecommendations with the default count of 3.
+ * Should stay flat as the catalogue grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RecommendationServiceBenchmark {
+
+    @Param({"12", "1000", "100000", "1000000"})
+    int catalogueSize;
+
+    RecommendationService recommendationService;
+
+    @Setup(Level.Trial)
+    public void buildService() {
+        recommendationService = new RecommendationService(
+                new BookRepository(SyntheticCatalogue.books(catalogueSize)));
+        ReflectionTestUtils.setField(recommendationService, "recommendationCount", 3);
+    }
+
+    @Benchmark
+    public List<Book> getRecommendations() {
+        return recommendationService.getRecommendations();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<Book> getRecommendations_contended() {
+        return recommendationService.getRecommendations();
+    }
+}
@@ -0,0 +1,71 @@
+package com.teenread.bench;
+
+import com.teenread.model.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Builds deterministic catalogues of any size for the benchmarks.
+ *
+ * Titles and authors are drawn from small word lists, so trigram posting
+ * lists, trie fan-out and result sizes grow with the catalogue the way they
+ * would for real data, instead of every title being unique noise.
+ * Ids are 1..size; book 1 is always titled "The Hunger Games".
+ */
+final class SyntheticCatalogue {
+
+    /** Appears in roughly one title in 1,500 – a selective search */
+    static final String RARE_KEYWORD = "hunger";
+
+    /** Appears in roughly one title in 8 – a broad search */
+    static final String COMMON_KEYWORD = "shadow";
+
+    private static final String[] ADJECTIVES = {
+        "Silent", "Broken", "Hidden", "Golden", "Lost", "Burning", "Frozen", "Secret",
+        "Wild", "Last", "Crimson", "Silver", "Dark", "Bright", "Forgotten", "Iron"
+    };
+    private static final String[] NOUNS = {
+        "Shadow", "Kingdom", "River", "Crown", "Storm", "Garden", "Tower", "Maze",
+        "Island", "Promise", "Library", "Compass", "Forest", "Letter", "Arrow", "Mirror",
+        "Star", "Game", "Sea", "Thief", "Door", "Winter", "Fire", "Song"
+    };
+    private static final String[] PLACES = {
+        "the North", "Elsewhere", "the Deep", "Tomorrow", "the City", "the Valley",
+        "Midnight", "the Hills", "the Coast", "Ashes", "the Sky", "Nowhere"
+    };
+    private static final String[] FIRST_NAMES = {
+        "Ava", "Leo", "Maya", "Noah", "Zara", "Eli", "Iris", "Omar", "Ruby", "Theo",
+        "Lena", "Kai", "Nia", "Finn", "Sara", "Jude"
+    };
+    private static final String[] LAST_NAMES = {
+        "Collins", "Rowling", "Roth", "Dashner", "Riordan", "Lowry", "Sachar", "Palacio",
+        "Paulsen", "Hinton", "Okafor", "Nguyen", "Moreno", "Kowalski", "Haddad", "Tanaka"
+    };
+
+    private SyntheticCatalogue() {
+    }
+
+    /**
+     * @param size number of books (at least 1)
+     * @return books with ids 1..size, all available
+     */
+    static List<Book> books(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Book> books = new ArrayList<>(size);
+        books.add(new Book(1L, "The Hunger Games", "Suzanne Collins", true));
+        for (long id = 2; id <= size; id++) {
+            String title = random.nextInt(1500) == 0
+                    ? "Hunger of " + pick(PLACES, random)
+                    : pick(ADJECTIVES, random) + " " + pick(NOUNS, random) + " of " + pick(PLACES, random);
+            String author = pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random);
+            books.add(new Book(id, title, author, true));
+        }
+        return books;
+    }
+
+    private static String pick(String[] words, SplittableRandom random) {
+        return words[random.nextInt(words.length)];
+    }
+}
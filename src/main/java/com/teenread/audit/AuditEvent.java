@@ -0,0 +1,106 @@
+package com.teenread.audit;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One audit event as queued by AuditLog.
+ *
+ * Holds raw values only – the request thread allocates this object and
+ * nothing else; timestamps are formatted and JSON is encoded by the writer
+ * thread. Absent values are null (or -1 for the primitives) and left out
+ * of the JSON line.
+ */
+final class AuditEvent {
+
+    final long epochMillis;
+    final String action;
+    final long bookId;
+    final String userId;
+    final LocalDate date;
+    final String keyword;
+    final String author;
+    final Boolean available;
+    final int results;
+
+    AuditEvent(String action, long bookId, String userId, LocalDate date) {
+        this(action, bookId, userId, date, null, null, null, -1);
+    }
+
+    AuditEvent(String action, String keyword, String author, Boolean available, int results) {
+        this(action, -1, null, null, keyword, author, available, results);
+    }
+
+    private AuditEvent(String action, long bookId, String userId, LocalDate date,
+                       String keyword, String author, Boolean available, int results) {
+        this.epochMillis = System.currentTimeMillis();
+        this.action      = action;
+        this.bookId      = bookId;
+        this.userId      = userId;
+        this.date        = date;
+        this.keyword     = keyword;
+        this.author      = author;
+        this.available   = available;
+        this.results     = results;
+    }
+
+    /**
+     * Appends this event as one JSON line (newline included), e.g.
+     * {"ts":"2024-03-15T14:30:00.123Z","action":"borrow","bookId":3,"user":"alice","date":"2024-03-29"}
+     *
+     * @param out buffer to append to
+     */
+    void appendJson(StringBuilder out) {
+        out.append("{\"ts\":\"").append(Instant.ofEpochMilli(epochMillis)).append('"');
+        out.append(",\"action\":");
+        appendString(out, action);
+        if (bookId >= 0) {
+            out.append(",\"bookId\":").append(bookId);
+        }
+        if (userId != null) {
+            out.append(",\"user\":");
+            appendString(out, userId);
+        }
+        if (date != null) {
+            out.append(",\"date\":\"").append(date).append('"');
+        }
+        if (keyword != null) {
+            out.append(",\"keyword\":");
+            appendString(out, keyword);
+        }
+        if (author != null) {
+            out.append(",\"author\":");
+            appendString(out, author);
+        }
+        if (available != null) {
+            out.append(",\"available\":").append(available.booleanValue());
+        }
+        if (results >= 0) {
+            out.append(",\"results\":").append(results);
+        }
+        out.append("}\n");
+    }
+
+    /** Appends a JSON string literal, escaping quotes, backslashes and control characters. */
+    static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"'  -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,296 @@
+package com.teenread.audit;
+
+import com.teenread.metrics.Meters;
+import com.teenread.model.BorrowedBook;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous audit log: borrow, return and search events as JSON lines
+ * in app.audit.file.
+ *
+ * Request threads only build a small AuditEvent and offer it to a bounded
+ * ring buffer (an ArrayBlockingQueue of app.audit.buffer-size events); they
+ * never format, encode or touch the file. A single writer thread drains the
+ * buffer in batches of up to BATCH_SIZE events and writes each batch with
+ * one write call.
+ *
+ * When the buffer is full (the disk cannot keep up), app.audit.overflow decides:
+ *   - drop  (default) – the event is discarded and counted in
+ *                        teenread.audit.dropped; the request is never slowed
+ *   - block           – the request waits for room (no event is lost while
+ *                        the writer runs; once it has stopped or failed to
+ *                        open the file, waiting requests drop their events)
+ *
+ * Unlike the write-ahead log, the audit file is not fsync'd per batch: it
+ * is a record of activity, not state. It is forced to disk on shutdown.
+ *
+ * With app.audit.enabled=false every call is a no-op.
+ */
+@Component
+
+public class AuditLog {
+
+    /** What to do with an event when the buffer is full */
+    public enum Overflow { DROP, BLOCK }
+
+    /** Most events encoded and written per write call */
+    static final int BATCH_SIZE = 1024;
+
+    /** How often a request blocked on a full buffer checks that the writer still runs */
+    private static final long BLOCK_RECHECK_MILLIS = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final Counter DROPPED_COUNTER = Meters.auditDropped();
+
+    private final boolean enabled;
+    private final Path file;
+    private final Overflow overflow;
+    private final BlockingQueue<AuditEvent> buffer;
+
+    /** Events discarded because the buffer was full or could not be written */
+    private final LongAdder dropped = new LongAdder();
+
+    private Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * @param enabled    app.audit.enabled
+     * @param file       app.audit.file – appended to; parent directories are created
+     * @param bufferSize app.audit.buffer-size – events held while the writer catches up
+     * @param overflow   app.audit.overflow – "drop" or "block"
+     * @throws IllegalArgumentException for a buffer size below 1 or an unknown overflow policy
+     */
+    @Autowired
+    public AuditLog(@Value("${app.audit.enabled:false}") boolean enabled,
+                    @Value("${app.audit.file:data/audit.log}") String file,
+                    @Value("${app.audit.buffer-size:65536}") int bufferSize,
+                    @Value("${app.audit.overflow:drop}") String overflow) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Audit buffer size must be at least 1");
+        }
+        this.enabled  = enabled;
+        this.file     = Path.of(file);
+        this.overflow = parseOverflow(overflow);
+        this.buffer   = new ArrayBlockingQueue<>(enabled ? bufferSize : 1);
+    }
+
+    /**
+     * @return an audit log that records nothing – for services built by hand
+     *         in tests and benchmarks
+     */
+    public static AuditLog disabled() {
+        return new AuditLog(false, "", 1, "drop");
+    }
+
+    private static Overflow parseOverflow(String value) {
+        try {
+            return Overflow.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown audit overflow policy: '" + value
+                    + "' (expected drop or block)");
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Lifecycle
+    // ---------------------------------------------------------------
+
+    /**
+     * Starts the writer thread.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("AUDIT – writing events to {} (buffer {}, overflow {})",
+                file.toAbsolutePath(), buffer.remainingCapacity(), overflow);
+    }
+
+    /**
+     * Writes everything still buffered, forces the file to disk and stops the writer.
+     */
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    // ---------------------------------------------------------------
+    // Events
+    // ---------------------------------------------------------------
+
+    /** Records a new loan. */
+    public void borrowed(BorrowedBook loan) {
+        record(new AuditEvent("borrow", loan.getBookId(), loan.getUserId(), loan.getDueDate()));
+    }
+
+    /** Records a borrow refused because the book was already claimed. */
+    public void borrowRefused(long bookId, String userId) {
+        record(new AuditEvent("borrow.refused", bookId, userId, null));
+    }
+
+    /** Records a return refused because the book is on loan to someone else. */
+    public void returnRefused(long bookId, String userId) {
+        record(new AuditEvent("return.refused", bookId, userId, null));
+    }
+
+    /** Records the end of a loan. */
+    public void returned(BorrowedBook loan, LocalDate returnDate) {
+        record(new AuditEvent("return", loan.getBookId(), loan.getUserId(), returnDate));
+    }
+
+    /**
+     * Records a title search.
+     *
+     * @param keyword the search term
+     * @param results number of books found
+     */
+    public void searchedTitle(String keyword, int results) {
+        record(new AuditEvent("search.title", keyword, null, null, results));
+    }
+
+    /**
+     * Records an author search.
+     *
+     * @param keyword the search term
+     * @param results number of books found
+     */
+    public void searchedAuthor(String keyword, int results) {
+        record(new AuditEvent("search.author", null, keyword, null, results));
+    }
+
+    /**
+     * Records a combined query; absent criteria are null.
+     *
+     * @param title     title criterion
+     * @param author    author criterion
+     * @param available availability criterion
+     * @param results   number of books found
+     */
+    public void queried(String title, String author, Boolean available, int results) {
+        record(new AuditEvent("query", title, author, available, results));
+    }
+
+    /** @return events discarded so far (buffer full or write failed) */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    private void record(AuditEvent event) {
+        if (!enabled || closed) {
+            return;
+        }
+        if (overflow == Overflow.BLOCK) {
+            try {
+                // Not put(): nothing would wake us once the writer has exited
+                while (!closed) {
+                    if (buffer.offer(event, BLOCK_RECHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (buffer.offer(event)) {
+            return;
+        }
+        drop(1);
+    }
+
+    private void drop(int count) {
+        dropped.add(count);
+        DROPPED_COUNTER.increment(count);
+    }
+
+    // ---------------------------------------------------------------
+    // Writer thread
+    // ---------------------------------------------------------------
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder json = new StringBuilder(BATCH_SIZE * 128);
+        boolean failing = false;
+        try (FileChannel channel = open()) {
+            while (!closed || !buffer.isEmpty()) {
+                AuditEvent first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+                json.setLength(0);
+                for (AuditEvent event : batch) {
+                    event.appendJson(json);
+                }
+                try {
+                    ByteBuffer bytes = ByteBuffer.wrap(json.toString().getBytes(StandardCharsets.UTF_8));
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes);
+                    }
+                    failing = false;
+                } catch (IOException e) {
+                    // Keep serving; log once per run of failures
+                    if (!failing) {
+                        log.error("AUDIT – could not write to {}; dropping events until it recovers", file, e);
+                        failing = true;
+                    }
+                    drop(batch.size());
+                }
+                batch.clear();
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            log.error("AUDIT – could not open {}; audit events are dropped", file.toAbsolutePath(), e);
+            closed = true;
+            // Frees requests blocked on a full buffer; they see closed and give up
+            drop(buffer.drainTo(new ArrayList<>()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+}
@@ -1,10 +1,21 @@
 package com.teenread.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.teenread.model.Book;
+import com.teenread.model.BookChanges;
+import com.teenread.model.BookPage;
 import com.teenread.service.BookService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -15,8 +26,19 @@ import java.util.Map;
  *
  * Sprint 1 endpoints:
  *   GET /api/books              – US1: browse all books
+ *   GET /api/books/page         – keyset-paginated catalogue (limit + afterId)
+ *   GET /api/books/stream       – whole catalogue as NDJSON, streamed book by book
+ *   GET /api/books/changes      – change feed: books changed since a sequence number
  *   GET /api/books/search       – US2: search books by title keyword
  *
+ * Search improvements:
+ *   GET /api/books/query        – combined title / author / availability query
+ *   GET /api/books/suggest      – type-ahead completions for the search box
+ *
+ * Conditional requests: /api/books, /search and /query answer with a strong
+ * ETag derived from the catalogue version (see ETags). A matching
+ * If-None-Match gets an empty 304 before any book is read or serialised.
+ *
  * @RestController = @Controller + @ResponseBody (all methods return JSON automatically)
  * @RequestMapping sets the base URL prefix for all methods in this class
  * @CrossOrigin allows the frontend served on the same origin to call these endpoints
@@ -26,17 +48,25 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 
 public class BookController {
+    /** Media type of the streaming endpoint: one JSON object per line */
+    public static final String NDJSON = "application/x-ndjson";
+
     // Service bean injected via constructor injection
     private final BookService bookService;
 
+    // Spring's shared Jackson mapper, used to write streamed books
+    private final ObjectMapper objectMapper;
+
     /**
      * Spring injects BookService automatically because there is exactly one
      * constructor and BookService is a registered @Service bean.
      *
-     * @param bookService the book business-logic service
+     * @param bookService  the book business-logic service
+     * @param objectMapper Jackson mapper for the streaming endpoint
      */
-    public BookController(BookService bookService) {
-        this.bookService = bookService;
+    public BookController(BookService bookService, ObjectMapper objectMapper) {
+        this.bookService  = bookService;
+        this.objectMapper = objectMapper;
     }
 
     // ---------------------------------------------------------------
@@ -50,14 +80,95 @@ public class BookController {
      * Frontend calls this on page load to populate the book list.
      * <p>
      * Response 200 OK with body: [ { id, title, author, available }, … ]
+     * Response 304 Not Modified when If-None-Match holds the current ETag
+     *
+     * @param ifNoneMatch ETag(s) of the client's cached copy (optional)
      */
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
+    public ResponseEntity<List<Book>> getAllBooks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Version first, books second: the tag may be older than the body, never newer
+        String etag = ETags.of("c", bookService.catalogueVersion());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag, ETags.CATALOGUE_CACHING).build();
+        }
+
         // Ask the service for all books
         List<Book> books = bookService.getAllBooks();
 
         // Wrap in 200 OK response; Spring Jackson serialises List<Book> to JSON array
-        return ResponseEntity.ok(books);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(ETags.CATALOGUE_CACHING)
+                .body(books);
+    }
+
+    /**
+     * GET /api/books/page?limit=…&afterId=…
+     * <p>
+     * Keyset pagination: pass the previous response's nextAfterId as afterId.
+     * Response 200: { "books": [...], "nextAfterId": 50 } (nextAfterId null on the last page)
+     * Response 400: invalid limit or unknown cursor (via GlobalExceptionHandler)
+     *
+     * @param limit   page size (default 50, capped at BookService.MAX_PAGE_SIZE)
+     * @param afterId cursor from the previous page (optional)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<BookPage> getPage(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) Long afterId) {
+        return ResponseEntity.ok(bookService.getPage(afterId, limit));
+    }
+
+    /**
+     * GET /api/books/changes?since=…&limit=…
+     * <p>
+     * Change feed: the books saved or imported since the client's cursor, so
+     * a client keeps its copy of the catalogue current without downloading it again.
+     * Response 200: { "sequence": 42, "resync": false, "more": false, "changes": [...] }
+     * – pass sequence back as since; on "resync": true reload /api/books first.
+     * Without since the reply is a resync with the current sequence.
+     * Response 400: invalid limit (via GlobalExceptionHandler)
+     *
+     * @param since sequence from the previous reply (optional)
+     * @param limit most changes per reply (default and cap BookService.MAX_CHANGES)
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<BookChanges> getChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "" + BookService.MAX_CHANGES) int limit) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(bookService.getChanges(since, limit));
+    }
+
+    /**
+     * GET /api/books/stream
+     * <p>
+     * Writes every book straight to the response as newline-delimited JSON
+     * (one { id, title, author, available } object per line). Nothing
+     * proportional to the catalogue size is held in memory.
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamBooks() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory()
+                    .createGenerator(new BufferedOutputStream(out))) {
+                // One object per line: no separator between root values except our newline
+                generator.setRootValueSeparator(null);
+                bookService.forEachBook(book -> {
+                    try {
+                        generator.writeObject(book);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 
     // ---------------------------------------------------------------
@@ -69,13 +180,16 @@ public class BookController {
      * <p>
      * Response 200: { "results": [...], "message": "Found X book(s)…" }
      * Response 400: { "message": "Please enter a search term." }
+     * Response 304 Not Modified when If-None-Match holds the current ETag
      *
-     * @param keyword partial title to match (query parameter, optional)
+     * @param keyword     partial title to match (query parameter, optional)
+     * @param ifNoneMatch ETag(s) of the client's cached copy (optional)
      */
 
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchBooks(
-            @RequestParam(required = false) String keyword) {
+            @RequestParam(required = false) String keyword,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         // --- US6: input validation feedback ---
         // If no keyword provided or blank, return a 400 with a clear message
@@ -84,6 +198,12 @@ public class BookController {
                     .body(Map.of("message", "Please enter a search term."));
         }
 
+        // The URL carries the keyword, so the catalogue version identifies the result
+        String etag = ETags.of("c", bookService.catalogueVersion());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag, ETags.CATALOGUE_CACHING).build();
+        }
+
         // Delegate search to the service layer
         List<Book> results = bookService.searchByTitle(keyword);
 
@@ -92,6 +212,65 @@ public class BookController {
                 ? "No results found for '" + keyword.trim() + "'. Try a different title."
                 : "Found " + results.size() + " book(s) matching '" + keyword.trim() + "'.";
 
-        return ResponseEntity.ok(Map.of("results", results, "message", message));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(ETags.CATALOGUE_CACHING)
+                .body(Map.of("results", results, "message", message));
+    }
+
+    // ---------------------------------------------------------------
+    // Author + multi-field query
+    // ---------------------------------------------------------------
+
+    /**
+     * GET /api/books/query?title=…&author=…&available=…
+     * <p>
+     * All parameters are optional but at least one must be given.
+     * Response 200: { "results": [...], "message": "Found X book(s)." }
+     * Response 400: { "error": "Bad Request", "message": "…" } (via GlobalExceptionHandler)
+     * Response 304 Not Modified when If-None-Match holds the current ETag
+     */
+    @GetMapping("/query")
+    public ResponseEntity<Map<String, Object>> queryBooks(
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) Boolean available,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        String etag = ETags.of("c", bookService.catalogueVersion());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag, ETags.CATALOGUE_CACHING).build();
+        }
+
+        List<Book> results = bookService.query(title, author, available);
+
+        String message = results.isEmpty()
+                ? "No books match your search. Try different criteria."
+                : "Found " + results.size() + " book(s).";
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(ETags.CATALOGUE_CACHING)
+                .body(Map.of("results", results, "message", message));
+    }
+
+    // ---------------------------------------------------------------
+    // Autocomplete
+    // ---------------------------------------------------------------
+
+    /**
+     * GET /api/books/suggest?prefix=…&limit=…
+     * <p>
+     * Completes the last word of the search-box text from title and author words.
+     * Response 200: [ "Hunger", "Hunters", … ] (empty array for blank input)
+     *
+     * @param prefix what the user has typed so far (optional)
+     * @param limit  maximum suggestions, default 5
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggest(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(bookService.suggest(prefix, limit));
     }
 }
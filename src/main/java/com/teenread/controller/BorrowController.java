@@ -1,7 +1,9 @@
 package com.teenread.controller;
 
 import com.teenread.model.BorrowedBook;
+import com.teenread.model.LoanHistoryEntry;
 import com.teenread.service.BorrowService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,7 +17,12 @@ import java.util.Map;
  *
  * Endpoints:
  *   POST /api/borrow/{bookId}   – borrow a book (US3)
- *   GET  /api/borrow/my-books   – list all borrowed books (US4)
+ *   POST /api/borrow/{bookId}/return – return a borrowed book
+ *   GET  /api/borrow/my-books   – list the caller's borrowed books (US4)
+ *   GET  /api/borrow/history    – the caller's returned books, newest first
+ *
+ * The caller is identified by the optional X-User-Id header; requests
+ * without it act as the shared guest user.
  *
  * Error handling is centralised in GlobalExceptionHandler.
  * This controller stays thin – no try/catch blocks needed here.
@@ -26,6 +33,9 @@ import java.util.Map;
 
 public class BorrowController {
 
+    /** Request header carrying the caller's user id */
+    public static final String USER_HEADER = "X-User-Id";
+
     private final BorrowService borrowService;
 
     /**
@@ -51,12 +61,15 @@ public class BorrowController {
      * by GlobalExceptionHandler so this method stays clean.
      *
      * @param bookId path variable identifying the book to borrow
+     * @param userId caller's user id from the X-User-Id header (optional)
      * @return 200 OK with BorrowedBook JSON + feedback message
      */
     @PostMapping("/{bookId}")
-    public ResponseEntity<Map<String, Object>> borrowBook(@PathVariable Long bookId) {
+    public ResponseEntity<Map<String, Object>> borrowBook(
+            @PathVariable Long bookId,
+            @RequestHeader(value = USER_HEADER, required = false) String userId) {
         // Delegate to service – exceptions bubble up to GlobalExceptionHandler
-        BorrowedBook record = borrowService.borrowBook(bookId);
+        BorrowedBook record = borrowService.borrowBook(bookId, userId);
 
         // US6: success message shown to the user
         String message = "You borrowed '" + record.getTitle() +
@@ -68,6 +81,35 @@ public class BorrowController {
         ));
     }
 
+    // ---------------------------------------------------------------
+    // Return a book
+    // ---------------------------------------------------------------
+
+    /**
+     * POST /api/borrow/{bookId}/return
+     *
+     * Returns the book identified by {bookId}, making it available again.
+     * Errors (not on loan, borrowed by someone else) are mapped to 400
+     * by GlobalExceptionHandler.
+     *
+     * @param bookId path variable identifying the book to return
+     * @param userId caller's user id from the X-User-Id header (optional)
+     * @return 200 OK with the ended loan + feedback message
+     */
+    @PostMapping("/{bookId}/return")
+    public ResponseEntity<Map<String, Object>> returnBook(
+            @PathVariable Long bookId,
+            @RequestHeader(value = USER_HEADER, required = false) String userId) {
+        BorrowedBook loan = borrowService.returnBook(bookId, userId);
+
+        String message = "You returned '" + loan.getTitle() + "'. Thanks for reading!";
+
+        return ResponseEntity.ok(Map.of(
+                "returnedBook", loan,
+                "message",      message
+        ));
+    }
+
     // ---------------------------------------------------------------
     // US4 – View borrowed books
     // ---------------------------------------------------------------
@@ -75,11 +117,42 @@ public class BorrowController {
     /**
      * GET /api/borrow/my-books
      *
-     * Returns the list of all borrow records for the "My Books" section.
-     * Response: 200 OK [ { bookId, title, author, dueDate }, … ]
+     * Returns the caller's borrow records for the "My Books" section.
+     * Response: 200 OK [ { bookId, userId, title, author, dueDate }, … ]
+     * Response: 304 Not Modified when If-None-Match holds the current ETag
+     * (per user: the response is private and varies by X-User-Id)
+     *
+     * @param userId      caller's user id from the X-User-Id header (optional)
+     * @param ifNoneMatch ETag(s) of the client's cached copy (optional)
      */
     @GetMapping("/my-books")
-    public ResponseEntity<List<BorrowedBook>> getMyBooks() {
-        return ResponseEntity.ok(borrowService.getMyBooks());
+    public ResponseEntity<List<BorrowedBook>> getMyBooks(
+            @RequestHeader(value = USER_HEADER, required = false) String userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ETags.of("l", borrowService.getMyBooksVersion(userId));
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag, ETags.PRIVATE_CACHING).varyBy(USER_HEADER).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(ETags.PRIVATE_CACHING)
+                .varyBy(USER_HEADER)
+                .body(borrowService.getMyBooks(userId));
+    }
+
+    /**
+     * GET /api/borrow/history?limit=20
+     *
+     * Returns the caller's returned books, newest first.
+     * Response: 200 OK [ { bookId, userId, dueDate, returnDate, late }, … ]
+     *
+     * @param userId caller's user id from the X-User-Id header (optional)
+     * @param limit  maximum entries (1..100, default 20)
+     */
+    @GetMapping("/history")
+    public ResponseEntity<List<LoanHistoryEntry>> getHistory(
+            @RequestHeader(value = USER_HEADER, required = false) String userId,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(borrowService.getHistory(userId, limit));
     }
 }
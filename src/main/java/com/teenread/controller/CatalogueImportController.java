@@ -0,0 +1,87 @@
+package com.teenread.controller;
+
+import com.teenread.importer.CatalogueFormat;
+import com.teenread.model.ImportResult;
+import com.teenread.service.CatalogueImportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * REST controller for bulk catalogue imports.
+ *
+ *   POST /api/books/import?format=csv|ndjson – request body is the feed
+ *
+ * The body is streamed straight into the import pipeline, so feeds of
+ * millions of rows never sit in memory whole. The catalogue keeps serving
+ * reads while the import runs.
+ *
+ * An import replaces catalogue data, so the endpoint is off unless
+ * app.import.http-token is set (404 otherwise), and then requires that token
+ * in the X-Import-Token header (403 otherwise). It allows no cross-origin
+ * calls: a page on another site cannot drive it from a reader's browser.
+ */
+@RestController
+@RequestMapping("/api/books")
+
+public class CatalogueImportController {
+
+    /** Request header carrying the import token */
+    public static final String TOKEN_HEADER = "X-Import-Token";
+
+    private final CatalogueImportService importService;
+
+    // Empty when HTTP imports are disabled
+    private final byte[] token;
+
+    /**
+     * @param importService the bulk import pipeline
+     * @param token         app.import.http-token – shared secret for HTTP imports
+     *                      (blank = disabled)
+     */
+    public CatalogueImportController(CatalogueImportService importService,
+                                     @Value("${app.import.http-token:}") String token) {
+        this.importService = importService;
+        this.token = token.strip().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * POST /api/books/import?format=csv
+     * <p>
+     * Imports the request body. Unknown formats, a CSV header without
+     * id/title/author and an import already in progress are mapped to 400
+     * by GlobalExceptionHandler; individual bad rows are reported in the result.
+     * <p>
+     * Response 200 OK: { rows, imported, rejected, errors, elapsedMillis, rowsPerSecond }
+     * Response 404 / 403: { "error", "message" } – imports disabled / wrong token;
+     * the body is not read.
+     *
+     * @param format      feed format, csv (default) or ndjson
+     * @param importToken the X-Import-Token header
+     * @param feed        raw request body
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importCatalogue(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = TOKEN_HEADER, required = false) String importToken,
+            InputStream feed) {
+        if (token.length == 0) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "error",   "Not Found",
+                    "message", "HTTP imports are disabled; set app.import.http-token to enable them."));
+        }
+        // Constant-time comparison, so response timing does not leak the token
+        if (importToken == null || !MessageDigest.isEqual(token, importToken.strip().getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of(
+                    "error",   "Forbidden",
+                    "message", "A valid " + TOKEN_HEADER + " header is required."));
+        }
+        return ResponseEntity.ok(importService.importCatalogue(feed, CatalogueFormat.of(format)));
+    }
+}
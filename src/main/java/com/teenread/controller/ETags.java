@@ -0,0 +1,74 @@
+package com.teenread.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Strong ETags built from repository version numbers, checked before any
+ * result is computed.
+ *
+ * A tag is kind + epoch + "-" + version, e.g. "clk3j9x2a-42" (kind c,
+ * epoch lk3j9x2a, version 42). Versions restart at zero with the process, so the epoch (this
+ * process's start time) keeps a tag from an earlier run from ever matching
+ * a later one.
+ *
+ * Responses carry Cache-Control: no-cache – clients and caches may store
+ * them but must revalidate every time, which costs a version read and an
+ * empty 304 while nothing has changed.
+ */
+final class ETags {
+
+    /** Catalogue responses may be stored by shared caches */
+    static final CacheControl CATALOGUE_CACHING = CacheControl.noCache();
+
+    /** Per-user responses may only be stored by the user's own client */
+    static final CacheControl PRIVATE_CACHING = CacheControl.noCache().cachePrivate();
+
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETags() {
+    }
+
+    /**
+     * @param kind    one letter naming the version's source, e.g. "c" for the catalogue
+     * @param version the source's current version
+     * @return the quoted entity tag
+     */
+    static String of(String kind, long version) {
+        return "\"" + kind + EPOCH + "-" + version + '"';
+    }
+
+    /**
+     * If-None-Match comparison (weak, as RFC 9110 requires for it): true if
+     * the header lists the tag, with or without W/, or is "*".
+     *
+     * @param ifNoneMatch the request's If-None-Match header, possibly null
+     * @param etag        the current tag
+     * @return true if the client's copy is current
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return a 304 carrying the tag and caching policy, ready to build()
+     */
+    static ResponseEntity.BodyBuilder notModified(String etag, CacheControl caching) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(caching);
+    }
+}
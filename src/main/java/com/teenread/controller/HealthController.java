@@ -17,7 +17,13 @@ import java.util.Map;
  *   - status:       always "UP" while the JVM is running
  *   - timestamp:    current server date-time (ISO-8601)
  *   - totalBooks:   total books in the catalogue
+ *   - availableBooks: books currently on the shelf
  *   - borrowedBooks: number of active borrow records
+ *   - overdueBooks: active borrow records past their due date
+ *
+ * Load balancers poll this every second, so every figure comes from a live
+ * counter kept by the repositories: the cost of a probe does not depend on
+ * the size of the catalogue or the number of loans.
  *
  * No authentication required – this is a simple internal readiness probe.
  * In production this would be replaced by Spring Boot Actuator.
@@ -27,10 +33,10 @@ import java.util.Map;
 
 public class HealthController {
 
-    /** Used to count total books in the catalogue */
+    /** Used to count total and available books in the catalogue */
     private final BookRepository bookRepository;
 
-    /** Used to count active borrow records */
+    /** Used to count active and overdue borrow records */
     private final BorrowedBookRepository borrowedBookRepository;
 
     /**
@@ -60,21 +66,29 @@ public class HealthController {
      *   "status":       "UP",
      *   "timestamp":    "2024-03-15T14:30:00",
      *   "totalBooks":   12,
-     *   "borrowedBooks": 2
+     *   "availableBooks": 10,
+     *   "borrowedBooks": 2,
+     *   "overdueBooks": 0
      * }
      */
     @GetMapping
     public ResponseEntity<Map<String, Object>> health() {
-        // Collect metrics from both repositories
-        int totalBooks   = bookRepository.findAll().size();
-        int borrowedCount = borrowedBookRepository.count();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Collect metrics from both repositories (O(1) counters, nothing is copied)
+        long totalBooks     = bookRepository.count();
+        long availableBooks = bookRepository.countAvailable();
+        int borrowedCount   = borrowedBookRepository.count();
+        long overdueCount   = borrowedBookRepository.countOverdue(now.toLocalDate());
 
         // Build the response map
         Map<String, Object> payload = Map.of(
-                "status",        "UP",
-                "timestamp",     LocalDateTime.now().toString(),
-                "totalBooks",    totalBooks,
-                "borrowedBooks", borrowedCount
+                "status",         "UP",
+                "timestamp",      now.toString(),
+                "totalBooks",     totalBooks,
+                "availableBooks", availableBooks,
+                "borrowedBooks",  borrowedCount,
+                "overdueBooks",   overdueCount
         );
 
         return ResponseEntity.ok(payload);
@@ -0,0 +1,323 @@
+package com.teenread.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenread.model.Book;
+import com.teenread.model.BookPage;
+import com.teenread.service.AvailabilityBroadcaster;
+import com.teenread.service.BookService;
+import com.teenread.service.RecommendationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Non-blocking variant of the catalogue, search and recommendation endpoints,
+ * for large numbers of slow clients.
+ *
+ * Base path: /api/reactive
+ *   GET /api/reactive/books                                  – whole catalogue
+ *   GET /api/reactive/books/search?keyword=…                 – title search
+ *   GET /api/reactive/books/query?title=…&author=…&available=… – combined query
+ *   GET /api/reactive/recommendations                        – recommended books
+ *   GET /api/reactive/availability                           – live availability changes (SSE)
+ *
+ * Each endpoint answers with a stream of { id, title, author, available }
+ * in the first format the Accept header allows:
+ *   application/json     – one JSON array, encoded book by book (default)
+ *   application/x-ndjson – one book per line, flushed as it is written
+ *   text/event-stream    – one server-sent event per book
+ *
+ * The routes are WebFlux functional endpoints, served by the same Tomcat
+ * through ServletHttpHandlerAdapter, which uses Servlet non-blocking I/O:
+ * no thread is held while a client is slow to read. A book is requested
+ * from its source only once the earlier ones have been written, so
+ * backpressure reaches the repository – the catalogue is pulled one keyset
+ * page (CURSOR_PAGE books) at a time, and a connection holds at most one
+ * page however slowly it reads.
+ *
+ * /availability is a never-ending text/event-stream fed by
+ * AvailabilityBroadcaster. Events:
+ *   event: availability  id: <sequence>  data: { "sequence", "changes": [ { "id", "available" } ] }
+ *   event: resync        id: <sequence>  data: { "sequence", "changes": [] } – reload the catalogue
+ *   : keep-alive         (comment, while idle)
+ * The first event is sent at once: the current sequence, or – when the
+ * browser reconnects with Last-Event-ID – every change it missed since.
+ * Each subscriber holds one connection for as long as its page is open, so
+ * server.tomcat.max-connections (50,000 in application.properties) bounds
+ * the open pages, not the request rate.
+ *
+ * Repository calls are in-memory and short, so they run on whichever Tomcat
+ * thread reported the socket writable rather than on a separate scheduler.
+ *
+ * Errors match GlobalExceptionHandler: bad input → 400 { "error", "message" }.
+ */
+@Configuration
+
+public class ReactiveCatalogueEndpoints {
+    /** Path the reactive endpoints are served under */
+    public static final String BASE_PATH = "/api/reactive";
+
+    /** Books fetched per repository call while streaming the catalogue */
+    static final int CURSOR_PAGE = 256;
+
+    /** Offered response formats, in order of preference */
+    private static final List<MediaType> STREAM_TYPES = List.of(
+            MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveCatalogueEndpoints.class);
+
+    private final BookService bookService;
+    private final RecommendationService recommendationService;
+    private final AvailabilityBroadcaster broadcaster;
+
+    /**
+     * @param bookService           catalogue and search logic
+     * @param recommendationService recommendation logic
+     * @param broadcaster           source of pushed availability changes
+     */
+    public ReactiveCatalogueEndpoints(BookService bookService,
+                                      RecommendationService recommendationService,
+                                      AvailabilityBroadcaster broadcaster) {
+        this.bookService           = bookService;
+        this.recommendationService = recommendationService;
+        this.broadcaster           = broadcaster;
+    }
+
+    // ---------------------------------------------------------------
+    // Wiring
+    // ---------------------------------------------------------------
+
+    /**
+     * Mounts the routes on Tomcat as an async servlet at BASE_PATH/*, next to
+     * Spring MVC's DispatcherServlet.
+     *
+     * @param objectMapper Spring's shared Jackson mapper, so books serialise
+     *                     exactly as on the MVC endpoints
+     */
+    @Bean
+    public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveEndpointsServlet(ObjectMapper objectMapper) {
+        HttpHandler handler = RouterFunctions.toHttpHandler(routes(), strategies(objectMapper));
+        ServletRegistrationBean<ServletHttpHandlerAdapter> registration =
+                new ServletRegistrationBean<>(new ServletHttpHandlerAdapter(handler), BASE_PATH + "/*");
+        registration.setName("reactiveEndpoints");
+        registration.setAsyncSupported(true);
+        registration.setLoadOnStartup(1);
+        return registration;
+    }
+
+    /**
+     * @param objectMapper mapper used for JSON, NDJSON and SSE payloads
+     * @return codecs plus the CORS filter (any origin, as @CrossOrigin on the MVC controllers)
+     */
+    static HandlerStrategies strategies(ObjectMapper objectMapper) {
+        UrlBasedCorsConfigurationSource cors = new UrlBasedCorsConfigurationSource();
+        cors.registerCorsConfiguration("/**", new CorsConfiguration().applyPermitDefaultValues());
+        return HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .webFilter(new CorsWebFilter(cors))
+                .build();
+    }
+
+    /**
+     * @return the routes, relative to BASE_PATH
+     */
+    RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/books", this::allBooks)
+                .GET("/books/search", this::searchByTitle)
+                .GET("/books/query", this::query)
+                .GET("/recommendations", this::recommendations)
+                .GET("/availability", this::availability)
+                .onError(IllegalArgumentException.class, ReactiveCatalogueEndpoints::badRequest)
+                .onError(IllegalStateException.class, ReactiveCatalogueEndpoints::badRequest)
+                .build();
+    }
+
+    // ---------------------------------------------------------------
+    // Handlers
+    // ---------------------------------------------------------------
+
+    private Mono<ServerResponse> allBooks(ServerRequest request) {
+        return stream(request, catalogue());
+    }
+
+    private Mono<ServerResponse> searchByTitle(ServerRequest request) {
+        String keyword = request.queryParam("keyword").orElse(null);
+        // Searched before the response starts, so a bad keyword can still become a 400
+        return Mono.fromCallable(() -> bookService.searchByTitle(keyword))
+                .flatMap(results -> stream(request, Flux.fromIterable(results)));
+    }
+
+    private Mono<ServerResponse> query(ServerRequest request) {
+        return Mono.fromCallable(() -> bookService.query(
+                        request.queryParam("title").orElse(null),
+                        request.queryParam("author").orElse(null),
+                        parseAvailable(request.queryParam("available").orElse(null))))
+                .flatMap(results -> stream(request, Flux.fromIterable(results)));
+    }
+
+    private Mono<ServerResponse> recommendations(ServerRequest request) {
+        return Mono.fromCallable(recommendationService::getRecommendations)
+                .flatMap(results -> stream(request, Flux.fromIterable(results)));
+    }
+
+    private Mono<ServerResponse> availability(ServerRequest request) {
+        String lastEventId = request.headers().firstHeader("Last-Event-ID");
+        // Live updates are subscribed first: one flushed before the starting
+        // point is read then arrives ahead of it, and the newer state wins
+        Flux<ServerSentEvent<String>> events = Flux.merge(
+                        broadcaster.updates(),
+                        Mono.fromCallable(() -> startingPoint(lastEventId)))
+                .map(ReactiveCatalogueEndpoints::toEvent);
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(events));
+    }
+
+    /**
+     * The whole catalogue as a cold, demand-driven stream: each subscriber
+     * walks its own keyset cursor, and a page is fetched only when the
+     * previous one has been consumed.
+     *
+     * @return every book in catalogue order
+     */
+    Flux<Book> catalogue() {
+        return Flux.generate(CatalogueCursor::new, (cursor, sink) -> {
+            Book next = cursor.next();
+            if (next == null) {
+                sink.complete();
+            } else {
+                sink.next(next);
+            }
+            return cursor;
+        });
+    }
+
+    // ---------------------------------------------------------------
+    // Helpers
+    // ---------------------------------------------------------------
+
+    private static Mono<ServerResponse> stream(ServerRequest request, Flux<Book> books) {
+        return ServerResponse.ok()
+                .contentType(negotiate(request.headers().accept()))
+                .body(books, Book.class);
+    }
+
+    /**
+     * @param accepted media types from the Accept header, in header order
+     * @return the first offered stream format an accepted type allows;
+     *         JSON when the header is absent or allows none of them
+     */
+    static MediaType negotiate(List<MediaType> accepted) {
+        for (MediaType type : accepted) {
+            for (MediaType offered : STREAM_TYPES) {
+                if (type.includes(offered)) {
+                    return offered;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * @param lastEventId the browser's Last-Event-ID header, null on a first connect
+     * @return the current sequence, or what the client missed since its last event
+     */
+    private AvailabilityBroadcaster.Update startingPoint(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return broadcaster.current();
+        }
+        try {
+            return broadcaster.catchUp(Long.parseLong(lastEventId.trim()));
+        } catch (NumberFormatException e) {
+            return broadcaster.catchUp(-1); // no such sequence: resync
+        }
+    }
+
+    static ServerSentEvent<String> toEvent(AvailabilityBroadcaster.Update update) {
+        return switch (update.kind()) {
+            case HEARTBEAT -> ServerSentEvent.<String>builder().comment("keep-alive").build();
+            case CHANGES -> ServerSentEvent.builder(update.json())
+                    .id(Long.toString(update.sequence()))
+                    .event("availability")
+                    .build();
+            case RESYNC -> ServerSentEvent.builder(update.json())
+                    .id(Long.toString(update.sequence()))
+                    .event("resync")
+                    .build();
+        };
+    }
+
+    /**
+     * @throws IllegalArgumentException for anything but true / false (as MVC's binder)
+     */
+    private static Boolean parseAvailable(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true"  -> Boolean.TRUE;
+            case "false" -> Boolean.FALSE;
+            default -> throw new IllegalArgumentException("available must be true or false, not '" + value + "'");
+        };
+    }
+
+    private static Mono<ServerResponse> badRequest(Throwable error, ServerRequest request) {
+        log.warn("Bad request: {}", error.getMessage());
+        return ServerResponse.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("error", "Bad Request", "message", error.getMessage()));
+    }
+
+    /** Keyset cursor over the catalogue, holding at most one page. */
+    private final class CatalogueCursor {
+        private Iterator<Book> page = Collections.emptyIterator();
+        private Long afterId;
+        private boolean lastPage;
+
+        /** @return the next book, or null past the end of the catalogue */
+        Book next() {
+            if (!page.hasNext()) {
+                if (lastPage) {
+                    return null;
+                }
+                BookPage next = bookService.getPage(afterId, CURSOR_PAGE);
+                afterId  = next.getNextAfterId();
+                lastPage = afterId == null;
+                page     = next.getBooks().iterator();
+                if (!page.hasNext()) {
+                    return null;
+                }
+            }
+            return page.next();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.teenread.importer;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Input formats accepted by the bulk catalogue import.
+ *
+ *   CSV    – a header row naming the columns (id, title, author and
+ *            optionally available, in any order), then one book per row;
+ *            fields may be double-quoted, with "" for a literal quote
+ *   NDJSON – one JSON object per line: {"id":1,"title":"…","author":"…","available":true}
+ *
+ * "available" defaults to true when absent.
+ */
+public enum CatalogueFormat {
+    CSV,
+    NDJSON;
+
+    /**
+     * @param name "csv" or "ndjson" (any case)
+     * @return the format
+     * @throws IllegalArgumentException if the name is not a supported format
+     */
+    public static CatalogueFormat of(String name) {
+        if (name != null) {
+            for (CatalogueFormat format : values()) {
+                if (format.name().equalsIgnoreCase(name.trim())) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + name + " (use csv or ndjson).");
+    }
+
+    /**
+     * Picks the format from a file extension: .ndjson and .jsonl are NDJSON,
+     * anything else is CSV.
+     *
+     * @param file feed file
+     * @return the format
+     */
+    public static CatalogueFormat forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") ? NDJSON : CSV;
+    }
+}
@@ -0,0 +1,84 @@
+package com.teenread.importer;
+
+import com.teenread.model.ImportResult;
+import com.teenread.repository.BookRepository;
+import com.teenread.service.CatalogueImportService;
+import com.teenread.storage.CatalogueFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command-line import, run once the application has started:
+ *
+ *   --import.file=books.csv            feed to import (.ndjson/.jsonl = NDJSON, else CSV)
+ *   --import.format=csv|ndjson         overrides the format guessed from the extension
+ *   --import.catalogue-out=books.bin   afterwards, write the whole catalogue as a
+ *                                      memory-mappable file for app.catalogue.file
+ *
+ * The web server is already up, so the catalogue serves reads during the
+ * import. For an offline conversion add
+ * {@code --spring.main.web-application-type=none --app.persistence.enabled=false};
+ * the process then exits when the runner is done.
+ *
+ * Does nothing without --import.file.
+ */
+@Component
+
+public class CatalogueImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogueImportRunner.class);
+
+    private final CatalogueImportService importService;
+    private final BookRepository bookRepository;
+
+    /**
+     * @param importService  the bulk import pipeline
+     * @param bookRepository catalogue written by --import.catalogue-out
+     */
+    public CatalogueImportRunner(CatalogueImportService importService, BookRepository bookRepository) {
+        this.importService  = importService;
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * @throws java.io.IOException if the feed cannot be read or the catalogue file written;
+     *         like any runner failure, this stops the application
+     */
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String file = option(args, "import.file");
+        if (file == null) {
+            return;
+        }
+        Path feed = Path.of(file);
+        String formatName = option(args, "import.format");
+        CatalogueFormat format = formatName == null ? CatalogueFormat.forFile(feed) : CatalogueFormat.of(formatName);
+
+        log.info("IMPORT – importing {} as {}", feed.toAbsolutePath(), format);
+        ImportResult result;
+        try (InputStream in = Files.newInputStream(feed)) {
+            result = importService.importCatalogue(in, format);
+        }
+        result.getErrors().forEach(error -> log.warn("IMPORT – rejected {}", error));
+
+        String out = option(args, "import.catalogue-out");
+        if (out != null) {
+            Path target = Path.of(out);
+            CatalogueFile.write(target, bookRepository.findAll());
+            log.info("IMPORT – catalogue file written to {}", target.toAbsolutePath());
+        }
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(values.size() - 1);
+    }
+}
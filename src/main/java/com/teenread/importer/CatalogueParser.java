@@ -0,0 +1,178 @@
+package com.teenread.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenread.model.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Turns one line of a catalogue feed into a Book.
+ *
+ * Immutable once built, so a single parser is shared by every import
+ * worker thread.
+ */
+public final class CatalogueParser {
+
+    private final CatalogueFormat format;
+    private final ObjectMapper objectMapper;
+
+    // CSV column positions from the header row; available is -1 if absent
+    private final int idColumn;
+    private final int titleColumn;
+    private final int authorColumn;
+    private final int availableColumn;
+
+    private CatalogueParser(CatalogueFormat format, ObjectMapper objectMapper,
+                            int idColumn, int titleColumn, int authorColumn, int availableColumn) {
+        this.format          = format;
+        this.objectMapper    = objectMapper;
+        this.idColumn        = idColumn;
+        this.titleColumn     = titleColumn;
+        this.authorColumn    = authorColumn;
+        this.availableColumn = availableColumn;
+    }
+
+    /**
+     * CSV parser for the columns named by a header row.
+     *
+     * @param header first line of the feed
+     * @return parser for the following rows
+     * @throws IllegalArgumentException if id, title or author is missing from the header
+     */
+    public static CatalogueParser csv(String header) {
+        List<String> columns = splitCsv(header).stream()
+                .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int id = columns.indexOf("id");
+        int title = columns.indexOf("title");
+        int author = columns.indexOf("author");
+        if (id < 0 || title < 0 || author < 0) {
+            throw new IllegalArgumentException("CSV header must name the columns id, title and author.");
+        }
+        return new CatalogueParser(CatalogueFormat.CSV, null, id, title, author, columns.indexOf("available"));
+    }
+
+    /**
+     * NDJSON parser.
+     *
+     * @param objectMapper Jackson mapper used to read each line
+     * @return parser for NDJSON lines
+     */
+    public static CatalogueParser ndjson(ObjectMapper objectMapper) {
+        return new CatalogueParser(CatalogueFormat.NDJSON, objectMapper, -1, -1, -1, -1);
+    }
+
+    /**
+     * Parses and validates one row.
+     *
+     * @param line a non-blank line of the feed
+     * @return the book it describes
+     * @throws IllegalArgumentException if the row is malformed or a field is invalid
+     */
+    public Book parse(String line) {
+        return format == CatalogueFormat.CSV ? parseCsv(line) : parseJson(line);
+    }
+
+    // ---------------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------------
+
+    private Book parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        int required = Math.max(idColumn, Math.max(titleColumn, authorColumn));
+        if (fields.size() <= required) {
+            throw new IllegalArgumentException("Expected at least " + (required + 1)
+                    + " fields but found " + fields.size() + ".");
+        }
+        String available = availableColumn >= 0 && availableColumn < fields.size()
+                ? fields.get(availableColumn).trim() : "";
+        return book(fields.get(idColumn).trim(), fields.get(titleColumn), fields.get(authorColumn),
+                available.isEmpty() ? null : available);
+    }
+
+    private Book parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object.");
+        }
+        JsonNode available = node.get("available");
+        return book(node.path("id").asText(""), text(node, "title"), text(node, "author"),
+                available == null || available.isNull() ? null : available.asText());
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? "" : value.asText();
+    }
+
+    /** Validates the raw field values and builds the book. */
+    private static Book book(String id, String title, String author, String available) {
+        long parsedId;
+        try {
+            parsedId = Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id: '" + id + "'.");
+        }
+        if (parsedId <= 0) {
+            throw new IllegalArgumentException("Id must be positive: " + parsedId + ".");
+        }
+        if (title.isBlank()) {
+            throw new IllegalArgumentException("Title must not be blank.");
+        }
+        if (author.isBlank()) {
+            throw new IllegalArgumentException("Author must not be blank.");
+        }
+        boolean isAvailable = true;
+        if (available != null) {
+            if (!available.equalsIgnoreCase("true") && !available.equalsIgnoreCase("false")) {
+                throw new IllegalArgumentException("available must be true or false, not '" + available + "'.");
+            }
+            isAvailable = Boolean.parseBoolean(available);
+        }
+        return new Book(parsedId, title.trim(), author.trim(), isAvailable);
+    }
+
+    /**
+     * Splits one CSV line into fields. Quoted fields may contain commas and
+     * "" for a quote; records spanning several lines are not supported.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field.");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,159 @@
+package com.teenread.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Struct-of-arrays storage for the catalogue: one primitive column per
+ * field, indexed by slot.
+ *
+ * Columns:
+ *   - ids       – long[] book ids
+ *   - titleIds  – int[] ids into the shared title dictionary (which holds
+ *                 the UTF-8 bytes of each distinct title once)
+ *   - authorIds – int[] ids into the shared author dictionary
+ *   - available – BitSet, one bit per slot
+ *
+ * A catalogue of n books is three flat arrays plus n bits, with no object
+ * per book: availability filters and counts walk 64 slots per long word,
+ * and a scan over ids or text ids touches contiguous memory only.
+ *
+ * A slot can be reserved without values (see reserve()): BookRepository does
+ * this for the books of a mapped catalogue file, whose fields stay in the
+ * file until the book is first saved.
+ *
+ * Thread-safety: not synchronised; the owning repository guards it with its lock.
+ */
+public final class CatalogueColumns {
+
+    /** Text id of a reserved slot (TextDictionary.NULL_ID is a valid value) */
+    private static final int UNSET = -2;
+
+    private long[] ids;
+    private int[] titleIds;
+    private int[] authorIds;
+    private final BitSet available = new BitSet();
+    private int size;
+
+    /**
+     * @param capacity initial number of slots
+     */
+    public CatalogueColumns(int capacity) {
+        int initial = Math.max(16, capacity);
+        ids = new long[initial];
+        titleIds = new int[initial];
+        authorIds = new int[initial];
+    }
+
+    /** @return number of slots in use */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends an unavailable slot holding the given values.
+     *
+     * @return the new slot
+     */
+    public int append(long id, int titleId, int authorId) {
+        ensureCapacity(size + 1);
+        int slot = size++;
+        set(slot, id, titleId, authorId);
+        return slot;
+    }
+
+    /**
+     * Appends {@code count} unavailable slots without values; has() is false
+     * for them until set() is called.
+     */
+    public void reserve(int count) {
+        ensureCapacity(size + count);
+        Arrays.fill(titleIds, size, size + count, UNSET);
+        size += count;
+    }
+
+    /** Overwrites the id and text columns of an existing slot (availability is set separately). */
+    public void set(int slot, long id, int titleId, int authorId) {
+        ids[slot] = id;
+        titleIds[slot] = titleId;
+        authorIds[slot] = authorId;
+    }
+
+    /** @return true if the slot holds values (it was appended or set, not just reserved) */
+    public boolean has(int slot) {
+        return titleIds[slot] != UNSET;
+    }
+
+    public long id(int slot) {
+        return ids[slot];
+    }
+
+    public int titleId(int slot) {
+        return titleIds[slot];
+    }
+
+    public int authorId(int slot) {
+        return authorIds[slot];
+    }
+
+    // ---------------------------------------------------------------
+    // Availability
+    // ---------------------------------------------------------------
+
+    public boolean available(int slot) {
+        return available.get(slot);
+    }
+
+    public void setAvailable(int slot, boolean isAvailable) {
+        available.set(slot, isAvailable);
+    }
+
+    /** @return number of available slots (a popcount over the bitset words) */
+    public int countAvailable() {
+        return available.cardinality();
+    }
+
+    /**
+     * All slots whose availability equals the given value, ascending.
+     *
+     * @param isAvailable availability to select
+     * @return matching slots
+     */
+    public int[] slotsWithAvailability(boolean isAvailable) {
+        int[] result = new int[isAvailable ? countAvailable() : size - countAvailable()];
+        int found = 0;
+        int slot = isAvailable ? available.nextSetBit(0) : available.nextClearBit(0);
+        while (slot >= 0 && slot < size && found < result.length) {
+            result[found++] = slot;
+            slot = isAvailable ? available.nextSetBit(slot + 1) : available.nextClearBit(slot + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Keeps the slots whose availability equals the given value.
+     *
+     * @param slots       candidate slots
+     * @param isAvailable availability to keep
+     * @return the matching subset, in the given order
+     */
+    public int[] filterByAvailability(int[] slots, boolean isAvailable) {
+        int[] result = new int[slots.length];
+        int found = 0;
+        for (int slot : slots) {
+            if (available.get(slot) == isAvailable) {
+                result[found++] = slot;
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > ids.length) {
+            int capacity = Math.max(ids.length << 1, needed);
+            ids = Arrays.copyOf(ids, capacity);
+            titleIds = Arrays.copyOf(titleIds, capacity);
+            authorIds = Arrays.copyOf(authorIds, capacity);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.teenread.index;
+
+/**
+ * Fixed-size log of the most recent changes: which id changed, in order,
+ * each under its own sequence number.
+ *
+ * Sequence numbers increase by one per change, starting after the base
+ * passed to the constructor. Only the ids are stored – the change with
+ * sequence s sits at ids[s % capacity] – so once more than capacity changes
+ * have been appended the oldest are overwritten, and a reader whose cursor
+ * is older than what is left can only be told to start over (idsAfter
+ * returns null).
+ *
+ * Used by BookRepository as the catalogue change feed; readers resolve the
+ * ids to the books' current state.
+ *
+ * Thread-safety: not synchronised; the owning repository guards it with its
+ * lock. Only lastSequence() is safe to call without it.
+ */
+public final class ChangeRing {
+
+    private final long[] ids;
+
+    // Sequence before the first change – a cursor meaning "nothing seen yet"
+    private final long base;
+
+    // Sequence of the newest change (base while empty); volatile so that
+    // lastSequence() may be read without the owner's lock
+    private volatile long last;
+
+    /**
+     * @param capacity changes retained (at least 1)
+     * @param base     sequence before the first change; the first change gets base + 1
+     */
+    public ChangeRing(int capacity, long base) {
+        if (capacity < 1 || base < 0) {
+            throw new IllegalArgumentException("Capacity must be positive and base non-negative");
+        }
+        this.ids  = new long[capacity];
+        this.base = base;
+        this.last = base;
+    }
+
+    /**
+     * Records a change, overwriting the oldest one if the ring is full.
+     *
+     * @param id what changed
+     * @return the change's sequence number
+     */
+    public long append(long id) {
+        long sequence = last + 1;
+        ids[(int) (sequence % ids.length)] = id;
+        last = sequence;
+        return sequence;
+    }
+
+    /** @return sequence of the newest change, or the base if there is none */
+    public long lastSequence() {
+        return last;
+    }
+
+    /** @return the oldest cursor idsAfter() can still answer */
+    public long oldestCursor() {
+        return Math.max(base, last - ids.length);
+    }
+
+    /**
+     * The ids changed after a cursor, oldest first, with repeats.
+     *
+     * @param since sequence of the last change the reader has seen
+     * @param max   most ids to return (positive); the reader continues from
+     *              since + the returned length
+     * @return the ids, or null if since is older than the retained changes
+     *         or newer than the last one (a cursor from another process)
+     */
+    public long[] idsAfter(long since, int max) {
+        if (since < oldestCursor() || since > last) {
+            return null;
+        }
+        int count = (int) Math.min(max, last - since);
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = ids[(int) ((since + 1 + i) % ids.length)];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.teenread.index;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Set of non-negative ints supporting O(1) add/remove/contains and
+ * uniform random sampling of k distinct members in O(k).
+ *
+ * Members live densely in {@code members[0..size)}; {@code positions[v]}
+ * records where value v sits (or -1). Removal swaps the last member into
+ * the hole, so the dense prefix never has gaps and a random member is just
+ * a random index into it.
+ *
+ * Used by BookRepository as the live set of available book slots, so
+ * recommendations are drawn without touching the rest of the catalogue.
+ *
+ * Thread-safety: not synchronised; the owning repository guards it with its lock.
+ */
+public final class IntSampleSet {
+
+    private int[] members = new int[16];
+    private int[] positions = new int[16];
+    private int size;
+
+    public IntSampleSet() {
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * @param value value to add (non-negative)
+     * @return true if the set changed
+     */
+    public boolean add(int value) {
+        if (contains(value)) {
+            return false;
+        }
+        if (value >= positions.length) {
+            int oldLength = positions.length;
+            positions = Arrays.copyOf(positions, Math.max(oldLength << 1, value + 1));
+            Arrays.fill(positions, oldLength, positions.length, -1);
+        }
+        if (size == members.length) {
+            members = Arrays.copyOf(members, size << 1);
+        }
+        members[size] = value;
+        positions[value] = size;
+        size++;
+        return true;
+    }
+
+    /**
+     * @param value value to remove
+     * @return true if the set changed
+     */
+    public boolean remove(int value) {
+        if (!contains(value)) {
+            return false;
+        }
+        int hole = positions[value];
+        int last = members[--size];
+        members[hole] = last;
+        positions[last] = hole;
+        positions[value] = -1;
+        return true;
+    }
+
+    /** @return true if the value is a member */
+    public boolean contains(int value) {
+        return value >= 0 && value < positions.length && positions[value] >= 0;
+    }
+
+    /** @return number of members */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Draws up to k distinct members uniformly at random, in random order.
+     *
+     * Uses Floyd's algorithm over member positions: exactly k random draws
+     * and no scan of the set. The duplicate check is a linear probe of the
+     * result, which is cheap for the small k this is meant for.
+     *
+     * @param k      number of members wanted
+     * @param random randomness source
+     * @return min(k, size) distinct members
+     */
+    public int[] sample(int k, Random random) {
+        int n = size;
+        int wanted = Math.max(0, Math.min(k, n));
+        int[] picked = new int[wanted];
+        int count = 0;
+        // Floyd: for j in [n-k, n) pick t in [0, j]; take t unless already taken, then j
+        for (int j = n - wanted; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            picked[count++] = indexOf(picked, count - 1, t) >= 0 ? j : t;
+        }
+        // Floyd's choice is uniform as a set but not as a sequence – shuffle it
+        for (int i = wanted - 1; i > 0; i--) {
+            int swap = random.nextInt(i + 1);
+            int tmp = picked[i];
+            picked[i] = picked[swap];
+            picked[swap] = tmp;
+        }
+        for (int i = 0; i < wanted; i++) {
+            picked[i] = members[picked[i]];
+        }
+        return picked;
+    }
+
+    private static int indexOf(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,154 @@
+package com.teenread.index;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to primitive
+ * {@code int} values.
+ *
+ * Used as the primary id index of BookRepository: book id → slot in the
+ * repository's book array. Keys and values are stored in parallel primitive
+ * arrays, so a lookup never boxes a Long and never allocates.
+ *
+ * Thread-safety:
+ *   Not synchronised – the owning repository guards writes with a lock.
+ *   get() is safe to call during a concurrent put() (it never throws or loops
+ *   forever on a half-resized table), so callers may use it inside a
+ *   StampedLock optimistic read and simply retry when validation fails.
+ */
+public final class LongIntHashMap {
+
+    /** Returned by get() when the key is not present. */
+    public static final int MISSING = -1;
+
+    /** Key 0 marks an empty cell, so a real 0 key is kept out of the table. */
+    private static final long EMPTY = 0L;
+
+    /** Resize once the table is half full – keeps probe chains short. */
+    private static final int MAX_LOAD_PERCENT = 50;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    /**
+     * @param expectedSize number of entries to size the table for up front
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(expectedSize, 4) * 100 / MAX_LOAD_PERCENT);
+        this.keys   = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Looks up the value mapped to a key.
+     *
+     * @param key the key to look up
+     * @return the mapped value, or {@link #MISSING}
+     */
+    public int get(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : MISSING;
+        }
+        // Read both arrays once; a concurrent resize may swap them under us
+        long[] k = keys;
+        int[] v = values;
+        if (k.length != v.length) {
+            return MISSING;
+        }
+        int mask = k.length - 1;
+        int i = mix(key) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = k[i];
+            if (current == key) {
+                return v[i];
+            }
+            if (current == EMPTY) {
+                return MISSING;
+            }
+            i = (i + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous mapping.
+     *
+     * @param key   the key
+     * @param value the value (must not be {@link #MISSING})
+     * @return the previous value, or {@link #MISSING} if the key was new
+     */
+    public int put(long key, int value) {
+        if (key == EMPTY) {
+            int previous = hasZeroKey ? zeroValue : MISSING;
+            if (!hasZeroKey) {
+                size++;
+            }
+            hasZeroKey = true;
+            zeroValue  = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        // Write the value before the key so a racing get() never pairs the
+        // new key with a stale value and then passes validation
+        values[i] = value;
+        keys[i]   = key;
+        size++;
+        if (size * 100L > (long) keys.length * MAX_LOAD_PERCENT) {
+            resize(keys.length << 1);
+        }
+        return MISSING;
+    }
+
+    /** @return number of mapped keys */
+    public int size() {
+        return size;
+    }
+
+    // ---------------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------------
+
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        long[] newKeys = new long[newCapacity];
+        int[] newValues = new int[newCapacity];
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != EMPTY) {
+                int i = mix(key) & mask;
+                while (newKeys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                newKeys[i]   = key;
+                newValues[i] = oldValues[j];
+            }
+        }
+        // Publish values first: get() treats mismatched lengths as a miss
+        values = newValues;
+        keys   = newKeys;
+    }
+
+    /** Fibonacci hashing spreads sequential ids across the table. */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(Math.max(n - 1, 1)) << 1;
+        return Math.max(capacity, 8);
+    }
+}
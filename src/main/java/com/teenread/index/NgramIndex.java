@@ -0,0 +1,277 @@
+package com.teenread.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+
+/**
+ * Inverted trigram index for case-insensitive substring search.
+ *
+ * Each indexed document is identified by a small int (BookRepository uses
+ * the book's slot) and has one text value. On put() the text is lower-cased
+ * once and every 3-character window ("trigram") is added to a posting list
+ * of document ids kept in ascending order.
+ *
+ * The index keeps no copy of the texts – only the posting lists and two
+ * bits per document. The owner supplies them instead (the texts function),
+ * reading them from wherever they live – the dictionaries or the mapped
+ * catalogue file – so indexing a catalogue does not put it on the heap twice.
+ *
+ * A substring query then becomes:
+ *   1. intersect the posting lists of the query's trigrams (smallest first)
+ *   2. verify each surviving candidate with String.contains on its text,
+ *      fetched from the owner, which removes false positives
+ * Queries shorter than three characters are answered from the trigrams that
+ * contain them (every occurrence lies inside one), plus the few documents
+ * too short to have a trigram, which are checked directly.
+ *
+ * Results are exactly those of {@code text.toLowerCase().contains(query.toLowerCase())},
+ * in ascending document order.
+ *
+ * Thread-safety: not synchronised; the owning repository guards it with its
+ * lock, and its texts function must return what was last put() for a document.
+ */
+public final class NgramIndex {
+
+    private static final int GRAM = 3;
+    private static final int[] NO_DOCS = new int[0];
+
+    /** trigram (three chars packed into a long) → posting list number */
+    private final LongIntHashMap gramToList = new LongIntHashMap(1024);
+
+    /** posting lists: ascending document ids, first listSizes[i] entries used */
+    private int[][] lists = new int[64][];
+    private int[] listSizes = new int[64];
+    private long[] listGrams = new long[64];
+    private int listCount;
+
+    /** documents put() so far */
+    private final BitSet indexed = new BitSet();
+
+    /** indexed documents whose normalised text has no trigram (under 3 chars) */
+    private final BitSet shortDocs = new BitSet();
+
+    /** current raw text of an indexed document */
+    private final IntFunction<String> texts;
+
+    /**
+     * @param texts returns the raw text of an indexed document – the text most
+     *              recently passed to put() for it
+     */
+    public NgramIndex(IntFunction<String> texts) {
+        this.texts = texts;
+    }
+
+    /**
+     * Lower-cases text the same way every query is lower-cased.
+     *
+     * @param text raw text (may be null)
+     * @return normalised text, never null
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase();
+    }
+
+    /**
+     * Indexes (or re-indexes) a document's text.
+     * No-op if the normalised text is unchanged.
+     *
+     * @param doc      document id (non-negative, ideally dense)
+     * @param previous raw text the document was indexed with (ignored if it is not indexed yet)
+     * @param text     raw text to index
+     */
+    public void put(int doc, String previous, String text) {
+        String normalized = normalize(text);
+        if (indexed.get(doc)) {
+            String old = normalize(previous);
+            if (normalized.equals(old)) {
+                return;
+            }
+            forEachGram(old, gram -> removeFromList(gram, doc));
+        }
+        indexed.set(doc);
+        shortDocs.set(doc, normalized.length() < GRAM);
+        forEachGram(normalized, gram -> addToList(gram, doc));
+    }
+
+    /**
+     * @param doc document id
+     * @return true if the document has been put()
+     */
+    public boolean contains(int doc) {
+        return indexed.get(doc);
+    }
+
+    /**
+     * Finds every document whose text contains the query, ignoring case.
+     *
+     * @param query substring to look for (not null)
+     * @return matching document ids in ascending order
+     */
+    public int[] search(String query) {
+        String needle = normalize(query);
+        if (needle.length() < GRAM) {
+            return scan(needle);
+        }
+
+        // Collect the posting list of each trigram; any missing gram → no match
+        int gramCount = needle.length() - GRAM + 1;
+        int[] candidateLists = new int[gramCount];
+        int distinct = 0;
+        for (int i = 0; i < gramCount; i++) {
+            int list = gramToList.get(pack(needle, i));
+            if (list == LongIntHashMap.MISSING || listSizes[list] == 0) {
+                return NO_DOCS;
+            }
+            if (!contains(candidateLists, distinct, list)) {
+                candidateLists[distinct++] = list;
+            }
+        }
+
+        // Drive the intersection from the shortest list
+        int shortest = 0;
+        for (int i = 1; i < distinct; i++) {
+            if (listSizes[candidateLists[i]] < listSizes[candidateLists[shortest]]) {
+                shortest = i;
+            }
+        }
+        int driver = candidateLists[shortest];
+        int[] result = new int[listSizes[driver]];
+        int found = 0;
+        for (int p = 0; p < listSizes[driver]; p++) {
+            int doc = lists[driver][p];
+            if (inAllLists(doc, candidateLists, distinct, driver)
+                    && normalize(texts.apply(doc)).contains(needle)) {
+                result[found++] = doc;
+            }
+        }
+        return found == result.length ? result : Arrays.copyOf(result, found);
+    }
+
+    // ---------------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------------
+
+    /**
+     * Short query: the union of every posting list whose trigram contains it
+     * – exact, no verification needed – plus the short documents that do.
+     */
+    private int[] scan(String needle) {
+        BitSet hits = new BitSet();
+        for (int list = 0; list < listCount; list++) {
+            if (listSizes[list] > 0 && gramContains(listGrams[list], needle)) {
+                for (int p = 0; p < listSizes[list]; p++) {
+                    hits.set(lists[list][p]);
+                }
+            }
+        }
+        for (int doc = shortDocs.nextSetBit(0); doc >= 0; doc = shortDocs.nextSetBit(doc + 1)) {
+            if (normalize(texts.apply(doc)).contains(needle)) {
+                hits.set(doc);
+            }
+        }
+        return hits.stream().toArray();
+    }
+
+    private boolean inAllLists(int doc, int[] candidateLists, int count, int skip) {
+        for (int i = 0; i < count; i++) {
+            int list = candidateLists[i];
+            if (list != skip && Arrays.binarySearch(lists[list], 0, listSizes[list], doc) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addToList(long gram, int doc) {
+        int list = gramToList.get(gram);
+        if (list == LongIntHashMap.MISSING) {
+            list = newList(gram);
+            gramToList.put(gram, list);
+        }
+        int[] docs = lists[list];
+        int size = listSizes[list];
+        // Documents are usually appended in order, so check the tail first
+        int pos = size == 0 || docs[size - 1] < doc
+                ? size
+                : Arrays.binarySearch(docs, 0, size, doc);
+        if (pos >= 0 && pos < size) {
+            return; // gram repeats inside the same text
+        }
+        int insertAt = pos >= 0 ? pos : -pos - 1;
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size << 1);
+            lists[list] = docs;
+        }
+        System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+        docs[insertAt] = doc;
+        listSizes[list] = size + 1;
+    }
+
+    private void removeFromList(long gram, int doc) {
+        int list = gramToList.get(gram);
+        if (list == LongIntHashMap.MISSING) {
+            return;
+        }
+        int size = listSizes[list];
+        int pos = Arrays.binarySearch(lists[list], 0, size, doc);
+        if (pos >= 0) {
+            System.arraycopy(lists[list], pos + 1, lists[list], pos, size - pos - 1);
+            listSizes[list] = size - 1;
+        }
+    }
+
+    private int newList(long gram) {
+        if (listCount == lists.length) {
+            lists     = Arrays.copyOf(lists, listCount << 1);
+            listSizes = Arrays.copyOf(listSizes, listCount << 1);
+            listGrams = Arrays.copyOf(listGrams, listCount << 1);
+        }
+        lists[listCount] = new int[4];
+        listGrams[listCount] = gram;
+        return listCount++;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void forEachGram(String text, GramConsumer consumer) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            consumer.accept(pack(text, i));
+        }
+    }
+
+    /** Packs three UTF-16 chars into one long key: 16 bits each. */
+    private static long pack(String text, int start) {
+        return ((long) text.charAt(start) << 32)
+                | ((long) text.charAt(start + 1) << 16)
+                | text.charAt(start + 2);
+    }
+
+    /** Whether a packed trigram contains a needle of at most two chars. */
+    private static boolean gramContains(long gram, String needle) {
+        char first = (char) (gram >>> 32);
+        char second = (char) (gram >>> 16);
+        char third = (char) gram;
+        if (needle.isEmpty()) {
+            return true;
+        }
+        char a = needle.charAt(0);
+        if (needle.length() == 1) {
+            return a == first || a == second || a == third;
+        }
+        char b = needle.charAt(1);
+        return (a == first && b == second) || (a == second && b == third);
+    }
+
+    @FunctionalInterface
+    private interface GramConsumer {
+        void accept(long gram);
+    }
+}
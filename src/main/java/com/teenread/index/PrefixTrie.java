@@ -0,0 +1,320 @@
+package com.teenread.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Prefix trie over words, answering "top-k completions for this prefix".
+ *
+ * Used by BookRepository for search-box autocomplete over title and author
+ * words. Every word carries a count (how many catalogue fields contain it);
+ * completions are ranked by count, then alphabetically.
+ *
+ * Bounded cost:
+ *   - each node caches its own top-k completions, refreshed bottom-up along
+ *     the changed path on add/remove, so a lookup is O(prefix length + k)
+ *     no matter how many words share the prefix
+ *   - children are kept in sorted char arrays (no per-node HashMap)
+ *   - words longer than MAX_WORD_LENGTH are not indexed
+ *   - a word whose count drops to 0 is unlinked with the nodes only it
+ *     needed, so the trie tracks the live catalogue, not its history
+ *   - addAll() updates the counts of a whole batch first and refreshes each
+ *     touched node once, so bulk loads do not re-derive the root's top-k
+ *     for every single word
+ *
+ * Matching is case-insensitive; each word is returned in the form it was
+ * first added with (e.g. "Hunger", not "hunger").
+ *
+ * Thread-safety: not synchronised; the owning repository guards it with its lock.
+ */
+public final class PrefixTrie {
+
+    /** Longer "words" are almost always noise (URLs, ISBN runs…) */
+    public static final int MAX_WORD_LENGTH = 32;
+
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final int k;
+    private final Node root = new Node();
+    private int wordCount;
+
+    /**
+     * @param k maximum number of completions cached per prefix
+     */
+    public PrefixTrie(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        this.k = k;
+    }
+
+    /**
+     * Splits free text into the words this trie indexes:
+     * maximal runs of letters/digits.
+     *
+     * @param text raw text (may be null)
+     * @return words in order of appearance
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Increments a word's count (adding it if new).
+     *
+     * @param word a single word as produced by {@link #words(String)}
+     */
+    public void add(String word) {
+        update(word, +1);
+    }
+
+    /**
+     * Increments the count of every word in a batch (each occurrence counts).
+     * Same result as calling add() for each word, at a fraction of the cost:
+     * the cached top-k lists are refreshed once per touched node, deepest first.
+     *
+     * @param words words as produced by {@link #words(String)}
+     */
+    public void addAll(Collection<String> words) {
+        // dirty[d] = touched nodes at depth d, refreshed once each below
+        List<List<Node>> dirty = new ArrayList<>(MAX_WORD_LENGTH + 1);
+        for (int d = 0; d <= MAX_WORD_LENGTH; d++) {
+            dirty.add(new ArrayList<>());
+        }
+        for (String word : words) {
+            if (word == null || word.isEmpty() || word.length() > MAX_WORD_LENGTH) {
+                continue;
+            }
+            String key = word.toLowerCase();
+            if (key.length() > MAX_WORD_LENGTH) {
+                continue;
+            }
+            Node node = root;
+            markDirty(node, 0, dirty);
+            for (int i = 0; i < key.length(); i++) {
+                Node next = node.child(key.charAt(i));
+                node = next != null ? next : node.addChild(key.charAt(i));
+                markDirty(node, i + 1, dirty);
+            }
+            if (node.count == 0) {
+                node.word = word;
+                wordCount++;
+            }
+            node.count++;
+        }
+        for (int d = MAX_WORD_LENGTH; d >= 0; d--) {
+            for (Node node : dirty.get(d)) {
+                refreshTop(node);
+                node.dirty = false;
+            }
+        }
+    }
+
+    private static void markDirty(Node node, int depth, List<List<Node>> dirty) {
+        if (!node.dirty) {
+            node.dirty = true;
+            dirty.get(depth).add(node);
+        }
+    }
+
+    /**
+     * Decrements a word's count; a word whose count reaches 0 stops being suggested.
+     *
+     * @param word a previously added word (any case)
+     */
+    public void remove(String word) {
+        update(word, -1);
+    }
+
+    /**
+     * Returns up to {@code limit} completions of the prefix, best first.
+     *
+     * @param prefix word prefix (any case); empty returns the globally top words
+     * @param limit  maximum results (capped at k)
+     * @return completions, possibly empty
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = prefix.toLowerCase();
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        int n = Math.min(Math.min(limit, k), node.top.length);
+        List<String> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(node.top[i].word);
+        }
+        return result;
+    }
+
+    /** @return number of distinct words with a positive count */
+    public int size() {
+        return wordCount;
+    }
+
+    /** @return nodes below the root */
+    int nodeCount() {
+        int count = 0;
+        List<Node> pending = new ArrayList<>(List.of(root));
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            count += node.children.length;
+            pending.addAll(Arrays.asList(node.children));
+        }
+        return count;
+    }
+
+    // ---------------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------------
+
+    private void update(String word, int delta) {
+        if (word == null || word.isEmpty() || word.length() > MAX_WORD_LENGTH) {
+            return;
+        }
+        String key = word.toLowerCase();
+        if (key.length() > MAX_WORD_LENGTH) {
+            return;
+        }
+
+        // Walk (and on add, create) the path, remembering it for the refresh
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            Node next = node.child(key.charAt(i));
+            if (next == null) {
+                if (delta < 0) {
+                    return; // removing a word that was never added
+                }
+                next = node.addChild(key.charAt(i));
+            }
+            node = next;
+            path[i + 1] = node;
+        }
+
+        if (delta < 0 && node.count == 0) {
+            return;
+        }
+        if (node.count == 0) {
+            node.word = word;
+            wordCount++;
+        }
+        node.count += delta;
+        int deepest = path.length - 1;
+        if (node.count == 0) {
+            wordCount--;
+            node.word = null;
+            // Unlink the nodes left with neither a word nor children, so the
+            // trie holds the words in use rather than every word ever added
+            while (deepest > 0 && path[deepest].count == 0 && path[deepest].children.length == 0) {
+                path[deepest - 1].removeChild(key.charAt(deepest - 1));
+                deepest--;
+            }
+        }
+
+        // Re-derive the cached top-k of every node left on the path, leaf first
+        for (int i = deepest; i >= 0; i--) {
+            refreshTop(path[i]);
+        }
+    }
+
+    /** top(node) = best k of {node itself if it is a word} ∪ top(each child). */
+    private void refreshTop(Node node) {
+        Node[] best = new Node[k];
+        int size = 0;
+        if (node.count > 0) {
+            best[size++] = node;
+        }
+        for (Node child : node.children) {
+            for (Node candidate : child.top) {
+                size = offer(best, size, candidate);
+            }
+        }
+        node.top = size == 0 ? NO_NODES : Arrays.copyOf(best, size);
+    }
+
+    /** Inserts a candidate into a sorted best-k buffer. */
+    private static int offer(Node[] best, int size, Node candidate) {
+        int pos = size;
+        while (pos > 0 && ranksBefore(candidate, best[pos - 1])) {
+            pos--;
+        }
+        if (pos >= best.length) {
+            return size;
+        }
+        int newSize = Math.min(size + 1, best.length);
+        System.arraycopy(best, pos, best, pos + 1, newSize - pos - 1);
+        best[pos] = candidate;
+        return newSize;
+    }
+
+    private static boolean ranksBefore(Node a, Node b) {
+        if (a.count != b.count) {
+            return a.count > b.count;
+        }
+        return a.word.compareToIgnoreCase(b.word) < 0;
+    }
+
+    /** One trie node; children sorted by label for binary search. */
+    private static final class Node {
+        char[] labels = new char[0];
+        Node[] children = NO_NODES;
+        Node[] top = NO_NODES;
+        int count;
+        String word;
+        boolean dirty;
+
+        Node child(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node addChild(char label) {
+            int insertAt = -Arrays.binarySearch(labels, label) - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            Node child = new Node();
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = children.length == 1 ? NO_NODES : new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(labels, at + 1, newLabels, at, labels.length - at - 1);
+            System.arraycopy(children, at + 1, newChildren, at, children.length - at - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.teenread.index;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of search results: normalised keyword → matching slots.
+ *
+ * Segmented LRU. A new entry goes into the probation segment; a second hit
+ * promotes it to the protected segment (at most PROTECTED_SHARE of the
+ * capacity), whose least recently used entries are demoted back to
+ * probation. Evictions take the least recently used probation entry first,
+ * so a burst of one-off keywords only churns probation and never pushes
+ * out the popular ones.
+ *
+ * Bounded by both entry count and weight (an estimate of retained bytes);
+ * a single result heavier than MAX_ENTRY_SHARE of the weight limit (a
+ * one-letter keyword matching half the catalogue) is not cached at all.
+ *
+ * Slots, not books, are cached: availability is read from the catalogue on
+ * every hit, so borrows and returns never invalidate anything. Entries are
+ * dropped only by invalidate() when a title containing their keyword is
+ * added or changed; it probes the title's substrings rather than testing
+ * every cached keyword, so a title change costs the same however full the
+ * cache is.
+ *
+ * Thread-safety: lookups read a ConcurrentHashMap and take no lock, since
+ * many searches run at once under the owning repository's read lock. The
+ * recency order behind it is guarded by a ReentrantLock that a hit only
+ * tries to take: if another thread holds it, the hit is served without
+ * being recorded. Recency is therefore approximate under contention, like
+ * Caffeine's lossy read buffers, but searches never queue on a mutex.
+ * Writes (put, invalidate, clear) take the lock.
+ */
+public final class SearchResultCache {
+
+    /** Share of the capacity the protected segment may hold */
+    static final double PROTECTED_SHARE = 0.8;
+
+    /** Largest share of the weight limit one entry may take */
+    static final int MAX_ENTRY_SHARE_DIVISOR = 8;
+
+    /** Estimated bytes per entry besides the key's chars and the slots */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final int maxProtectedEntries;
+    private final long maxProtectedWeight;
+
+    // Every entry, for lock-free lookups; changed only under the lock
+    private final ConcurrentHashMap<String, int[]> index = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Recency order, guarded by the lock. Access-ordered: iteration starts
+    // at the least recently used entry
+    private final LinkedHashMap<String, int[]> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, int[]> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long probationWeight;
+    private long protectedWeight;
+
+    // Length of the longest key cached since the last clear()
+    private int longestKey;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param maxEntries most keywords held (at least 1)
+     * @param maxWeight  most estimated bytes held (at least 1)
+     */
+    public SearchResultCache(int maxEntries, long maxWeight) {
+        if (maxEntries < 1 || maxWeight < 1) {
+            throw new IllegalArgumentException("Cache bounds must be positive");
+        }
+        this.maxEntries          = maxEntries;
+        this.maxWeight           = maxWeight;
+        this.maxProtectedEntries = Math.max(1, (int) (maxEntries * PROTECTED_SHARE));
+        this.maxProtectedWeight  = Math.max(1, (long) (maxWeight * PROTECTED_SHARE));
+    }
+
+    /**
+     * @param key normalised keyword
+     * @return the cached slots (shared – do not modify), or null on a miss
+     */
+    public int[] get(String key) {
+        int[] slots = index.get(key);
+        if (slots == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        // Best effort: while another thread holds the lock this hit goes unrecorded
+        if (lock.tryLock()) {
+            try {
+                recordAccess(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Caches a search result (into probation) unless it is too heavy.
+     *
+     * @param key   normalised keyword
+     * @param slots matching slots; must not be modified afterwards
+     */
+    public void put(String key, int[] slots) {
+        long weight = weight(key, slots);
+        if (weight > maxWeight / MAX_ENTRY_SHARE_DIVISOR) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (index.containsKey(key)) {
+                return; // a concurrent reader cached the same result first
+            }
+            probation.put(key, slots);
+            index.put(key, slots);
+            probationWeight += weight;
+            longestKey = Math.max(longestKey, key.length());
+            while (size() > maxEntries || probationWeight + protectedWeight > maxWeight) {
+                evictOne();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every entry whose keyword occurs in a title that was added,
+     * removed or changed – exactly the results that may now differ.
+     *
+     * @param oldText previous normalised title, or null for a new book
+     * @param newText new normalised title, or null for a removed book
+     */
+    public void invalidate(String oldText, String newText) {
+        if (index.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            removeContainedIn(oldText);
+            removeContainedIn(newText);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Drops every entry (for bulk changes, where matching each title would cost more). */
+    public void clear() {
+        lock.lock();
+        try {
+            invalidations.add(size());
+            index.clear();
+            probation.clear();
+            protectedSegment.clear();
+            probationWeight = 0;
+            protectedWeight = 0;
+            longestKey = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Statistics
+    // ---------------------------------------------------------------
+
+    /** @return lookups answered from the cache */
+    public long hits() { return hits.sum(); }
+
+    /** @return lookups that had to search */
+    public long misses() { return misses.sum(); }
+
+    /** @return entries dropped to stay within the bounds */
+    public long evictions() { return evictions.sum(); }
+
+    /** @return entries dropped because a matching title changed */
+    public long invalidations() { return invalidations.sum(); }
+
+    /** @return entries held; lock-free */
+    public int entries() {
+        return index.size();
+    }
+
+    /** @return estimated bytes held */
+    public long weight() {
+        lock.lock();
+        try {
+            return probationWeight + protectedWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Internals (caller holds the lock)
+    // ---------------------------------------------------------------
+
+    private int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    /** Moves a hit entry to the most recently used end, promoting it on its second hit. */
+    private void recordAccess(String key) {
+        if (protectedSegment.get(key) != null) {
+            return; // the access-ordered get already moved it
+        }
+        int[] slots = probation.remove(key);
+        if (slots == null) {
+            return; // evicted or invalidated since the lookup
+        }
+        // Second hit: promote, demoting protected entries past their share
+        probationWeight -= weight(key, slots);
+        protectedSegment.put(key, slots);
+        protectedWeight += weight(key, slots);
+        demoteOverflow();
+    }
+
+    private void demoteOverflow() {
+        Iterator<Map.Entry<String, int[]>> oldest = protectedSegment.entrySet().iterator();
+        while (oldest.hasNext()
+                && (protectedSegment.size() > maxProtectedEntries || protectedWeight > maxProtectedWeight)) {
+            Map.Entry<String, int[]> entry = oldest.next();
+            oldest.remove();
+            long weight = weight(entry.getKey(), entry.getValue());
+            protectedWeight -= weight;
+            // Demoted entries become the most recently used in probation
+            probation.put(entry.getKey(), entry.getValue());
+            probationWeight += weight;
+        }
+    }
+
+    private void evictOne() {
+        LinkedHashMap<String, int[]> segment = probation.isEmpty() ? protectedSegment : probation;
+        Iterator<Map.Entry<String, int[]>> oldest = segment.entrySet().iterator();
+        Map.Entry<String, int[]> entry = oldest.next();
+        oldest.remove();
+        index.remove(entry.getKey());
+        long weight = weight(entry.getKey(), entry.getValue());
+        if (segment == probation) {
+            probationWeight -= weight;
+        } else {
+            protectedWeight -= weight;
+        }
+        evictions.increment();
+    }
+
+    /**
+     * Drops every entry whose key occurs in the text. Probing the text's
+     * substrings up to the longest key costs about text × longest² / 2 chars,
+     * testing each key about keys × text, so the cheaper of the two is used.
+     */
+    private void removeContainedIn(String text) {
+        if (text == null || index.isEmpty()) {
+            return;
+        }
+        int longest = Math.min(longestKey, text.length());
+        if ((long) longest * longest < 2L * index.size()) {
+            remove(""); // the empty keyword occurs in every title
+            for (int start = 0; start < text.length(); start++) {
+                int end = Math.min(text.length(), start + longest);
+                for (int stop = start + 1; stop <= end; stop++) {
+                    remove(text.substring(start, stop));
+                }
+            }
+        } else {
+            List<String> matching = new ArrayList<>();
+            for (String key : index.keySet()) {
+                if (text.contains(key)) {
+                    matching.add(key);
+                }
+            }
+            matching.forEach(this::remove);
+        }
+    }
+
+    /** Drops one entry, if cached, as invalidated. */
+    private void remove(String key) {
+        int[] slots = index.remove(key);
+        if (slots == null) {
+            return;
+        }
+        if (probation.remove(key) != null) {
+            probationWeight -= weight(key, slots);
+        } else {
+            protectedSegment.remove(key);
+            protectedWeight -= weight(key, slots);
+        }
+        invalidations.increment();
+    }
+
+    private static long weight(String key, int[] slots) {
+        return ENTRY_OVERHEAD + 2L * key.length() + 4L * slots.length;
+    }
+}
@@ -0,0 +1,217 @@
+package com.teenread.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only string dictionary: each distinct string is stored once, as
+ * UTF-8 bytes, and identified by a dense int id.
+ *
+ * Book and BorrowedBook keep the ids of their title and author instead of
+ * String objects, so a catalogue of millions of books and loans holds every
+ * distinct title / author name once (no per-String object header, one byte
+ * per ASCII char) and a record's text costs 4 bytes per field.
+ *
+ * Storage:
+ *   - arena    – 64 KB byte chunks the UTF-8 bytes are appended to; never moved
+ *   - entries  – per id: arena position, byte length and String.hashCode(),
+ *                in pages of 4096 so growth never copies existing entries
+ *   - table    – open-addressing hash table of ids, for intern() lookups
+ *
+ * Thread-safety: get() and the lookup half of intern() take no lock. New
+ * strings are added under a lock and published through the volatile size,
+ * which readers check before touching an entry. Ids are never reused and
+ * strings are never removed (a changed title leaves the old one behind).
+ */
+public final class TextDictionary {
+
+    /** Id standing for a null string */
+    public static final int NULL_ID = -1;
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /** Guards every write; readers never take it */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Entry pages (id >>> PAGE_BITS, id & PAGE_MASK)
+    private volatile long[][] positions = new long[16][];   // chunk << 32 | offset
+    private volatile int[][] lengths = new int[16][];
+    private volatile int[][] hashes = new int[16][];
+
+    // Arena: chunks[chunk][offset]; the last chunk is filled up to chunkUsed
+    private volatile byte[][] chunks = new byte[16][];
+    private int chunkCount;
+    private int chunkUsed = CHUNK_SIZE;
+
+    // id + 1 per slot, 0 = empty; replaced (never modified in place) on resize
+    private volatile int[] table = new int[1024];
+
+    /** Number of ids handed out; written last, after the entry it publishes */
+    private volatile int size;
+
+    /** Total UTF-8 bytes stored */
+    private volatile long bytes;
+
+    /**
+     * Returns the id of a string, adding it if new.
+     *
+     * @param text string to look up (null maps to NULL_ID)
+     * @return its id; equal strings always get the same id
+     */
+    public int intern(String text) {
+        if (text == null) {
+            return NULL_ID;
+        }
+        int hash = text.hashCode();
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        int id = find(table, hash, utf8);
+        if (id != NULL_ID) {
+            return id;
+        }
+        writeLock.lock();
+        try {
+            // Re-probe: another thread may have added it, or the table grown
+            id = find(table, hash, utf8);
+            return id != NULL_ID ? id : add(hash, utf8);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Decodes the string with the given id.
+     *
+     * @param id an id returned by intern(), or NULL_ID
+     * @return the string (a new String instance), or null for NULL_ID
+     * @throws IllegalArgumentException if the id was never handed out
+     */
+    public String get(int id) {
+        if (id == NULL_ID) {
+            return null;
+        }
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown text id: " + id);
+        }
+        long position = positions[id >>> PAGE_BITS][id & PAGE_MASK];
+        int length = lengths[id >>> PAGE_BITS][id & PAGE_MASK];
+        return new String(chunks[(int) (position >>> 32)], (int) position, length, StandardCharsets.UTF_8);
+    }
+
+    /** @return number of distinct strings stored */
+    public int size() {
+        return size;
+    }
+
+    /** @return total UTF-8 bytes of the stored strings */
+    public long bytes() {
+        return bytes;
+    }
+
+    // ---------------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------------
+
+    /**
+     * Probes a (possibly already replaced) table. Lock-free: a slot whose id
+     * is not yet published counts as a miss, and every miss is re-checked
+     * under the lock.
+     */
+    private int find(int[] slots, int hash, byte[] utf8) {
+        int mask = slots.length - 1;
+        int published = size;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            int id = slots[i] - 1;
+            if (id == NULL_ID) {
+                return NULL_ID;
+            }
+            if (id < published && matches(id, hash, utf8)) {
+                return id;
+            }
+        }
+    }
+
+    private boolean matches(int id, int hash, byte[] utf8) {
+        int page = id >>> PAGE_BITS;
+        int index = id & PAGE_MASK;
+        if (hashes[page][index] != hash || lengths[page][index] != utf8.length) {
+            return false;
+        }
+        long position = positions[page][index];
+        int offset = (int) position;
+        return Arrays.equals(chunks[(int) (position >>> 32)], offset, offset + utf8.length,
+                utf8, 0, utf8.length);
+    }
+
+    /** Stores a new string and publishes its id. Caller must hold the write lock. */
+    private int add(int hash, byte[] utf8) {
+        int id = size;
+        int page = id >>> PAGE_BITS;
+        if (page == positions.length) {
+            positions = Arrays.copyOf(positions, page << 1);
+            lengths   = Arrays.copyOf(lengths, page << 1);
+            hashes    = Arrays.copyOf(hashes, page << 1);
+        }
+        if (positions[page] == null) {
+            positions[page] = new long[PAGE_SIZE];
+            lengths[page]   = new int[PAGE_SIZE];
+            hashes[page]    = new int[PAGE_SIZE];
+        }
+        positions[page][id & PAGE_MASK] = store(utf8);
+        lengths[page][id & PAGE_MASK]   = utf8.length;
+        hashes[page][id & PAGE_MASK]    = hash;
+
+        // The entry is complete: publish it, then make it findable
+        size = id + 1;
+        bytes += utf8.length;
+        if ((id + 1) * 2L > table.length) {
+            rehash(table.length << 1);
+        }
+        insert(table, hash, id);
+        return id;
+    }
+
+    /** Copies bytes into the arena. Caller must hold the write lock. */
+    private long store(byte[] utf8) {
+        // The first string needs a chunk even if it is empty
+        if (chunkCount == 0 || utf8.length > CHUNK_SIZE - chunkUsed) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount << 1);
+            }
+            // Oversized strings get a chunk of their own
+            chunks[chunkCount++] = new byte[Math.max(CHUNK_SIZE, utf8.length)];
+            chunkUsed = 0;
+        }
+        int chunk = chunkCount - 1;
+        System.arraycopy(utf8, 0, chunks[chunk], chunkUsed, utf8.length);
+        long position = ((long) chunk << 32) | chunkUsed;
+        chunkUsed = utf8.length > CHUNK_SIZE ? CHUNK_SIZE : chunkUsed + utf8.length;
+        return position;
+    }
+
+    /** Builds a larger table and swaps it in. Caller must hold the write lock. */
+    private void rehash(int capacity) {
+        int[] grown = new int[capacity];
+        for (int id = 0; id < size - 1; id++) {
+            insert(grown, hashes[id >>> PAGE_BITS][id & PAGE_MASK], id);
+        }
+        table = grown;
+    }
+
+    private static void insert(int[] slots, int hash, int id) {
+        int mask = slots.length - 1;
+        int i = spread(hash) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = id + 1;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
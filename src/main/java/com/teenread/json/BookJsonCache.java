@@ -0,0 +1,195 @@
+package com.teenread.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.teenread.model.Book;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Jackson module that serialises each book once and then copies its cached
+ * JSON bytes straight into the response.
+ *
+ * Catalogue responses (/api/books, searches, pages, streams, the reactive
+ * endpoints) write the same books over and over; normally every response
+ * walks each book's properties again, decodes its title and author from the
+ * dictionaries and escapes them. With this module registered, Book is
+ * written by a serializer that looks the book up in a fixed-size table of
+ * fragments and hands the bytes to JsonGenerator.writeRawValue – a plain
+ * array copy into the generator's output buffer, commas between array
+ * elements included. A miss serialises the book with Jackson's own bean
+ * serializer, so cached and uncached output are byte for byte the same.
+ *
+ * Invalidation: each fragment records the id, title id, author id and
+ * availability it was written from, and is used only while the book still
+ * has all four. Any save that changes a book (a borrow, a return, a new
+ * title) therefore retires its fragment on the next read, with no hook into
+ * the repository and no window in which stale JSON can be served.
+ *
+ * The table is direct-mapped (slot = id modulo app.json.book-cache-size,
+ * rounded up to a power of two): catalogues with sequential ids up to that
+ * size never collide, and larger ones simply keep the most recently written
+ * of the colliding books. Slots are replaced with a plain racy write of an
+ * immutable entry, so readers take no lock.
+ *
+ * Pretty-printed output and JSON views fall back to the bean serializer.
+ * Books copied from a mapped catalogue (MappedBook) are a subclass and get
+ * Jackson's own serializer: keying them by text id would intern the whole
+ * file into the dictionaries.
+ *
+ * Spring Boot registers every Module bean with its shared ObjectMapper.
+ */
+@Component
+
+public final class BookJsonCache extends SimpleModule {
+
+    // Jackson modules are Serializable for JDK-serialized ObjectMappers;
+    // the table and serializers are runtime state and are not written out
+    private static final long serialVersionUID = 1L;
+
+    private final transient Entry[] entries;
+    private final int mask;
+
+    /**
+     * @param capacity books whose JSON is kept (rounded up to a power of two)
+     * @throws IllegalArgumentException if capacity is not between 1 and 2^30
+     */
+    public BookJsonCache(@Value("${app.json.book-cache-size:65536}") int capacity) {
+        super("BookJsonCache");
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("app.json.book-cache-size must be between 1 and 2^30, not " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.entries = new Entry[size];
+        this.mask    = size - 1;
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                                                      JsonSerializer<?> serializer) {
+                return description.getBeanClass() == Book.class
+                        ? new CachingBookSerializer(serializer)
+                        : serializer;
+            }
+        });
+    }
+
+    /** @return number of fragments the table can hold */
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * @return the cached JSON of a book as it is now, or null if there is none
+     */
+    SerializedString lookup(Book book) {
+        Long id = book.getId();
+        if (id == null) {
+            return null;
+        }
+        Entry entry = entries[slot(id)];
+        return entry != null && entry.matches(id, book.titleId(), book.authorId(), book.isAvailable())
+                ? entry.json
+                : null;
+    }
+
+    private int slot(long id) {
+        return Long.hashCode(id) & mask;
+    }
+
+    /** One book's JSON and the state it was written from. Immutable, so it can be published racily. */
+    private record Entry(long id, int titleId, int authorId, boolean available, SerializedString json) {
+
+        boolean matches(long id, int titleId, int authorId, boolean available) {
+            return this.id == id && this.titleId == titleId
+                    && this.authorId == authorId && this.available == available;
+        }
+    }
+
+    /** Writes books from the table, filling it from Jackson's bean serializer on a miss. */
+    private final class CachingBookSerializer extends StdSerializer<Book>
+            implements ResolvableSerializer, ContextualSerializer {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient JsonSerializer<Object> beanSerializer;
+
+        @SuppressWarnings("unchecked")
+        CachingBookSerializer(JsonSerializer<?> beanSerializer) {
+            super(Book.class);
+            this.beanSerializer = (JsonSerializer<Object>) beanSerializer;
+        }
+
+        @Override
+        public void serialize(Book book, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            if (book.getId() == null || generator.getPrettyPrinter() != null || provider.getActiveView() != null) {
+                beanSerializer.serialize(book, generator, provider);
+                return;
+            }
+            SerializedString json = lookup(book);
+            if (json == null) {
+                json = fill(book, generator, provider);
+            }
+            generator.writeRawValue(json);
+        }
+
+        /**
+         * Serialises a snapshot of the book – availability may flip while it
+         * is written – and caches the result.
+         */
+        private SerializedString fill(Book book, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            Book snapshot = Book.fromIds(book.getId(), book.titleId(), book.authorId(), book.isAvailable());
+            ObjectCodec codec = generator.getCodec();
+            JsonFactory factory = codec != null ? codec.getFactory() : new JsonFactory();
+            StringWriter text = new StringWriter(128);
+            try (JsonGenerator fragment = factory.createGenerator(text)) {
+                beanSerializer.serialize(snapshot, fragment, provider);
+            }
+            SerializedString json = new SerializedString(text.toString());
+            json.asUnquotedUTF8(); // encode once, here, rather than on the first hit
+            entries[slot(snapshot.getId())] = new Entry(snapshot.getId(), snapshot.titleId(),
+                    snapshot.authorId(), snapshot.isAvailable(), json);
+            return json;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (beanSerializer instanceof ResolvableSerializer resolvable) {
+                resolvable.resolve(provider);
+            }
+        }
+
+        /**
+         * A property-specific variant of the bean serializer (e.g. with
+         * ignored properties) may write different JSON, so it is used as is,
+         * without the table.
+         */
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+                throws JsonMappingException {
+            if (beanSerializer instanceof ContextualSerializer contextual) {
+                JsonSerializer<?> variant = contextual.createContextual(provider, property);
+                if (variant != beanSerializer) {
+                    return variant;
+                }
+            }
+            return this;
+        }
+    }
+}
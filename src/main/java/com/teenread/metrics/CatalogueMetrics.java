@@ -0,0 +1,120 @@
+package com.teenread.metrics;
+
+import com.teenread.index.SearchResultCache;
+import com.teenread.index.TextDictionary;
+import com.teenread.model.Book;
+import com.teenread.repository.BookRepository;
+import com.teenread.repository.BorrowedBookRepository;
+import com.teenread.repository.LoanHistoryRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Gauges for catalogue, loan and index sizes, and the search cache's statistics.
+ *
+ * Gauges and function counters are pulled when the registry is scraped, so
+ * nothing is recorded on request paths. Every value comes from a counter or
+ * size field of the repositories (the same ones /health uses); none copies
+ * or scans data. Spring Boot binds every MeterBinder bean to its registry
+ * on startup.
+ */
+@Component
+
+public class CatalogueMetrics implements MeterBinder {
+
+    private final BookRepository bookRepository;
+    private final BorrowedBookRepository borrowedBookRepository;
+    private final LoanHistoryRepository loanHistoryRepository;
+
+    /**
+     * @param bookRepository         catalogue to report on
+     * @param borrowedBookRepository active loans to report on
+     * @param loanHistoryRepository  loan history to report on
+     */
+    public CatalogueMetrics(BookRepository bookRepository,
+                            BorrowedBookRepository borrowedBookRepository,
+                            LoanHistoryRepository loanHistoryRepository) {
+        this.bookRepository         = bookRepository;
+        this.borrowedBookRepository = borrowedBookRepository;
+        this.loanHistoryRepository  = loanHistoryRepository;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Catalogue
+        Gauge.builder("teenread.catalogue.books", bookRepository, BookRepository::count)
+                .description("Books in the catalogue")
+                .register(registry);
+        Gauge.builder("teenread.catalogue.books.available", bookRepository, BookRepository::countAvailable)
+                .description("Books on the shelf")
+                .register(registry);
+        Gauge.builder("teenread.catalogue.indexed", bookRepository, repo -> repo.isIndexed() ? 1 : 0)
+                .description("1 once the search indexes cover the whole catalogue, 0 while searches scan")
+                .register(registry);
+
+        // Loans
+        Gauge.builder("teenread.loans.active", borrowedBookRepository, BorrowedBookRepository::count)
+                .description("Active loans")
+                .register(registry);
+        Gauge.builder("teenread.loans.overdue", borrowedBookRepository,
+                        repo -> repo.countOverdue(LocalDate.now()))
+                .description("Active loans past their due date")
+                .register(registry);
+        Gauge.builder("teenread.loans.history", loanHistoryRepository, LoanHistoryRepository::size)
+                .description("Returned loans kept in the loan history")
+                .register(registry);
+
+        // Indexes
+        Gauge.builder("teenread.index.suggest.words", bookRepository, BookRepository::suggestionWordCount)
+                .description("Distinct words the autocomplete can suggest")
+                .register(registry);
+        bindDictionary(registry, "titles", Book.TITLES);
+        bindDictionary(registry, "authors", Book.AUTHORS);
+
+        // Search cache: hit rate = hit / (hit + miss)
+        bindSearchCache(registry, bookRepository.searchCache());
+    }
+
+    private static void bindSearchCache(MeterRegistry registry, SearchResultCache cache) {
+        FunctionCounter.builder("teenread.search.cache.requests", cache, SearchResultCache::hits)
+                .description("Title searches looked up in the search cache")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("teenread.search.cache.requests", cache, SearchResultCache::misses)
+                .description("Title searches looked up in the search cache")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("teenread.search.cache.removals", cache, SearchResultCache::evictions)
+                .description("Search cache entries dropped")
+                .tag("cause", "size")
+                .register(registry);
+        FunctionCounter.builder("teenread.search.cache.removals", cache, SearchResultCache::invalidations)
+                .description("Search cache entries dropped")
+                .tag("cause", "invalidated")
+                .register(registry);
+        Gauge.builder("teenread.search.cache.entries", cache, SearchResultCache::entries)
+                .description("Keywords held by the search cache")
+                .register(registry);
+        Gauge.builder("teenread.search.cache.weight", cache, SearchResultCache::weight)
+                .description("Estimated bytes held by the search cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static void bindDictionary(MeterRegistry registry, String name, TextDictionary dictionary) {
+        Gauge.builder("teenread.index.dictionary.entries", dictionary, TextDictionary::size)
+                .description("Distinct strings stored in a text dictionary")
+                .tag("dictionary", name)
+                .register(registry);
+        Gauge.builder("teenread.index.dictionary.bytes", dictionary, TextDictionary::bytes)
+                .description("UTF-8 bytes stored in a text dictionary")
+                .tag("dictionary", name)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
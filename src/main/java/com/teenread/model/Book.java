@@ -1,5 +1,11 @@
 package com.teenread.model;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.teenread.index.TextDictionary;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Domain model representing a single book in the TeenRead Hub catalogue.
  *
@@ -7,24 +13,53 @@ package com.teenread.model;
  * Sprint 2: no new fields needed here – availability is toggled by BorrowService
  *
  * Plain Java class (no JPA annotations) – stored entirely in-memory.
+ *
+ * Title and author are kept as ids into the shared TITLES / AUTHORS
+ * dictionaries, so each distinct text is stored once (as UTF-8) however
+ * many books and loans carry it. The getters decode on every call.
+ * Books copied from a memory-mapped catalogue (MappedBook) read the file
+ * instead, and only intern their text when its ids are asked for.
+ * The JSON property order is pinned since there are no title/author fields
+ * left to take it from.
  */
+@JsonPropertyOrder({"id", "title", "author", "available"})
 
 public class Book {
+    /** Every title of every book and loan, stored once */
+    public static final TextDictionary TITLES = new TextDictionary();
+
+    /** Every author name of every book and loan, stored once */
+    public static final TextDictionary AUTHORS = new TextDictionary();
+
+    /** Atomic access to {@link #available} for the borrow claim (see compareAndSetAvailable). */
+    private static final VarHandle AVAILABLE;
+
+    static {
+        try {
+            AVAILABLE = MethodHandles.lookup()
+                    .findVarHandle(Book.class, "available", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     // Unique identifier for each book
     private Long id;
 
-    // Full title of the book
-    private String title;
+    // Full title of the book, as an id into TITLES
+    private int titleId = TextDictionary.NULL_ID;
 
-    // Full name of the author
-    private String author;
+    // Full name of the author, as an id into AUTHORS
+    private int authorId = TextDictionary.NULL_ID;
 
     /**
      * Availability flag.
      * true  = on the shelf, can be borrowed
      * false = currently borrowed by a user
+     *
+     * Volatile because concurrent borrow requests race on it.
      */
-    private boolean available;
+    private volatile boolean available;
 
     // ---------------------------------------------------------------
     // Constructors
@@ -43,11 +78,30 @@ public class Book {
      */
     public Book(Long id, String title, String author, boolean available) {
         this.id        = id;
-        this.title     = title;
-        this.author    = author;
+        this.titleId   = TITLES.intern(title);
+        this.authorId  = AUTHORS.intern(author);
         this.available = available;
     }
 
+    /**
+     * Rebuilds a book from already-interned text, as stored in the
+     * repository's catalogue columns. No dictionary lookup is made.
+     *
+     * @param id        unique book ID
+     * @param titleId   id of the title in TITLES
+     * @param authorId  id of the author in AUTHORS
+     * @param available availability flag
+     * @return the book
+     */
+    public static Book fromIds(long id, int titleId, int authorId, boolean available) {
+        Book book = new Book();
+        book.id        = id;
+        book.titleId   = titleId;
+        book.authorId  = authorId;
+        book.available = available;
+        return book;
+    }
+
     // ---------------------------------------------------------------
     // Getters & Setters  (Jackson serialises public getters to JSON)
     // ---------------------------------------------------------------
@@ -55,15 +109,46 @@ public class Book {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
-    public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
+    public String getTitle() { return TITLES.get(titleId); }
+    public void setTitle(String title) { this.titleId = TITLES.intern(title); }
+
+    public String getAuthor() { return AUTHORS.get(authorId); }
+    public void setAuthor(String author) { this.authorId = AUTHORS.intern(author); }
+
+    /** @return id of the title in TITLES – equal ids mean equal titles */
+    public int titleId() { return titleId; }
+
+    /** @return id of the author in AUTHORS */
+    public int authorId() { return authorId; }
 
-    public String getAuthor() { return author; }
-    public void setAuthor(String author) { this.author = author; }
+    /**
+     * Takes the title and author of another book, without decoding them.
+     * Used by BookRepository to update the canonical book of an id in place.
+     *
+     * @param source book whose text to copy
+     */
+    public void copyTextFrom(Book source) {
+        this.titleId  = source.titleId();
+        this.authorId = source.authorId();
+    }
 
     public boolean isAvailable() { return available; }
     public void setAvailable(boolean available) { this.available = available; }
 
+    /**
+     * Atomically flips the availability flag if it currently equals {@code expected}.
+     *
+     * Used by BorrowService as a per-book claim: of many threads calling
+     * compareAndSetAvailable(true, false) on the same book, exactly one wins.
+     *
+     * @param expected the value the flag must currently hold
+     * @param newValue the value to store on success
+     * @return true if the flag was updated, false if another thread got there first
+     */
+    public boolean compareAndSetAvailable(boolean expected, boolean newValue) {
+        return AVAILABLE.compareAndSet(this, expected, newValue);
+    }
+
     // ---------------------------------------------------------------
     // toString – useful in logs and test failure messages
     // ---------------------------------------------------------------
@@ -71,8 +156,8 @@ public class Book {
     @Override
     public String toString() {
         return "Book{id=" + id +
-                ", title='" + title + '\'' +
-                ", author='" + author + '\'' +
+                ", title='" + getTitle() + '\'' +
+                ", author='" + getAuthor() + '\'' +
                 ", available=" + available + '}';
     }
 }
@@ -0,0 +1,65 @@
+package com.teenread.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * Catalogue changes after a client's cursor, returned by the change feed.
+ *
+ * Clients apply {@code changes} (the current state of every book that
+ * changed, once each) and pass {@code sequence} back as {@code since} on the
+ * next call; while {@code more} is true there are further changes to fetch
+ * at once. {@code resync} means the cursor is too old (or from before a
+ * restart): the client must reload the whole catalogue and continue from
+ * {@code sequence}.
+ */
+@JsonPropertyOrder({"sequence", "resync", "more", "changes"})
+
+public class BookChanges {
+    /** Cursor to pass as since on the next call */
+    private final long sequence;
+
+    /** True if the client must reload the catalogue instead of applying deltas */
+    private final boolean resync;
+
+    /** True if there are more changes after sequence already */
+    private final boolean more;
+
+    /** Current state of each changed book, in order of its first change */
+    private final List<Book> changes;
+
+    /**
+     * @param sequence cursor for the next call
+     * @param resync   whether the client must reload the catalogue
+     * @param more     whether more changes are waiting after sequence
+     * @param changes  changed books (empty on resync)
+     */
+    public BookChanges(long sequence, boolean resync, boolean more, List<Book> changes) {
+        this.sequence = sequence;
+        this.resync   = resync;
+        this.more     = more;
+        this.changes  = changes;
+    }
+
+    /**
+     * @param sequence the feed's current sequence
+     * @return a reply telling the client to reload and continue from sequence
+     */
+    public static BookChanges resync(long sequence) {
+        return new BookChanges(sequence, true, false, List.of());
+    }
+
+    public long getSequence()      { return sequence; }
+    public boolean isResync()      { return resync; }
+    public boolean isMore()        { return more; }
+    public List<Book> getChanges() { return changes; }
+
+    @Override
+    public String toString() {
+        return "BookChanges{sequence=" + sequence +
+                ", resync=" + resync +
+                ", more=" + more +
+                ", changes=" + changes.size() + '}';
+    }
+}
@@ -0,0 +1,36 @@
+package com.teenread.model;
+
+import java.util.List;
+
+/**
+ * One page of the catalogue returned by keyset pagination.
+ *
+ * Clients pass {@code nextAfterId} back as {@code afterId} to fetch the
+ * following page; it is null once the last page has been returned.
+ */
+
+public class BookPage {
+    /** Books on this page, in catalogue order */
+    private final List<Book> books;
+
+    /** Cursor for the next page, or null when there are no more books */
+    private final Long nextAfterId;
+
+    /**
+     * @param books       books on this page
+     * @param nextAfterId cursor for the next page, or null
+     */
+    public BookPage(List<Book> books, Long nextAfterId) {
+        this.books       = books;
+        this.nextAfterId = nextAfterId;
+    }
+
+    public List<Book> getBooks()  { return books; }
+    public Long getNextAfterId()  { return nextAfterId; }
+
+    @Override
+    public String toString() {
+        return "BookPage{books=" + books.size() +
+                ", nextAfterId=" + nextAfterId + '}';
+    }
+}
@@ -1,5 +1,8 @@
 package com.teenread.model;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.teenread.index.TextDictionary;
+
 import java.time.LocalDate;
 
 /**
@@ -9,18 +12,29 @@ import java.time.LocalDate;
  * Stored in BorrowedBookRepository's in-memory list.
  *
  * Contains a snapshot of the book's title and author at borrow time
- * so the "My Books" view still works if the catalogue changes.
+ * so the "My Books" view still works if the catalogue changes. The snapshot
+ * is a pair of ids into the shared Book.TITLES / Book.AUTHORS dictionaries,
+ * so a loan never holds its own copy of the text.
+ *
+ * Each record belongs to one user (userId); anonymous borrows belong to GUEST_USER.
  */
+@JsonPropertyOrder({"bookId", "userId", "title", "author", "dueDate"})
 
 public class BorrowedBook {
+    /** Owner of records created without an explicit user */
+    public static final String GUEST_USER = "guest";
+
     /** The id of the Book that was borrowed */
     private Long bookId;
 
-    /** Snapshot of the book title at borrow time */
-    private String title;
+    /** The user who borrowed the book */
+    private String userId;
 
-    /** Snapshot of the author at borrow time */
-    private String author;
+    /** Snapshot of the book title at borrow time (id into Book.TITLES) */
+    private int titleId = TextDictionary.NULL_ID;
+
+    /** Snapshot of the author at borrow time (id into Book.AUTHORS) */
+    private int authorId = TextDictionary.NULL_ID;
 
     /**
      * The date on which the borrowed book must be returned (US3).
@@ -36,7 +50,7 @@ public class BorrowedBook {
     public BorrowedBook() {}
 
     /**
-     * Constructor used by BorrowService when creating a new borrow record.
+     * Constructor for a record owned by the guest user.
      *
      * @param bookId  id of the borrowed book
      * @param title   title snapshot
@@ -44,10 +58,40 @@ public class BorrowedBook {
      * @param dueDate calculated due date
      */
     public BorrowedBook(Long bookId, String title, String author, LocalDate dueDate) {
-        this.bookId  = bookId;
-        this.title   = title;
-        this.author  = author;
-        this.dueDate = dueDate;
+        this(bookId, title, author, dueDate, GUEST_USER);
+    }
+
+    /**
+     * Constructor used by BorrowService when creating a new borrow record.
+     *
+     * @param bookId  id of the borrowed book
+     * @param title   title snapshot
+     * @param author  author snapshot
+     * @param dueDate calculated due date
+     * @param userId  borrowing user
+     */
+    public BorrowedBook(Long bookId, String title, String author, LocalDate dueDate, String userId) {
+        this.bookId   = bookId;
+        this.titleId  = Book.TITLES.intern(title);
+        this.authorId = Book.AUTHORS.intern(author);
+        this.dueDate  = dueDate;
+        this.userId   = userId;
+    }
+
+    /**
+     * Creates a loan of a catalogue book, sharing its title and author
+     * entries (no text is copied or even decoded).
+     *
+     * @param book    the borrowed book
+     * @param dueDate calculated due date
+     * @param userId  borrowing user
+     */
+    public BorrowedBook(Book book, LocalDate dueDate, String userId) {
+        this.bookId   = book.getId();
+        this.titleId  = book.titleId();
+        this.authorId = book.authorId();
+        this.dueDate  = dueDate;
+        this.userId   = userId;
     }
 
     // ---------------------------------------------------------------
@@ -57,11 +101,14 @@ public class BorrowedBook {
     public Long getBookId()                    { return bookId; }
     public void setBookId(Long bookId)         { this.bookId = bookId; }
 
-    public String getTitle()                   { return title; }
-    public void setTitle(String title)         { this.title = title; }
+    public String getUserId()                  { return userId; }
+    public void setUserId(String userId)       { this.userId = userId; }
+
+    public String getTitle()                   { return Book.TITLES.get(titleId); }
+    public void setTitle(String title)         { this.titleId = Book.TITLES.intern(title); }
 
-    public String getAuthor()                  { return author; }
-    public void setAuthor(String author)       { this.author = author; }
+    public String getAuthor()                  { return Book.AUTHORS.get(authorId); }
+    public void setAuthor(String author)       { this.authorId = Book.AUTHORS.intern(author); }
 
     public LocalDate getDueDate()              { return dueDate; }
     public void setDueDate(LocalDate dueDate)  { this.dueDate = dueDate; }
@@ -69,7 +116,8 @@ public class BorrowedBook {
     @Override
     public String toString() {
         return "BorrowedBook{bookId=" + bookId +
-                ", title='" + title + '\'' +
+                ", userId='" + userId + '\'' +
+                ", title='" + getTitle() + '\'' +
                 ", dueDate=" + dueDate + '}';
     }
 }
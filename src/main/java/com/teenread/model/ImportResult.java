@@ -0,0 +1,61 @@
+package com.teenread.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk catalogue import, returned by POST /api/books/import.
+ *
+ * Rejected rows do not stop the import; the first few are described in
+ * {@code errors} as "line N: reason".
+ */
+
+public class ImportResult {
+    /** Non-blank data rows read from the feed (the CSV header is not counted) */
+    private final long rows;
+
+    /** Rows added to or updated in the catalogue */
+    private final long imported;
+
+    /** Rows skipped because they could not be parsed or failed validation */
+    private final long rejected;
+
+    /** Descriptions of the first rejected rows */
+    private final List<String> errors;
+
+    /** Wall-clock time of the whole import */
+    private final long elapsedMillis;
+
+    /** Throughput over the whole import */
+    private final long rowsPerSecond;
+
+    /**
+     * @param rows          data rows read
+     * @param imported      rows stored
+     * @param rejected      rows skipped
+     * @param errors        first rejected rows, described
+     * @param elapsedMillis duration of the import
+     * @param rowsPerSecond rows / elapsed seconds
+     */
+    public ImportResult(long rows, long imported, long rejected, List<String> errors,
+                        long elapsedMillis, long rowsPerSecond) {
+        this.rows          = rows;
+        this.imported      = imported;
+        this.rejected      = rejected;
+        this.errors        = errors;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public long getRows()            { return rows; }
+    public long getImported()        { return imported; }
+    public long getRejected()        { return rejected; }
+    public List<String> getErrors()  { return errors; }
+    public long getElapsedMillis()   { return elapsedMillis; }
+    public long getRowsPerSecond()   { return rowsPerSecond; }
+
+    @Override
+    public String toString() {
+        return "ImportResult{rows=" + rows + ", imported=" + imported +
+                ", rejected=" + rejected + ", rowsPerSecond=" + rowsPerSecond + '}';
+    }
+}
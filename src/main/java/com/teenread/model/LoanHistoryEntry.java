@@ -0,0 +1,55 @@
+package com.teenread.model;
+
+import java.time.LocalDate;
+
+/**
+ * A finished loan, read back from LoanHistoryRepository.
+ *
+ * History is stored packed in primitive arrays; this object is only
+ * created when a caller asks for entries, never while recording them.
+ */
+
+public class LoanHistoryEntry {
+    /** The id of the Book that was borrowed */
+    private final Long bookId;
+
+    /** The user who borrowed it */
+    private final String userId;
+
+    /** When the book was due back */
+    private final LocalDate dueDate;
+
+    /** When the book was actually returned */
+    private final LocalDate returnDate;
+
+    /**
+     * @param bookId     id of the returned book
+     * @param userId     borrowing user
+     * @param dueDate    due date of the loan
+     * @param returnDate date the book came back
+     */
+    public LoanHistoryEntry(Long bookId, String userId, LocalDate dueDate, LocalDate returnDate) {
+        this.bookId     = bookId;
+        this.userId     = userId;
+        this.dueDate    = dueDate;
+        this.returnDate = returnDate;
+    }
+
+    public Long getBookId()          { return bookId; }
+    public String getUserId()        { return userId; }
+    public LocalDate getDueDate()    { return dueDate; }
+    public LocalDate getReturnDate() { return returnDate; }
+
+    /** @return true if the book came back after its due date */
+    public boolean isLate() {
+        return returnDate.isAfter(dueDate);
+    }
+
+    @Override
+    public String toString() {
+        return "LoanHistoryEntry{bookId=" + bookId +
+                ", userId='" + userId + '\'' +
+                ", dueDate=" + dueDate +
+                ", returnDate=" + returnDate + '}';
+    }
+}
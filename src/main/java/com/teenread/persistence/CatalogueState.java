@@ -0,0 +1,71 @@
+package com.teenread.persistence;
+
+import com.teenread.model.Book;
+import com.teenread.model.BorrowedBook;
+import com.teenread.repository.LoanHistoryRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The persisted state, rebuilt from a snapshot plus the log records after it.
+ *
+ * Deliberately independent of the live repositories: compaction folds
+ * log segments into a fresh CatalogueState in the background, so taking a
+ * snapshot never has to pause or lock the request path.
+ *
+ * Not thread-safe; each instance is owned by one recovery or compaction run.
+ */
+final class CatalogueState {
+
+    /** Books saved on top of the base catalogue, in insertion order (availability is derived from loans) */
+    final Map<Long, Book> books = new LinkedHashMap<>();
+
+    /** Active loans by book id */
+    final Map<Long, BorrowedBook> loans = new LinkedHashMap<>();
+
+    /** Returned loans, bounded exactly like the live history */
+    final LoanHistoryRepository history;
+
+    CatalogueState(int historyCapacity) {
+        this.history = new LoanHistoryRepository(historyCapacity);
+    }
+
+    /**
+     * Applies one log record. Re-applying a record that is already reflected
+     * in the state is harmless for BOOK_SAVED and BORROWED.
+     *
+     * @param record encoded record (see LogRecords)
+     * @throws IOException if the record is malformed
+     */
+    void apply(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        switch (type) {
+            case LogRecords.BOOK_SAVED -> {
+                long id = in.readLong();
+                books.put(id, new Book(id, in.readUTF(), in.readUTF(), true));
+            }
+            case LogRecords.BORROWED -> {
+                long bookId = in.readLong();
+                String userId = in.readUTF();
+                LocalDate dueDate = LocalDate.ofEpochDay(in.readInt());
+                // Title and author are filled in from the catalogue on restore
+                loans.put(bookId, new BorrowedBook(bookId, "", "", dueDate, userId));
+            }
+            case LogRecords.RETURNED -> {
+                long bookId = in.readLong();
+                LocalDate returnDate = LocalDate.ofEpochDay(in.readInt());
+                BorrowedBook loan = loans.remove(bookId);
+                if (loan != null) {
+                    history.append(loan, returnDate);
+                }
+            }
+            default -> throw new IOException("Unknown log record type " + type);
+        }
+    }
+}
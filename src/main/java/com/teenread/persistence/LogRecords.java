@@ -0,0 +1,73 @@
+package com.teenread.persistence;
+
+import com.teenread.model.Book;
+import com.teenread.model.BorrowedBook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+
+/**
+ * Binary encoding of the events written to the write-ahead log.
+ *
+ * Every record starts with a one-byte type, followed by its fields:
+ *   BOOK_SAVED – id (long), title (UTF), author (UTF)
+ *   BORROWED   – bookId (long), userId (UTF), due date (int epoch day)
+ *   RETURNED   – bookId (long), return date (int epoch day)
+ *
+ * Loans carry no title/author: those are taken from the catalogue on replay.
+ * CatalogueState decodes and applies them.
+ */
+final class LogRecords {
+
+    static final byte BOOK_SAVED = 1;
+    static final byte BORROWED   = 2;
+    static final byte RETURNED   = 3;
+
+    private LogRecords() {
+    }
+
+    static byte[] bookSaved(Book book) {
+        return encode(out -> {
+            out.writeByte(BOOK_SAVED);
+            out.writeLong(book.getId());
+            out.writeUTF(book.getTitle());
+            out.writeUTF(book.getAuthor());
+        });
+    }
+
+    static byte[] borrowed(BorrowedBook loan) {
+        return encode(out -> {
+            out.writeByte(BORROWED);
+            out.writeLong(loan.getBookId());
+            out.writeUTF(loan.getUserId());
+            out.writeInt((int) loan.getDueDate().toEpochDay());
+        });
+    }
+
+    static byte[] returned(long bookId, LocalDate returnDate) {
+        return encode(out -> {
+            out.writeByte(RETURNED);
+            out.writeLong(bookId);
+            out.writeInt((int) returnDate.toEpochDay());
+        });
+    }
+
+    private static byte[] encode(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            // A ByteArrayOutputStream never throws; only writeUTF on a huge string can
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,313 @@
+package com.teenread.persistence;
+
+import com.teenread.model.Book;
+import com.teenread.model.BorrowedBook;
+import com.teenread.repository.BookRepository;
+import com.teenread.repository.BorrowedBookRepository;
+import com.teenread.repository.LoanHistoryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local persistence for the catalogue, active loans and loan history.
+ *
+ * Two kinds of file live in app.persistence.dir:
+ *   - write-ahead log segments – every borrow, return and book save is
+ *     appended and fsync'd (group-committed) before the caller is answered
+ *   - snapshot.bin – the whole state as of some log segment
+ *
+ * Only changes are persisted: the base catalogue (the built-in seed or the
+ * app.catalogue.file) is never copied into the snapshot, which holds the
+ * books saved since, the active loans and the loan history.
+ *
+ * Startup: load the snapshot, replay the log segments written after it into
+ * the repositories, then fold them into a fresh snapshot.
+ *
+ * Compaction (every app.persistence.snapshot-interval-seconds and on
+ * shutdown): rotate the log, rebuild the state from the previous snapshot
+ * plus the closed segments, write it as the new snapshot and delete those
+ * segments. It reads files only, so requests are never paused for it.
+ *
+ * With app.persistence.enabled=false every log call is a no-op and state
+ * is in-memory only (the behaviour before persistence existed).
+ */
+@Service
+
+public class PersistenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistenceService.class);
+
+    private final BookRepository bookRepository;
+    private final BorrowedBookRepository borrowedBookRepository;
+    private final LoanHistoryRepository loanHistoryRepository;
+
+    private final boolean enabled;
+    private final Path dir;
+    private final long snapshotIntervalSeconds;
+    private final SnapshotStore snapshots;
+
+    /** Serialises compaction runs (scheduled vs shutdown) */
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    /** Open once start() has recovered; null while disabled */
+    private volatile WriteAheadLog wal;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param bookRepository          catalogue to restore into
+     * @param borrowedBookRepository  active loans to restore into
+     * @param loanHistoryRepository   loan history to restore into
+     * @param enabled                 app.persistence.enabled
+     * @param dir                     app.persistence.dir – created if missing
+     * @param snapshotIntervalSeconds app.persistence.snapshot-interval-seconds
+     */
+    public PersistenceService(BookRepository bookRepository,
+                              BorrowedBookRepository borrowedBookRepository,
+                              LoanHistoryRepository loanHistoryRepository,
+                              @Value("${app.persistence.enabled:false}") boolean enabled,
+                              @Value("${app.persistence.dir:data}") String dir,
+                              @Value("${app.persistence.snapshot-interval-seconds:300}") long snapshotIntervalSeconds) {
+        if (snapshotIntervalSeconds < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be at least 1 second");
+        }
+        this.bookRepository          = bookRepository;
+        this.borrowedBookRepository  = borrowedBookRepository;
+        this.loanHistoryRepository   = loanHistoryRepository;
+        this.enabled                 = enabled;
+        this.dir                     = Path.of(dir);
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.snapshots               = new SnapshotStore(this.dir);
+    }
+
+    // ---------------------------------------------------------------
+    // Lifecycle
+    // ---------------------------------------------------------------
+
+    /**
+     * Recovers the persisted state into the repositories and opens the log.
+     * Runs before the application accepts requests.
+     *
+     * @throws UncheckedIOException if the persisted state cannot be read –
+     *         starting with a silently empty library would be worse
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("PERSISTENCE – disabled; catalogue and loans are kept in memory only");
+            return;
+        }
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover persisted state from " + dir.toAbsolutePath(), e);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::compact,
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Takes a final snapshot and closes the log, so the next start replays nothing.
+     */
+    @PreDestroy
+    public void stop() {
+        if (wal == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compact();
+        try {
+            wal.close();
+        } catch (IOException e) {
+            log.error("PERSISTENCE – error closing the write-ahead log", e);
+        }
+        wal = null;
+    }
+
+    /** @return true if state changes are being persisted */
+    public boolean isEnabled() {
+        return wal != null;
+    }
+
+    // ---------------------------------------------------------------
+    // Logging state changes
+    // ---------------------------------------------------------------
+
+    /**
+     * Durably records a new loan. Returns once it is on disk.
+     *
+     * @param loan the loan being created
+     * @throws UncheckedIOException if the log could not be written
+     */
+    public void logBorrow(BorrowedBook loan) {
+        append(LogRecords.borrowed(loan));
+    }
+
+    /**
+     * Durably records the end of a loan. Returns once it is on disk.
+     *
+     * @param loan       the loan being ended
+     * @param returnDate the day the book came back
+     * @throws UncheckedIOException if the log could not be written
+     */
+    public void logReturn(BorrowedBook loan, LocalDate returnDate) {
+        append(LogRecords.returned(loan.getBookId(), returnDate));
+    }
+
+    /**
+     * Durably records a batch of new or changed catalogue entries, sharing
+     * fsyncs between them. Returns once all are on disk.
+     *
+     * @param books the saved books (availability is not logged – loans determine it)
+     * @throws UncheckedIOException if the log could not be written
+     */
+    public void logBooksSaved(Collection<Book> books) {
+        WriteAheadLog current = wal;
+        if (current != null && !books.isEmpty()) {
+            List<byte[]> records = new ArrayList<>(books.size());
+            books.forEach(book -> records.add(LogRecords.bookSaved(book)));
+            current.appendAll(records);
+        }
+    }
+
+    private void append(byte[] record) {
+        WriteAheadLog current = wal;
+        if (current != null) {
+            current.append(record);
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Recovery and compaction
+    // ---------------------------------------------------------------
+
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(dir);
+
+        CatalogueState state = new CatalogueState(loanHistoryRepository.capacity());
+        boolean fresh = !snapshots.exists();
+        long lastSegment = 0;
+        if (!fresh) {
+            lastSegment = snapshots.load(state);
+        }
+
+        long replayed = 0;
+        for (long segment : WriteAheadLog.segments(dir)) {
+            if (segment > lastSegment) {
+                replayed += WriteAheadLog.replay(dir, segment, state::apply);
+                lastSegment = segment;
+            }
+        }
+
+        if (!fresh || replayed > 0) {
+            restore(state);
+        }
+        // Fold the replayed log into a snapshot so the next start is as quick
+        if (fresh || replayed > 0) {
+            snapshots.write(state, lastSegment);
+        }
+        deleteSegmentsUpTo(lastSegment);
+        wal = new WriteAheadLog(dir, lastSegment + 1);
+
+        log.info("PERSISTENCE – recovered {} books, {} active loans, {} history entries "
+                        + "({} log records replayed) from {} in {} ms",
+                state.books.size(), state.loans.size(), state.history.size(),
+                replayed, dir.toAbsolutePath(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Loads a recovered state into the (freshly seeded) repositories.
+     * Loans take their title and author from the catalogue, which may be the
+     * base catalogue rather than a persisted book.
+     */
+    private void restore(CatalogueState state) {
+        List<Book> books = new ArrayList<>(state.books.size());
+        state.books.values().forEach(book -> books.add(new Book(book.getId(), book.getTitle(),
+                book.getAuthor(), true)));
+        bookRepository.saveAll(books);
+        for (BorrowedBook loan : state.loans.values()) {
+            Book book = bookRepository.findById(loan.getBookId()).orElse(null);
+            if (book == null) {
+                log.warn("PERSISTENCE – dropping the loan of unknown book {} by '{}'",
+                        loan.getBookId(), loan.getUserId());
+                continue;
+            }
+            book.compareAndSetAvailable(true, false);
+            bookRepository.save(book);
+            borrowedBookRepository.save(new BorrowedBook(book, loan.getDueDate(), loan.getUserId()));
+        }
+        state.history.forEach(loanHistoryRepository::append);
+    }
+
+    /**
+     * Folds the closed log segments into a new snapshot and deletes them.
+     * Failures are logged and retried on the next run; the log is never
+     * deleted unless the snapshot covering it was written.
+     */
+    void compact() {
+        compactionLock.lock();
+        try {
+            WriteAheadLog current = wal;
+            if (current == null || current.recordsInSegment() == 0) {
+                return;
+            }
+            long started = System.nanoTime();
+            long lastSegment = current.rotate();
+
+            CatalogueState state = new CatalogueState(loanHistoryRepository.capacity());
+            long covered = snapshots.load(state);
+            long folded = 0;
+            for (long segment : WriteAheadLog.segments(dir)) {
+                if (segment > covered && segment <= lastSegment) {
+                    folded += WriteAheadLog.replay(dir, segment, state::apply);
+                }
+            }
+            snapshots.write(state, lastSegment);
+            deleteSegmentsUpTo(lastSegment);
+
+            log.info("PERSISTENCE – snapshot written: {} books, {} active loans, {} history entries "
+                            + "({} log records folded) in {} ms",
+                    state.books.size(), state.loans.size(), state.history.size(),
+                    folded, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.error("PERSISTENCE – snapshot failed; keeping the log and retrying later", e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    private void deleteSegmentsUpTo(long lastSegment) throws IOException {
+        for (long segment : WriteAheadLog.segments(dir)) {
+            if (segment <= lastSegment) {
+                Files.deleteIfExists(WriteAheadLog.segmentPath(dir, segment));
+            }
+        }
+    }
+}
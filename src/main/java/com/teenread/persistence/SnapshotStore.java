@@ -0,0 +1,166 @@
+package com.teenread.persistence;
+
+import com.teenread.model.Book;
+import com.teenread.model.BorrowedBook;
+import com.teenread.model.LoanHistoryEntry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of a CatalogueState ({@code snapshot.bin}).
+ *
+ * Layout (all big-endian, strings as modified UTF-8):
+ *   int magic "TRSN", int version
+ *   long lastSegment – every log segment up to this one is folded in
+ *   int n, n × book    (id long, title, author)
+ *   int n, n × loan    (bookId long, userId, due epoch day int)
+ *   int n, n × history (bookId long, userId, due int, returned int)
+ *   long CRC32 of everything above
+ *
+ * A snapshot is written to a temporary file, fsync'd and atomically renamed
+ * over the previous one, so a crash mid-write leaves the old snapshot intact.
+ */
+final class SnapshotStore {
+
+    static final String FILE_NAME = "snapshot.bin";
+
+    private static final int MAGIC = 0x5452534E; // "TRSN"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Path tempFile;
+
+    SnapshotStore(Path dir) {
+        this.file = dir.resolve(FILE_NAME);
+        this.tempFile = dir.resolve(FILE_NAME + ".tmp");
+    }
+
+    /** @return true if a snapshot has been written */
+    boolean exists() {
+        return Files.exists(file);
+    }
+
+    /**
+     * Loads the snapshot into an empty state.
+     *
+     * @param state state to fill
+     * @return the last log segment the snapshot covers
+     * @throws IOException if the file is unreadable, of another version or corrupt
+     */
+    long load(CatalogueState state) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream raw = Files.newInputStream(file);
+             CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(raw, 1 << 16), crc);
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " snapshot: " + file);
+            }
+            long lastSegment = in.readLong();
+
+            for (int n = in.readInt(); n > 0; n--) {
+                long id = in.readLong();
+                state.books.put(id, new Book(id, in.readUTF(), in.readUTF(), true));
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                long bookId = in.readLong();
+                String userId = in.readUTF();
+                LocalDate due = LocalDate.ofEpochDay(in.readInt());
+                state.loans.put(bookId, new BorrowedBook(bookId, "", "", due, userId));
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                long bookId = in.readLong();
+                String userId = in.readUTF();
+                LocalDate due = LocalDate.ofEpochDay(in.readInt());
+                LocalDate returned = LocalDate.ofEpochDay(in.readInt());
+                state.history.append(new LoanHistoryEntry(bookId, userId, due, returned));
+            }
+
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            return lastSegment;
+        }
+    }
+
+    /**
+     * Writes the state as the new snapshot, replacing the old one atomically.
+     *
+     * @param state       state to persist
+     * @param lastSegment last log segment folded into the state
+     * @throws IOException if the snapshot cannot be written
+     */
+    void write(CatalogueState state, long lastSegment) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileOutputStream raw = new FileOutputStream(tempFile.toFile())) {
+            DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(raw, 1 << 16), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSegment);
+
+            out.writeInt(state.books.size());
+            for (Book book : state.books.values()) {
+                out.writeLong(book.getId());
+                out.writeUTF(book.getTitle());
+                out.writeUTF(book.getAuthor());
+            }
+            out.writeInt(state.loans.size());
+            for (BorrowedBook loan : state.loans.values()) {
+                out.writeLong(loan.getBookId());
+                out.writeUTF(loan.getUserId());
+                out.writeInt((int) loan.getDueDate().toEpochDay());
+            }
+            out.writeInt(state.history.size());
+            try {
+                state.history.forEach(entry -> {
+                    try {
+                        out.writeLong(entry.getBookId());
+                        out.writeUTF(entry.getUserId());
+                        out.writeInt((int) entry.getDueDate().toEpochDay());
+                        out.writeInt((int) entry.getReturnDate().toEpochDay());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            out.flush();
+            // The checksum itself goes straight to the file, outside the CRC
+            new DataOutputStream(raw).writeLong(crc.getValue());
+            raw.getFD().sync();
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.getParent());
+    }
+
+    /**
+     * Makes a rename durable. Not every platform can open a directory;
+     * there the rename is as durable as the OS makes it.
+     */
+    static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException unsupported) {
+            // e.g. Windows – nothing more we can do
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.teenread.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, fsync'd log of state changes, split into numbered segment files
+ * ({@code wal-0000000000000001.log}, …).
+ *
+ * Group commit:
+ *   append() hands its record to a single writer thread and waits. The writer
+ *   drains everything queued since its last flush, writes it in one call and
+ *   issues ONE fsync for the whole batch before releasing all waiters. Under
+ *   load, N concurrent borrows cost one fsync instead of N, while every caller
+ *   still returns only once its record is on disk.
+ *
+ * Record framing: [int length][int CRC32 of payload][payload]. A crash can
+ * leave a partly written record at the end of the newest segment; replay
+ * stops at the first record that is truncated or fails its checksum.
+ *
+ * Segments let compaction fold everything up to a point into a snapshot:
+ * rotate() closes the current segment and starts the next one.
+ */
+final class WriteAheadLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    /** Most records written under one fsync */
+    static final int MAX_BATCH = 1024;
+
+    /** Larger lengths can only come from a torn or corrupt record */
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{16})\\.log");
+
+    /** Queue marker telling the writer thread to finish */
+    private static final Pending SHUTDOWN = new Pending(new byte[0]);
+
+    private final Path dir;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    /** Held by the writer for each batch and by rotate(); guards channel/segment */
+    private final ReentrantLock fileLock = new ReentrantLock();
+    private FileChannel channel;
+    private long segment;
+    private long recordsInSegment;
+
+    private volatile boolean closed;
+
+    /** Set by the writer thread just before it exits */
+    private volatile boolean stopped;
+
+    /** First write failure; after one, the log refuses further appends (fail-stop) */
+    private volatile IOException failure;
+
+    /**
+     * Opens a new segment for appending and starts the writer thread.
+     *
+     * @param dir     directory holding the segments
+     * @param segment number of the segment to write (must not exist yet)
+     * @throws IOException if the segment cannot be created
+     */
+    WriteAheadLog(Path dir, long segment) throws IOException {
+        this.dir = dir;
+        this.segment = segment;
+        this.channel = open(segment);
+        this.writer = new Thread(this::writeLoop, "wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Appends a record and blocks until it is durable.
+     *
+     * @param record encoded record
+     * @throws UncheckedIOException  if the write or fsync failed
+     * @throws IllegalStateException if the log is closed
+     */
+    void append(byte[] record) {
+        appendAll(List.of(record));
+    }
+
+    /**
+     * Appends records in order and blocks until all of them are durable.
+     * Queued together, they are written in as few batches (fsyncs) as
+     * MAX_BATCH allows.
+     *
+     * @param records encoded records
+     * @throws UncheckedIOException  if a write or fsync failed
+     * @throws IllegalStateException if the log is closed
+     */
+    void appendAll(List<byte[]> records) {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        List<Pending> pendings = new ArrayList<>(records.size());
+        records.forEach(record -> pendings.add(new Pending(record)));
+        queue.addAll(pendings);
+        if (stopped) {
+            // Raced with close(): the writer may already have drained the queue
+            pendings.forEach(pending -> pending.done.completeExceptionally(
+                    new IllegalStateException("Write-ahead log is closed")));
+        }
+        try {
+            pendings.forEach(pending -> pending.done.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the current segment and continues in the next one.
+     *
+     * @return number of the segment just closed; it and all earlier ones are
+     *         complete and may be compacted
+     * @throws IOException if the new segment cannot be created
+     */
+    long rotate() throws IOException {
+        fileLock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+            long closedSegment = segment;
+            segment++;
+            recordsInSegment = 0;
+            channel = open(segment);
+            return closedSegment;
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    /** @return records written to the current segment so far */
+    long recordsInSegment() {
+        fileLock.lock();
+        try {
+            return recordsInSegment;
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes everything already queued, stops the writer and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(SHUTDOWN);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fileLock.lock();
+        try {
+            channel.close();
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Reading segments (recovery / compaction)
+    // ---------------------------------------------------------------
+
+    /**
+     * Lists the segment files in a directory, oldest first.
+     *
+     * @param dir log directory
+     * @return segment numbers in ascending order
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Long> segments(Path dir) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (var files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher m = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (m.matches()) {
+                    numbers.add(Long.parseLong(m.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    /** @return path of a segment file */
+    static Path segmentPath(Path dir, long segment) {
+        return dir.resolve(String.format("wal-%016d.log", segment));
+    }
+
+    /**
+     * Feeds every intact record of a segment to the consumer, in order.
+     * Stops quietly at a torn tail (truncated record or checksum mismatch).
+     *
+     * @param dir      log directory
+     * @param segment  segment number
+     * @param consumer receives each record payload
+     * @return number of records read
+     * @throws IOException if the file cannot be read or the consumer fails
+     */
+    static long replay(Path dir, long segment, RecordConsumer consumer) throws IOException {
+        Path file = segmentPath(dir, segment);
+        long count = 0;
+        CRC32 crc = new CRC32();
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException end) {
+                    return count;
+                }
+                try {
+                    int checksum = in.readInt();
+                    if (length < 1 || length > MAX_RECORD_SIZE) {
+                        log.warn("WAL – {} ends in a corrupt record after {} record(s); ignoring the rest",
+                                file.getFileName(), count);
+                        return count;
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        log.warn("WAL – checksum mismatch in {} after {} record(s); ignoring the rest",
+                                file.getFileName(), count);
+                        return count;
+                    }
+                    consumer.accept(payload);
+                    count++;
+                } catch (EOFException torn) {
+                    log.warn("WAL – {} ends in a partly written record after {} record(s); ignoring it",
+                            file.getFileName(), count);
+                    return count;
+                }
+            }
+        }
+    }
+
+    /** Receives replayed record payloads. */
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(byte[] record) throws IOException;
+    }
+
+    // ---------------------------------------------------------------
+    // Writer thread
+    // ---------------------------------------------------------------
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        CRC32 crc = new CRC32();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Only close() stops the writer – waiters must never be stranded
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            running = !batch.remove(SHUTDOWN);
+            if (!batch.isEmpty()) {
+                writeBatch(batch, crc);
+            }
+            batch.clear();
+        }
+        stopped = true;
+        queue.drainTo(batch);
+        batch.forEach(pending -> pending.done.completeExceptionally(
+                new IllegalStateException("Write-ahead log is closed")));
+    }
+
+    /** Writes a batch with one fsync and releases its waiters. */
+    private void writeBatch(List<Pending> batch, CRC32 crc) {
+        if (failure != null) {
+            // Never write after a failed write: the tail may hold a partial record
+            UncheckedIOException error = new UncheckedIOException("Write-ahead log unavailable", failure);
+            batch.forEach(pending -> pending.done.completeExceptionally(error));
+            return;
+        }
+        int bytes = 0;
+        for (Pending pending : batch) {
+            bytes += 8 + pending.record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        for (Pending pending : batch) {
+            crc.reset();
+            crc.update(pending.record);
+            buffer.putInt(pending.record.length)
+                  .putInt((int) crc.getValue())
+                  .put(pending.record);
+        }
+        buffer.flip();
+
+        fileLock.lock();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            recordsInSegment += batch.size();
+        } catch (IOException e) {
+            failure = e;
+            log.error("WAL – write to segment {} failed; refusing further appends", segment, e);
+            UncheckedIOException error = new UncheckedIOException("Write-ahead log write failed", e);
+            batch.forEach(pending -> pending.done.completeExceptionally(error));
+            return;
+        } finally {
+            fileLock.unlock();
+        }
+        batch.forEach(pending -> pending.done.complete(null));
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(segmentPath(dir, number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /** A record waiting for the writer, plus the future its appender blocks on. */
+    private static final class Pending {
+        final byte[] record;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(byte[] record) {
+            this.record = record;
+        }
+    }
+}
@@ -1,12 +1,41 @@
 package com.teenread.repository;
 
+import com.teenread.index.CatalogueColumns;
+import com.teenread.index.ChangeRing;
+import com.teenread.index.IntSampleSet;
+import com.teenread.index.LongIntHashMap;
+import com.teenread.index.NgramIndex;
+import com.teenread.index.PrefixTrie;
+import com.teenread.index.SearchResultCache;
+import com.teenread.metrics.Meters;
 import com.teenread.model.Book;
+import com.teenread.model.BookChanges;
+import com.teenread.storage.MappedCatalogue;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
 
 /**
  * In-memory repository for the book catalogue.
@@ -14,45 +43,454 @@ import java.util.stream.Collectors;
  * Sprint 1: findAll, searchByTitle
  *  * Sprint 2: findById, save (to toggle availability flag)
  *  *
- *  * The internal list is the single source of truth for book state.
+ *  * The internal array is the single source of truth for book state.
  *  * All mutations (borrow → available=false) go through save().
+ *
+ * Storage layout:
+ *   - columns  – the catalogue itself in catalogue order ("slots"), one
+ *                primitive array per field: long ids, title/author ids into
+ *                the Book.TITLES / AUTHORS dictionaries and an availability
+ *                bitset (see CatalogueColumns) – no object per book
+ *   - books[]  – the canonical Book object of each slot handed out by
+ *                findById or saved; null for the rest, which bulk reads
+ *                (findAll, searches, streaming) copy out of the columns
+ *   - idIndex  – primitive long id → slot, so findById/save are O(1)
+ *   - titleIndex – trigram inverted index over lower-cased titles, so
+ *                  searchByTitle intersects posting lists instead of scanning
+ *   - authorIndex  – the same over lower-cased author names
+ *   - availableSet – the same slots as a dense set, for O(k) random sampling
+ *   - suggestTrie  – prefix trie over title and author words for autocomplete
+ *   - searchCache  – recent title-search results (keyword → slots), bounded
+ *                    segmented LRU; entries are dropped only when a title
+ *                    containing their keyword is added or changed
+ *   - changes      – ids of the last CHANGE_FEED_CAPACITY saved or imported
+ *                    books, by sequence number (the change feed)
+ *
+ * Mapped mode (app.catalogue.file set):
+ *   The base catalogue is a memory-mapped CatalogueFile instead of columns.
+ *   Its books keep their file positions as slots (ids resolved by binary
+ *   search over the mapped records); their column slots are only reserved,
+ *   and filled in when a book is first saved. Only the availability bits are
+ *   loaded up front. Books added later are appended after the mapped ones
+ *   exactly as in heap mode. Copies of mapped books (MappedBook) read their
+ *   text from the file; it is interned into the dictionaries only for books
+ *   that are saved or lent. The text indexes are built by a background
+ *   thread; until it finishes, searches scan the titles/authors instead, so
+ *   startup does not wait for them.
+ *
+ * Concurrency:
+ *   Every request runs on its own Tomcat thread, so all state is guarded by a
+ *   StampedLock. Writes take the write lock; findById uses an optimistic read
+ *   (no lock traffic at all in the common case) and falls back to a read lock
+ *   only if a write raced with it. count() and countAvailable() read
+ *   LongAdder counters maintained by the writers and take no lock at all.
+ *
+ * Versioning:
+ *   version() is bumped by every write, under the write lock and after the
+ *   change. A reader that reads the version first and the books second can
+ *   therefore only pair an old version with newer books, never the reverse –
+ *   which is what makes it safe to answer "not modified" from the version alone.
+ *   The change feed (changesSince) numbers the same writes per book instead,
+ *   so clients can fetch just the books that changed.
  */
 
 @Repository
 public class BookRepository {
-    // The master list of all books held in JVM memory.
-    // Initialised once in the constructor; mutated via save().
-    private final List<Book> books = new ArrayList<>();
+    /** Completions cached per trie prefix – the most /suggest can return */
+    public static final int SUGGEST_CACHE_SIZE = 10;
+
+    /** Books copied per lock hold while streaming the catalogue in forEach() */
+    private static final int STREAM_CHUNK = 256;
+
+    /** Mapped slots indexed per write-lock hold by the background indexer */
+    private static final int INDEX_CHUNK = 4096;
+
+    /** Title searches whose results are cached, and their estimated bytes */
+    private static final int SEARCH_CACHE_ENTRIES = 4096;
+    private static final long SEARCH_CACHE_BYTES = 8L << 20;
+
+    /** Books per saveAll/importAll above which the search cache is cleared instead of matched per title */
+    private static final int PRECISE_INVALIDATION_LIMIT = 256;
+
+    /** Changes the change feed retains; older cursors must resync */
+    private static final int CHANGE_FEED_CAPACITY = 65536;
+
+    /** New books per saveAll/importAll from which the text indexes are built in parallel */
+    private static final int PARALLEL_INDEX_THRESHOLD = 1024;
+
+    /** Atomic install of a materialised book into books[] under the read lock */
+    private static final VarHandle BOOK_SLOT = MethodHandles.arrayElementVarHandle(Book[].class);
+
+    private static final Logger log = LoggerFactory.getLogger(BookRepository.class);
+
+    // Call timers (see Meters); findById and the counters are too cheap to time
+    private static final Timer FIND_ALL_TIMER     = Meters.repositoryTimer("books", "findAll");
+    private static final Timer FIND_PAGE_TIMER    = Meters.repositoryTimer("books", "findPage");
+    private static final Timer SEARCH_TIMER       = Meters.repositoryTimer("books", "search");
+    private static final Timer QUERY_TIMER        = Meters.repositoryTimer("books", "query");
+    private static final Timer SUGGEST_TIMER      = Meters.repositoryTimer("books", "suggest");
+    private static final Timer RANDOM_TIMER       = Meters.repositoryTimer("books", "findRandomAvailable");
+    private static final Timer SAVE_TIMER         = Meters.repositoryTimer("books", "save");
+    private static final Timer SAVE_ALL_TIMER     = Meters.repositoryTimer("books", "saveAll");
+    private static final Timer CHANGES_TIMER      = Meters.repositoryTimer("books", "changesSince");
+
+    // Guards columns, books and all indexes
+    private final StampedLock lock = new StampedLock();
+
+    // Primary index: book id → position in the books array
+    private final LongIntHashMap idIndex = new LongIntHashMap(16);
+
+    // Secondary index: title trigrams → slots, maintained on every add/save;
+    // candidates are verified against the columns or the mapped file
+    private final NgramIndex titleIndex = new NgramIndex(this::rawTitle);
+
+    // Secondary index: author trigrams → slots
+    private final NgramIndex authorIndex = new NgramIndex(this::rawAuthor);
+
+    // Same membership as availableSlots, laid out for uniform random picks
+    private final IntSampleSet availableSet = new IntSampleSet();
+
+    // Autocomplete: title + author words → top completions per prefix
+    private final PrefixTrie suggestTrie = new PrefixTrie(SUGGEST_CACHE_SIZE);
+
+    // Title search results by normalised keyword (lock-free lookups under the read lock)
+    private final SearchResultCache searchCache = new SearchResultCache(SEARCH_CACHE_ENTRIES, SEARCH_CACHE_BYTES);
+
+    // Change feed. Sequences start at the start time in microseconds, so a
+    // cursor from an earlier run is older than anything this one retains
+    private final ChangeRing changes = new ChangeRing(CHANGE_FEED_CAPACITY, System.currentTimeMillis() * 1000);
+
+    // Ids, text ids and availability of every slot; columns.size() is the catalogue size
+    private final CatalogueColumns columns;
+
+    // Canonical book per slot, created on first findById (null = not handed out yet)
+    private Book[] books = new Book[16];
+
+    // Live counters for count() / countAvailable(), readable without the lock
+    private final LongAdder bookCount = new LongAdder();
+    private final LongAdder availableCount = new LongAdder();
+
+    // Catalogue version, see version(); written only under the write lock
+    private volatile long version;
+
+    // Base catalogue file, or null when every book lives on the heap
+    private final MappedCatalogue mapped;
+
+    // Set once the text indexes cover every mapped book
+    private volatile boolean indexesReady = true;
+    private final CountDownLatch indexed = new CountDownLatch(1);
 
     /**
      * Constructor: called once by Spring on startup.
+     * Maps the configured catalogue file, or seeds the built-in books if none is set.
+     *
+     * @param catalogueFile app.catalogue.file – path of a CatalogueFile, blank for the seed
+     * @throws UncheckedIOException if the file cannot be mapped
+     */
+    @Autowired
+    public BookRepository(@Value("${app.catalogue.file:}") String catalogueFile) {
+        this(catalogueFile.isBlank() ? null : open(Path.of(catalogueFile)));
+        if (mapped == null) {
+            upsertAll(seedCatalogue(), false);
+        }
+    }
+
+    /**
      * Seeds 12 books that are representative of teen reading interests.
      */
     public BookRepository() {
-        // Each Book(id, title, author, available)
-        books.add(new Book(1L,  "The Hunger Games",              "Suzanne Collins",   true));
-        books.add(new Book(2L,  "Harry Potter and the Sorcerer's Stone", "J.K. Rowling", true));
-        books.add(new Book(3L,  "Divergent",                     "Veronica Roth",     true));
-        books.add(new Book(4L,  "The Maze Runner",               "James Dashner",     true));
-        books.add(new Book(5L,  "Percy Jackson: The Lightning Thief", "Rick Riordan", true));
-        books.add(new Book(6L,  "Ender's Game",                  "Orson Scott Card",  true));
-        books.add(new Book(7L,  "The Giver",                     "Lois Lowry",        true));
-        books.add(new Book(8L,  "Holes",                         "Louis Sachar",      true));
-        books.add(new Book(9L,  "Wonder",                        "R.J. Palacio",      true));
-        books.add(new Book(10L, "Tuck Everlasting",              "Natalie Babbitt",   true));
-        books.add(new Book(11L, "Hatchet",                       "Gary Paulsen",      true));
-        books.add(new Book(12L, "The Outsiders",                 "S.E. Hinton",       true));
+        this(seedCatalogue());
+    }
+
+    /**
+     * Builds a repository holding exactly the given books, in order.
+     * Lets benchmarks and tests work with catalogues of any size.
+     *
+     * @param catalogue books to index; ids must be unique
+     */
+    public BookRepository(Collection<Book> catalogue) {
+        this((MappedCatalogue) null);
+        upsertAll(catalogue, false); // not saveAll: constructors call nothing overridable
+    }
+
+    /**
+     * Serves a memory-mapped catalogue. Returns at once: only the availability
+     * bits are read up front, the text indexes are built in the background
+     * (see awaitIndexes()).
+     *
+     * @param catalogue mapped catalogue file, or null for an empty heap repository
+     */
+    public BookRepository(MappedCatalogue catalogue) {
+        this.mapped = catalogue;
+        if (catalogue == null) {
+            columns = new CatalogueColumns(16);
+            indexed.countDown();
+            return;
+        }
+        int size = catalogue.size();
+        columns = new CatalogueColumns(size);
+        columns.reserve(size);
+        bookCount.add(size);
+        books = new Book[Math.max(16, size)];
+        for (int slot = 0; slot < size; slot++) {
+            setAvailability(slot, catalogue.available(slot));
+        }
+        indexesReady = false;
+        Thread indexer = new Thread(this::indexMappedBooks, "catalogue-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+        log.info("CATALOGUE – mapped {} books from {}", size, catalogue.file());
+    }
+
+    private static MappedCatalogue open(Path file) {
+        try {
+            return MappedCatalogue.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map catalogue file " + file.toAbsolutePath(), e);
+        }
+    }
+
+    private static List<Book> seedCatalogue() {
+        return List.of(
+                // Each Book(id, title, author, available)
+                new Book(1L,  "The Hunger Games",              "Suzanne Collins",   true),
+                new Book(2L,  "Harry Potter and the Sorcerer's Stone", "J.K. Rowling", true),
+                new Book(3L,  "Divergent",                     "Veronica Roth",     true),
+                new Book(4L,  "The Maze Runner",               "James Dashner",     true),
+                new Book(5L,  "Percy Jackson: The Lightning Thief", "Rick Riordan", true),
+                new Book(6L,  "Ender's Game",                  "Orson Scott Card",  true),
+                new Book(7L,  "The Giver",                     "Lois Lowry",        true),
+                new Book(8L,  "Holes",                         "Louis Sachar",      true),
+                new Book(9L,  "Wonder",                        "R.J. Palacio",      true),
+                new Book(10L, "Tuck Everlasting",              "Natalie Babbitt",   true),
+                new Book(11L, "Hatchet",                       "Gary Paulsen",      true),
+                new Book(12L, "The Outsiders",                 "S.E. Hinton",       true));
+    }
+
+    /**
+     * Blocks until the text indexes cover the whole catalogue. Only needed by
+     * tests and benchmarks that must measure indexed searches; requests never wait.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitIndexes() throws InterruptedException {
+        indexed.await();
     }
 
     /**
      * Returns a copy of the full book list so callers cannot mutate
-     * the internal list directly.
+     * the internal array directly.
      *
      * @return unmodifiable snapshot of all books
      */
     public List<Book> findAll() {
-        // Return a new ArrayList so the internal list stays protected
-        return new ArrayList<>(books);
+        long started = System.nanoTime();
+        long stamp = lock.readLock();
+        try {
+            // Return a new list so the internal array stays protected
+            return copyRange(0, columns.size());
+        } finally {
+            lock.unlockRead(stamp);
+            FIND_ALL_TIMER.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Keyset pagination over the catalogue.
+     *
+     * The cursor is the id of the last book the client saw; the id index turns
+     * it into a slot in O(1), so deep pages cost the same as the first one and
+     * only {@code limit} books are copied.
+     *
+     * @param afterId id of the last book of the previous page, or null for the first page
+     * @param limit   maximum books to return (positive)
+     * @return the next {@code limit} books in catalogue order (empty past the end)
+     * @throws IllegalArgumentException if afterId is not a catalogued book
+     */
+    public List<Book> findPage(Long afterId, int limit) {
+        long started = System.nanoTime();
+        long stamp = lock.readLock();
+        try {
+            int start = 0;
+            if (afterId != null) {
+                int slot = slotOf(afterId);
+                if (slot == LongIntHashMap.MISSING) {
+                    throw new IllegalArgumentException("Unknown page cursor: " + afterId);
+                }
+                start = slot + 1;
+            }
+            int end = (int) Math.min((long) start + limit, columns.size());
+            return copyRange(Math.min(start, end), end);
+        } finally {
+            lock.unlockRead(stamp);
+            FIND_PAGE_TIMER.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Visits every book in catalogue order without materialising a full copy.
+     *
+     * Books are copied out in small chunks under the read lock and handed to
+     * the action after the lock is released, so a slow consumer (e.g. a
+     * client reading a streamed response) never blocks writers.
+     *
+     * @param action called once per book
+     */
+    public void forEach(Consumer<? super Book> action) {
+        Book[] chunk = new Book[STREAM_CHUNK];
+        int next = 0;
+        while (true) {
+            int copied;
+            long stamp = lock.readLock();
+            try {
+                copied = Math.min(STREAM_CHUNK, columns.size() - next);
+                if (copied <= 0) {
+                    return;
+                }
+                for (int i = 0; i < copied; i++) {
+                    chunk[i] = bookAt(next + i);
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            for (int i = 0; i < copied; i++) {
+                action.accept(chunk[i]);
+            }
+            next += copied;
+        }
+    }
+
+    /**
+     * Number of books in the catalogue. O(1) and lock-free – safe to call
+     * from a health probe as often as it likes.
+     *
+     * @return total books
+     */
+    public long count() {
+        return bookCount.sum();
+    }
+
+    /**
+     * Number of books currently available to borrow. O(1) and lock-free.
+     *
+     * @return available books
+     */
+    public long countAvailable() {
+        return availableCount.sum();
+    }
+
+    /**
+     * Version of the catalogue: increases with every save, import or restore
+     * (availability changes included) and never decreases while the process
+     * runs. Lock-free – used to answer conditional requests without reading
+     * a single book.
+     *
+     * @return the current version (0 until the first write)
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Sequence number of the newest catalogue change, as reported by
+     * changesSince(). Lock-free.
+     *
+     * @return the change feed's current sequence
+     */
+    public long changeSequence() {
+        return changes.lastSequence();
+    }
+
+    /**
+     * Availability of some books as last saved, read under one lock hold.
+     *
+     * Used to push availability changes: callers report only which books
+     * changed and read the state here afterwards, so reports arriving out
+     * of order cannot leave an older state as the last one sent.
+     *
+     * @param ids catalogued book ids
+     * @return each book's availability, in the order of ids (false for an unknown id)
+     */
+    public boolean[] availabilityOf(long[] ids) {
+        long stamp = lock.readLock();
+        try {
+            boolean[] available = new boolean[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                int slot = slotOf(ids[i]);
+                available[i] = slot != LongIntHashMap.MISSING && columns.available(slot);
+            }
+            return available;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * The change feed: books saved or imported after a cursor, in their
+     * current state.
+     *
+     * Every save and every book of a saveAll/importAll is one change with its
+     * own sequence number. The last CHANGE_FEED_CAPACITY changes are kept; a
+     * cursor older than that, or not issued by this process, gets a resync
+     * reply. A book changed several times is returned once, at the position
+     * of its first change.
+     *
+     * @param since sequence the client has seen up to (from changeSequence()
+     *              or an earlier reply)
+     * @param limit most changes to consume (positive); more is set if others remain
+     * @return the changes, or a resync reply carrying the current sequence
+     */
+    public BookChanges changesSince(long since, int limit) {
+        long started = System.nanoTime();
+        long stamp = lock.readLock();
+        try {
+            long[] ids = changes.idsAfter(since, limit);
+            if (ids == null) {
+                return BookChanges.resync(changes.lastSequence());
+            }
+            LinkedHashMap<Long, Book> changed = new LinkedHashMap<>();
+            for (long id : ids) {
+                // Books are never removed, so every changed id still has a slot
+                if (!changed.containsKey(id)) {
+                    changed.put(id, bookAt(slotOf(id)));
+                }
+            }
+            long sequence = since + ids.length;
+            return new BookChanges(sequence, false, sequence < changes.lastSequence(),
+                    new ArrayList<>(changed.values()));
+        } finally {
+            lock.unlockRead(stamp);
+            CHANGES_TIMER.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return the title-search cache, for its hit/miss/eviction statistics
+     */
+    public SearchResultCache searchCache() {
+        return searchCache;
+    }
+
+    /**
+     * Number of distinct words the autocomplete trie can suggest.
+     *
+     * @return suggestable words
+     */
+    public int suggestionWordCount() {
+        long stamp = lock.readLock();
+        try {
+            return suggestTrie.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return false while a mapped catalogue's text indexes are still being
+     *         built (searches scan meanwhile), true otherwise
+     */
+    public boolean isIndexed() {
+        return indexesReady;
     }
 
     /**
@@ -60,21 +498,43 @@ public class BookRepository {
      * Returns Optional.empty() if no book with that id exists.
      *
      * Used by BorrowService before marking a book unavailable (US3).
+     * O(1): one probe of the primitive id index, no boxing, no scan.
      *
      * @param id the book id to look up
      * @return Optional wrapping the found Book, or empty
      */
 
     public Optional<Book> findById(Long id) {
-        return books.stream()
-                .filter(b -> b.getId().equals(id))
-                .findFirst();
+        if (id == null) {
+            return Optional.empty();
+        }
+        long key = id;
+
+        // Fast path: lock-free optimistic read
+        long stamp = lock.tryOptimisticRead();
+        Book found = lookup(key);
+        if (!lock.validate(stamp) || found == null) {
+            // A writer raced with us, or the book may still have to be
+            // materialised from the columns or the mapped file – redo it under a read lock
+            stamp = lock.readLock();
+            try {
+                found = resolve(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return Optional.ofNullable(found);
     }
 
     /**
-     * Persists changes to an existing book back into the in-memory list.
+     * Persists changes to an existing book back into the in-memory array.
      *
-     * Finds the book by id and replaces it in-place.
+     * Finds the book's slot via the id index and writes the canonical book's
+     * fields to the columns. The canonical book is the one findById hands
+     * out, and borrows claim it by CAS, so it is never replaced once handed
+     * out: saving another instance with the same id only copies its title and
+     * author into the canonical one, whose availability stays as claimed.
+     * A book not handed out yet simply becomes the canonical one.
      * No-op if the book id is not found (should not happen in normal flow).
      *
      * Used by BorrowService to flip available → false after borrowing (US3).
@@ -83,32 +543,554 @@ public class BookRepository {
      */
 
     public void save(Book updatedBook) {
-        for (int i = 0; i < books.size(); i++) {
-            if (books.get(i).getId().equals(updatedBook.getId())) {
-                // Replace the old Book object at this index with the updated one
-                books.set(i, updatedBook);
-                return;
+        if (updatedBook.getId() == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(updatedBook.getId());
+            if (slot != LongIntHashMap.MISSING) {
+                Book canonical = books[slot];
+                if (canonical == null) {
+                    books[slot] = canonical = updatedBook;
+                } else if (canonical != updatedBook) {
+                    canonical.copyTextFrom(updatedBook);
+                }
+                update(slot, canonical, canonical.isAvailable());
+                version++;
+                changes.append(updatedBook.getId());
             }
+            // If we reach here without a slot the book was not found – log-worthy in a real system
+        } finally {
+            lock.unlockWrite(stamp);
+            SAVE_TIMER.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
         }
-        // If we reach here the book was not found – log-worthy in a real system
     }
 
     /**
-     * Case-insensitive partial-title search using Java Streams.
+     * Inserts or updates each book under a single write-lock hold:
+     * known ids are updated in place, new ids are appended to the catalogue.
+     *
+     * Used to restore a persisted catalogue on startup.
+     *
+     * @param catalogue books to store; books without an id are skipped
+     */
+    public void saveAll(Collection<Book> catalogue) {
+        upsertAll(catalogue, false);
+    }
+
+    /**
+     * Like saveAll, but known books keep their current availability – it is
+     * owned by the loans, not by a catalogue feed. Used by the bulk import,
+     * one batch per call, so reads are served between batches.
+     *
+     * @param batch books to store; books without an id are skipped
+     */
+    public void importAll(Collection<Book> batch) {
+        upsertAll(batch, true);
+    }
+
+    /**
+     * Case-insensitive partial-title search.
+     *
+     * Served from the trigram index: the keyword is lower-cased once, the
+     * posting lists of its trigrams are intersected and the few surviving
+     * candidates verified. Results and their order are the same as a full
+     * scan with {@code title.toLowerCase().contains(keyword.toLowerCase())}.
+     *
+     * Repeated keywords are answered from the search cache without touching
+     * the index; only the books themselves (with their current availability)
+     * are read.
      *
      * @param keyword partial or full title (already trimmed by the service layer)
      * @return list of books whose title contains the keyword
      */
 
     public List<Book> searchByTitle(String keyword) {
-        // Normalise keyword to lower-case once, then compare each title
-        String lowerKeyword = keyword.toLowerCase();
-
-        return books.stream()
-                // Keep only books whose lower-cased title contains the keyword
-                .filter(book -> book.getTitle().toLowerCase().contains(lowerKeyword))
-                // Collect matched books into a new list
-                .collect(Collectors.toList());
+        long started = System.nanoTime();
+        long stamp = lock.readLock();
+        try {
+            // Looked up and filled under the read lock, so no write can slip in between
+            String key = NgramIndex.normalize(keyword);
+            int[] slots = searchCache.get(key);
+            if (slots == null) {
+                slots = titleHits(keyword);
+                searchCache.put(key, slots);
+            }
+            return toBooks(slots);
+        } finally {
+            lock.unlockRead(stamp);
+            SEARCH_TIMER.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Case-insensitive partial-author search, served from the author trigram index.
+     *
+     * @param keyword partial or full author name (already trimmed by the service layer)
+     * @return list of books whose author contains the keyword
+     */
+    public List<Book> searchByAuthor(String keyword) {
+        long started = System.nanoTime();
+        long stamp = lock.readLock();
+        try {
+            return toBooks(authorHits(keyword));
+        } finally {
+            lock.unlockRead(stamp);
+            SEARCH_TIMER.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Multi-field query combining title, author and availability.
+     * Every criterion is optional (null = don't filter on it); all given
+     * criteria must match.
+     *
+     * Text criteria are answered by their trigram indexes and the sorted hit
+     * lists intersected; availability is applied from the availability column.
+     * No book object is inspected except the ones returned.
+     *
+     * @param titleKeyword  partial title, or null
+     * @param authorKeyword partial author, or null
+     * @param available     required availability, or null
+     * @return matching books in catalogue order
+     */
+    public List<Book> query(String titleKeyword, String authorKeyword, Boolean available) {
+        long started = System.nanoTime();
+        long stamp = lock.readLock();
+        try {
+            int[] slots = null;
+            if (titleKeyword != null) {
+                slots = titleHits(titleKeyword);
+            }
+            if (authorKeyword != null) {
+                int[] authorHits = authorHits(authorKeyword);
+                slots = slots == null ? authorHits : intersect(slots, authorHits);
+            }
+            if (slots == null) {
+                // No text criterion: walk the availability bitset directly
+                return available == null
+                        ? copyRange(0, columns.size())
+                        : toBooks(columns.slotsWithAvailability(available));
+            }
+            if (available != null) {
+                slots = columns.filterByAvailability(slots, available);
+            }
+            return toBooks(slots);
+        } finally {
+            lock.unlockRead(stamp);
+            QUERY_TIMER.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Autocomplete: the most frequent title/author words starting with the prefix.
+     * Bounded time – one trie walk plus a copy of at most {@code limit} cached entries.
+     * In mapped mode, suggestions only cover the books indexed so far.
+     *
+     * @param prefix start of a word (any case)
+     * @param limit  maximum suggestions (capped at SUGGEST_CACHE_SIZE)
+     * @return completions, best first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        long started = System.nanoTime();
+        long stamp = lock.readLock();
+        try {
+            return suggestTrie.complete(prefix, limit);
+        } finally {
+            lock.unlockRead(stamp);
+            SUGGEST_TIMER.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Draws up to {@code count} distinct available books uniformly at random.
+     *
+     * Sampled from the live set of available slots (kept current by save()),
+     * so the cost is O(count) regardless of catalogue size.
+     *
+     * @param count number of books wanted
+     * @return min(count, available books) books in random order
+     */
+    public List<Book> findRandomAvailable(int count) {
+        long started = System.nanoTime();
+        long stamp = lock.readLock();
+        try {
+            return toBooks(availableSet.sample(count, ThreadLocalRandom.current()));
+        } finally {
+            lock.unlockRead(stamp);
+            RANDOM_TIMER.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------------
+
+    /**
+     * Upserts a batch under one write-lock hold. New books are appended first
+     * and their text indexed afterwards in one pass (see indexSlots), so a
+     * large batch builds the title index, the author index and the trie in parallel.
+     */
+    private void upsertAll(Collection<Book> catalogue, boolean keepAvailability) {
+        long started = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            if (catalogue.size() > PRECISE_INVALIDATION_LIMIT) {
+                // Cheaper than matching every title against every cached keyword
+                searchCache.clear();
+            }
+            int firstNew = columns.size();
+            for (Book book : catalogue) {
+                if (book.getId() == null) {
+                    continue;
+                }
+                changes.append(book.getId());
+                int slot = slotOf(book.getId());
+                if (slot == LongIntHashMap.MISSING) {
+                    insert(book);
+                    continue;
+                }
+                boolean available = keepAvailability ? columns.available(slot) : book.isAvailable();
+                Book canonical = books[slot];
+                if (canonical != null && canonical != book) {
+                    // Already handed out, and maybe claimed by a borrow whose save is
+                    // still to come: update that object, never swap in another one
+                    canonical.copyTextFrom(book);
+                    if (!keepAvailability) {
+                        canonical.setAvailable(available);
+                    }
+                }
+                if (slot >= firstNew) {
+                    // Repeated id within this batch: not text-indexed yet, just overwrite
+                    if (columns.titleId(slot) != book.titleId()) {
+                        titleChanged(null, book.titleId());
+                    }
+                    columns.set(slot, book.getId(), book.titleId(), book.authorId());
+                    setAvailability(slot, available);
+                } else {
+                    update(slot, book, available);
+                }
+            }
+            indexSlots(firstNew, columns.size());
+            if (!catalogue.isEmpty()) {
+                version++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+            SAVE_ALL_TIMER.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Appends a new book to the columns; its text is indexed by indexSlots().
+     * The Book object itself is not kept. Caller must hold the write lock and
+     * have checked the id is new.
+     */
+    private void insert(Book book) {
+        int slot = columns.append(book.getId(), book.titleId(), book.authorId());
+        if (slot == books.length) {
+            books = Arrays.copyOf(books, slot << 1);
+        }
+        idIndex.put(book.getId(), slot);
+        bookCount.increment();
+        setAvailability(slot, book.isAvailable());
+        titleChanged(null, book.titleId());
+    }
+
+    /**
+     * Adds the text of the freshly inserted slots [from, to) to the title
+     * index, author index and suggest trie. The three structures are
+     * independent, so for large batches each is built on its own thread;
+     * all are complete before this returns (and before the write lock is released).
+     * Caller must hold the write lock.
+     */
+    private void indexSlots(int from, int to) {
+        if (to - from < PARALLEL_INDEX_THRESHOLD) {
+            indexTitles(from, to);
+            indexAuthors(from, to);
+            indexWords(from, to);
+            return;
+        }
+        CompletableFuture<Void> authors = CompletableFuture.runAsync(() -> indexAuthors(from, to));
+        CompletableFuture<Void> words = CompletableFuture.runAsync(() -> indexWords(from, to));
+        indexTitles(from, to);
+        CompletableFuture.allOf(authors, words).join();
+    }
+
+    private void indexTitles(int from, int to) {
+        for (int slot = from; slot < to; slot++) {
+            titleIndex.put(slot, null, Book.TITLES.get(columns.titleId(slot)));
+        }
+    }
+
+    private void indexAuthors(int from, int to) {
+        for (int slot = from; slot < to; slot++) {
+            authorIndex.put(slot, null, Book.AUTHORS.get(columns.authorId(slot)));
+        }
+    }
+
+    private void indexWords(int from, int to) {
+        List<String> words = new ArrayList<>((to - from) * 4);
+        for (int slot = from; slot < to; slot++) {
+            words.addAll(PrefixTrie.words(Book.TITLES.get(columns.titleId(slot))));
+            words.addAll(PrefixTrie.words(Book.AUTHORS.get(columns.authorId(slot))));
+        }
+        suggestTrie.addAll(words);
+    }
+
+    /**
+     * Writes a book's fields to an existing slot and re-indexes its text if
+     * it changed. Caller must hold the write lock.
+     */
+    private void update(int slot, Book book, boolean available) {
+        // Same dictionary ids = same text: an availability change (every
+        // borrow and return) skips decoding and re-indexing entirely
+        boolean textUnchanged = columns.has(slot)
+                && columns.titleId(slot) == book.titleId() && columns.authorId(slot) == book.authorId();
+        if (!textUnchanged) {
+            // The slot's text as indexed so far – the columns still hold it
+            String oldTitle = rawTitle(slot);
+            String oldAuthor = rawAuthor(slot);
+            if (!columns.has(slot) || columns.titleId(slot) != book.titleId()) {
+                titleChanged(NgramIndex.normalize(oldTitle), book.titleId());
+            }
+            // Re-index the text fields (no-ops when they did not change); a mapped
+            // slot the background indexer has not reached yet has no words to move
+            boolean indexed = titleIndex.contains(slot);
+            reindexWords(indexed ? NgramIndex.normalize(oldTitle) : null, book.getTitle());
+            reindexWords(indexed ? NgramIndex.normalize(oldAuthor) : null, book.getAuthor());
+            titleIndex.put(slot, oldTitle, book.getTitle());
+            authorIndex.put(slot, oldAuthor, book.getAuthor());
+        }
+        columns.set(slot, book.getId(), book.titleId(), book.authorId());
+        setAvailability(slot, available);
+    }
+
+    /**
+     * Drops the cached searches whose results a title change may affect.
+     * Caller must hold the write lock.
+     *
+     * @param oldNormalized title searches matched so far, or null for a new slot
+     * @param newTitleId    the slot's new title
+     */
+    private void titleChanged(String oldNormalized, int newTitleId) {
+        if (searchCache.entries() == 0) {
+            return; // skip decoding titles during bulk loads
+        }
+        String newNormalized = NgramIndex.normalize(Book.TITLES.get(newTitleId));
+        if (!newNormalized.equals(oldNormalized)) {
+            searchCache.invalidate(oldNormalized, newNormalized);
+        }
+    }
+
+    /** Records a slot's availability in the column, the sample set and the counter. Caller must hold the write lock. */
+    private void setAvailability(int slot, boolean available) {
+        columns.setAvailable(slot, available);
+        if (available ? availableSet.add(slot) : availableSet.remove(slot)) {
+            availableCount.add(available ? 1 : -1);
+        }
+    }
+
+    /** Intersects two ascending slot arrays in linear time. */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, found = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[found++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /**
+     * Moves the autocomplete counts from a field's old words to its new ones.
+     * Caller must hold the write lock.
+     *
+     * @param oldNormalized previously indexed (lower-cased) text, or null
+     * @param newText       new raw text
+     */
+    private void reindexWords(String oldNormalized, String newText) {
+        if (NgramIndex.normalize(newText).equals(oldNormalized)) {
+            return;
+        }
+        if (oldNormalized != null) {
+            PrefixTrie.words(oldNormalized).forEach(suggestTrie::remove);
+        }
+        PrefixTrie.words(newText).forEach(suggestTrie::add);
+    }
+
+    /** Maps index hits (slots) to books. Caller must hold the lock. */
+    private List<Book> toBooks(int[] slots) {
+        List<Book> result = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            result.add(bookAt(slot));
+        }
+        return result;
+    }
+
+    /** Books in slots [from, to). Caller must hold the lock. */
+    private List<Book> copyRange(int from, int to) {
+        List<Book> result = new ArrayList<>(to - from);
+        for (int slot = from; slot < to; slot++) {
+            result.add(bookAt(slot));
+        }
+        return result;
+    }
+
+    /**
+     * Resolves an id to its slot: books added at runtime are in the id index,
+     * mapped books are found by binary search over the file. Caller must hold the lock.
+     */
+    private int slotOf(long id) {
+        int slot = idIndex.get(id);
+        if (slot == LongIntHashMap.MISSING && mapped != null) {
+            slot = mapped.slotOf(id);
+        }
+        return slot;
+    }
+
+    /**
+     * The book at a slot. A book that was never handed out is read into a
+     * transient copy, so bulk reads do not pin the catalogue on the heap.
+     * Caller must hold the lock.
+     */
+    private Book bookAt(int slot) {
+        Book book = (Book) BOOK_SLOT.getAcquire(books, slot);
+        return book != null ? book : copyOf(slot);
+    }
+
+    /** A new Book holding a slot's current fields. Caller must hold the lock. */
+    private Book copyOf(int slot) {
+        boolean available = columns.available(slot);
+        return columns.has(slot)
+                ? Book.fromIds(columns.id(slot), columns.titleId(slot), columns.authorId(slot), available)
+                : mapped.book(slot, available);
+    }
+
+    /**
+     * The canonical book at a slot, materialising and caching it on first
+     * access. Concurrent readers race with a CAS so they all get the same
+     * instance – borrowing claims a book by CAS on that object.
+     * Caller must hold the read or write lock.
+     */
+    private Book materialize(int slot) {
+        Book book = (Book) BOOK_SLOT.getAcquire(books, slot);
+        if (book != null) {
+            return book;
+        }
+        Book created = copyOf(slot);
+        Book witness = (Book) BOOK_SLOT.compareAndExchange(books, slot, (Book) null, created);
+        return witness != null ? witness : created;
+    }
+
+    /**
+     * Resolves an id to its book. Safe inside an optimistic read: it never
+     * throws on a torn view, the caller just revalidates and retries. Never
+     * materialises (returns null for a book not yet handed out).
+     */
+    private Book lookup(long id) {
+        int slot = slotOf(id);
+        Book[] current = books;
+        return slot >= 0 && slot < current.length ? (Book) BOOK_SLOT.getAcquire(current, slot) : null;
+    }
+
+    /** Resolves an id to its canonical book. Caller must hold the lock. */
+    private Book resolve(long id) {
+        int slot = slotOf(id);
+        return slot == LongIntHashMap.MISSING ? null : materialize(slot);
+    }
+
+    // ---------------------------------------------------------------
+    // Mapped mode
+    // ---------------------------------------------------------------
+
+    /** Title hits from the index, or from a scan while it is still being built. Caller must hold the lock. */
+    private int[] titleHits(String keyword) {
+        return indexesReady ? titleIndex.search(keyword) : scanMapped(keyword, true);
+    }
+
+    /** Author hits from the index, or from a scan while it is still being built. Caller must hold the lock. */
+    private int[] authorHits(String keyword) {
+        return indexesReady ? authorIndex.search(keyword) : scanMapped(keyword, false);
+    }
+
+    /**
+     * Case-insensitive substring scan over every slot, with the same results
+     * and order as an index search. Caller must hold the lock.
+     */
+    private int[] scanMapped(String keyword, boolean title) {
+        String needle = NgramIndex.normalize(keyword);
+        int[] result = new int[16];
+        int found = 0;
+        for (int slot = 0; slot < columns.size(); slot++) {
+            String text = NgramIndex.normalize(title ? rawTitle(slot) : rawAuthor(slot));
+            if (text.contains(needle)) {
+                if (found == result.length) {
+                    result = Arrays.copyOf(result, found << 1);
+                }
+                result[found++] = slot;
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /** Current title of a slot, from the columns or the mapped file. Caller must hold the lock. */
+    private String rawTitle(int slot) {
+        return columns.has(slot) ? Book.TITLES.get(columns.titleId(slot)) : mapped.title(slot);
+    }
+
+    /** Current author of a slot, from the columns or the mapped file. Caller must hold the lock. */
+    private String rawAuthor(int slot) {
+        return columns.has(slot) ? Book.AUTHORS.get(columns.authorId(slot)) : mapped.author(slot);
+    }
+
+    /**
+     * Background indexer: adds every mapped book to the text indexes and the
+     * autocomplete trie, a chunk per write-lock hold so requests keep flowing.
+     * Slots already indexed by a save() in the meantime are left alone.
+     */
+    private void indexMappedBooks() {
+        long started = System.nanoTime();
+        int count = mapped.size();
+        try {
+            for (int from = 0; from < count; from += INDEX_CHUNK) {
+                int to = Math.min(count, from + INDEX_CHUNK);
+                long stamp = lock.writeLock();
+                try {
+                    List<String> words = new ArrayList<>((to - from) * 4);
+                    for (int slot = from; slot < to; slot++) {
+                        if (!titleIndex.contains(slot)) {
+                            String title = mapped.title(slot);
+                            String author = mapped.author(slot);
+                            titleIndex.put(slot, null, title);
+                            authorIndex.put(slot, null, author);
+                            words.addAll(PrefixTrie.words(title));
+                            words.addAll(PrefixTrie.words(author));
+                        }
+                    }
+                    suggestTrie.addAll(words);
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+            indexesReady = true;
+            log.info("CATALOGUE – indexed {} mapped books in {} ms",
+                    count, (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Searches keep scanning – slower, but still correct
+            log.error("CATALOGUE – building the search indexes failed; searches will scan", e);
+        } finally {
+            indexed.countDown();
+        }
     }
 
 }
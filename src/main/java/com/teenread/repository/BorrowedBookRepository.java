@@ -3,65 +3,234 @@ package com.teenread.repository;
 import com.teenread.model.BorrowedBook;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * In-memory repository for borrow records (US3 / US4).
  *
- * Stores one BorrowedBook entry per borrow action.
- * Looked up by bookId to prevent duplicate borrows.
+ * Holds only ACTIVE loans – returned loans move to LoanHistoryRepository.
+ * Stores one BorrowedBook entry per active loan, indexed two ways:
+ *   - byBookId – book id → loan; a book has at most one active loan, and
+ *                this is the duplicate-borrow / return lookup (O(1))
+ *   - byUser   – user id → that user's loans, so "My Books" costs
+ *                O(my loans) instead of a copy of every loan in the system
+ *
+ * Both are concurrent maps: borrows of different books arrive on different
+ * request threads. A user's entry is an immutable UserLoans, replaced with
+ * ConcurrentHashMap.compute – the user's key is the lock, the lists are small
+ * and read far more often than written, and readers never see one half done.
+ * A loan is added to its user's entry before it is published in byBookId,
+ * so a return (which finds loans by book id) always finds it in both.
+ * Entries of users with no active loans are dropped, so neither index grows
+ * with every reader who ever borrowed.
+ *
+ * For the health endpoint, active loans are also counted per due date
+ * (dueCounts), so the number of overdue loans is a sum over the past due
+ * dates – never a scan of the loans themselves. A day is dropped when its
+ * last loan ends, so the map holds only days with an active loan and the
+ * sum covers only days that still owe a book, not every day since startup.
+ * A loan's due date must not change while it is active.
+ *
+ * Each user's entry also carries a version, taken from a global change
+ * counter on every change to that user's loans, so "My Books" can be
+ * answered "not modified" without copying the list. Users without an entry
+ * share one version (emptiedAt), moved on whenever an entry is dropped, so
+ * a version is never reused for a different list.
  */
 @Repository
 
 public class BorrowedBookRepository {
-    /**
-     * List of all active borrow records.
-     * Starts empty; grows as users borrow books.
-     */
-    private final List<BorrowedBook> borrowedBooks = new ArrayList<>();
+    /** Active loans keyed by the borrowed book's id */
+    private final ConcurrentMap<Long, BorrowedBook> byBookId = new ConcurrentHashMap<>();
+
+    /** Active loans grouped by borrowing user; users without loans have no entry */
+    private final ConcurrentMap<String, UserLoans> byUser = new ConcurrentHashMap<>();
+
+    /** Active loans per due date; a day's entry is removed when its count reaches zero */
+    private final ConcurrentNavigableMap<LocalDate, Long> dueCounts = new ConcurrentSkipListMap<>();
+
+    /** Source of user versions: incremented on every save and remove */
+    private final AtomicLong changes = new AtomicLong();
+
+    /** Version of every user without an entry: when the last entry was dropped (0 = never) */
+    private final AtomicLong emptiedAt = new AtomicLong();
+
+    /** One user's active loans in borrow order, and their version. Never modified. */
+    private record UserLoans(List<BorrowedBook> loans, long version) {
+    }
 
     /**
      * Saves a new borrow record.
-     * Called by BorrowService immediately after marking a book unavailable.
+     * Called by BorrowService immediately after claiming the book.
+     *
+     * Records without a user are filed under BorrowedBook.GUEST_USER.
      *
      * @param borrowedBook the new borrow record to persist
      */
     public void save(BorrowedBook borrowedBook) {
-        borrowedBooks.add(borrowedBook);
+        if (borrowedBook.getUserId() == null) {
+            borrowedBook.setUserId(BorrowedBook.GUEST_USER);
+        }
+        // Counted and listed under the user first: once in byBookId it can be returned
+        countDue(borrowedBook, 1);
+        addToUser(borrowedBook);
+        BorrowedBook previous = byBookId.put(borrowedBook.getBookId(), borrowedBook);
+        if (previous != null) {
+            // Should not happen – BorrowService claims a book before recording it
+            removeFromUser(previous);
+            countDue(previous, -1);
+        }
     }
 
     /**
-     * Returns all active borrow records.
-     * Used by the "My Books" endpoint (US4).
+     * Ends an active loan, removing it from both indexes.
+     *
+     * Conditional on the exact record still being the book's active loan, so
+     * of two concurrent returns of the same book only one succeeds.
+     *
+     * @param loan the active loan to remove
+     * @return true if this call removed it
+     */
+    public boolean remove(BorrowedBook loan) {
+        if (!byBookId.remove(loan.getBookId(), loan)) {
+            return false;
+        }
+        removeFromUser(loan);
+        countDue(loan, -1);
+        return true;
+    }
+
+    /**
+     * Returns all active borrow records across every user.
+     * Not used on request paths – prefer findByUserId().
      *
      * @return defensive copy of all borrow records
      */
     public List<BorrowedBook> findAll() {
-        return new ArrayList<>(borrowedBooks);
+        return new ArrayList<>(byBookId.values());
+    }
+
+    /**
+     * Returns one user's active borrow records, in borrow order.
+     * Used by the "My Books" endpoint (US4).
+     *
+     * @param userId the borrowing user
+     * @return defensive copy of that user's records (empty if none)
+     */
+    public List<BorrowedBook> findByUserId(String userId) {
+        UserLoans entry = byUser.get(userId);
+        return entry == null ? new ArrayList<>() : new ArrayList<>(entry.loans());
+    }
+
+    /**
+     * Version of one user's active loans: changes whenever a loan of theirs
+     * is saved or removed. Published together with the list, so a version
+     * read before findByUserId() is never newer than the list it describes.
+     * While the user has no loans it may also change with other users' returns.
+     *
+     * @param userId the borrowing user
+     * @return the version, 0 if no user has returned their last loan yet
+     */
+    public long versionOf(String userId) {
+        UserLoans entry = byUser.get(userId);
+        return entry != null ? entry.version() : emptiedAt.get();
+    }
+
+    /** @return users with at least one active loan */
+    int userCount() {
+        return byUser.size();
     }
 
     /**
-     * Finds a borrow record by the book id it references.
+     * Finds the active borrow record for a book.
      * Used to check whether a book has already been borrowed (duplicate-borrow guard).
      *
      * @param bookId the book id to look up
      * @return Optional wrapping the found record, or empty if not borrowed
      */
     public Optional<BorrowedBook> findByBookId(Long bookId) {
-        return borrowedBooks.stream()
-                .filter(b -> b.getBookId().equals(bookId))
-                .findFirst();
+        return bookId == null ? Optional.empty() : Optional.ofNullable(byBookId.get(bookId));
     }
 
     /**
-     * Returns the count of all borrow records.
+     * Returns the count of all active borrow records.
      * Used by the health endpoint and for assertions in tests.
+     * O(1): the concurrent map keeps striped size counters.
      *
-     * @return number of borrow records in the list
+     * @return number of borrow records
      */
     public int count() {
-        return borrowedBooks.size();
+        return byBookId.size();
+    }
+
+    /**
+     * Counts the active loans due before the given day.
+     * Sums one counter per past due date; no loan is visited or copied.
+     *
+     * @param today the current date – loans due earlier are overdue
+     * @return number of overdue loans
+     */
+    public long countOverdue(LocalDate today) {
+        long overdue = 0;
+        for (long count : dueCounts.headMap(today).values()) {
+            overdue += count;
+        }
+        return overdue;
+    }
+
+    // ---------------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------------
+
+    /**
+     * Adjusts the count of a loan's due date (loans without one are never
+     * overdue). The map updates each day atomically, so a count reaching
+     * zero removes the day without losing a concurrent borrow due the same day.
+     */
+    private void countDue(BorrowedBook loan, long delta) {
+        LocalDate due = loan.getDueDate() != null ? loan.getDueDate() : LocalDate.MAX;
+        dueCounts.merge(due, delta, (count, change) -> count + change == 0 ? null : count + change);
+    }
+
+    /** @return due dates with at least one active loan */
+    int dueDayCount() {
+        return dueCounts.size();
+    }
+
+    /** Appends a loan to its user's entry, under a new version. */
+    private void addToUser(BorrowedBook record) {
+        byUser.compute(record.getUserId(), (user, entry) -> {
+            List<BorrowedBook> loans = new ArrayList<>(entry == null ? 1 : entry.loans().size() + 1);
+            if (entry != null) {
+                loans.addAll(entry.loans());
+            }
+            loans.add(record);
+            return new UserLoans(List.copyOf(loans), changes.incrementAndGet());
+        });
+    }
+
+    /** Removes a loan from its user's entry, dropping the entry once it is empty. */
+    private void removeFromUser(BorrowedBook record) {
+        byUser.computeIfPresent(record.getUserId(), (user, entry) -> {
+            List<BorrowedBook> loans = new ArrayList<>(entry.loans());
+            if (!loans.removeIf(loan -> loan == record)) {
+                return entry;
+            }
+            long version = changes.incrementAndGet();
+            if (loans.isEmpty()) {
+                // Before the entry disappears: whoever no longer finds it reads this version
+                emptiedAt.accumulateAndGet(version, Math::max);
+                return null;
+            }
+            return new UserLoans(List.copyOf(loans), version);
+        });
     }
 }
@@ -0,0 +1,254 @@
+package com.teenread.repository;
+
+import com.teenread.model.BorrowedBook;
+import com.teenread.model.LoanHistoryEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only store of finished (returned) loans.
+ *
+ * Active loans live in BorrowedBookRepository; on return they move here so
+ * the active set stays small. History is kept compact:
+ *   - records are packed column-wise into fixed-size chunks of primitive
+ *     arrays (bookId long, user int, due/return epoch-day ints = 20 bytes),
+ *     with no per-record object
+ *   - user ids are interned into a dictionary and stored as ints; an id is
+ *     dropped once none of its records are retained, so the dictionary is
+ *     bounded by the history rather than by every user ever seen
+ *   - once app.loans.history-capacity records are held, the oldest chunk is
+ *     dropped, so the heap stays flat over months of uptime
+ *
+ * Appends take a ReentrantLock (not synchronized, so a virtual thread that
+ * blocks here does not pin its carrier). findByUserId takes no lock: it
+ * scans the chunk array published by the last chunk change, reading each
+ * chunk's volatile size before its records. Codes are never reused, so a
+ * scan of an array published before an eviction cannot attribute a dropped
+ * user's records to a newer one.
+ */
+@Repository
+
+public class LoanHistoryRepository {
+    /** Records per chunk; capacity is enforced in whole chunks */
+    static final int CHUNK_SIZE = 4096;
+
+    /** Chunks oldest → newest; only the last one is written to */
+    private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+
+    /** Copy of chunks for lock-free readers, republished whenever a chunk is added or dropped */
+    private volatile Chunk[] published = new Chunk[0];
+
+    /** User id → code for every user with a retained record */
+    private final Map<String, UserCode> userCodes = new ConcurrentHashMap<>();
+
+    /** The same users by code; guarded by the lock */
+    private final Map<Integer, UserCode> usersByCode = new HashMap<>();
+
+    /** Next code to hand out; guarded by the lock */
+    private int nextCode;
+
+    private final int maxChunks;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Total records ever appended, including ones since evicted */
+    private long appended;
+
+    /**
+     * @param capacity maximum records retained (rounded up to whole chunks),
+     *                 from app.loans.history-capacity (default 1,000,000)
+     */
+    public LoanHistoryRepository(@Value("${app.loans.history-capacity:1000000}") int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History capacity must be at least 1");
+        }
+        this.maxChunks = (capacity + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * Records a returned loan.
+     *
+     * @param loan       the loan that just ended
+     * @param returnDate the day it was returned
+     */
+    public void append(BorrowedBook loan, LocalDate returnDate) {
+        append(loan.getBookId(), loan.getUserId(), loan.getDueDate(), returnDate);
+    }
+
+    /**
+     * Re-records an entry read back from elsewhere (e.g. a persisted snapshot).
+     *
+     * @param entry the finished loan
+     */
+    public void append(LoanHistoryEntry entry) {
+        append(entry.getBookId(), entry.getUserId(), entry.getDueDate(), entry.getReturnDate());
+    }
+
+    /**
+     * Returns a user's most recent returned loans, newest first.
+     * Scans backwards from the newest record and stops at {@code limit}.
+     *
+     * @param userId the user
+     * @param limit  maximum entries
+     * @return the user's history entries (empty for unknown users)
+     */
+    public List<LoanHistoryEntry> findByUserId(String userId, int limit) {
+        List<LoanHistoryEntry> result = new ArrayList<>();
+        UserCode user = userCodes.get(userId);
+        if (user == null || limit < 1) {
+            return result;
+        }
+        // Read after the code, so the array is at least as new as the code's assignment
+        Chunk[] snapshot = published;
+        for (int c = snapshot.length - 1; c >= 0 && result.size() < limit; c--) {
+            Chunk chunk = snapshot[c];
+            for (int i = chunk.size - 1; i >= 0 && result.size() < limit; i--) {
+                if (chunk.users[i] == user.code) {
+                    result.add(chunk.entry(i, userId));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Visits every retained record, oldest first.
+     * Entries are materialised one at a time, so this is safe for the full history.
+     *
+     * @param action receives each entry
+     */
+    public void forEach(Consumer<? super LoanHistoryEntry> action) {
+        lock.lock();
+        try {
+            for (Chunk chunk : chunks) {
+                for (int i = 0; i < chunk.size; i++) {
+                    action.accept(chunk.entry(i, usersByCode.get(chunk.users[i]).userId));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return maximum records retained (the configured capacity rounded up to whole chunks) */
+    public int capacity() {
+        return maxChunks * CHUNK_SIZE;
+    }
+
+    /** @return number of records currently retained */
+    public int size() {
+        lock.lock();
+        try {
+            Chunk tail = chunks.peekLast();
+            return tail == null ? 0 : (chunks.size() - 1) * CHUNK_SIZE + tail.size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return number of distinct users with a retained record */
+    int userCount() {
+        return userCodes.size();
+    }
+
+    /** @return number of records ever appended, including evicted ones */
+    public long totalAppended() {
+        lock.lock();
+        try {
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------------
+
+    private void append(long bookId, String userId, LocalDate dueDate, LocalDate returnDate) {
+        lock.lock();
+        try {
+            Chunk tail = chunks.peekLast();
+            if (tail == null || tail.size == CHUNK_SIZE) {
+                Chunk evicted = chunks.size() == maxChunks ? chunks.pollFirst() : null; // the oldest history
+                tail = new Chunk();
+                chunks.addLast(tail);
+                published = chunks.toArray(new Chunk[0]);
+                if (evicted != null) {
+                    release(evicted);
+                }
+            }
+            int i = tail.size;
+            tail.bookIds[i]    = bookId;
+            tail.users[i]      = retain(userId);
+            tail.dueDays[i]    = (int) dueDate.toEpochDay();
+            tail.returnDays[i] = (int) returnDate.toEpochDay();
+            tail.size = i + 1; // volatile: publishes the record to lock-free readers
+            appended++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Interns a user id for one more record. Caller holds the lock. */
+    private int retain(String userId) {
+        UserCode user = userCodes.get(userId);
+        if (user == null) {
+            user = new UserCode(userId, nextCode++);
+            usersByCode.put(user.code, user);
+            userCodes.put(userId, user);
+        }
+        user.records++;
+        return user.code;
+    }
+
+    /**
+     * Drops the users left without records by an evicted chunk. Caller holds
+     * the lock and has already published the array without it.
+     */
+    private void release(Chunk evicted) {
+        for (int i = 0; i < evicted.size; i++) {
+            UserCode user = usersByCode.get(evicted.users[i]);
+            if (--user.records == 0) {
+                usersByCode.remove(user.code);
+                userCodes.remove(user.userId);
+            }
+        }
+    }
+
+    /** A user's code and retained record count. */
+    private static final class UserCode {
+        final String userId;
+        final int code;
+        int records; // guarded by the lock
+
+        UserCode(String userId, int code) {
+            this.userId = userId;
+            this.code = code;
+        }
+    }
+
+    /** CHUNK_SIZE records stored column-wise. */
+    private static final class Chunk {
+        final long[] bookIds   = new long[CHUNK_SIZE];
+        final int[] users      = new int[CHUNK_SIZE];
+        final int[] dueDays    = new int[CHUNK_SIZE];
+        final int[] returnDays = new int[CHUNK_SIZE];
+        // Written after the record it counts; readers read it first
+        volatile int size;
+
+        LoanHistoryEntry entry(int i, String userId) {
+            return new LoanHistoryEntry(bookIds[i], userId,
+                    LocalDate.ofEpochDay(dueDays[i]), LocalDate.ofEpochDay(returnDays[i]));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.teenread.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenread.model.Book;
+import com.teenread.model.BookChanges;
+import com.teenread.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes availability changes (borrows and returns) to every connected
+ * browser.
+ *
+ * BorrowService calls publish() after each save; it only records which book
+ * changed and, for the first change of a burst, schedules a flush.
+ * app.push.coalesce-millis later a single broadcaster thread drains the ids,
+ * reads their current availability from the repository – so a book borrowed
+ * and returned within the window appears once, and reports that reach
+ * publish() out of order still end with the latest state – encodes the
+ * update as JSON once and hands the same string to every subscriber.
+ * Nothing runs while nothing changes except a heartbeat, sent only while
+ * someone is subscribed, which keeps idle connections from being closed by
+ * proxies.
+ *
+ * Subscribers are served by the non-blocking /api/reactive servlet (see
+ * ReactiveCatalogueEndpoints), so an idle subscriber costs a connection and
+ * a few small objects, not a thread. Each subscriber may fall at most
+ * MAX_QUEUED_UPDATES behind; one that falls further is dropped from the
+ * fan-out, its stream ends once the queued updates are written, and its
+ * browser reconnects and catches up from the change feed (catchUp()).
+ *
+ * Every update carries the change-feed sequence
+ * (BookRepository.changeSequence()) current when it was flushed, which
+ * clients send back as Last-Event-ID.
+ *
+ * Instances not started by Spring (tests, benchmarks) ignore publish().
+ */
+@Component
+
+public class AvailabilityBroadcaster {
+
+    /** Updates a subscriber may fall behind by before it is dropped */
+    static final int MAX_QUEUED_UPDATES = 256;
+
+    /** Most changes replayed to a reconnecting client before it is told to reload */
+    static final int CATCH_UP_LIMIT = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityBroadcaster.class);
+
+    /** What an update tells the client */
+    public enum Kind {
+        /** Books whose availability changed */
+        CHANGES,
+        /** The client missed too much and must reload the catalogue */
+        RESYNC,
+        /** Nothing happened; keeps the connection open */
+        HEARTBEAT
+    }
+
+    /**
+     * One message for subscribers.
+     *
+     * @param kind     what it tells the client
+     * @param sequence change-feed sequence it brings the client up to (0 for heartbeats)
+     * @param json     { "sequence": …, "changes": [ { "id", "available" }, … ] },
+     *                 or null for heartbeats
+     */
+    public record Update(Kind kind, long sequence, String json) {
+    }
+
+    /** One book's new availability, as sent to clients */
+    public record Change(long id, boolean available) {
+    }
+
+    /** JSON body of an update */
+    private record Payload(long sequence, List<Change> changes) {
+    }
+
+    private static final Update HEARTBEAT = new Update(Kind.HEARTBEAT, 0, null);
+
+    private final BookRepository bookRepository;
+    private final ObjectMapper objectMapper;
+    private final long coalesceMillis;
+    private final long heartbeatSeconds;
+
+    // Books changed since the last flush
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Emitted to only from the broadcaster thread, so never concurrently
+    private final Sinks.Many<Update> sink = Sinks.many().multicast().directBestEffort();
+
+    // Runs flushes and heartbeats; null until started and after stop()
+    private volatile ScheduledExecutorService executor;
+
+    /**
+     * @param bookRepository   source of change-feed sequences and catch-up changes
+     * @param objectMapper     encodes updates
+     * @param coalesceMillis   app.push.coalesce-millis – changes within this window
+     *                         go out as one update
+     * @param heartbeatSeconds app.push.heartbeat-seconds – interval of keep-alive
+     *                         comments
+     */
+    @Autowired
+    public AvailabilityBroadcaster(BookRepository bookRepository,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.push.coalesce-millis:100}") long coalesceMillis,
+                                   @Value("${app.push.heartbeat-seconds:25}") long heartbeatSeconds) {
+        if (coalesceMillis < 0 || heartbeatSeconds < 1) {
+            throw new IllegalArgumentException("app.push.coalesce-millis must be >= 0 and heartbeat-seconds >= 1");
+        }
+        this.bookRepository   = bookRepository;
+        this.objectMapper     = objectMapper;
+        this.coalesceMillis   = coalesceMillis;
+        this.heartbeatSeconds = heartbeatSeconds;
+    }
+
+    /**
+     * A broadcaster that is never started – publish() is a no-op.
+     */
+    public static AvailabilityBroadcaster disabled() {
+        return new AvailabilityBroadcaster(null, null, 0, 1);
+    }
+
+    /** Starts the broadcaster thread. */
+    @PostConstruct
+    public void start() {
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-broadcaster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        executor = started;
+    }
+
+    /** Stops the broadcaster thread and completes every subscription. */
+    @PreDestroy
+    public void stop() {
+        ScheduledExecutorService stopped = executor;
+        if (stopped == null) {
+            return;
+        }
+        executor = null;
+        stopped.shutdownNow();
+        sink.tryEmitComplete();
+    }
+
+    // ---------------------------------------------------------------
+    // Publishing
+    // ---------------------------------------------------------------
+
+    /**
+     * Marks a book's availability as changed; the next update carries its
+     * state as saved at that time. Call after the change is saved. Never blocks.
+     *
+     * @param bookId the book
+     */
+    public void publish(long bookId) {
+        ScheduledExecutorService running = executor;
+        if (running == null) {
+            return;
+        }
+        pending.add(bookId);
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                running.schedule(this::flush, coalesceMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: nobody is left to tell
+            }
+        }
+    }
+
+    /**
+     * Sends every pending change as one update. Runs on the broadcaster thread.
+     */
+    void flush() {
+        // Cleared first: a change published while draining schedules the next flush
+        flushScheduled.set(false);
+        // Sequence first: the states read next are at least as new as it
+        long sequence = bookRepository.changeSequence();
+        long[] ids = new long[pending.size()];
+        int count = 0;
+        for (Iterator<Long> it = pending.iterator(); it.hasNext() && count < ids.length; ) {
+            ids[count++] = it.next();
+            it.remove();
+        }
+        if (count == 0) {
+            return;
+        }
+        ids = Arrays.copyOf(ids, count);
+        boolean[] available = bookRepository.availabilityOf(ids);
+        List<Change> changes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            changes.add(new Change(ids[i], available[i]));
+        }
+        sink.tryEmitNext(new Update(Kind.CHANGES, sequence, encode(sequence, changes)));
+    }
+
+    private void heartbeat() {
+        if (sink.currentSubscriberCount() > 0) {
+            sink.tryEmitNext(HEARTBEAT);
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Subscribing
+    // ---------------------------------------------------------------
+
+    /**
+     * Live updates from now on. Completes when the broadcaster stops, or –
+     * after the updates already queued – when this subscriber falls more
+     * than MAX_QUEUED_UPDATES behind.
+     *
+     * @return a hot stream of updates
+     */
+    public Flux<Update> updates() {
+        return sink.asFlux()
+                .onBackpressureBuffer(MAX_QUEUED_UPDATES, dropped -> { }, BufferOverflowStrategy.ERROR)
+                .onErrorResume(Exceptions::isOverflow, overflow -> {
+                    log.debug("Dropped a push subscriber that fell {} updates behind", MAX_QUEUED_UPDATES);
+                    return Flux.empty();
+                });
+    }
+
+    /**
+     * What a client has missed since a sequence: the availability of every
+     * book changed after it, or RESYNC if that is more than CATCH_UP_LIMIT
+     * changes or no longer known. With nothing missed the update has no
+     * changes, and just tells the client the current sequence.
+     *
+     * @param since the last sequence the client received
+     * @return the catch-up update
+     */
+    public Update catchUp(long since) {
+        BookChanges missed = bookRepository.changesSince(since, CATCH_UP_LIMIT);
+        if (missed.isResync() || missed.isMore()) {
+            long sequence = bookRepository.changeSequence();
+            return new Update(Kind.RESYNC, sequence, encode(sequence, List.of()));
+        }
+        List<Change> changes = new ArrayList<>(missed.getChanges().size());
+        for (Book book : missed.getChanges()) {
+            changes.add(new Change(book.getId(), book.isAvailable()));
+        }
+        return new Update(Kind.CHANGES, missed.getSequence(), encode(missed.getSequence(), changes));
+    }
+
+    /**
+     * @return the update a new client starts from: no changes, the current sequence
+     */
+    public Update current() {
+        long sequence = bookRepository.changeSequence();
+        return new Update(Kind.CHANGES, sequence, encode(sequence, List.of()));
+    }
+
+    /** @return clients currently subscribed */
+    public int subscriberCount() {
+        return sink.currentSubscriberCount();
+    }
+
+    private String encode(long sequence, List<Change> changes) {
+        try {
+            return objectMapper.writeValueAsString(new Payload(sequence, changes));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.teenread.service;
 
+import com.teenread.audit.AuditLog;
+import com.teenread.index.PrefixTrie;
 import com.teenread.model.Book;
+import com.teenread.model.BookChanges;
+import com.teenread.model.BookPage;
 import com.teenread.repository.BookRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service layer for book-related business logic.
@@ -21,16 +26,27 @@ import java.util.List;
 
 public class BookService {
 
+    /** Largest page a client may request from getPage() */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /** Most changes a client may request from getChanges() */
+    public static final int MAX_CHANGES = 1000;
+
     // Repository injected by Spring constructor injection (preferred over @Autowired field)
     private final BookRepository bookRepository;
 
+    // Searches are audited asynchronously (never on the request's latency)
+    private final AuditLog auditLog;
+
     /**
      * Constructor injection: Spring automatically provides the BookRepository bean.
      *
      * @param bookRepository the in-memory book data store
+     * @param auditLog       asynchronous audit trail for searches
      */
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, AuditLog auditLog) {
         this.bookRepository = bookRepository;
+        this.auditLog       = auditLog;
     }
 
     // ---------------------------------------------------------------
@@ -48,6 +64,70 @@ public class BookService {
         return bookRepository.findAll();
     }
 
+    /**
+     * Version of the catalogue, for conditional requests: unchanged version
+     * means every catalogue and search result is unchanged too.
+     *
+     * @return the repository's current version
+     */
+    public long catalogueVersion() {
+        return bookRepository.version();
+    }
+
+    /**
+     * Returns one page of the catalogue using keyset pagination.
+     *
+     * @param afterId id of the last book already seen, or null for the first page
+     * @param limit   requested page size; values above MAX_PAGE_SIZE are capped
+     * @return the page plus the cursor for the next one
+     * @throws IllegalArgumentException for a non-positive limit or unknown cursor
+     */
+    public BookPage getPage(Long afterId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1");
+        }
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        List<Book> books = bookRepository.findPage(afterId, pageSize);
+
+        // A short page means we reached the end of the catalogue
+        Long nextAfterId = books.size() < pageSize
+                ? null
+                : books.get(books.size() - 1).getId();
+        return new BookPage(books, nextAfterId);
+    }
+
+    /**
+     * Returns the catalogue changes after a cursor (the change feed).
+     *
+     * Without a cursor the reply is a resync carrying the current sequence:
+     * a client takes it first, then loads the catalogue, then polls with it –
+     * a change made in between is delivered again rather than missed.
+     *
+     * @param since sequence from the previous reply, or null to start
+     * @param limit most changes per reply; values above MAX_CHANGES are capped
+     * @return the changed books and the cursor for the next call
+     * @throws IllegalArgumentException for a non-positive limit
+     */
+    public BookChanges getChanges(Long since, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Change limit must be at least 1");
+        }
+        if (since == null) {
+            return BookChanges.resync(bookRepository.changeSequence());
+        }
+        return bookRepository.changesSince(since, Math.min(limit, MAX_CHANGES));
+    }
+
+    /**
+     * Streams the whole catalogue to a consumer, book by book, without
+     * building a list (used by the NDJSON endpoint).
+     *
+     * @param action called once per book in catalogue order
+     */
+    public void forEachBook(Consumer<? super Book> action) {
+        bookRepository.forEach(action);
+    }
+
     // ---------------------------------------------------------------
     // US2 – Search books by title
     // ---------------------------------------------------------------
@@ -73,7 +153,83 @@ public class BookService {
         String cleanKeyword = keyword.trim();
 
         // Delegate to repository which performs the actual filtering
-        return bookRepository.searchByTitle(cleanKeyword);
+        List<Book> books = bookRepository.searchByTitle(cleanKeyword);
+        auditLog.searchedTitle(cleanKeyword, books.size());
+        return books;
+    }
+
+    // ---------------------------------------------------------------
+    // Author search and multi-field query
+    // ---------------------------------------------------------------
+
+    /**
+     * Searches books by partial, case-insensitive author match.
+     *
+     * @param keyword the author search term
+     * @return matching books (empty list if none match)
+     * @throws IllegalArgumentException for null or blank keyword
+     */
+    public List<Book> searchByAuthor(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            throw new IllegalArgumentException("Search keyword must not be blank");
+        }
+        String cleanKeyword = keyword.trim();
+        List<Book> books = bookRepository.searchByAuthor(cleanKeyword);
+        auditLog.searchedAuthor(cleanKeyword, books.size());
+        return books;
+    }
+
+    /**
+     * Combined title / author / availability query.
+     *
+     * Blank text criteria are treated as absent; at least one criterion
+     * must remain so the endpoint cannot be used as an unpaged "get all".
+     *
+     * @param title     partial title, or null/blank
+     * @param author    partial author, or null/blank
+     * @param available required availability, or null
+     * @return matching books in catalogue order
+     * @throws IllegalArgumentException if no criterion is given
+     */
+    public List<Book> query(String title, String author, Boolean available) {
+        String cleanTitle  = title  == null || title.isBlank()  ? null : title.trim();
+        String cleanAuthor = author == null || author.isBlank() ? null : author.trim();
+
+        if (cleanTitle == null && cleanAuthor == null && available == null) {
+            throw new IllegalArgumentException(
+                    "Provide at least one of: title, author, available");
+        }
+        List<Book> books = bookRepository.query(cleanTitle, cleanAuthor, available);
+        auditLog.queried(cleanTitle, cleanAuthor, available, books.size());
+        return books;
     }
 
+    // ---------------------------------------------------------------
+    // Autocomplete
+    // ---------------------------------------------------------------
+
+    /**
+     * Suggests completions for the word the user is currently typing.
+     *
+     * Only the last word of the input is completed ("hunger ga" → "Games"),
+     * so the front-end can offer suggestions mid-phrase.
+     * Blank input yields no suggestions rather than an error – this is called
+     * on every keystroke.
+     *
+     * @param input raw search-box text
+     * @param limit maximum suggestions wanted
+     * @return completions of the last word, best first
+     */
+    public List<String> suggest(String input, int limit) {
+        if (input == null || input.isBlank() || limit < 1) {
+            return List.of();
+        }
+        List<String> words = PrefixTrie.words(input);
+        // Trailing space/punctuation means the last word is finished
+        if (words.isEmpty() || !Character.isLetterOrDigit(input.charAt(input.length() - 1))) {
+            return List.of();
+        }
+        return bookRepository.suggest(words.get(words.size() - 1),
+                Math.min(limit, BookRepository.SUGGEST_CACHE_SIZE));
+    }
 }
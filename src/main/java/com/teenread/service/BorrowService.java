@@ -1,11 +1,18 @@
 package com.teenread.service;
 
+import com.teenread.audit.AuditLog;
+import com.teenread.metrics.Meters;
 import com.teenread.model.Book;
 import com.teenread.model.BorrowedBook;
+import com.teenread.model.LoanHistoryEntry;
+import com.teenread.persistence.PersistenceService;
 import com.teenread.repository.BookRepository;
 import com.teenread.repository.BorrowedBookRepository;
+import com.teenread.repository.LoanHistoryRepository;
+import io.micrometer.core.instrument.Counter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -17,10 +24,11 @@ import java.util.Optional;
  * Service layer for borrowing operations (US3 / US4).
  *
  * Responsibilities:
- *   - Validate that a book exists and is available before borrowing
+ *   - Validate that a book exists and atomically claim it if available
  *   - Calculate the due date from today + configurable number of days
  *   - Mark the book unavailable in BookRepository
- *   - Persist a BorrowedBook record in BorrowedBookRepository
+ *   - Persist a BorrowedBook record in BorrowedBookRepository, owned by the borrowing user
+ *   - Return a book: free it and move the loan into the loan history
  *   - Log every borrow action to the console (Sprint 2 monitoring requirement)
  *
  * Sprint 2 retro improvement:
@@ -32,16 +40,41 @@ public class BorrowService {
 
     /**
      * SLF4J logger – outputs to console via Logback (Spring Boot default).
-     * Satisfies the "console logging for borrow actions" monitoring requirement.
+     * Borrow and return actions are logged at DEBUG only: the audit log
+     * records them without blocking the request on console I/O.
      */
     private static final Logger log = LoggerFactory.getLogger(BorrowService.class);
 
+    /** Borrows that lost the claim on a book to a concurrent borrow */
+    private static final Counter BORROW_CONFLICTS = Meters.borrowConflicts("borrow");
+
+    /** Returns that lost the race to end a loan to a concurrent return */
+    private static final Counter RETURN_CONFLICTS = Meters.borrowConflicts("return");
+
+    /** Longest accepted user id – keeps the per-user index keys small */
+    private static final int MAX_USER_ID_LENGTH = 64;
+
+    /** Most loan-history entries returned by one request */
+    public static final int MAX_HISTORY = 100;
+
     /** Book catalogue repository */
     private final BookRepository bookRepository;
 
-    /** Borrow records repository */
+    /** Borrow records repository (active loans) */
     private final BorrowedBookRepository borrowedBookRepository;
 
+    /** Finished loans */
+    private final LoanHistoryRepository loanHistoryRepository;
+
+    /** Write-ahead log for borrows and returns */
+    private final PersistenceService persistenceService;
+
+    /** Asynchronous record of borrows and returns */
+    private final AuditLog auditLog;
+
+    /** Pushes availability changes to connected browsers */
+    private final AvailabilityBroadcaster broadcaster;
+
     /**
      * Number of days from today before a borrowed book is due.
      * Read from application.properties: app.borrow.due-days (default 14).
@@ -50,21 +83,56 @@ public class BorrowService {
     private int dueDays;
 
     /**
-     * Constructor injection of both repositories.
+     * Constructor injection of the repositories.
      *
      * @param bookRepository         catalogue repository
      * @param borrowedBookRepository borrow-record repository
+     * @param loanHistoryRepository  returned-loan history
+     * @param persistenceService     durable log of borrows and returns
+     * @param auditLog               asynchronous audit trail
+     * @param broadcaster            push of availability changes
      */
+    @Autowired
     public BorrowService(BookRepository bookRepository,
-                         BorrowedBookRepository borrowedBookRepository) {
+                         BorrowedBookRepository borrowedBookRepository,
+                         LoanHistoryRepository loanHistoryRepository,
+                         PersistenceService persistenceService,
+                         AuditLog auditLog,
+                         AvailabilityBroadcaster broadcaster) {
         this.bookRepository         = bookRepository;
         this.borrowedBookRepository = borrowedBookRepository;
+        this.loanHistoryRepository  = loanHistoryRepository;
+        this.persistenceService     = persistenceService;
+        this.auditLog               = auditLog;
+        this.broadcaster            = broadcaster;
+    }
+
+    /**
+     * Service without an audit trail or push – for tests and benchmarks.
+     */
+    public BorrowService(BookRepository bookRepository,
+                         BorrowedBookRepository borrowedBookRepository,
+                         LoanHistoryRepository loanHistoryRepository,
+                         PersistenceService persistenceService) {
+        this(bookRepository, borrowedBookRepository, loanHistoryRepository, persistenceService,
+                AuditLog.disabled(), AvailabilityBroadcaster.disabled());
     }
 
     // ---------------------------------------------------------------
     // US3 – Borrow a book
     // ---------------------------------------------------------------
 
+    /**
+     * Borrows a book on behalf of the guest (anonymous) user.
+     *
+     * @param bookId the id of the book to borrow
+     * @return the created BorrowedBook record
+     * @see #borrowBook(Long, String)
+     */
+    public BorrowedBook borrowBook(Long bookId) {
+        return borrowBook(bookId, BorrowedBook.GUEST_USER);
+    }
+
     /**
      * Attempts to borrow a book by its id.
      *
@@ -74,70 +142,233 @@ public class BorrowService {
      *   3. Due date = today + dueDays
      *
      * Side effects on success:
+     *   - Borrow durably logged (if persistence is enabled)
      *   - Book.available set to false and saved
      *   - BorrowedBook record saved
-     *   - INFO log line emitted
+     *   - audit event queued (see AuditLog)
+     *   - availability change pushed to connected browsers (see AvailabilityBroadcaster)
+     *
+     * If the borrow cannot be logged the claim is released and the error
+     * propagates, so the book stays available.
      *
      * @param bookId the id of the book to borrow
+     * @param userId the borrowing user (null/blank = guest)
      * @return the created BorrowedBook record
-     * @throws IllegalArgumentException if bookId is null
+     * @throws IllegalArgumentException if bookId is null or userId is malformed
      * @throws IllegalStateException    if book not found or already borrowed
      */
-    public BorrowedBook borrowBook(Long bookId) {
+    public BorrowedBook borrowBook(Long bookId, String userId) {
         // Guard: null id is a programming error
         if (bookId == null) {
             throw new IllegalArgumentException("Book ID must not be null");
         }
+        String user = resolveUserId(userId);
 
         // Rule 1: book must exist
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new IllegalStateException(
                         "Book not found with id: " + bookId));
 
-        // Rule 2: book must be available
-        if (!book.isAvailable()) {
-            log.warn("Borrow attempt on already-borrowed book [id={}] title='{}'",
-                    bookId, book.getTitle());
+        // Rule 2: book must be available – claimed atomically so that two
+        // concurrent requests for the same book cannot both pass this check.
+        // The CAS is per book, so borrows of different books never contend.
+        if (!book.compareAndSetAvailable(true, false)) {
+            BORROW_CONFLICTS.increment();
+            auditLog.borrowRefused(bookId, user);
+            log.debug("Borrow attempt on already-borrowed book [id={}]", bookId);
             throw new IllegalStateException(
                     "Book '" + book.getTitle() + "' is already borrowed.");
         }
 
         // Rule 3: calculate due date
         LocalDate dueDate = LocalDate.now().plusDays(dueDays);
+        BorrowedBook record = new BorrowedBook(book, dueDate, user);
+
+        // Make the borrow durable before anyone is told about it
+        try {
+            persistenceService.logBorrow(record);
+        } catch (RuntimeException e) {
+            book.compareAndSetAvailable(false, true);
+            // Readers may have seen the claim; save so the catalogue version moves on
+            bookRepository.save(book);
+            throw e;
+        }
 
-        // Mark the book as unavailable and persist the change
-        book.setAvailable(false);
+        // The book is now ours (available=false); persist the change
         bookRepository.save(book);
 
-        // Create and persist the borrow record
-        BorrowedBook record = new BorrowedBook(
-                book.getId(), book.getTitle(), book.getAuthor(), dueDate);
+        // Persist the borrow record
         borrowedBookRepository.save(record);
 
-        // Monitoring: log the successful borrow action to the console
-        log.info("BORROW ACTION – bookId={} title='{}' dueDate={}",
-                bookId, book.getTitle(), dueDate);
+        // Other readers' pages grey the book out without reloading
+        broadcaster.publish(bookId);
+
+        // Monitoring: audit the successful borrow (queued, written off this thread)
+        auditLog.borrowed(record);
+        log.debug("BORROW ACTION – bookId={} user={} dueDate={}", bookId, user, dueDate);
 
         return record;
     }
 
+    // ---------------------------------------------------------------
+    // Return a book
+    // ---------------------------------------------------------------
+
+    /**
+     * Returns a borrowed book.
+     *
+     * Business rules:
+     *   1. The book must currently be on loan
+     *   2. Only the user who borrowed it may return it
+     *
+     * Side effects on success:
+     *   - Loan removed from the active-loan indexes
+     *   - Return durably logged (if persistence is enabled)
+     *   - Book.available set back to true and saved (it can be borrowed again)
+     *   - Loan appended to the compact loan history
+     *   - audit event queued (see AuditLog)
+     *   - availability change pushed to connected browsers
+     *
+     * @param bookId the id of the book being returned
+     * @param userId the returning user (null/blank = guest)
+     * @return the loan that was ended
+     * @throws IllegalArgumentException if bookId is null or userId is malformed
+     * @throws IllegalStateException    if the book is not on loan to this user
+     */
+    public BorrowedBook returnBook(Long bookId, String userId) {
+        if (bookId == null) {
+            throw new IllegalArgumentException("Book ID must not be null");
+        }
+        String user = resolveUserId(userId);
+
+        // Rule 1: there must be an active loan
+        BorrowedBook loan = borrowedBookRepository.findByBookId(bookId)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Book with id " + bookId + " is not currently borrowed."));
+
+        // Rule 2: the loan must be the caller's
+        if (!user.equals(loan.getUserId())) {
+            // Audited, not logged at WARN: any client can repeat this at will
+            auditLog.returnRefused(bookId, user);
+            log.debug("Return attempt by user={} on book [id={}] borrowed by another reader",
+                    user, bookId);
+            throw new IllegalStateException(
+                    "Book '" + loan.getTitle() + "' was not borrowed by you.");
+        }
+
+        // End the loan; losing this race means a concurrent return already did
+        if (!borrowedBookRepository.remove(loan)) {
+            RETURN_CONFLICTS.increment();
+            throw new IllegalStateException(
+                    "Book with id " + bookId + " is not currently borrowed.");
+        }
+
+        LocalDate today = LocalDate.now();
+        try {
+            persistenceService.logReturn(loan, today);
+        } catch (RuntimeException e) {
+            borrowedBookRepository.save(loan); // the loan is still active
+            throw e;
+        }
+
+        // Put the book back on the shelf
+        bookRepository.findById(bookId).ifPresent(book -> {
+            book.compareAndSetAvailable(false, true);
+            bookRepository.save(book);
+            broadcaster.publish(bookId);
+        });
+
+        loanHistoryRepository.append(loan, today);
+
+        auditLog.returned(loan, today);
+        log.debug("RETURN ACTION – bookId={} user={} dueDate={} returned={}",
+                bookId, user, loan.getDueDate(), today);
+
+        return loan;
+    }
+
     // ---------------------------------------------------------------
     // US4 – View borrowed books
     // ---------------------------------------------------------------
 
     /**
-     * Returns all active borrow records.
-     * Used by the "My Books" section to list what the user has borrowed.
+     * Returns the guest user's active borrow records.
      *
-     * @return list of all BorrowedBook records (may be empty)
+     * @return list of the guest's BorrowedBook records (may be empty)
+     * @see #getMyBooks(String)
      */
     public List<BorrowedBook> getMyBooks() {
-        List<BorrowedBook> myBooks = borrowedBookRepository.findAll();
+        return getMyBooks(BorrowedBook.GUEST_USER);
+    }
+
+    /**
+     * Returns one user's active borrow records.
+     * Used by the "My Books" section to list what the user has borrowed.
+     * Served from the per-user index: cost is O(the user's loans).
+     *
+     * @param userId the user (null/blank = guest)
+     * @return list of the user's BorrowedBook records (may be empty)
+     * @throws IllegalArgumentException if userId is malformed
+     */
+    public List<BorrowedBook> getMyBooks(String userId) {
+        String user = resolveUserId(userId);
+        List<BorrowedBook> myBooks = borrowedBookRepository.findByUserId(user);
 
         // Monitoring: log how many borrowed books were retrieved
-        log.debug("MY BOOKS query – {} record(s) returned", myBooks.size());
+        log.debug("MY BOOKS query – user={} {} record(s) returned", user, myBooks.size());
 
         return myBooks;
     }
 
+    /**
+     * Version of one user's "My Books" list, for conditional requests.
+     *
+     * @param userId the user (null/blank = guest)
+     * @return a number that changes whenever the user's active loans do
+     * @throws IllegalArgumentException if userId is malformed
+     */
+    public long getMyBooksVersion(String userId) {
+        return borrowedBookRepository.versionOf(resolveUserId(userId));
+    }
+
+    /**
+     * Returns one user's most recently returned loans, newest first.
+     *
+     * @param userId the user (null/blank = guest)
+     * @param limit  maximum entries (1..MAX_HISTORY)
+     * @return the user's returned loans (may be empty)
+     * @throws IllegalArgumentException if userId is malformed or limit is out of range
+     */
+    public List<LoanHistoryEntry> getHistory(String userId, int limit) {
+        if (limit < 1 || limit > MAX_HISTORY) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_HISTORY);
+        }
+        return loanHistoryRepository.findByUserId(resolveUserId(userId), limit);
+    }
+
+    // ---------------------------------------------------------------
+    // Helpers
+    // ---------------------------------------------------------------
+
+    /**
+     * Maps the caller-supplied user id to the key used by the repositories.
+     * There is no authentication – the id only separates one reader's shelf
+     * from another's – but it is validated so it is safe to log and index.
+     *
+     * @param userId raw id from the request (may be null)
+     * @return trimmed id, or GUEST_USER when none was given
+     * @throws IllegalArgumentException if the id is too long or has odd characters
+     */
+    static String resolveUserId(String userId) {
+        if (userId == null || userId.isBlank()) {
+            return BorrowedBook.GUEST_USER;
+        }
+        String trimmed = userId.trim();
+        if (trimmed.length() > MAX_USER_ID_LENGTH || !trimmed.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException(
+                    "User id must be 1-" + MAX_USER_ID_LENGTH + " letters, digits, '-' or '_'");
+        }
+        return trimmed;
+    }
+
 }
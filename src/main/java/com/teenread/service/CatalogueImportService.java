@@ -0,0 +1,269 @@
+package com.teenread.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenread.importer.CatalogueFormat;
+import com.teenread.importer.CatalogueParser;
+import com.teenread.model.Book;
+import com.teenread.model.ImportResult;
+import com.teenread.persistence.PersistenceService;
+import com.teenread.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bulk import of catalogue feeds (CSV or NDJSON) of any size.
+ *
+ * Pipeline:
+ *   1. the calling thread reads the feed line by line and cuts it into
+ *      batches of BATCH_SIZE lines – the feed is never held in memory whole
+ *   2. a pool of worker threads (one per core by default) parses and
+ *      validates the batches in parallel
+ *   3. the calling thread takes the parsed batches back IN FEED ORDER, logs
+ *      each one durably and hands it to BookRepository.importAll, which
+ *      builds the id, title and author indexes for the batch in parallel
+ *
+ * At most 2 × parallelism batches are in flight, so a fast reader cannot
+ * run ahead of parsing and indexing. Each batch takes the repository write
+ * lock once; reads are served between batches for the whole import.
+ *
+ * Rows that fail to parse are skipped and counted; the import carries on.
+ * If the feed itself fails (e.g. the client disconnects), the batches
+ * already applied stay in the catalogue.
+ */
+@Service
+
+public class CatalogueImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogueImportService.class);
+
+    /** Feed lines per parse / index batch */
+    public static final int BATCH_SIZE = 8192;
+
+    /** Rejected rows described in the result; the rest are only counted */
+    public static final int MAX_REPORTED_ERRORS = 10;
+
+    /** Rows between progress log lines */
+    private static final long PROGRESS_INTERVAL = 1_000_000;
+
+    private final BookRepository bookRepository;
+    private final PersistenceService persistenceService;
+    private final ObjectMapper objectMapper;
+    private final int parallelism;
+
+    /** Imports run one at a time */
+    private final ReentrantLock importLock = new ReentrantLock();
+
+    /**
+     * @param bookRepository     catalogue to import into
+     * @param persistenceService durable log for the imported books
+     * @param objectMapper       Jackson mapper for NDJSON feeds
+     * @param parallelism        app.import.parallelism – parse threads (0 = one per core)
+     */
+    public CatalogueImportService(BookRepository bookRepository,
+                                  PersistenceService persistenceService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.import.parallelism:0}") int parallelism) {
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("Import parallelism must not be negative");
+        }
+        this.bookRepository     = bookRepository;
+        this.persistenceService = persistenceService;
+        this.objectMapper       = objectMapper;
+        this.parallelism        = parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+    }
+
+    /**
+     * Imports a feed into the live catalogue. New ids are added, known ids
+     * get the feed's title and author (their availability is left alone –
+     * it belongs to the loans).
+     *
+     * @param feed   the feed, read to the end but not closed
+     * @param format feed format
+     * @return counts, first errors and throughput
+     * @throws IllegalStateException    if another import is running
+     * @throws IllegalArgumentException if the CSV header lacks a required column
+     * @throws UncheckedIOException     if the feed cannot be read or the log written
+     */
+    public ImportResult importCatalogue(InputStream feed, CatalogueFormat format) {
+        if (!importLock.tryLock()) {
+            throw new IllegalStateException("A catalogue import is already running.");
+        }
+        try {
+            return run(feed, format);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the catalogue feed", e);
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------------
+
+    private ImportResult run(InputStream feed, CatalogueFormat format) throws IOException {
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(feed, StandardCharsets.UTF_8), 1 << 16);
+        Tally tally = new Tally();
+
+        long lineNumber = 0;
+        CatalogueParser parser;
+        if (format == CatalogueFormat.CSV) {
+            String header;
+            do {
+                header = reader.readLine();
+                lineNumber++;
+            } while (header != null && header.isBlank());
+            if (header == null) {
+                return tally.result(started);
+            }
+            // Editors like to start UTF-8 CSV files with a byte-order mark
+            parser = CatalogueParser.csv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        } else {
+            parser = CatalogueParser.ndjson(objectMapper);
+        }
+
+        ArrayDeque<Future<ParsedBatch>> inFlight = new ArrayDeque<>();
+        AtomicInteger threadNumber = new AtomicInteger();
+        try (ExecutorService workers = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "catalogue-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        })) {
+            String[] lines = new String[BATCH_SIZE];
+            int count = 0;
+            long firstLine = lineNumber + 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines[count++] = line;
+                if (count == BATCH_SIZE) {
+                    submit(workers, inFlight, parser, lines, firstLine, tally);
+                    firstLine += count;
+                    lines = new String[BATCH_SIZE];
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                submit(workers, inFlight, parser, Arrays.copyOf(lines, count), firstLine, tally);
+            }
+            while (!inFlight.isEmpty()) {
+                apply(inFlight.poll(), tally);
+            }
+        }
+
+        ImportResult result = tally.result(started);
+        log.info("IMPORT – {} rows ({} imported, {} rejected) in {} ms – {} rows/s",
+                result.getRows(), result.getImported(), result.getRejected(),
+                result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    /** Queues a batch for parsing, first applying the oldest one if the pipeline is full. */
+    private void submit(ExecutorService workers, ArrayDeque<Future<ParsedBatch>> inFlight,
+                        CatalogueParser parser, String[] lines, long firstLine, Tally tally) {
+        if (inFlight.size() >= 2 * parallelism) {
+            apply(inFlight.poll(), tally);
+        }
+        inFlight.add(workers.submit(() -> parse(parser, lines, firstLine)));
+    }
+
+    /** Worker side: parses every line of a batch. */
+    private static ParsedBatch parse(CatalogueParser parser, String[] lines, long firstLine) {
+        ParsedBatch batch = new ParsedBatch(lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].isBlank()) {
+                continue;
+            }
+            batch.rows++;
+            try {
+                batch.books.add(parser.parse(lines[i]));
+            } catch (IllegalArgumentException e) {
+                batch.rejected++;
+                if (batch.errors.size() < MAX_REPORTED_ERRORS) {
+                    batch.errors.add("line " + (firstLine + i) + ": " + e.getMessage());
+                }
+            }
+        }
+        return batch;
+    }
+
+    /** Importing side: waits for a parsed batch, makes it durable, then visible. */
+    private void apply(Future<ParsedBatch> pending, Tally tally) {
+        ParsedBatch batch;
+        try {
+            batch = pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Catalogue import interrupted.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Catalogue import failed.", e.getCause());
+        }
+        persistenceService.logBooksSaved(batch.books);
+        bookRepository.importAll(batch.books);
+
+        long before = tally.rows;
+        tally.add(batch);
+        if (before / PROGRESS_INTERVAL != tally.rows / PROGRESS_INTERVAL) {
+            log.info("IMPORT – {} rows so far", tally.rows);
+        }
+    }
+
+    /** One parsed batch, handed from a worker back to the importing thread. */
+    private static final class ParsedBatch {
+        final List<Book> books;
+        final List<String> errors = new ArrayList<>();
+        long rows;
+        long rejected;
+
+        ParsedBatch(int capacity) {
+            this.books = new ArrayList<>(capacity);
+        }
+    }
+
+    /** Running totals; only touched by the importing thread. */
+    private static final class Tally {
+        long rows;
+        long imported;
+        long rejected;
+        final List<String> errors = new ArrayList<>();
+
+        void add(ParsedBatch batch) {
+            rows     += batch.rows;
+            imported += batch.books.size();
+            rejected += batch.rejected;
+            for (String error : batch.errors) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(error);
+                }
+            }
+        }
+
+        ImportResult result(long startedNanos) {
+            long elapsedNanos = Math.max(1, System.nanoTime() - startedNanos);
+            return new ImportResult(rows, imported, rejected, List.copyOf(errors),
+                    elapsedNanos / 1_000_000, (long) (rows * 1e9 / elapsedNanos));
+        }
+    }
+}
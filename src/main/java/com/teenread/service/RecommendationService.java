@@ -9,16 +9,19 @@ import org.springframework.stereotype.Service;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Service layer for book recommendations (US5).
  *
  * Strategy for Sprint 2:
- *   Return the first N available books from the catalogue, shuffled so
- *   the recommendations feel fresh on each page load.
+ *   Return N random available books from the catalogue so the
+ *   recommendations feel fresh on each page load.
  *   This is intentionally simple – does not block core functionality (US5 AC).
  *
+ * The random draw is delegated to BookRepository, which samples its live
+ * set of available books in O(N) – the cost of this endpoint does not
+ * grow with the catalogue.
+ *
  * Sprint 2 retro improvement:
  *   Edge case where fewer than N books are available is tested before merge.
  */
@@ -52,38 +55,25 @@ public class RecommendationService {
     // ---------------------------------------------------------------
 
     /**
-     * Returns up to {@code recommendationCount} available books, shuffled.
+     * Returns up to {@code recommendationCount} available books in random order.
      *
-     * Algorithm:
-     *   1. Fetch all books
-     *   2. Filter to only available ones (borrowed books are excluded)
-     *   3. Shuffle the filtered list for variety
-     *   4. Return the first recommendationCount items (or fewer if not enough)
+     * Borrowed books are excluded because the repository only samples from
+     * its availability index.
      *
      * Edge case (retro improvement): if fewer than recommendationCount books
      * are available, the method returns however many exist (no exception).
      *
-     * @return list of recommended Book objects (1–recommendationCount entries)
+     * @return list of recommended Book objects (0–recommendationCount entries)
      */
     public List<Book> getRecommendations() {
-        // Step 1 & 2: get all available books
-        List<Book> available = bookRepository.findAll().stream()
-                .filter(Book::isAvailable)
-                .collect(Collectors.toList());
+        List<Book> recommendations = bookRepository.findRandomAvailable(recommendationCount);
 
         // Edge case: no available books at all
-        if (available.isEmpty()) {
+        if (recommendations.isEmpty()) {
             log.warn("No available books to recommend");
             return Collections.emptyList();
         }
 
-        // Step 3: shuffle in-place so results vary per call
-        Collections.shuffle(available);
-
-        // Step 4: trim to the configured count (subList is safe even if smaller)
-        List<Book> recommendations = available.subList(
-                0, Math.min(recommendationCount, available.size()));
-
         log.debug("RECOMMENDATIONS – returning {} book(s)", recommendations.size());
 
         return recommendations;
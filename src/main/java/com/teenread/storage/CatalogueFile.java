@@ -0,0 +1,134 @@
+package com.teenread.storage;
+
+import com.teenread.model.Book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Read-optimised binary catalogue format, served by MappedCatalogue.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header   int magic "TRCF", int version, int count, int reserved,
+ *            long arenaOffset, long arenaLength, long recordsOffset, long availabilityOffset
+ *   arena    every title and author: unsigned short length + UTF-8 bytes
+ *   records  count × (long id, int titleOffset, int authorOffset) – sorted by id,
+ *            offsets relative to the arena start
+ *   avail.   one bit per record, set if the book is available
+ * </pre>
+ *
+ * Records are fixed-width and sorted by id, so a reader finds book n with
+ * one multiplication and an id with a binary search – no index to build.
+ */
+public final class CatalogueFile {
+
+    static final int MAGIC = 0x54524346; // "TRCF"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 48;
+    static final int RECORD_SIZE = 16;
+
+    /** Strings are length-prefixed with an unsigned short */
+    static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private CatalogueFile() {
+    }
+
+    /**
+     * Writes a catalogue file, replacing any existing one atomically.
+     *
+     * @param file  destination
+     * @param books the catalogue; written in id order, availability included
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException on null or duplicate ids, or a title/author
+     *                                  longer than 65,535 UTF-8 bytes
+     */
+    public static void write(Path file, Collection<Book> books) throws IOException {
+        Book[] sorted = books.toArray(new Book[0]);
+        for (Book book : sorted) {
+            if (book.getId() == null) {
+                throw new IllegalArgumentException("Catalogue books need an id");
+            }
+        }
+        Arrays.sort(sorted, Comparator.comparingLong(Book::getId));
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i].getId().longValue() == sorted[i - 1].getId().longValue()) {
+                throw new IllegalArgumentException("Duplicate book id " + sorted[i].getId());
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int[] titleOffsets = new int[sorted.length];
+        int[] authorOffsets = new int[sorted.length];
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Arena first, remembering where each string went. The stream is
+            // flushed, never closed: the channel still has the header to write.
+            channel.position(HEADER_SIZE);
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            long arenaLength = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                titleOffsets[i] = checkedOffset(arenaLength);
+                arenaLength += writeString(out, sorted[i].getTitle());
+                authorOffsets[i] = checkedOffset(arenaLength);
+                arenaLength += writeString(out, sorted[i].getAuthor());
+            }
+
+            long recordsOffset = HEADER_SIZE + arenaLength;
+            for (int i = 0; i < sorted.length; i++) {
+                out.writeLong(sorted[i].getId());
+                out.writeInt(titleOffsets[i]);
+                out.writeInt(authorOffsets[i]);
+            }
+
+            long availabilityOffset = recordsOffset + (long) sorted.length * RECORD_SIZE;
+            byte[] availability = new byte[(sorted.length + 7) >>> 3];
+            for (int i = 0; i < sorted.length; i++) {
+                if (sorted[i].isAvailable()) {
+                    availability[i >>> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            out.write(availability);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(VERSION).putInt(sorted.length).putInt(0)
+                    .putLong(HEADER_SIZE).putLong(arenaLength)
+                    .putLong(recordsOffset).putLong(availabilityOffset)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Title/author longer than " + MAX_STRING_BYTES + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+        return 2 + bytes.length;
+    }
+
+    private static int checkedOffset(long offset) {
+        if (offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Catalogue text exceeds 2 GB");
+        }
+        return (int) offset;
+    }
+}
@@ -0,0 +1,80 @@
+package com.teenread.storage;
+
+import com.teenread.model.Book;
+
+/**
+ * A book copied out of a MappedCatalogue.
+ *
+ * Its title and author are decoded from the mapped file on every call, like
+ * the columns of a heap catalogue are decoded from the dictionaries, and are
+ * interned into Book.TITLES / AUTHORS only when something needs their ids –
+ * saving the book or recording a loan of it. Listing, searching and
+ * serialising a mapped catalogue therefore leaves the dictionaries as they were.
+ *
+ * Thread-safety: canonical books are shared; the flags are volatile and
+ * written after the id they guard, so a reader that sees a flag cleared sees
+ * the id too.
+ */
+public final class MappedBook extends Book {
+
+    private final MappedCatalogue catalogue;
+    private final int slot;
+
+    // True while the field is still the file's text and has no dictionary id
+    private volatile boolean titleMapped = true;
+    private volatile boolean authorMapped = true;
+
+    MappedBook(MappedCatalogue catalogue, int slot, boolean available) {
+        this.catalogue = catalogue;
+        this.slot = slot;
+        setId(catalogue.id(slot));
+        setAvailable(available);
+    }
+
+    @Override
+    public String getTitle() {
+        return titleMapped ? catalogue.title(slot) : super.getTitle();
+    }
+
+    @Override
+    public void setTitle(String title) {
+        super.setTitle(title);
+        titleMapped = false;
+    }
+
+    @Override
+    public String getAuthor() {
+        return authorMapped ? catalogue.author(slot) : super.getAuthor();
+    }
+
+    @Override
+    public void setAuthor(String author) {
+        super.setAuthor(author);
+        authorMapped = false;
+    }
+
+    /** Interns the title on first use. */
+    @Override
+    public int titleId() {
+        if (titleMapped) {
+            setTitle(catalogue.title(slot));
+        }
+        return super.titleId();
+    }
+
+    /** Interns the author on first use. */
+    @Override
+    public int authorId() {
+        if (authorMapped) {
+            setAuthor(catalogue.author(slot));
+        }
+        return super.authorId();
+    }
+
+    @Override
+    public void copyTextFrom(Book source) {
+        super.copyTextFrom(source);
+        titleMapped = false;
+        authorMapped = false;
+    }
+}
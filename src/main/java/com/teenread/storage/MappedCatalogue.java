@@ -0,0 +1,194 @@
+package com.teenread.storage;
+
+import com.teenread.model.Book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped view of a CatalogueFile.
+ *
+ * Opening maps the file and validates it in one sequential pass over the
+ * fixed-size records: ids must ascend (slotOf binary-searches them) and
+ * every string must lie inside the text arena. No text is decoded and no
+ * Book is created, and the data stays in the OS page cache (off-heap); the
+ * accessors below decode a single field on demand. A corrupt file is thus
+ * refused by open() instead of failing later on a request thread.
+ *
+ * Thread-safety: immutable after open; only absolute buffer reads are used,
+ * so any number of threads may read concurrently.
+ *
+ * Limits: each section (text arena, records) must fit a single mapping of
+ * 2 GB, i.e. roughly 130 million records.
+ */
+public final class MappedCatalogue {
+
+    private final Path file;
+    private final int count;
+    private final MappedByteBuffer arena;
+    private final MappedByteBuffer records;
+    private final MappedByteBuffer availability;
+
+    private MappedCatalogue(Path file, int count, MappedByteBuffer arena,
+                            MappedByteBuffer records, MappedByteBuffer availability) {
+        this.file = file;
+        this.count = count;
+        this.arena = arena;
+        this.records = records;
+        this.availability = availability;
+    }
+
+    /**
+     * Maps a catalogue file.
+     *
+     * @param file a file written by CatalogueFile.write
+     * @return the mapped catalogue
+     * @throws IOException if the file is missing, truncated or not a catalogue file
+     */
+    public static MappedCatalogue open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < CatalogueFile.HEADER_SIZE) {
+                throw new IOException("Not a catalogue file (too short): " + file);
+            }
+            ByteBuffer header = ByteBuffer.allocate(CatalogueFile.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // keep reading until the header is complete
+            }
+            header.flip();
+            if (header.getInt() != CatalogueFile.MAGIC || header.getInt() != CatalogueFile.VERSION) {
+                throw new IOException("Not a version " + CatalogueFile.VERSION + " catalogue file: " + file);
+            }
+            int count = header.getInt();
+            header.getInt(); // reserved
+            long arenaOffset = header.getLong();
+            long arenaLength = header.getLong();
+            long recordsOffset = header.getLong();
+            long availabilityOffset = header.getLong();
+            long recordsLength = (long) count * CatalogueFile.RECORD_SIZE;
+            long availabilityLength = (count + 7L) >>> 3;
+            if (count < 0 || recordsOffset != arenaOffset + arenaLength
+                    || availabilityOffset != recordsOffset + recordsLength
+                    || fileSize < availabilityOffset + availabilityLength) {
+                throw new IOException("Corrupt or truncated catalogue file: " + file);
+            }
+            // A mapping stays valid after its channel is closed
+            MappedCatalogue catalogue = new MappedCatalogue(file, count,
+                    map(channel, arenaOffset, arenaLength),
+                    map(channel, recordsOffset, recordsLength),
+                    map(channel, availabilityOffset, availabilityLength));
+            if (!catalogue.recordsValid()) {
+                throw new IOException("Corrupt or truncated catalogue file: " + file);
+            }
+            return catalogue;
+        }
+    }
+
+    /** Checks every record: ids strictly ascending, both strings inside the arena. */
+    private boolean recordsValid() {
+        long previous = Long.MIN_VALUE;
+        for (int slot = 0; slot < count; slot++) {
+            long id = id(slot);
+            if (slot > 0 && id <= previous) {
+                return false;
+            }
+            previous = id;
+            int base = slot * CatalogueFile.RECORD_SIZE;
+            if (!stringInArena(records.getInt(base + 8)) || !stringInArena(records.getInt(base + 12))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return whether a string's length prefix and bytes both lie inside the arena */
+    private boolean stringInArena(int offset) {
+        int limit = arena.capacity();
+        return offset >= 0 && offset <= limit - 2
+                && offset + 2 + (arena.getShort(offset) & 0xFFFF) <= limit;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Catalogue section larger than 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    /** @return the mapped file */
+    public Path file() {
+        return file;
+    }
+
+    /** @return number of books */
+    public int size() {
+        return count;
+    }
+
+    /** @return id of the book at a position (0-based, ascending ids) */
+    public long id(int slot) {
+        return records.getLong(slot * CatalogueFile.RECORD_SIZE);
+    }
+
+    /**
+     * Binary search over the mapped, id-sorted records.
+     *
+     * @param id book id
+     * @return the book's position, or -1 if absent
+     */
+    public int slotOf(long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = id(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** @return title of the book at a position */
+    public String title(int slot) {
+        return string(records.getInt(slot * CatalogueFile.RECORD_SIZE + 8));
+    }
+
+    /** @return author of the book at a position */
+    public String author(int slot) {
+        return string(records.getInt(slot * CatalogueFile.RECORD_SIZE + 12));
+    }
+
+    /** @return availability recorded in the file for the book at a position */
+    public boolean available(int slot) {
+        return (availability.get(slot >>> 3) & (1 << (slot & 7))) != 0;
+    }
+
+    /**
+     * Materialises the book at a position. Its text stays in the mapping
+     * (see MappedBook), so the shared dictionaries do not grow.
+     *
+     * @param slot      position
+     * @param available availability to give it (the live value, not the file's)
+     * @return a new Book
+     */
+    public Book book(int slot, boolean available) {
+        return new MappedBook(this, slot, available);
+    }
+
+    private String string(int offset) {
+        int length = arena.getShort(offset) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        arena.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
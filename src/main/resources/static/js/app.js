@@ -5,6 +5,9 @@
  *   - US1: Fetch and render the full book catalogue on page load
  *   - US2: Handle search input and display filtered results
  *   - US6: Show clear feedback messages for browsing/search actions
+ *   - Live search suggestions while the user types (/api/books/suggest)
+ *   - Live availability: borrows and returns by any reader update the
+ *     cards in place, pushed over Server-Sent Events
  *   - Navigation: switch between Browse, My Books, and Recommendations panels
  *
  * Sprint 2 change: Borrow button added to each book card.
@@ -18,11 +21,19 @@
 /** Base URL for the books REST API */
 const API_BOOKS = '/api/books';
 
+/** Wait this long after the last keystroke before asking for suggestions */
+const SUGGEST_DEBOUNCE_MS = 150;
+
+/** Server-Sent Events stream of availability changes */
+const API_AVAILABILITY = '/api/reactive/availability';
+
 // ================================================================
 // DOM REFERENCES – resolved once for performance
 // ================================================================
 
 const searchInput     = document.getElementById('search-input');
+const searchField     = document.getElementById('search-field');
+const suggestionList  = document.getElementById('search-suggestions');
 const searchBtn       = document.getElementById('search-btn');
 const clearBtn        = document.getElementById('clear-btn');
 const feedbackMessage = document.getElementById('feedback-message');
@@ -151,7 +162,8 @@ function createBookCardHTML(book) {
     const borrowLabel    = book.available ? 'Borrow' : 'Unavailable';
 
     return `
-        <article class="book-card" aria-label="Book: ${escapeHTML(book.title)}">
+        <article class="book-card" data-book-id="${book.id}" data-available="${book.available}"
+                 aria-label="Book: ${escapeHTML(book.title)}">
             <div class="book-title">${escapeHTML(book.title)}</div>
             <div class="book-author">by ${escapeHTML(book.author)}</div>
             <div class="book-availability">
@@ -186,32 +198,77 @@ function renderBooks(books) {
     }
     // One innerHTML write is faster than many appendChild calls
     bookList.innerHTML = books.map(createBookCardHTML).join('');
+}
 
-    // Attach borrow click handlers after injecting cards into the DOM
-    // borrow.js must be loaded before app.js uses this function
-    attachBorrowHandlers();
+/**
+ * Updates one book's card in place – badge, button and data-available –
+ * without re-rendering the grid. No-op if the book is not shown or the
+ * card already shows that state (so a "Borrowed ✓" label survives the
+ * push of the reader's own borrow).
+ *
+ * @param {number} bookId     - id of the book
+ * @param {boolean} available - its new availability
+ */
+function setBookAvailability(bookId, available) {
+    const card = bookList.querySelector(`.book-card[data-book-id="${bookId}"]`);
+    if (!card || card.dataset.available === String(available)) return;
+
+    card.dataset.available = String(available);
+    const badge = card.querySelector('.badge');
+    badge.classList.toggle('badge-available', available);
+    badge.classList.toggle('badge-unavailable', !available);
+    badge.textContent = available ? '✅ Available' : '❌ Borrowed';
+
+    const btn = card.querySelector('.btn-borrow');
+    btn.disabled = !available;
+    btn.textContent = available ? 'Borrow' : 'Unavailable';
 }
 
 // ================================================================
-// BORROW HANDLER ATTACHMENT
+// BORROW CLICKS
 // (actual borrow logic lives in borrow.js – see that file)
 // ================================================================
 
 /**
- * Finds all Borrow buttons in the current book grid and attaches
- * click listeners that delegate to borrow.js handleBorrowClick().
+ * One click listener on the grid for every Borrow button, present and
+ * future – buttons re-enabled by a pushed return work without re-attaching.
+ * Delegates to borrow.js handleBorrowClick().
+ */
+function initBorrowClicks() {
+    bookList.addEventListener('click', event => {
+        const btn = event.target.closest('.btn-borrow');
+        if (!btn || btn.disabled) return;
+        // handleBorrowClick is defined in borrow.js
+        if (typeof handleBorrowClick === 'function') {
+            handleBorrowClick(parseInt(btn.dataset.bookId, 10), btn);
+        }
+    });
+}
+
+// ================================================================
+// LIVE AVAILABILITY  (Server-Sent Events)
+// ================================================================
+
+/**
+ * Subscribes to availability changes and applies them to the visible cards.
  *
- * Called after every renderBooks() invocation.
+ * The browser reconnects by itself after a dropped connection and sends the
+ * id of the last event it received, so the server replays what was missed;
+ * if too much was missed it sends "resync" and the current view is reloaded.
  */
-function attachBorrowHandlers() {
-    document.querySelectorAll('.btn-borrow:not([disabled])').forEach(btn => {
-        btn.addEventListener('click', () => {
-            const bookId = parseInt(btn.dataset.bookId, 10);
-            // handleBorrowClick is defined in borrow.js
-            if (typeof handleBorrowClick === 'function') {
-                handleBorrowClick(bookId, btn);
-            }
-        });
+function connectAvailability() {
+    if (typeof EventSource === 'undefined') return; // the page still works, just not live
+
+    const source = new EventSource(API_AVAILABILITY);
+    source.addEventListener('availability', event => {
+        JSON.parse(event.data).changes.forEach(change => setBookAvailability(change.id, change.available));
+    });
+    source.addEventListener('resync', () => {
+        if (searchInput.value.trim()) {
+            searchBooks(searchInput.value);
+        } else {
+            loadAllBooks();
+        }
     });
 }
 
@@ -245,7 +302,9 @@ async function loadAllBooks() {
 }
 
 /**
- * US2 – Searches books by title (GET /api/books/search?keyword=…).
+ * US2 – Searches books by title (GET /api/books/search?keyword=…)
+ * or by author (GET /api/books/query?author=…), depending on the
+ * field selected next to the search box.
  * Trims the keyword locally before sending the request.
  *
  * @param {string} keyword - raw value from the search input
@@ -262,7 +321,9 @@ async function searchBooks(keyword) {
     showLoading();
 
     try {
-        const url      = `${API_BOOKS}/search?keyword=${encodeURIComponent(trimmed)}`;
+        const url = searchField.value === 'author'
+            ? `${API_BOOKS}/query?author=${encodeURIComponent(trimmed)}`
+            : `${API_BOOKS}/search?keyword=${encodeURIComponent(trimmed)}`;
         const response = await fetch(url);
         const data     = await response.json();
 
@@ -285,10 +346,62 @@ async function searchBooks(keyword) {
     }
 }
 
+// ================================================================
+// LIVE SUGGESTIONS
+// ================================================================
+
+/** Pending debounce timer for suggestion requests */
+let suggestTimer = null;
+
+/** Controller for the in-flight suggestion request, aborted when a newer one starts */
+let suggestAbort = null;
+
+/**
+ * Fetches completions for the word being typed and fills the datalist.
+ * Each suggestion replaces the last word of the input, so the user can
+ * pick "Games" while typing "hunger ga".
+ *
+ * @param {string} text - current value of the search input
+ */
+async function loadSuggestions(text) {
+    if (suggestAbort) suggestAbort.abort();
+
+    if (!text.trim()) {
+        suggestionList.replaceChildren();
+        return;
+    }
+
+    suggestAbort = new AbortController();
+    try {
+        const url = `${API_BOOKS}/suggest?prefix=${encodeURIComponent(text)}&limit=5`;
+        const response = await fetch(url, { signal: suggestAbort.signal });
+        if (!response.ok) return;
+
+        const suggestions = await response.json();
+        // Keep everything the user typed before the word being completed
+        const head = text.replace(/[\p{L}\p{N}]+$/u, '');
+        // Build <option>s through the DOM so quotes in the input stay inert
+        suggestionList.replaceChildren(...suggestions.map(word => {
+            const option = document.createElement('option');
+            option.value = head + word;
+            return option;
+        }));
+    } catch (error) {
+        // Aborted or offline – suggestions are best-effort, never block search
+        if (error.name !== 'AbortError') console.error('loadSuggestions error:', error);
+    }
+}
+
 // ================================================================
 // EVENT LISTENERS
 // ================================================================
 
+// Debounced suggestions while typing
+searchInput.addEventListener('input', () => {
+    clearTimeout(suggestTimer);
+    suggestTimer = setTimeout(() => loadSuggestions(searchInput.value), SUGGEST_DEBOUNCE_MS);
+});
+
 // Search button click
 searchBtn.addEventListener('click', () => searchBooks(searchInput.value));
 
@@ -309,6 +422,8 @@ clearBtn.addEventListener('click', () => {
 // ================================================================
 
 document.addEventListener('DOMContentLoaded', () => {
-    initNavigation();   // Wire up nav tab buttons
-    loadAllBooks();     // US1: load catalogue immediately on page open
+    initNavigation();      // Wire up nav tab buttons
+    initBorrowClicks();    // US3: one listener for every Borrow button
+    connectAvailability(); // Subscribe before loading, so no change falls in between
+    loadAllBooks();        // US1: load catalogue immediately on page open
 });
\ No newline at end of file
@@ -5,6 +5,7 @@
  *   - US3: Send POST /api/borrow/{bookId} when a user clicks Borrow
  *   - US3: Show the due date in a success message (US6)
  *   - US4: Fetch and render the "My Books" list
+ *   - Return a borrowed book from its My Books card
  *   - US6: Show clear success / error feedback for all borrow actions
  *
  * This module is intentionally separate from app.js so each file has
@@ -13,6 +14,8 @@
  * Functions exposed to app.js via the global scope:
  *   handleBorrowClick(bookId, buttonElement)
  *   loadMyBooks()
+ *
+ * Uses from app.js: showFeedback, escapeHTML, setBookAvailability
  */
 
 // ================================================================
@@ -22,6 +25,37 @@
 /** Borrow API base URL */
 const API_BORROW = '/api/borrow';
 
+/** localStorage key holding this browser's reader id */
+const USER_ID_KEY = 'teenread-user-id';
+
+// ================================================================
+// READER IDENTITY
+// ================================================================
+
+/**
+ * Returns this browser's reader id, creating one on first use.
+ * Sent as the X-User-Id header so "My Books" only lists this reader's loans.
+ * There is no login – the id simply keeps readers' shelves apart.
+ *
+ * @returns {string} reader id (letters, digits and '-')
+ */
+function getUserId() {
+    let userId = localStorage.getItem(USER_ID_KEY);
+    if (!userId) {
+        // randomUUID needs a secure context (https/localhost); fall back otherwise
+        userId = window.crypto && crypto.randomUUID
+            ? crypto.randomUUID()
+            : Date.now().toString(36) + '-' + Math.random().toString(36).slice(2);
+        localStorage.setItem(USER_ID_KEY, userId);
+    }
+    return userId;
+}
+
+/** Headers identifying the reader on every borrow API call */
+function userHeaders() {
+    return { 'X-User-Id': getUserId() };
+}
+
 // ================================================================
 // DOM REFERENCES  (My Books panel)
 // ================================================================
@@ -64,9 +98,9 @@ function hideMyBooksFeedback() {
  * Called by app.js after borrow buttons are attached to the DOM.
  *
  * On success:
- *   - Disables the button and changes its label (prevents duplicate borrow)
+ *   - Marks the card borrowed in place and labels the button "Borrowed ✓"
  *   - Shows a success feedback message with the due date (US6)
- *   - Reloads the full book list so availability reflects the change
+ *   (other readers' cards are updated by the availability push, see app.js)
  *
  * On failure:
  *   - Shows an error feedback message (US6)
@@ -82,6 +116,7 @@ async function handleBorrowClick(bookId, btn) {
     try {
         const response = await fetch(`${API_BORROW}/${bookId}`, {
             method: 'POST',
+            headers: userHeaders(),
             // No body needed – bookId is in the URL path
         });
 
@@ -99,16 +134,14 @@ async function handleBorrowClick(bookId, btn) {
         // US6: success message includes the due date (US3 acceptance criteria)
         showBrowseFeedback(data.message, 'success');
 
-        // Mark the button as permanently disabled with a "Borrowed" label
+        // Update the card's badge in place (setBookAvailability is in app.js),
+        // then mark the button as permanently disabled with a "Borrowed" label
+        if (typeof setBookAvailability === 'function') {
+            setBookAvailability(bookId, false);
+        }
         btn.textContent = 'Borrowed ✓';
         btn.disabled = true;
 
-        // Reload the catalogue so the availability badge updates on the card
-        // loadAllBooks is defined in app.js which loads before borrow.js
-        if (typeof loadAllBooks === 'function') {
-            loadAllBooks();
-        }
-
     } catch (error) {
         showBrowseFeedback('Borrow failed. Please check your connection.', 'error');
         btn.disabled = false;
@@ -135,7 +168,7 @@ function showBrowseFeedback(text, type) {
 // ================================================================
 
 /**
- * Fetches all borrow records from GET /api/borrow/my-books.
+ * Fetches this reader's borrow records from GET /api/borrow/my-books.
  * Renders them as cards in the My Books panel.
  *
  * Called by app.js navigation when the "My Books" tab is clicked.
@@ -148,7 +181,7 @@ async function loadMyBooks() {
     hideMyBooksFeedback();
 
     try {
-        const response = await fetch(`${API_BORROW}/my-books`);
+        const response = await fetch(`${API_BORROW}/my-books`, { headers: userHeaders() });
         if (!response.ok) throw new Error(`Server error: ${response.status}`);
 
         const borrowedBooks = await response.json();
@@ -157,20 +190,13 @@ async function loadMyBooks() {
         myBooksLoading.classList.add('hidden');
 
         if (borrowedBooks.length === 0) {
-            // US4: empty state – user has not borrowed any books yet
-            myBooksList.innerHTML = `
-                <div class="empty-state" role="status">
-                    <div class="empty-state-icon">📂</div>
-                    <p class="empty-state-text">
-                        You have not borrowed any books yet. Go to Browse to get started!
-                    </p>
-                </div>
-            `;
+            renderNoBorrowedBooks();
             return;
         }
 
         // Render one card per borrow record
         myBooksList.innerHTML = borrowedBooks.map(createMyBookCardHTML).join('');
+        attachReturnHandlers();
 
         // US6: summary feedback
         showMyBooksFeedback(
@@ -183,9 +209,22 @@ async function loadMyBooks() {
     }
 }
 
+/** US4: empty state – the reader has no borrowed books */
+function renderNoBorrowedBooks() {
+    myBooksList.innerHTML = `
+        <div class="empty-state" role="status">
+            <div class="empty-state-icon">📂</div>
+            <p class="empty-state-text">
+                You have not borrowed any books yet. Go to Browse to get started!
+            </p>
+        </div>
+    `;
+}
+
 /**
  * Builds the HTML for a single My Books card (US4).
- * Shows the book title, author, and due date prominently.
+ * Shows the book title, author, and due date prominently,
+ * plus a Return button.
  *
  * @param {Object} record - { bookId, title, author, dueDate }
  * @returns {string} HTML string for the card
@@ -206,6 +245,70 @@ function createMyBookCardHTML(record) {
             <div class="due-date-label">
                 📅 Due: ${record.dueDate}
             </div>
+            <button class="btn btn-borrow btn-return"
+                data-book-id="${record.bookId}"
+                aria-label="Return ${safeTitle}">
+                Return
+            </button>
         </article>
     `;
+}
+
+// ================================================================
+// RETURN ACTION
+// ================================================================
+
+/** Attaches click listeners to the Return buttons in the My Books panel */
+function attachReturnHandlers() {
+    myBooksList.querySelectorAll('.btn-return').forEach(btn => {
+        btn.addEventListener('click', () => {
+            handleReturnClick(parseInt(btn.dataset.bookId, 10), btn);
+        });
+    });
+}
+
+/**
+ * Handles a click on a Return button.
+ * Sends POST /api/borrow/{bookId}/return, then removes the card from
+ * My Books and marks the book available in the catalogue, both in place.
+ *
+ * @param {number} bookId         - id of the book to return
+ * @param {HTMLButtonElement} btn - the Return button element
+ */
+async function handleReturnClick(bookId, btn) {
+    btn.disabled = true;
+    btn.textContent = 'Returning…';
+
+    try {
+        const response = await fetch(`${API_BORROW}/${bookId}/return`, {
+            method: 'POST',
+            headers: userHeaders(),
+        });
+
+        const data = await response.json();
+
+        if (!response.ok) {
+            showMyBooksFeedback(data.message || 'Could not return this book.', 'error');
+            btn.disabled = false;
+            btn.textContent = 'Return';
+            return;
+        }
+
+        btn.closest('.book-card').remove();
+        if (!myBooksList.querySelector('.btn-return')) {
+            renderNoBorrowedBooks();
+        }
+        showMyBooksFeedback(data.message, 'success');
+
+        // setBookAvailability is defined in app.js
+        if (typeof setBookAvailability === 'function') {
+            setBookAvailability(bookId, true);
+        }
+
+    } catch (error) {
+        showMyBooksFeedback('Return failed. Please check your connection.', 'error');
+        btn.disabled = false;
+        btn.textContent = 'Return';
+        console.error('handleReturnClick error:', error);
+    }
 }
\ No newline at end of file
@@ -6,8 +6,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 /**
  * Smoke test: verifies the Spring application context loads without errors.
  * If any bean is misconfigured, this test fails and the CI pipeline is blocked.
+ * Persistence and auditing are switched off so the test never reads or writes ./data.
  */
-@SpringBootTest
+@SpringBootTest(properties = {"app.persistence.enabled=false", "app.audit.enabled=false"})
 
 public class TeenReadApplicationTests {
     /**
@@ -0,0 +1,103 @@
+package com.teenread.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenread.model.BorrowedBook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuditLog – the asynchronous JSON-lines audit trail.
+ */
+class AuditLogTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void events_areWrittenAsJsonLinesInOrder() throws Exception {
+        Path file = dir.resolve("logs/audit.log");
+        AuditLog audit = new AuditLog(true, file.toString(), 1024, "drop");
+        audit.start();
+        LocalDate due = LocalDate.of(2024, 3, 29);
+        BorrowedBook loan = new BorrowedBook(3L, "Holes", "Louis Sachar", due, "alice");
+
+        audit.borrowed(loan);
+        audit.searchedTitle("say \"hi\"\n", 2);
+        audit.queried(null, "Lowry", true, 1);
+        audit.returned(loan, due);
+        audit.stop();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(4, lines.size());
+        JsonNode borrow = mapper.readTree(lines.get(0));
+        assertEquals("borrow", borrow.get("action").asText());
+        assertEquals(3, borrow.get("bookId").asLong());
+        assertEquals("alice", borrow.get("user").asText());
+        assertEquals("2024-03-29", borrow.get("date").asText());
+        assertTrue(borrow.has("ts"));
+        assertEquals("say \"hi\"\n", mapper.readTree(lines.get(1)).get("keyword").asText());
+        JsonNode query = mapper.readTree(lines.get(2));
+        assertEquals("Lowry", query.get("author").asText());
+        assertTrue(query.get("available").asBoolean());
+        assertFalse(query.has("keyword"), "Absent criteria are left out");
+        assertEquals("return", mapper.readTree(lines.get(3)).get("action").asText());
+    }
+
+    @Test
+    void fullBuffer_dropsAndCountsInsteadOfBlocking() {
+        // Writer never started: the buffer fills up and stays full
+        AuditLog audit = new AuditLog(true, dir.resolve("audit.log").toString(), 2, "drop");
+
+        for (int i = 0; i < 5; i++) {
+            audit.searchedAuthor("Roth", 1);
+        }
+
+        assertEquals(3, audit.droppedCount());
+    }
+
+    @Test
+    void blockingOverflow_givesUpWhenTheFileCannotBeOpened() throws Exception {
+        // A regular file where the log's directory should be
+        Files.createFile(dir.resolve("not-a-directory"));
+        AuditLog audit = new AuditLog(true, dir.resolve("not-a-directory/audit.log").toString(), 1, "block");
+        audit.start();
+
+        Thread request = new Thread(() -> {
+            for (int i = 0; i < 5; i++) {
+                audit.searchedTitle("Holes", 1);
+            }
+        });
+        request.start();
+        request.join(5_000);
+
+        assertFalse(request.isAlive(), "a request must not wait for a writer that is gone");
+        audit.stop();
+    }
+
+    @Test
+    void disabled_recordsNothing() {
+        AuditLog audit = AuditLog.disabled();
+        audit.searchedTitle("anything", 0);
+        audit.start();
+        audit.stop();
+
+        assertEquals(0, audit.droppedCount());
+    }
+
+    @Test
+    void constructor_rejectsBadSettings() {
+        String file = dir.resolve("audit.log").toString();
+        assertThrows(IllegalArgumentException.class, () -> new AuditLog(true, file, 0, "drop"));
+        assertThrows(IllegalArgumentException.class, () -> new AuditLog(true, file, 16, "ignore"));
+    }
+}
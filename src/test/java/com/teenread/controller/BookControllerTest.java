@@ -1,6 +1,8 @@
 package com.teenread.controller;
 
 import com.teenread.model.Book;
+import com.teenread.model.BookChanges;
+import com.teenread.model.BookPage;
 import com.teenread.service.BookService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,12 +11,20 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -62,10 +72,93 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.length()").value(0));
     }
 
+    @Test
+    void getAllBooks_carriesETagAndNoCache() throws Exception {
+        when(bookService.catalogueVersion()).thenReturn(7L);
+        when(bookService.getAllBooks()).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETags.of("c", 7)))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void getAllBooks_matchingIfNoneMatchIs304WithoutReadingBooks() throws Exception {
+        when(bookService.catalogueVersion()).thenReturn(7L);
+
+        mockMvc.perform(get("/api/books").header("If-None-Match", ETags.of("c", 7)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", ETags.of("c", 7)))
+                .andExpect(content().string(""));
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    void getAllBooks_staleIfNoneMatchGetsFullResponse() throws Exception {
+        when(bookService.catalogueVersion()).thenReturn(8L);
+        when(bookService.getAllBooks()).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/books").header("If-None-Match", ETags.of("c", 7)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETags.of("c", 8)));
+    }
+
+    // ---------------------------------------------------------------
+    // GET /api/books/changes
+    // ---------------------------------------------------------------
+
+    @Test
+    void getChanges_returnsDeltasAndCursor() throws Exception {
+        Book borrowed = new Book(3L, "Divergent", "Veronica Roth", false);
+        when(bookService.getChanges(41L, BookService.MAX_CHANGES))
+                .thenReturn(new BookChanges(42L, false, false, List.of(borrowed)));
+
+        mockMvc.perform(get("/api/books/changes").param("since", "41"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$.sequence").value(42))
+                .andExpect(jsonPath("$.resync").value(false))
+                .andExpect(jsonPath("$.more").value(false))
+                .andExpect(jsonPath("$.changes[0].id").value(3))
+                .andExpect(jsonPath("$.changes[0].available").value(false));
+    }
+
+    @Test
+    void getChanges_resyncHasNoChanges() throws Exception {
+        when(bookService.getChanges(null, 50)).thenReturn(BookChanges.resync(42L));
+
+        mockMvc.perform(get("/api/books/changes").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resync").value(true))
+                .andExpect(jsonPath("$.sequence").value(42))
+                .andExpect(jsonPath("$.changes.length()").value(0));
+    }
+
+    @Test
+    void getChanges_invalidLimitIs400() throws Exception {
+        when(bookService.getChanges(1L, 0))
+                .thenThrow(new IllegalArgumentException("Change limit must be at least 1"));
+
+        mockMvc.perform(get("/api/books/changes").param("since", "1").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Change limit must be at least 1"));
+    }
+
     // ---------------------------------------------------------------
     // GET /api/books/search (US2 + US6)
     // ---------------------------------------------------------------
 
+    @Test
+    void searchBooks_matchingIfNoneMatchIs304WithoutSearching() throws Exception {
+        when(bookService.catalogueVersion()).thenReturn(3L);
+
+        mockMvc.perform(get("/api/books/search").param("keyword", "Hunger")
+                        .header("If-None-Match", "W/" + ETags.of("c", 3)))
+                .andExpect(status().isNotModified());
+        verify(bookService, never()).searchByTitle(any());
+    }
+
     @Test
     void searchBooks_returns200WithResultsAndMessage() throws Exception {
         Book b1 = new Book(1L, "The Hunger Games", "Suzanne Collins", true);
@@ -111,4 +204,101 @@ class BookControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value(containsString("Percy")));
     }
-}
\ No newline at end of file
+
+    // ---------------------------------------------------------------
+    // GET /api/books/query (author + multi-field)
+    // ---------------------------------------------------------------
+
+    @Test
+    void queryBooks_returns200WithResults() throws Exception {
+        Book b = new Book(2L, "Harry Potter", "J.K. Rowling", true);
+        when(bookService.query(null, "Rowling", true)).thenReturn(Collections.singletonList(b));
+
+        mockMvc.perform(get("/api/books/query")
+                        .param("author", "Rowling")
+                        .param("available", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(1))
+                .andExpect(jsonPath("$.results[0].author").value("J.K. Rowling"))
+                .andExpect(jsonPath("$.message").value(containsString("Found 1")));
+    }
+
+    @Test
+    void queryBooks_returns400WhenNoCriteriaGiven() throws Exception {
+        when(bookService.query(null, null, null))
+                .thenThrow(new IllegalArgumentException("Provide at least one of: title, author, available"));
+
+        mockMvc.perform(get("/api/books/query"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("at least one")));
+    }
+
+    // ---------------------------------------------------------------
+    // GET /api/books/suggest
+    // ---------------------------------------------------------------
+
+    @Test
+    void suggest_returns200WithCompletions() throws Exception {
+        when(bookService.suggest("hun", 5)).thenReturn(Arrays.asList("Hunger"));
+
+        mockMvc.perform(get("/api/books/suggest").param("prefix", "hun"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0]").value("Hunger"));
+    }
+
+    @Test
+    void suggest_returns200WithEmptyArrayWhenPrefixMissing() throws Exception {
+        when(bookService.suggest(null, 5)).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/books/suggest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    // ---------------------------------------------------------------
+    // GET /api/books/page and /api/books/stream
+    // ---------------------------------------------------------------
+
+    @Test
+    void getPage_returns200WithBooksAndCursor() throws Exception {
+        Book b = new Book(1L, "The Hunger Games", "Suzanne Collins", true);
+        when(bookService.getPage(null, 1)).thenReturn(new BookPage(Collections.singletonList(b), 1L));
+
+        mockMvc.perform(get("/api/books/page").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books.length()").value(1))
+                .andExpect(jsonPath("$.nextAfterId").value(1));
+    }
+
+    @Test
+    void getPage_returns400ForUnknownCursor() throws Exception {
+        when(bookService.getPage(999L, 50))
+                .thenThrow(new IllegalArgumentException("Unknown page cursor: 999"));
+
+        mockMvc.perform(get("/api/books/page").param("afterId", "999"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("999")));
+    }
+
+    @Test
+    void streamBooks_writesOneJsonObjectPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(0);
+            action.accept(new Book(1L, "Holes", "Louis Sachar", true));
+            action.accept(new Book(2L, "Wonder", "R.J. Palacio", false));
+            return null;
+        }).when(bookService).forEachBook(any());
+
+        MvcResult started = mockMvc.perform(get("/api/books/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookController.NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"title\":\"Holes\",\"author\":\"Louis Sachar\",\"available\":true}\n" +
+                        "{\"id\":2,\"title\":\"Wonder\",\"author\":\"R.J. Palacio\",\"available\":false}\n"));
+    }
+}
@@ -2,6 +2,7 @@ package com.teenread.controller;
 
 import com.teenread.exception.GlobalExceptionHandler;
 import com.teenread.model.BorrowedBook;
+import com.teenread.model.LoanHistoryEntry;
 import com.teenread.service.BorrowService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,9 @@ import java.util.Arrays;
 import java.util.Collections;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -46,7 +50,7 @@ class BorrowControllerTest {
     void borrowBook_returns200WithBorrowedBookAndMessage() throws Exception {
         LocalDate due = LocalDate.now().plusDays(14);
         BorrowedBook record = new BorrowedBook(1L, "The Hunger Games", "Suzanne Collins", due);
-        when(borrowService.borrowBook(1L)).thenReturn(record);
+        when(borrowService.borrowBook(1L, null)).thenReturn(record);
 
         mockMvc.perform(post("/api/borrow/1").contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -59,7 +63,7 @@ class BorrowControllerTest {
 
     @Test
     void borrowBook_returns400WhenBookNotFound() throws Exception {
-        when(borrowService.borrowBook(999L))
+        when(borrowService.borrowBook(999L, null))
                 .thenThrow(new IllegalStateException("Book not found with id: 999"));
 
         mockMvc.perform(post("/api/borrow/999"))
@@ -69,7 +73,7 @@ class BorrowControllerTest {
 
     @Test
     void borrowBook_returns400WhenBookAlreadyBorrowed() throws Exception {
-        when(borrowService.borrowBook(1L))
+        when(borrowService.borrowBook(1L, null))
                 .thenThrow(new IllegalStateException("Book 'The Giver' is already borrowed."));
 
         mockMvc.perform(post("/api/borrow/1"))
@@ -86,7 +90,7 @@ class BorrowControllerTest {
         LocalDate due = LocalDate.now().plusDays(14);
         BorrowedBook r1 = new BorrowedBook(1L, "Wonder", "R.J. Palacio", due);
         BorrowedBook r2 = new BorrowedBook(2L, "Holes",  "Louis Sachar", due);
-        when(borrowService.getMyBooks()).thenReturn(Arrays.asList(r1, r2));
+        when(borrowService.getMyBooks(null)).thenReturn(Arrays.asList(r1, r2));
 
         mockMvc.perform(get("/api/borrow/my-books"))
                 .andExpect(status().isOk())
@@ -98,10 +102,100 @@ class BorrowControllerTest {
 
     @Test
     void getMyBooks_returns200WithEmptyArrayWhenNoBooksAreBorrowed() throws Exception {
-        when(borrowService.getMyBooks()).thenReturn(Collections.emptyList());
+        when(borrowService.getMyBooks(null)).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/borrow/my-books"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMyBooks_isPrivatePerUserAndRevalidatedByETag() throws Exception {
+        when(borrowService.getMyBooksVersion("alice")).thenReturn(12L);
+        when(borrowService.getMyBooks("alice")).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/borrow/my-books").header("X-User-Id", "alice"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETags.of("l", 12)))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andExpect(header().stringValues("Vary", hasItem("X-User-Id")));
+
+        mockMvc.perform(get("/api/borrow/my-books").header("X-User-Id", "alice")
+                        .header("If-None-Match", ETags.of("l", 12)))
+                .andExpect(status().isNotModified());
+        verify(borrowService, times(1)).getMyBooks("alice");
+    }
+
+    // ---------------------------------------------------------------
+    // X-User-Id header (per-user borrowing)
+    // ---------------------------------------------------------------
+
+    @Test
+    void borrowBook_passesUserHeaderToService() throws Exception {
+        BorrowedBook record = new BorrowedBook(1L, "Holes", "Louis Sachar",
+                LocalDate.now().plusDays(14), "alice");
+        when(borrowService.borrowBook(1L, "alice")).thenReturn(record);
+
+        mockMvc.perform(post("/api/borrow/1").header(BorrowController.USER_HEADER, "alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.borrowedBook.userId").value("alice"));
+    }
+
+    @Test
+    void getMyBooks_returnsOnlyTheCallersBooks() throws Exception {
+        BorrowedBook mine = new BorrowedBook(8L, "Holes", "Louis Sachar", LocalDate.now(), "alice");
+        when(borrowService.getMyBooks("alice")).thenReturn(Collections.singletonList(mine));
+
+        mockMvc.perform(get("/api/borrow/my-books").header(BorrowController.USER_HEADER, "alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].userId").value("alice"));
+    }
+
+    @Test
+    void getMyBooks_returns400ForMalformedUserId() throws Exception {
+        when(borrowService.getMyBooks("bad id!"))
+                .thenThrow(new IllegalArgumentException("User id must be 1-64 letters, digits, '-' or '_'"));
+
+        mockMvc.perform(get("/api/borrow/my-books").header(BorrowController.USER_HEADER, "bad id!"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ---------------------------------------------------------------
+    // Returns and history
+    // ---------------------------------------------------------------
+
+    @Test
+    void returnBook_returns200WithMessage() throws Exception {
+        BorrowedBook loan = new BorrowedBook(1L, "Holes", "Louis Sachar", LocalDate.now(), "alice");
+        when(borrowService.returnBook(1L, "alice")).thenReturn(loan);
+
+        mockMvc.perform(post("/api/borrow/1/return").header(BorrowController.USER_HEADER, "alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.returnedBook.bookId").value(1))
+                .andExpect(jsonPath("$.message").value(containsString("returned 'Holes'")));
+    }
+
+    @Test
+    void returnBook_returns400WhenNotBorrowed() throws Exception {
+        when(borrowService.returnBook(1L, null))
+                .thenThrow(new IllegalStateException("Book with id 1 is not currently borrowed."));
+
+        mockMvc.perform(post("/api/borrow/1/return"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("not currently borrowed")));
+    }
+
+    @Test
+    void getHistory_returnsTheCallersReturnedBooks() throws Exception {
+        LocalDate due = LocalDate.now();
+        LoanHistoryEntry entry = new LoanHistoryEntry(3L, "alice", due, due.plusDays(2));
+        when(borrowService.getHistory("alice", 5)).thenReturn(Collections.singletonList(entry));
+
+        mockMvc.perform(get("/api/borrow/history").param("limit", "5")
+                        .header(BorrowController.USER_HEADER, "alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookId").value(3))
+                .andExpect(jsonPath("$[0].late").value(true));
+    }
+}
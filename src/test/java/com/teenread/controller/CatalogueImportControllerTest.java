@@ -0,0 +1,125 @@
+package com.teenread.controller;
+
+import com.teenread.exception.GlobalExceptionHandler;
+import com.teenread.importer.CatalogueFormat;
+import com.teenread.model.ImportResult;
+import com.teenread.service.CatalogueImportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * MockMvc slice tests for CatalogueImportController.
+ */
+@WebMvcTest(value = CatalogueImportController.class, properties = "app.import.http-token=" + CatalogueImportControllerTest.TOKEN)
+@Import(GlobalExceptionHandler.class)
+class CatalogueImportControllerTest {
+
+    static final String TOKEN = "s3cret";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CatalogueImportService importService;
+
+    @Test
+    void import_returns200WithCounts() throws Exception {
+        when(importService.importCatalogue(any(), eq(CatalogueFormat.NDJSON)))
+                .thenReturn(new ImportResult(3, 2, 1, List.of("line 2: Invalid JSON"), 5, 600));
+
+        mockMvc.perform(post("/api/books/import").header(CatalogueImportController.TOKEN_HEADER, TOKEN).param("format", "ndjson")
+                        .contentType("application/x-ndjson")
+                        .content("{}\n{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(3))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0]").value("line 2: Invalid JSON"))
+                .andExpect(jsonPath("$.rowsPerSecond").value(600));
+    }
+
+    @Test
+    void import_defaultsToCsv() throws Exception {
+        when(importService.importCatalogue(any(), eq(CatalogueFormat.CSV)))
+                .thenReturn(new ImportResult(1, 1, 0, List.of(), 1, 1000));
+
+        mockMvc.perform(post("/api/books/import").header(CatalogueImportController.TOKEN_HEADER, TOKEN).contentType("text/csv")
+                        .content("id,title,author\n1,Holes,Louis Sachar\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1));
+    }
+
+    @Test
+    void import_returns400ForUnknownFormat() throws Exception {
+        mockMvc.perform(post("/api/books/import").header(CatalogueImportController.TOKEN_HEADER, TOKEN).param("format", "xml").content("<books/>"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("xml")));
+        verifyNoInteractions(importService);
+    }
+
+    @Test
+    void import_returns400WhileAnotherImportRuns() throws Exception {
+        when(importService.importCatalogue(any(), any()))
+                .thenThrow(new IllegalStateException("A catalogue import is already running."));
+
+        mockMvc.perform(post("/api/books/import").header(CatalogueImportController.TOKEN_HEADER, TOKEN).content("id,title,author\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("already running")));
+    }
+
+    @Test
+    void import_returns403WithoutTheToken() throws Exception {
+        mockMvc.perform(post("/api/books/import").content("id,title,author\n"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value(containsString(CatalogueImportController.TOKEN_HEADER)));
+        mockMvc.perform(post("/api/books/import").header(CatalogueImportController.TOKEN_HEADER, "guess")
+                        .content("id,title,author\n"))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(importService);
+    }
+
+    @Test
+    void import_sendsNoCorsHeadersToOtherOrigins() throws Exception {
+        when(importService.importCatalogue(any(), any()))
+                .thenReturn(new ImportResult(0, 0, 0, List.of(), 1, 0));
+
+        mockMvc.perform(options("/api/books/import")
+                        .header(HttpHeaders.ORIGIN, "https://elsewhere.example")
+                        .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "POST"))
+                .andExpect(header().doesNotExist(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN));
+        mockMvc.perform(post("/api/books/import").header(CatalogueImportController.TOKEN_HEADER, TOKEN)
+                        .header(HttpHeaders.ORIGIN, "https://elsewhere.example")
+                        .content("id,title,author\n"))
+                .andExpect(header().doesNotExist(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN));
+    }
+
+    @Test
+    void import_returns404WhenNoTokenIsConfigured() throws Exception {
+        CatalogueImportService service = mock(CatalogueImportService.class);
+        MockMvc disabled = MockMvcBuilders.standaloneSetup(new CatalogueImportController(service, " ")).build();
+
+        disabled.perform(post("/api/books/import").header(CatalogueImportController.TOKEN_HEADER, " ")
+                        .content("id,title,author\n"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value(containsString("app.import.http-token")));
+        verifyNoInteractions(service);
+    }
+}
@@ -8,8 +8,9 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.Collections;
-
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,7 +35,7 @@ class HealthControllerTest {
 
     @Test
     void health_returns200WithStatusUp() throws Exception {
-        when(bookRepository.findAll()).thenReturn(Collections.emptyList());
+        when(bookRepository.count()).thenReturn(0L);
         when(borrowedBookRepository.count()).thenReturn(0);
 
         mockMvc.perform(get("/health"))
@@ -47,24 +48,34 @@ class HealthControllerTest {
 
     @Test
     void health_reportsTotalBooksCount() throws Exception {
-        // Simulate 12 seeded books and 2 borrow records
-        when(bookRepository.findAll()).thenReturn(
-                java.util.Arrays.asList(
-                        new com.teenread.model.Book(1L, "A", "A", true),
-                        new com.teenread.model.Book(2L, "B", "B", false)
-                )
-        );
+        // Simulate 2 books, one of them on a loan
+        when(bookRepository.count()).thenReturn(2L);
+        when(bookRepository.countAvailable()).thenReturn(1L);
         when(borrowedBookRepository.count()).thenReturn(1);
 
         mockMvc.perform(get("/health"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.totalBooks").value(2))
+                .andExpect(jsonPath("$.availableBooks").value(1))
                 .andExpect(jsonPath("$.borrowedBooks").value(1));
     }
 
+    @Test
+    void health_reportsOverdueLoansAndNeverCopiesTheCatalogue() throws Exception {
+        when(borrowedBookRepository.count()).thenReturn(3);
+        when(borrowedBookRepository.countOverdue(any())).thenReturn(2L);
+
+        mockMvc.perform(get("/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.overdueBooks").value(2));
+
+        verify(bookRepository, never()).findAll();
+        verify(borrowedBookRepository, never()).findAll();
+    }
+
     @Test
     void health_returns200EvenWithNoBorrowedBooks() throws Exception {
-        when(bookRepository.findAll()).thenReturn(Collections.emptyList());
+        when(bookRepository.count()).thenReturn(0L);
         when(borrowedBookRepository.count()).thenReturn(0);
 
         mockMvc.perform(get("/health"))
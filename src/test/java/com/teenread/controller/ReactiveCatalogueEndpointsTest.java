@@ -0,0 +1,220 @@
+package com.teenread.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenread.model.Book;
+import com.teenread.model.BookPage;
+import com.teenread.service.AvailabilityBroadcaster;
+import com.teenread.service.AvailabilityBroadcaster.Kind;
+import com.teenread.service.AvailabilityBroadcaster.Update;
+import com.teenread.service.BookService;
+import com.teenread.service.RecommendationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the non-blocking /api/reactive endpoints, bound straight to
+ * the router (no server).
+ */
+@ExtendWith(MockitoExtension.class)
+class ReactiveCatalogueEndpointsTest {
+
+    @Mock
+    private BookService bookService;
+
+    @Mock
+    private RecommendationService recommendationService;
+
+    @Mock
+    private AvailabilityBroadcaster broadcaster;
+
+    private ReactiveCatalogueEndpoints endpoints;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        endpoints = new ReactiveCatalogueEndpoints(bookService, recommendationService, broadcaster);
+        client = WebTestClient.bindToRouterFunction(endpoints.routes())
+                .handlerStrategies(ReactiveCatalogueEndpoints.strategies(new ObjectMapper()))
+                .build();
+    }
+
+    // ---------------------------------------------------------------
+    // Catalogue
+    // ---------------------------------------------------------------
+
+    @Test
+    void books_streamsEveryPageAsOneJsonArray() {
+        int page = ReactiveCatalogueEndpoints.CURSOR_PAGE;
+        when(bookService.getPage(null, page)).thenReturn(new BookPage(books(1, page), (long) page));
+        when(bookService.getPage((long) page, page)).thenReturn(new BookPage(books(page + 1, 10), null));
+
+        client.get().uri("/books").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(page + 10)
+                .jsonPath("$[0].title").isEqualTo("Book 1")
+                .jsonPath("$[" + page + "].id").isEqualTo(page + 1);
+    }
+
+    @Test
+    void catalogue_fetchesNextPageOnlyWhenDemanded() {
+        int page = ReactiveCatalogueEndpoints.CURSOR_PAGE;
+        when(bookService.getPage(null, page)).thenReturn(new BookPage(books(1, page), (long) page));
+
+        List<Book> firstThree = endpoints.catalogue().take(3).collectList().block();
+
+        assertEquals(3, firstThree.size());
+        verify(bookService, times(1)).getPage(any(), anyInt());
+    }
+
+    @Test
+    void books_fullLastPageEndsOnEmptyPage() {
+        int page = ReactiveCatalogueEndpoints.CURSOR_PAGE;
+        when(bookService.getPage(null, page)).thenReturn(new BookPage(books(1, page), (long) page));
+        when(bookService.getPage((long) page, page)).thenReturn(new BookPage(Collections.emptyList(), null));
+
+        assertEquals(page, endpoints.catalogue().count().block());
+    }
+
+    @Test
+    void books_ndjsonWhenAccepted() {
+        when(bookService.getPage(null, ReactiveCatalogueEndpoints.CURSOR_PAGE))
+                .thenReturn(new BookPage(books(1, 2), null));
+
+        String body = client.get().uri("/books").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertEquals("""
+                {"id":1,"title":"Book 1","author":"Author 1","available":true}
+                {"id":2,"title":"Book 2","author":"Author 2","available":true}
+                """, body);
+    }
+
+    // ---------------------------------------------------------------
+    // Search, query, recommendations
+    // ---------------------------------------------------------------
+
+    @Test
+    void search_streamsResultsAsServerSentEvents() {
+        when(bookService.searchByTitle("Hunger")).thenReturn(books(1, 1));
+
+        String body = client.get().uri("/books/search?keyword=Hunger")
+                .accept(MediaType.TEXT_EVENT_STREAM).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertTrue(body.startsWith("data:{\"id\":1,"), body);
+    }
+
+    @Test
+    void search_blankKeywordIs400WithMessage() {
+        when(bookService.searchByTitle(null))
+                .thenThrow(new IllegalArgumentException("Search keyword must not be blank"));
+
+        client.get().uri("/books/search").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Bad Request")
+                .jsonPath("$.message").isEqualTo("Search keyword must not be blank");
+    }
+
+    @Test
+    void query_passesCriteriaAndRejectsBadAvailability() {
+        when(bookService.query(null, "Rowling", true)).thenReturn(books(1, 1));
+
+        client.get().uri("/books/query?author=Rowling&available=true").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(1);
+
+        client.get().uri("/books/query?available=maybe").exchange()
+                .expectStatus().isBadRequest();
+        verify(bookService, times(1)).query(any(), any(), any());
+    }
+
+    @Test
+    void recommendations_emptyListIsEmptyArray() {
+        when(recommendationService.getRecommendations()).thenReturn(Collections.emptyList());
+
+        client.get().uri("/recommendations").exchange()
+                .expectStatus().isOk()
+                .expectBody().json("[]");
+    }
+
+    // ---------------------------------------------------------------
+    // Availability push
+    // ---------------------------------------------------------------
+
+    @Test
+    void availability_startsAtCurrentSequenceThenStreamsUpdates() {
+        when(broadcaster.current()).thenReturn(new Update(Kind.CHANGES, 40, "{\"sequence\":40,\"changes\":[]}"));
+        when(broadcaster.updates()).thenReturn(Flux.just(
+                new Update(Kind.HEARTBEAT, 0, null),
+                new Update(Kind.CHANGES, 42, "{\"sequence\":42,\"changes\":[{\"id\":3,\"available\":false}]}")));
+
+        String body = client.get().uri("/availability").accept(MediaType.TEXT_EVENT_STREAM).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertTrue(body.contains(":keep-alive\n\n"), body);
+        assertTrue(body.contains("id:40\nevent:availability\ndata:{\"sequence\":40,\"changes\":[]}\n\n"), body);
+        assertTrue(body.contains("id:42\nevent:availability\n"
+                + "data:{\"sequence\":42,\"changes\":[{\"id\":3,\"available\":false}]}\n\n"), body);
+    }
+
+    @Test
+    void availability_reconnectCatchesUpFromLastEventIdOrResyncs() {
+        when(broadcaster.updates()).thenReturn(Flux.empty());
+        when(broadcaster.catchUp(41)).thenReturn(new Update(Kind.CHANGES, 42, "{}"));
+        when(broadcaster.catchUp(-1)).thenReturn(new Update(Kind.RESYNC, 42, "{}"));
+
+        String caughtUp = client.get().uri("/availability").header("Last-Event-ID", "41").exchange()
+                .expectBody(String.class).returnResult().getResponseBody();
+        String garbled = client.get().uri("/availability").header("Last-Event-ID", "x").exchange()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertTrue(caughtUp.contains("event:availability"), caughtUp);
+        assertTrue(garbled.contains("event:resync"), garbled);
+        verify(broadcaster, never()).current();
+    }
+
+    @Test
+    void negotiate_picksFirstAcceptableFormat() {
+        assertEquals(MediaType.APPLICATION_JSON, ReactiveCatalogueEndpoints.negotiate(List.of()));
+        assertEquals(MediaType.APPLICATION_JSON, ReactiveCatalogueEndpoints.negotiate(List.of(MediaType.ALL)));
+        assertEquals(MediaType.TEXT_EVENT_STREAM, ReactiveCatalogueEndpoints.negotiate(
+                List.of(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON)));
+        assertEquals(MediaType.APPLICATION_JSON, ReactiveCatalogueEndpoints.negotiate(
+                List.of(MediaType.TEXT_HTML)));
+    }
+
+    // ---------------------------------------------------------------
+    // Helpers
+    // ---------------------------------------------------------------
+
+    private static List<Book> books(int firstId, int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int id = firstId; id < firstId + count; id++) {
+            books.add(new Book((long) id, "Book " + id, "Author " + id, true));
+        }
+        return books;
+    }
+}
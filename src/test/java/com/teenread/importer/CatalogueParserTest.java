@@ -0,0 +1,90 @@
+package com.teenread.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenread.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CatalogueParser and CatalogueFormat.
+ */
+class CatalogueParserTest {
+
+    @Test
+    void csv_mapsColumnsByHeaderName() {
+        CatalogueParser parser = CatalogueParser.csv("Author,ID,Title,available");
+
+        Book book = parser.parse("Louis Sachar,8,Holes,false");
+
+        assertEquals(8L, book.getId());
+        assertEquals("Holes", book.getTitle());
+        assertEquals("Louis Sachar", book.getAuthor());
+        assertFalse(book.isAvailable());
+    }
+
+    @Test
+    void csv_handlesQuotedFields() {
+        CatalogueParser parser = CatalogueParser.csv("id,title,author");
+
+        Book book = parser.parse("5,\"Percy Jackson, \"\"The\"\" Lightning Thief\",Rick Riordan");
+
+        assertEquals("Percy Jackson, \"The\" Lightning Thief", book.getTitle());
+        assertTrue(book.isAvailable(), "available defaults to true");
+    }
+
+    @Test
+    void csv_rejectsHeaderWithoutRequiredColumns() {
+        assertThrows(IllegalArgumentException.class, () -> CatalogueParser.csv("id,name,author"));
+    }
+
+    @Test
+    void csv_rejectsInvalidRows() {
+        CatalogueParser parser = CatalogueParser.csv("id,title,author");
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("x,Holes,Louis Sachar"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("0,Holes,Louis Sachar"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("1, ,Louis Sachar"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("1,Holes"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("1,\"Holes,Louis Sachar"));
+    }
+
+    @Test
+    void ndjson_readsObjects() {
+        CatalogueParser parser = CatalogueParser.ndjson(new ObjectMapper());
+
+        Book book = parser.parse("{\"id\":9,\"title\":\"Wonder\",\"author\":\"R.J. Palacio\",\"available\":false}");
+
+        assertEquals(9L, book.getId());
+        assertEquals("Wonder", book.getTitle());
+        assertFalse(book.isAvailable());
+    }
+
+    @Test
+    void ndjson_rejectsMalformedLines() {
+        CatalogueParser parser = CatalogueParser.ndjson(new ObjectMapper());
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"id\":9,\"title\":"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("[1,2,3]"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"id\":9,\"title\":\"Wonder\"}"));
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parse("{\"id\":9,\"title\":\"Wonder\",\"author\":\"R.J.\",\"available\":\"maybe\"}"));
+    }
+
+    @Test
+    void splitCsv_keepsEmptyFields() {
+        assertEquals(List.of("1", "", "x"), CatalogueParser.splitCsv("1,,x"));
+    }
+
+    @Test
+    void format_fromNameAndExtension() {
+        assertEquals(CatalogueFormat.NDJSON, CatalogueFormat.of("NDJSON"));
+        assertEquals(CatalogueFormat.CSV, CatalogueFormat.of(" csv "));
+        assertThrows(IllegalArgumentException.class, () -> CatalogueFormat.of("xml"));
+        assertEquals(CatalogueFormat.NDJSON, CatalogueFormat.forFile(Path.of("feed.jsonl")));
+        assertEquals(CatalogueFormat.CSV, CatalogueFormat.forFile(Path.of("feed.csv")));
+    }
+}
@@ -0,0 +1,59 @@
+package com.teenread.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CatalogueColumns – the primitive per-field storage behind BookRepository.
+ */
+class CatalogueColumnsTest {
+
+    @Test
+    void appendAndSet_storeEveryColumn() {
+        CatalogueColumns columns = new CatalogueColumns(1);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, columns.append(1000L + i, i, i * 2));
+        }
+        columns.set(42, 7L, 70, 700);
+
+        assertEquals(100, columns.size());
+        assertEquals(1099L, columns.id(99));
+        assertEquals(198, columns.authorId(99));
+        assertEquals(7L, columns.id(42));
+        assertEquals(70, columns.titleId(42));
+        assertEquals(700, columns.authorId(42));
+        assertFalse(columns.available(42), "Slots start unavailable");
+    }
+
+    @Test
+    void reserve_addsSlotsWithoutValues() {
+        CatalogueColumns columns = new CatalogueColumns(4);
+        columns.append(1L, TextDictionary.NULL_ID, TextDictionary.NULL_ID);
+        columns.reserve(3);
+
+        assertEquals(4, columns.size());
+        assertTrue(columns.has(0), "A null title is still a value");
+        assertFalse(columns.has(2));
+        columns.set(2, 9L, 1, 1);
+        assertTrue(columns.has(2));
+    }
+
+    @Test
+    void availability_countsAndFilters() {
+        CatalogueColumns columns = new CatalogueColumns(16);
+        for (int i = 0; i < 200; i++) {
+            columns.append(i, 0, 0);
+            columns.setAvailable(i, i % 3 == 0);
+        }
+
+        assertEquals(67, columns.countAvailable());
+        int[] available = columns.slotsWithAvailability(true);
+        assertEquals(67, available.length);
+        assertEquals(198, available[66]);
+        int[] borrowed = columns.slotsWithAvailability(false);
+        assertEquals(133, borrowed.length);
+        assertEquals(1, borrowed[0]);
+        assertArrayEquals(new int[] {3, 9}, columns.filterByAvailability(new int[] {3, 4, 9}, true));
+    }
+}
@@ -0,0 +1,46 @@
+package com.teenread.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChangeRing – the bounded, sequence-numbered change log.
+ */
+class ChangeRingTest {
+
+    @Test
+    void append_numbersChangesAfterTheBase() {
+        ChangeRing ring = new ChangeRing(8, 100);
+        assertEquals(100, ring.lastSequence());
+        assertEquals(101, ring.append(7));
+        assertEquals(102, ring.append(9));
+
+        assertArrayEquals(new long[] {7, 9}, ring.idsAfter(100, 10));
+        assertArrayEquals(new long[] {9}, ring.idsAfter(101, 10));
+        assertArrayEquals(new long[0], ring.idsAfter(102, 10));
+    }
+
+    @Test
+    void idsAfter_returnsAtMostMaxOldestFirst() {
+        ChangeRing ring = new ChangeRing(8, 0);
+        for (long id = 1; id <= 5; id++) {
+            ring.append(id * 10);
+        }
+        assertArrayEquals(new long[] {10, 20}, ring.idsAfter(0, 2));
+        assertArrayEquals(new long[] {30, 40}, ring.idsAfter(2, 2));
+    }
+
+    @Test
+    void idsAfter_overwrittenOrForeignCursorIsNull() {
+        ChangeRing ring = new ChangeRing(4, 0);
+        for (long id = 1; id <= 10; id++) {
+            ring.append(id);
+        }
+        // Changes 7..10 are left: cursor 6 still works, 5 has lost change 6
+        assertEquals(6, ring.oldestCursor());
+        assertArrayEquals(new long[] {7, 8, 9, 10}, ring.idsAfter(6, 100));
+        assertNull(ring.idsAfter(5, 100));
+        assertNull(ring.idsAfter(11, 100));
+    }
+}
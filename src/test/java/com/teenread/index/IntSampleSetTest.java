@@ -0,0 +1,76 @@
+package com.teenread.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IntSampleSet – the live available-books set behind recommendations.
+ */
+class IntSampleSetTest {
+
+    @Test
+    void addRemoveContains_trackMembership() {
+        IntSampleSet set = new IntSampleSet();
+        assertTrue(set.add(3));
+        assertTrue(set.add(40));
+        assertFalse(set.add(3), "Duplicate add is a no-op");
+        assertTrue(set.remove(3));
+        assertFalse(set.remove(3));
+        assertFalse(set.contains(3));
+        assertTrue(set.contains(40));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void sample_returnsDistinctMembersOnly() {
+        IntSampleSet set = new IntSampleSet();
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            set.remove(i);
+        }
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int[] picked = set.sample(5, random);
+            assertEquals(5, picked.length);
+            assertEquals(5, Arrays.stream(picked).distinct().count(), "No duplicates");
+            assertTrue(Arrays.stream(picked).allMatch(v -> v % 2 == 1), "Removed values never drawn");
+        }
+    }
+
+    @Test
+    void sample_moreThanSizeReturnsEveryMember() {
+        // Edge case: asking for more than exists returns all, not an error
+        IntSampleSet set = new IntSampleSet();
+        set.add(1);
+        set.add(2);
+        int[] picked = set.sample(3, new Random(1));
+        Arrays.sort(picked);
+        assertArrayEquals(new int[]{1, 2}, picked);
+        assertEquals(0, new IntSampleSet().sample(3, new Random(1)).length);
+    }
+
+    @Test
+    void sample_isRoughlyUniform() {
+        IntSampleSet set = new IntSampleSet();
+        for (int i = 0; i < 10; i++) {
+            set.add(i);
+        }
+        int[] hits = new int[10];
+        Random random = new Random(99);
+        for (int round = 0; round < 20_000; round++) {
+            for (int v : set.sample(3, random)) {
+                hits[v]++;
+            }
+        }
+        // Each value expected 6000 times; allow a generous ±10%
+        for (int h : hits) {
+            assertTrue(h > 5400 && h < 6600, "Skewed sample: " + Arrays.toString(hits));
+        }
+    }
+}
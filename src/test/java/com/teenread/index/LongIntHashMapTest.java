@@ -0,0 +1,58 @@
+package com.teenread.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LongIntHashMap – the primitive id index behind BookRepository.
+ */
+class LongIntHashMapTest {
+
+    @Test
+    void get_returnsMissingForUnknownKey() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        assertEquals(LongIntHashMap.MISSING, map.get(42L));
+    }
+
+    @Test
+    void put_thenGet_returnsValue() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        map.put(7L, 3);
+        assertEquals(3, map.get(7L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void put_existingKey_replacesValueWithoutGrowing() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        map.put(7L, 3);
+        assertEquals(3, map.put(7L, 9));
+        assertEquals(9, map.get(7L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void zeroAndNegativeKeys_areSupported() {
+        // Edge case: 0 is the internal empty marker, so it is stored separately
+        LongIntHashMap map = new LongIntHashMap(4);
+        map.put(0L, 1);
+        map.put(-5L, 2);
+        assertEquals(1, map.get(0L));
+        assertEquals(2, map.get(-5L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void manyKeys_surviveResizing() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        for (int i = 1; i <= 10_000; i++) {
+            map.put(i, i * 2);
+        }
+        assertEquals(10_000, map.size());
+        for (int i = 1; i <= 10_000; i++) {
+            assertEquals(i * 2, map.get(i));
+        }
+        assertEquals(LongIntHashMap.MISSING, map.get(10_001L));
+    }
+}
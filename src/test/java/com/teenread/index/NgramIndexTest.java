@@ -0,0 +1,116 @@
+package com.teenread.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NgramIndex – the trigram index behind title search.
+ *
+ * The key property: results must equal a naive lower-cased contains() scan.
+ */
+class NgramIndexTest {
+
+    // The texts the index verifies against, as BookRepository's columns would hold them
+    private final List<String> texts = new ArrayList<>();
+    private final NgramIndex index = new NgramIndex(texts::get);
+
+    /** Stores a document's text and indexes it, as the repository does. */
+    private void put(int doc, String text) {
+        while (texts.size() <= doc) {
+            texts.add(null);
+        }
+        index.put(doc, texts.get(doc), text);
+        texts.set(doc, text);
+    }
+
+    @Test
+    void search_findsSubstringIgnoringCase() {
+        put(0, "The Hunger Games");
+        put(1, "Holes");
+        assertArrayEquals(new int[]{0}, index.search("hUNGER g"));
+    }
+
+    @Test
+    void search_shortQueryFallsBackToScan() {
+        // Edge case: 1–2 char queries have no trigram to look up
+        put(0, "Holes");
+        put(1, "Wonder");
+        put(2, "Hatchet");
+        assertArrayEquals(new int[]{0, 2}, index.search("h"));
+        assertArrayEquals(new int[]{1}, index.search("ON"));
+    }
+
+    @Test
+    void search_shortQueryFindsDocumentsWithoutTrigrams() {
+        put(0, "It");
+        put(1, "Kite");
+        put(2, "");
+        assertArrayEquals(new int[]{0, 1}, index.search("iT"));
+        assertArrayEquals(new int[]{0, 1, 2}, index.search(""));
+
+        put(0, "Io");
+        assertArrayEquals(new int[]{1}, index.search("it"));
+        assertTrue(index.contains(0));
+        assertFalse(index.contains(3));
+    }
+
+    @Test
+    void search_rejectsCandidatesWhoseTrigramsAreNotContiguous() {
+        // "abcxbcd" contains abc and bcd but not "abcd"
+        put(0, "abcxbcd");
+        put(1, "xxabcdxx");
+        assertArrayEquals(new int[]{1}, index.search("abcd"));
+    }
+
+    @Test
+    void put_reindexesChangedText() {
+        put(0, "Divergent");
+        put(0, "Insurgent");
+        assertEquals(0, index.search("diver").length);
+        assertArrayEquals(new int[]{0}, index.search("insur"));
+    }
+
+    @Test
+    void search_matchesNaiveScanOnRandomCorpus() {
+        Random random = new Random(42);
+        String alphabet = "abcAB C";
+        List<String> corpus = new ArrayList<>();
+        for (int doc = 0; doc < 500; doc++) {
+            String text = randomText(random, alphabet, 1 + random.nextInt(12));
+            corpus.add(text);
+            put(doc, text);
+        }
+        for (int q = 0; q < 300; q++) {
+            String query = randomText(random, alphabet, 1 + random.nextInt(5));
+            List<Integer> expected = new ArrayList<>();
+            for (int doc = 0; doc < corpus.size(); doc++) {
+                if (corpus.get(doc).toLowerCase().contains(query.toLowerCase())) {
+                    expected.add(doc);
+                }
+            }
+            int[] actual = index.search(query);
+            assertEquals(expected, toList(actual), "Mismatch for query '" + query + "'");
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static List<Integer> toList(int[] values) {
+        List<Integer> list = new ArrayList<>(values.length);
+        for (int v : values) {
+            list.add(v);
+        }
+        return list;
+    }
+}
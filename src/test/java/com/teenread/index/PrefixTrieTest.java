@@ -0,0 +1,119 @@
+package com.teenread.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PrefixTrie – the autocomplete structure behind /api/books/suggest.
+ */
+class PrefixTrieTest {
+
+    @Test
+    void words_splitsOnNonAlphanumerics() {
+        assertEquals(List.of("Percy", "Jackson", "The", "Lightning", "Thief"),
+                PrefixTrie.words("Percy Jackson: The Lightning Thief"));
+        assertEquals(List.of("Ender", "s", "Game"), PrefixTrie.words("Ender's Game"));
+        assertTrue(PrefixTrie.words(null).isEmpty());
+    }
+
+    @Test
+    void complete_ranksByCountThenAlphabetically() {
+        PrefixTrie trie = new PrefixTrie(5);
+        trie.add("Harry");
+        trie.add("Hatchet");
+        trie.add("Holes");
+        trie.add("Hatchet");
+
+        assertEquals(List.of("Hatchet", "Harry", "Holes"), trie.complete("h", 10));
+        assertEquals(List.of("Hatchet", "Harry"), trie.complete("HA", 10));
+    }
+
+    @Test
+    void addAll_matchesAddingOneByOne() {
+        List<String> words = List.of("Harry", "Hatchet", "Holes", "Hatchet", "Hunger", "harry", "Game", "Games");
+        PrefixTrie oneByOne = new PrefixTrie(3);
+        words.forEach(oneByOne::add);
+        PrefixTrie batched = new PrefixTrie(3);
+        batched.addAll(words.subList(0, 5));
+        batched.addAll(words.subList(5, words.size()));
+
+        for (String prefix : List.of("", "h", "ha", "hat", "g", "games", "x")) {
+            assertEquals(oneByOne.complete(prefix, 3), batched.complete(prefix, 3), prefix);
+        }
+        assertEquals(oneByOne.size(), batched.size());
+    }
+
+    @Test
+    void complete_respectsLimitAndK() {
+        PrefixTrie trie = new PrefixTrie(2);
+        trie.add("Game");
+        trie.add("Games");
+        trie.add("Gary");
+        assertEquals(2, trie.complete("ga", 10).size(), "k caps the cached completions");
+        assertEquals(1, trie.complete("ga", 1).size());
+    }
+
+    @Test
+    void complete_returnsFirstSeenSpelling() {
+        PrefixTrie trie = new PrefixTrie(3);
+        trie.add("Hunger");
+        trie.add("hunger");
+        assertEquals(List.of("Hunger"), trie.complete("hun", 3));
+    }
+
+    @Test
+    void complete_unknownPrefixReturnsEmpty() {
+        PrefixTrie trie = new PrefixTrie(3);
+        trie.add("Wonder");
+        assertTrue(trie.complete("x", 3).isEmpty());
+    }
+
+    @Test
+    void remove_dropsWordAtZeroAndPromotesNextBest() {
+        PrefixTrie trie = new PrefixTrie(1);
+        trie.add("Divergent");
+        trie.add("Divergent");
+        trie.add("Diary");
+        assertEquals(List.of("Divergent"), trie.complete("di", 1));
+
+        trie.remove("Divergent");
+        trie.remove("divergent");
+        // Diary was not in the cached top-1 before, but must surface now
+        assertEquals(List.of("Diary"), trie.complete("di", 1));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    void remove_unlinksNodesNoLongerOnAnyWordsPath() {
+        PrefixTrie trie = new PrefixTrie(3);
+        trie.add("Dune");
+        trie.add("Dun");
+        assertEquals(4, trie.nodeCount());
+
+        trie.remove("Dune");
+        assertEquals(3, trie.nodeCount()); // "dun" is still a word
+        trie.remove("Dun");
+        assertEquals(0, trie.nodeCount());
+
+        for (int i = 0; i < 100; i++) {
+            trie.addAll(PrefixTrie.words("Edition " + i));
+            trie.remove("Edition");
+            trie.remove(String.valueOf(i));
+        }
+        assertEquals(0, trie.nodeCount());
+        assertEquals(0, trie.size());
+
+        trie.add("dune");
+        assertEquals(List.of("dune"), trie.complete("D", 3));
+    }
+
+    @Test
+    void add_ignoresOverlongWords() {
+        PrefixTrie trie = new PrefixTrie(3);
+        trie.add("x".repeat(PrefixTrie.MAX_WORD_LENGTH + 1));
+        assertEquals(0, trie.size());
+    }
+}
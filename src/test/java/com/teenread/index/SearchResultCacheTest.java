@@ -0,0 +1,134 @@
+package com.teenread.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SearchResultCache – the segmented LRU behind repeated title searches.
+ */
+class SearchResultCacheTest {
+
+    @Test
+    void getPut_countHitsAndMisses() {
+        SearchResultCache cache = new SearchResultCache(10, 1 << 20);
+        assertNull(cache.get("harry"));
+        cache.put("harry", new int[] {1, 4});
+
+        assertArrayEquals(new int[] {1, 4}, cache.get("harry"));
+        assertArrayEquals(new int[] {1, 4}, cache.get("harry"));
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.entries());
+    }
+
+    @Test
+    void put_evictsProbationBeforePromotedEntries() {
+        SearchResultCache cache = new SearchResultCache(5, 1 << 20);
+        cache.put("hunger", new int[] {0});
+        cache.get("hunger"); // second use: promoted to the protected segment
+
+        // A scan of one-off keywords churns probation only
+        for (int i = 0; i < 20; i++) {
+            cache.put("once" + i, new int[] {i});
+        }
+
+        assertNotNull(cache.get("hunger"));
+        assertEquals(5, cache.entries());
+        assertEquals(16, cache.evictions());
+    }
+
+    @Test
+    void put_staysWithinWeightAndSkipsHeavyResults() {
+        SearchResultCache cache = new SearchResultCache(1000, 4096);
+        cache.put("e", new int[10_000]); // far over an eighth of the limit
+        assertEquals(0, cache.entries());
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, new int[50]);
+        }
+        assertTrue(cache.weight() <= 4096);
+        assertTrue(cache.evictions() > 0);
+    }
+
+    @Test
+    void invalidate_dropsOnlyKeywordsInTheOldOrNewTitle() {
+        SearchResultCache cache = new SearchResultCache(10, 1 << 20);
+        cache.put("maze", new int[] {3});
+        cache.put("runner", new int[] {3});
+        cache.put("harry", new int[] {1});
+        cache.get("runner"); // in the protected segment
+
+        cache.invalidate("the maze runner", "the scorch trials");
+
+        assertNull(cache.get("maze"));
+        assertNull(cache.get("runner"));
+        assertNotNull(cache.get("harry"));
+        assertEquals(2, cache.invalidations());
+
+        cache.invalidate(null, "harry potter and the cursed child");
+        assertNull(cache.get("harry"));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void invalidate_probesTheTitleWhenTheCacheHoldsManyShortKeywords() {
+        SearchResultCache cache = new SearchResultCache(1000, 1 << 20);
+        for (int i = 0; i < 100; i++) {
+            cache.put("k" + i, new int[] {i});
+        }
+        cache.put("maze", new int[] {100});
+        cache.get("maze");
+
+        cache.invalidate("the maze runner", "k7 the maze runner");
+
+        assertNull(cache.get("maze"));
+        assertNull(cache.get("k7"));
+        assertNotNull(cache.get("k70"));
+        assertEquals(99, cache.entries());
+        assertEquals(2, cache.invalidations());
+    }
+
+    @Test
+    void get_servesHitsFromManyThreadsWhileEntriesAreAdded() throws Exception {
+        SearchResultCache cache = new SearchResultCache(10_000, 1 << 24);
+        cache.put("maze", new int[] {3});
+        int readers = 4;
+        int lookups = 20_000;
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 5_000; i++) {
+                cache.put("w" + i, new int[] {i});
+            }
+        });
+        List<Thread> threads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < lookups; i++) {
+                    assertArrayEquals(new int[] {3}, cache.get("maze"));
+                }
+            }));
+        }
+        writer.start();
+        threads.forEach(Thread::start);
+        writer.join();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals((long) readers * lookups, cache.hits());
+        assertEquals(5_001, cache.entries());
+    }
+
+    @Test
+    void clear_countsEveryEntryAsInvalidated() {
+        SearchResultCache cache = new SearchResultCache(10, 1 << 20);
+        cache.put("a", new int[] {1});
+        cache.put("b", new int[] {2});
+        cache.clear();
+        assertEquals(0, cache.entries());
+        assertEquals(2, cache.invalidations());
+    }
+}
@@ -0,0 +1,116 @@
+package com.teenread.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TextDictionary.
+ */
+class TextDictionaryTest {
+
+    @Test
+    void intern_returnsSameIdForEqualStrings() {
+        TextDictionary dictionary = new TextDictionary();
+        int holes = dictionary.intern("Holes");
+        int wonder = dictionary.intern("Wonder");
+
+        assertEquals(holes, dictionary.intern(new String("Holes")));
+        assertNotEquals(holes, wonder);
+        assertEquals(2, dictionary.size());
+        assertEquals(11, dictionary.bytes());
+    }
+
+    @Test
+    void get_decodesWhatWasInterned() {
+        TextDictionary dictionary = new TextDictionary();
+        String unicode = "Zoë és a sárkány 🐉";
+
+        assertEquals(unicode, dictionary.get(dictionary.intern(unicode)));
+        assertEquals("", dictionary.get(dictionary.intern("")));
+    }
+
+    @Test
+    void emptyString_canBeTheFirstOneInterned() {
+        TextDictionary dictionary = new TextDictionary();
+
+        int empty = dictionary.intern("");
+        assertEquals(0, empty);
+        assertEquals("", dictionary.get(empty));
+        assertEquals(empty, dictionary.intern(""));
+        assertEquals("Holes", dictionary.get(dictionary.intern("Holes")));
+        assertEquals(5, dictionary.bytes());
+    }
+
+    @Test
+    void null_mapsToNullId() {
+        TextDictionary dictionary = new TextDictionary();
+
+        assertEquals(TextDictionary.NULL_ID, dictionary.intern(null));
+        assertNull(dictionary.get(TextDictionary.NULL_ID));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    void get_rejectsUnknownIds() {
+        TextDictionary dictionary = new TextDictionary();
+        dictionary.intern("Holes");
+
+        assertThrows(IllegalArgumentException.class, () -> dictionary.get(1));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.get(-5));
+    }
+
+    @Test
+    void manyStrings_spanPagesChunksAndTableGrowth() {
+        TextDictionary dictionary = new TextDictionary();
+        int count = 50_000;
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, dictionary.intern("Title number " + i));
+        }
+        String huge = "x".repeat(100_000);
+        int hugeId = dictionary.intern(huge);
+
+        for (int i = 0; i < count; i += 997) {
+            assertEquals("Title number " + i, dictionary.get(i));
+            assertEquals(i, dictionary.intern("Title number " + i));
+        }
+        assertEquals(huge, dictionary.get(hugeId));
+        assertEquals("after", dictionary.get(dictionary.intern("after")));
+    }
+
+    @Test
+    void concurrentInterning_agreesOnIds() throws Exception {
+        TextDictionary dictionary = new TextDictionary();
+        int threads = 8;
+        int words = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    int[] ids = new int[words];
+                    for (int i = 0; i < words; i++) {
+                        ids[i] = dictionary.intern("author " + i);
+                    }
+                    return ids;
+                }));
+            }
+            int[] first = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertArrayEquals(first, result.get());
+            }
+            assertEquals(words, dictionary.size());
+            for (int i = 0; i < words; i++) {
+                assertEquals("author " + i, dictionary.get(first[i]));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.teenread.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.teenread.model.Book;
+import com.teenread.model.BookPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BookJsonCache – cached book JSON must always equal what
+ * Jackson itself would write.
+ */
+class BookJsonCacheTest {
+
+    private final ObjectMapper plain = new ObjectMapper();
+
+    private BookJsonCache cache;
+    private ObjectMapper cached;
+
+    @BeforeEach
+    void setUp() {
+        cache  = new BookJsonCache(16);
+        cached = new ObjectMapper().registerModule(cache);
+    }
+
+    @Test
+    void writes_sameBytesAsJacksonInListsMapsAndPages() throws Exception {
+        List<Book> books = List.of(
+                new Book(1L, "The Hunger Games", "Suzanne Collins", true),
+                new Book(2L, "Ünïcödé \"quoted\" \\ title", "Author\n", false));
+        Object[] bodies = {
+                books,
+                Map.of("results", books),
+                new BookPage(books, 2L)
+        };
+
+        for (Object body : bodies) {
+            // First write fills the table, the second is served from it
+            assertArrayEquals(plain.writeValueAsBytes(body), cached.writeValueAsBytes(body));
+            assertArrayEquals(plain.writeValueAsBytes(body), cached.writeValueAsBytes(body));
+            assertEquals(plain.writeValueAsString(body), cached.writeValueAsString(body));
+        }
+        assertNotNull(cache.lookup(books.get(0)));
+    }
+
+    @Test
+    void lookup_retiresFragmentWhenTheBookChanges() throws Exception {
+        Book book = new Book(3L, "Divergent", "Veronica Roth", true);
+        cached.writeValueAsBytes(book);
+        assertNotNull(cache.lookup(book));
+
+        // A borrow: the fragment no longer matches, the next write shows the new state
+        book.setAvailable(false);
+        assertNull(cache.lookup(book));
+        assertEquals(plain.writeValueAsString(book), cached.writeValueAsString(book));
+
+        // Another object with the same state shares the fragment
+        assertSame(cache.lookup(book), cache.lookup(new Book(3L, "Divergent", "Veronica Roth", false)));
+
+        book.setTitle("Insurgent");
+        assertNull(cache.lookup(book));
+        assertTrue(cached.writeValueAsString(book).contains("\"Insurgent\""));
+    }
+
+    @Test
+    void colliding_idsReplaceEachOther() throws Exception {
+        Book first = new Book(5L, "Wonder", "R. J. Palacio", true);
+        Book second = new Book(5L + cache.capacity(), "Holes", "Louis Sachar", true);
+
+        cached.writeValueAsBytes(List.of(first, second));
+
+        assertNull(cache.lookup(first));
+        assertNotNull(cache.lookup(second));
+        assertEquals(plain.writeValueAsString(first), cached.writeValueAsString(first));
+    }
+
+    @Test
+    void prettyPrintingAndBooksWithoutId_bypassTheTable() throws Exception {
+        Book book = new Book(7L, "Eragon", "Christopher Paolini", true);
+        ObjectMapper pretty = new ObjectMapper().registerModule(cache).enable(SerializationFeature.INDENT_OUTPUT);
+        assertEquals(plain.writerWithDefaultPrettyPrinter().writeValueAsString(List.of(book)),
+                pretty.writeValueAsString(List.of(book)));
+        assertNull(cache.lookup(book));
+
+        Book unsaved = new Book(null, "Draft", "Nobody", true);
+        assertEquals(plain.writeValueAsString(unsaved), cached.writeValueAsString(unsaved));
+    }
+
+    @Test
+    void capacity_isRoundedUpToAPowerOfTwo() {
+        assertEquals(1, new BookJsonCache(1).capacity());
+        assertEquals(16, new BookJsonCache(9).capacity());
+        assertEquals(65536, new BookJsonCache(65536).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new BookJsonCache(0));
+    }
+}
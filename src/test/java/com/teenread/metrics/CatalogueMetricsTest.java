@@ -0,0 +1,62 @@
+package com.teenread.metrics;
+
+import com.teenread.model.Book;
+import com.teenread.model.BorrowedBook;
+import com.teenread.repository.BookRepository;
+import com.teenread.repository.BorrowedBookRepository;
+import com.teenread.repository.LoanHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CatalogueMetrics – the gauges read from the repositories at scrape time.
+ */
+class CatalogueMetricsTest {
+
+    private final BookRepository books = new BookRepository();
+    private final BorrowedBookRepository loans = new BorrowedBookRepository();
+    private final LoanHistoryRepository history = new LoanHistoryRepository(100);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void gauges_followTheRepositories() {
+        new CatalogueMetrics(books, loans, history).bindTo(registry);
+
+        Book book = books.findById(1L).orElseThrow();
+        book.setAvailable(false);
+        books.save(book);
+        loans.save(new BorrowedBook(book, LocalDate.now().minusDays(1), "alice"));
+
+        assertEquals(12, gauge("teenread.catalogue.books"));
+        assertEquals(11, gauge("teenread.catalogue.books.available"));
+        assertEquals(1, gauge("teenread.catalogue.indexed"));
+        assertEquals(1, gauge("teenread.loans.active"));
+        assertEquals(1, gauge("teenread.loans.overdue"));
+        assertEquals(0, gauge("teenread.loans.history"));
+        assertTrue(gauge("teenread.index.suggest.words") > 20);
+        assertTrue(registry.get("teenread.index.dictionary.bytes").tag("dictionary", "titles").gauge().value() > 0);
+    }
+
+    @Test
+    void searchCache_reportsHitsMissesAndInvalidations() {
+        new CatalogueMetrics(books, loans, history).bindTo(registry);
+
+        books.searchByTitle("Harry");
+        books.searchByTitle("Harry");
+        books.saveAll(List.of(new Book(99L, "Harry's Return", "New Author", true)));
+
+        assertEquals(1, registry.get("teenread.search.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("teenread.search.cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("teenread.search.cache.removals").tag("cause", "invalidated").functionCounter().count());
+        assertEquals(0, gauge("teenread.search.cache.entries"));
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).gauge().value();
+    }
+}
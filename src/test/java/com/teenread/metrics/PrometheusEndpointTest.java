@@ -0,0 +1,42 @@
+package com.teenread.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * End-to-end check of the scrape endpoint: endpoint latency histograms,
+ * repository timers and catalogue gauges all reach /actuator/prometheus.
+ * Persistence and auditing are switched off so the test never reads or writes ./data.
+ */
+@SpringBootTest(properties = {"app.persistence.enabled=false", "app.audit.enabled=false"})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+
+class PrometheusEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheus_exposesEndpointRepositoryAndCatalogueMetrics() throws Exception {
+        mockMvc.perform(get("/api/books")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString("uri=\"/api/books\"")))
+                .andExpect(content().string(containsString(
+                        "teenread_repository_calls_seconds_count{application=\"teenread-hub\",operation=\"findAll\",repository=\"books\"")))
+                .andExpect(content().string(containsString("teenread_catalogue_books{")))
+                .andExpect(content().string(containsString("teenread_borrow_conflicts_total{")));
+    }
+}
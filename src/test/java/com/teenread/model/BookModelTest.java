@@ -2,6 +2,8 @@ package com.teenread.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -45,6 +47,18 @@ class BookModelTest {
         assertTrue(book.isAvailable());
     }
 
+    @Test
+    void equalTexts_shareOneDictionaryEntry() {
+        Book first = new Book(1L, "The Giver", "Lois Lowry", true);
+        Book second = new Book(2L, new String("The Giver"), "Lois Lowry", true);
+        BorrowedBook loan = new BorrowedBook(first, LocalDate.now(), "alice");
+
+        assertEquals(first.titleId(), second.titleId());
+        assertEquals(first.authorId(), second.authorId());
+        assertEquals("The Giver", loan.getTitle());
+        assertEquals("Lois Lowry", loan.getAuthor());
+    }
+
     @Test
     void setAvailable_false_marksBookUnavailable() {
         Book book = new Book(1L, "Holes", "Louis Sachar", true);
@@ -52,6 +66,21 @@ class BookModelTest {
         assertFalse(book.isAvailable());
     }
 
+    @Test
+    void compareAndSetAvailable_succeedsWhenExpectedValueMatches() {
+        Book book = new Book(1L, "Holes", "Louis Sachar", true);
+        assertTrue(book.compareAndSetAvailable(true, false));
+        assertFalse(book.isAvailable());
+    }
+
+    @Test
+    void compareAndSetAvailable_failsWhenAlreadyClaimed() {
+        // Edge case: second claim on a borrowed book must lose and change nothing
+        Book book = new Book(1L, "Holes", "Louis Sachar", false);
+        assertFalse(book.compareAndSetAvailable(true, false));
+        assertFalse(book.isAvailable());
+    }
+
     @Test
     void toString_containsKeyFields() {
         Book book = new Book(2L, "Divergent", "Veronica Roth", false);
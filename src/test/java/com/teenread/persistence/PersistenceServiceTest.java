@@ -0,0 +1,172 @@
+package com.teenread.persistence;
+
+import com.teenread.model.Book;
+import com.teenread.model.BorrowedBook;
+import com.teenread.repository.BookRepository;
+import com.teenread.repository.BorrowedBookRepository;
+import com.teenread.repository.LoanHistoryRepository;
+import com.teenread.service.BorrowService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Restart tests for PersistenceService: state written through one
+ * "process" (set of repositories) must come back in the next one.
+ */
+class PersistenceServiceTest {
+
+    @TempDir
+    Path dir;
+
+    /** Every running instance, stopped after each test */
+    private final List<Instance> running = new ArrayList<>();
+
+    /** One application run: fresh repositories wired to the shared data directory. */
+    private final class Instance {
+        final BookRepository books = new BookRepository();
+        final BorrowedBookRepository loans = new BorrowedBookRepository();
+        final LoanHistoryRepository history = new LoanHistoryRepository(1000);
+        final PersistenceService persistence =
+                new PersistenceService(books, loans, history, true, dir.toString(), 3600);
+        final BorrowService borrowService = new BorrowService(books, loans, history, persistence);
+
+        Instance() {
+            ReflectionTestUtils.setField(borrowService, "dueDays", 14);
+            persistence.start();
+            running.add(this);
+        }
+
+        /** Simulates a crash: the log is closed without a final snapshot. */
+        void crash() throws Exception {
+            WriteAheadLog wal = (WriteAheadLog) ReflectionTestUtils.getField(persistence, "wal");
+            wal.close();
+            ReflectionTestUtils.setField(persistence, "wal", null);
+            running.remove(this);
+        }
+
+        void stop() {
+            persistence.stop();
+            running.remove(this);
+        }
+    }
+
+    @AfterEach
+    void stopAll() {
+        new ArrayList<>(running).forEach(Instance::stop);
+    }
+
+    @Test
+    void firstStart_writesAnInitialSnapshot() {
+        new Instance();
+
+        assertTrue(Files.exists(dir.resolve(SnapshotStore.FILE_NAME)));
+    }
+
+    @Test
+    void loansSurviveACrash() throws Exception {
+        Instance first = new Instance();
+        first.borrowService.borrowBook(1L, "alice");
+        first.borrowService.borrowBook(2L, "bob");
+        first.borrowService.returnBook(2L, "bob");
+        first.crash();
+
+        Instance second = new Instance();
+
+        assertFalse(second.books.findById(1L).orElseThrow().isAvailable());
+        assertTrue(second.books.findById(2L).orElseThrow().isAvailable());
+        List<BorrowedBook> aliceBooks = second.borrowService.getMyBooks("alice");
+        assertEquals(1, aliceBooks.size());
+        assertEquals("The Hunger Games", aliceBooks.get(0).getTitle());
+        assertEquals(LocalDate.now().plusDays(14), aliceBooks.get(0).getDueDate());
+        assertEquals(1, second.history.findByUserId("bob", 10).size());
+        // The restored book can be borrowed only by returning it first
+        assertThrows(IllegalStateException.class, () -> second.borrowService.borrowBook(1L, "bob"));
+    }
+
+    @Test
+    void cleanShutdown_foldsTheLogIntoTheSnapshot() throws Exception {
+        Instance first = new Instance();
+        first.borrowService.borrowBook(3L, "alice");
+        first.stop();
+
+        // Only the fresh, empty segment opened by the final rotation is left
+        for (long segment : WriteAheadLog.segments(dir)) {
+            assertEquals(0, WriteAheadLog.replay(dir, segment, record -> { }));
+        }
+
+        Instance second = new Instance();
+        assertEquals(1, second.loans.count());
+    }
+
+    @Test
+    void compact_keepsStateAndDropsFoldedSegments() throws Exception {
+        Instance first = new Instance();
+        first.borrowService.borrowBook(4L, "alice");
+        first.persistence.compact();
+        first.borrowService.borrowBook(5L, "alice");
+        first.crash();
+
+        // Only the segment written after compaction is left to replay
+        assertEquals(1, WriteAheadLog.segments(dir).size());
+
+        Instance second = new Instance();
+        assertEquals(2, second.borrowService.getMyBooks("alice").size());
+    }
+
+    @Test
+    void tornLogTail_isIgnoredOnRecovery() throws Exception {
+        Instance first = new Instance();
+        first.borrowService.borrowBook(6L, "alice");
+        first.crash();
+        long segment = WriteAheadLog.segments(dir).get(0);
+        Files.write(WriteAheadLog.segmentPath(dir, segment), new byte[] {0, 0, 0, 9, 0},
+                StandardOpenOption.APPEND);
+
+        Instance second = new Instance();
+
+        assertEquals(1, second.loans.count());
+        assertFalse(second.books.findById(6L).orElseThrow().isAvailable());
+    }
+
+    @Test
+    void savedBooksArePersisted() throws Exception {
+        Instance first = new Instance();
+        Book added = new Book(500L, "Scythe", "Neal Shusterman", true);
+        first.books.saveAll(List.of(added));
+        first.persistence.logBooksSaved(List.of(added));
+        first.crash();
+
+        Instance second = new Instance();
+
+        assertEquals("Scythe", second.books.findById(500L).orElseThrow().getTitle());
+        assertEquals(13, second.books.findAll().size());
+    }
+
+    @Test
+    void disabled_writesNothing() throws Exception {
+        BookRepository books = new BookRepository();
+        BorrowedBookRepository loans = new BorrowedBookRepository();
+        LoanHistoryRepository history = new LoanHistoryRepository(1000);
+        PersistenceService persistence = new PersistenceService(books, loans, history,
+                false, dir.toString(), 3600);
+        persistence.start();
+
+        persistence.logBorrow(new BorrowedBook(1L, "Holes", "Louis Sachar", LocalDate.now(), "alice"));
+
+        assertFalse(persistence.isEnabled());
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.teenread.persistence;
+
+import com.teenread.model.Book;
+import com.teenread.model.BorrowedBook;
+import com.teenread.model.LoanHistoryEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SnapshotStore: round trip and corruption detection.
+ */
+class SnapshotStoreTest {
+
+    private static final LocalDate DUE = LocalDate.of(2025, 5, 1);
+
+    @TempDir
+    Path dir;
+
+    private static CatalogueState sampleState() {
+        CatalogueState state = new CatalogueState(100);
+        state.books.put(1L, new Book(1L, "Holes", "Louis Sachar", true));
+        state.books.put(2L, new Book(2L, "Wonder", "R.J. Palacio", true));
+        state.loans.put(2L, new BorrowedBook(2L, "Wonder", "R.J. Palacio", DUE, "alice"));
+        state.history.append(new LoanHistoryEntry(1L, "bob", DUE, DUE.plusDays(3)));
+        return state;
+    }
+
+    @Test
+    void writeThenLoad_roundTripsTheState() throws IOException {
+        SnapshotStore store = new SnapshotStore(dir);
+        assertFalse(store.exists());
+
+        store.write(sampleState(), 7);
+
+        CatalogueState loaded = new CatalogueState(100);
+        assertEquals(7, store.load(loaded));
+        assertEquals(List.of(1L, 2L), new ArrayList<>(loaded.books.keySet()));
+        assertEquals("Holes", loaded.books.get(1L).getTitle());
+
+        BorrowedBook loan = loaded.loans.get(2L);
+        assertEquals("alice", loan.getUserId());
+        assertEquals(2L, loan.getBookId());
+        assertEquals(DUE, loan.getDueDate());
+
+        List<LoanHistoryEntry> history = loaded.history.findByUserId("bob", 10);
+        assertEquals(1, history.size());
+        assertTrue(history.get(0).isLate());
+    }
+
+    @Test
+    void load_detectsCorruption() throws IOException {
+        SnapshotStore store = new SnapshotStore(dir);
+        store.write(sampleState(), 1);
+        Path file = dir.resolve(SnapshotStore.FILE_NAME);
+        byte[] content = Files.readAllBytes(file);
+        content[20] ^= 0x01;
+        Files.write(file, content);
+
+        assertThrows(IOException.class, () -> store.load(new CatalogueState(100)));
+    }
+
+    @Test
+    void write_replacesThePreviousSnapshot() throws IOException {
+        SnapshotStore store = new SnapshotStore(dir);
+        store.write(sampleState(), 1);
+        store.write(new CatalogueState(100), 2);
+
+        CatalogueState loaded = new CatalogueState(100);
+        assertEquals(2, store.load(loaded));
+        assertTrue(loaded.books.isEmpty());
+        assertFalse(Files.exists(dir.resolve(SnapshotStore.FILE_NAME + ".tmp")));
+    }
+}
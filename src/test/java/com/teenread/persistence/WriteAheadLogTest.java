@@ -0,0 +1,141 @@
+package com.teenread.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WriteAheadLog: durability of appends, group commit under
+ * concurrency, rotation and torn-tail handling on replay.
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<String> replayAll(long segment) throws Exception {
+        List<String> records = new ArrayList<>();
+        WriteAheadLog.replay(dir, segment, record -> records.add(new String(record, StandardCharsets.UTF_8)));
+        return records;
+    }
+
+    @Test
+    void appendedRecordsReplayInOrder() throws Exception {
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            wal.append(bytes("one"));
+            wal.append(bytes("two"));
+            assertEquals(2, wal.recordsInSegment());
+        }
+
+        assertEquals(List.of("one", "two"), replayAll(1));
+    }
+
+    @Test
+    void appendAllWritesEveryRecordInOrder() throws Exception {
+        List<byte[]> records = new ArrayList<>();
+        for (int i = 0; i < WriteAheadLog.MAX_BATCH * 2 + 5; i++) {
+            records.add(bytes("r" + i));
+        }
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            wal.appendAll(records);
+            assertEquals(records.size(), wal.recordsInSegment());
+        }
+
+        List<String> replayed = replayAll(1);
+        assertEquals(records.size(), replayed.size());
+        assertEquals("r0", replayed.get(0));
+        assertEquals("r" + (records.size() - 1), replayed.get(records.size() - 1));
+    }
+
+    @Test
+    void concurrentAppendsAreAllDurable() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        wal.append(bytes(thread + ":" + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            pool.shutdown();
+        }
+
+        List<String> records = replayAll(1);
+        assertEquals(threads * perThread, records.size());
+        Set<String> distinct = new HashSet<>(records);
+        assertEquals(threads * perThread, distinct.size());
+    }
+
+    @Test
+    void rotateStartsTheNextSegment() throws Exception {
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 3)) {
+            wal.append(bytes("old"));
+            assertEquals(3, wal.rotate());
+            assertEquals(0, wal.recordsInSegment());
+            wal.append(bytes("new"));
+        }
+
+        assertEquals(List.of(3L, 4L), WriteAheadLog.segments(dir));
+        assertEquals(List.of("old"), replayAll(3));
+        assertEquals(List.of("new"), replayAll(4));
+    }
+
+    @Test
+    void replayStopsAtATornTail() throws Exception {
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            wal.append(bytes("complete"));
+        }
+        // Simulate a crash halfway through writing the next record
+        Files.write(WriteAheadLog.segmentPath(dir, 1), new byte[] {0, 0, 0, 20, 1, 2},
+                StandardOpenOption.APPEND);
+
+        assertEquals(List.of("complete"), replayAll(1));
+    }
+
+    @Test
+    void replayStopsAtACorruptRecord() throws Exception {
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            wal.append(bytes("good"));
+            wal.append(bytes("flipped"));
+        }
+        Path segment = WriteAheadLog.segmentPath(dir, 1);
+        byte[] content = Files.readAllBytes(segment);
+        content[content.length - 1] ^= 0x7F; // damage the last payload byte
+        Files.write(segment, content);
+
+        assertEquals(List.of("good"), replayAll(1));
+    }
+
+    @Test
+    void appendAfterCloseIsRejected() throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(dir, 1);
+        wal.close();
+
+        assertThrows(IllegalStateException.class, () -> wal.append(bytes("late")));
+    }
+}
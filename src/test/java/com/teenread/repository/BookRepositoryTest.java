@@ -1,9 +1,15 @@
 package com.teenread.repository;
 
 import com.teenread.model.Book;
+import com.teenread.model.BookChanges;
+import com.teenread.storage.CatalogueFile;
+import com.teenread.storage.MappedCatalogue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +37,49 @@ class BookRepositoryTest {
     // findAll
     // ---------------------------------------------------------------
 
+    @Test
+    void catalogueConstructor_indexesExactlyTheGivenBooks() {
+        BookRepository custom = new BookRepository(List.of(
+                new Book(100L, "Salt to the Sea", "Ruta Sepetys", true),
+                new Book(200L, "Scythe", "Neal Shusterman", false)));
+
+        assertEquals(2, custom.findAll().size());
+        assertEquals("Scythe", custom.findById(200L).orElseThrow().getTitle());
+        assertEquals(1, custom.searchByTitle("sea").size());
+        assertEquals(List.of(100L), custom.findRandomAvailable(5).stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void catalogueConstructor_largeCatalogueIsFullyIndexed() {
+        // Large enough for the parallel index build
+        List<Book> catalogue = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            catalogue.add(new Book(id, "Volume " + id, "Writer " + (id % 10), true));
+        }
+        BookRepository large = new BookRepository(catalogue);
+
+        assertEquals(List.of(4321L), large.searchByTitle("volume 4321").stream().map(Book::getId).toList());
+        assertEquals(500, large.searchByAuthor("writer 7").size());
+        assertEquals(List.of("Volume"), large.suggest("vol", 5));
+    }
+
+    @Test
+    void importAll_updatesTextButKeepsAvailability() {
+        Book borrowed = repo.findById(7L).orElseThrow();
+        borrowed.setAvailable(false);
+        repo.save(borrowed);
+
+        repo.importAll(List.of(
+                new Book(7L, "The Giver (Graphic Novel)", "Lois Lowry", true),
+                new Book(300L, "Legend", "Marie Lu", true)));
+
+        Book giver = repo.findById(7L).orElseThrow();
+        assertEquals("The Giver (Graphic Novel)", giver.getTitle());
+        assertFalse(giver.isAvailable());
+        assertEquals(List.of(7L), repo.query("graphic", null, false).stream().map(Book::getId).toList());
+        assertEquals(13, repo.findAll().size());
+    }
+
     @Test
     void findAll_returns12SeededBooks() {
         assertEquals(12, repo.findAll().size());
@@ -61,6 +110,95 @@ class BookRepositoryTest {
         assertEquals(1, results.size());
     }
 
+    @Test
+    void searchByTitle_returnsMatchesInCatalogueOrder() {
+        // "the" appears in several titles; order must follow the catalogue
+        List<Book> results = repo.searchByTitle("the");
+        assertEquals(List.of(1L, 2L, 4L, 5L, 7L, 12L),
+                results.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void importAll_duringAnUnsavedBorrowKeepsTheClaimedBook() {
+        // A borrower has claimed the book and waits on the log before save()
+        Book claimed = repo.findById(7L).orElseThrow();
+        assertTrue(claimed.compareAndSetAvailable(true, false));
+
+        repo.importAll(List.of(new Book(7L, "The Giver (Graphic Novel)", "Lois Lowry", true)));
+
+        // A second borrower must find the same, claimed object – not a fresh available one
+        Book again = repo.findById(7L).orElseThrow();
+        assertSame(claimed, again);
+        assertFalse(again.compareAndSetAvailable(true, false));
+        assertEquals("The Giver (Graphic Novel)", again.getTitle());
+
+        repo.save(claimed);
+        assertFalse(repo.findAll().get(6).isAvailable());
+    }
+
+    @Test
+    void availabilityOf_readsTheSavedState() {
+        Book book = repo.findById(2L).orElseThrow();
+        book.setAvailable(false);
+        repo.save(book);
+
+        assertArrayEquals(new boolean[] {true, false, false}, repo.availabilityOf(new long[] {1L, 2L, 999L}));
+    }
+
+    @Test
+    void save_otherInstanceUpdatesTextButNotTheCanonicalBook() {
+        Book canonical = repo.findById(3L).orElseThrow();
+        assertTrue(canonical.compareAndSetAvailable(true, false));
+
+        repo.save(new Book(3L, "Insurgent", "Veronica Roth", true));
+
+        assertSame(canonical, repo.findById(3L).orElseThrow());
+        assertEquals("Insurgent", canonical.getTitle());
+        assertFalse(canonical.isAvailable(), "the claim is not undone by a stale copy");
+        assertFalse(repo.findAll().get(2).isAvailable());
+    }
+
+    @Test
+    void searchByTitle_reflectsTitleChangedBySave() {
+        Book book = repo.findById(3L).orElseThrow();
+        repo.save(new Book(3L, "Insurgent", book.getAuthor(), book.isAvailable()));
+        assertTrue(repo.searchByTitle("Divergent").isEmpty());
+        assertEquals(1, repo.searchByTitle("insurgent").size());
+    }
+
+    @Test
+    void searchByTitle_repeatedKeywordIsServedFromCacheWithCurrentAvailability() {
+        assertEquals(1, repo.searchByTitle("Hunger").size());
+        Book book = repo.findById(1L).orElseThrow();
+        book.setAvailable(false);
+        repo.save(book);
+
+        List<Book> again = repo.searchByTitle("HUNGER");
+        assertFalse(again.get(0).isAvailable());
+        assertEquals(1, repo.searchCache().hits());
+        assertEquals(0, repo.searchCache().invalidations(), "availability changes keep cached results");
+    }
+
+    @Test
+    void searchByTitle_cachedResultsFollowTitleChangesPrecisely() {
+        assertEquals(1, repo.searchByTitle("Divergent").size());
+        assertEquals(1, repo.searchByTitle("Hunger").size());
+
+        Book book = repo.findById(3L).orElseThrow();
+        repo.save(new Book(3L, "Insurgent", book.getAuthor(), book.isAvailable()));
+        repo.saveAll(List.of(new Book(13L, "Hunger Strike", "Anonymous", true)));
+
+        assertTrue(repo.searchByTitle("Divergent").isEmpty());
+        assertEquals(2, repo.searchByTitle("Hunger").size());
+        assertEquals(2, repo.searchCache().invalidations());
+
+        // An unrelated title change leaves the cached keyword alone
+        repo.save(new Book(13L, "Hunger Strike", "Someone Else", true));
+        repo.save(new Book(12L, "Renamed", "Nobody", true));
+        repo.searchByTitle("Hunger");
+        assertEquals(2, repo.searchCache().invalidations());
+    }
+
     @Test
     void searchByTitle_returnsEmptyForNoMatch() {
         List<Book> results = repo.searchByTitle("zzz-no-match");
@@ -90,6 +228,35 @@ class BookRepositoryTest {
         assertFalse(repo.findById(-1L).isPresent());
     }
 
+    @Test
+    void findById_returnsEmptyForNullId() {
+        // Edge case: a null id must not reach the primitive index
+        assertFalse(repo.findById(null).isPresent());
+    }
+
+    @Test
+    void findById_handsOutOneCanonicalBookPerId() {
+        Book book = new Book(300L, "Legend", "Marie Lu", true);
+        BookRepository custom = new BookRepository(List.of(book));
+        // The stored fields live in the columns, not in the object passed in
+        book.setTitle("Changed without save");
+
+        Book first = custom.findById(300L).orElseThrow();
+        assertEquals("Legend", first.getTitle());
+        assertSame(first, custom.findById(300L).orElseThrow());
+        assertTrue(first.compareAndSetAvailable(true, false));
+        custom.save(first);
+        assertFalse(custom.findAll().get(0).isAvailable());
+    }
+
+    @Test
+    void findById_returnsEverySeededBook() {
+        // The id index must resolve all seeded ids, not just the first few
+        for (long id = 1; id <= 12; id++) {
+            assertEquals(id, repo.findById(id).orElseThrow().getId());
+        }
+    }
+
     // ---------------------------------------------------------------
     // save (Sprint 2)
     // ---------------------------------------------------------------
@@ -114,4 +281,303 @@ class BookRepositoryTest {
         repo.save(book);
         assertEquals(12, repo.findAll().size(), "List size should remain 12");
     }
-}
\ No newline at end of file
+
+    @Test
+    void save_ignoresUnknownId() {
+        // Saving a book that was never catalogued must not add it
+        repo.save(new Book(999L, "Ghost", "Nobody", true));
+        assertEquals(12, repo.findAll().size());
+        assertFalse(repo.findById(999L).isPresent());
+    }
+
+    // ---------------------------------------------------------------
+    // searchByAuthor / query
+    // ---------------------------------------------------------------
+
+    @Test
+    void searchByAuthor_findsPartialCaseInsensitiveMatch() {
+        List<Book> results = repo.searchByAuthor("rowl");
+        assertEquals(1, results.size());
+        assertEquals(2L, results.get(0).getId());
+    }
+
+    @Test
+    void searchByAuthor_returnsEmptyForNoMatch() {
+        assertTrue(repo.searchByAuthor("Tolkien").isEmpty());
+    }
+
+    @Test
+    void query_combinesTitleAndAuthor() {
+        // "the" matches six titles, but only one of them is by Lois Lowry
+        List<Book> results = repo.query("the", "lowry", null);
+        assertEquals(1, results.size());
+        assertEquals("The Giver", results.get(0).getTitle());
+    }
+
+    @Test
+    void query_filtersByAvailabilityAfterSave() {
+        Book book = repo.findById(7L).orElseThrow();
+        book.setAvailable(false);
+        repo.save(book);
+
+        assertTrue(repo.query("giver", null, true).isEmpty());
+        assertEquals(1, repo.query("giver", null, false).size());
+    }
+
+    @Test
+    void query_availabilityOnly_walksAvailabilityIndex() {
+        Book book = repo.findById(4L).orElseThrow();
+        book.setAvailable(false);
+        repo.save(book);
+
+        assertEquals(11, repo.query(null, null, true).size());
+        List<Book> borrowed = repo.query(null, null, false);
+        assertEquals(1, borrowed.size());
+        assertEquals(4L, borrowed.get(0).getId());
+    }
+
+    @Test
+    void query_withoutCriteria_returnsWholeCatalogue() {
+        assertEquals(12, repo.query(null, null, null).size());
+    }
+
+    // ---------------------------------------------------------------
+    // suggest
+    // ---------------------------------------------------------------
+
+    @Test
+    void suggest_completesTitleAndAuthorWords() {
+        List<String> suggestions = repo.suggest("ho", 10);
+        assertTrue(suggestions.contains("Holes"));
+        assertTrue(repo.suggest("sach", 10).contains("Sachar"), "Author words are suggested too");
+    }
+
+    @Test
+    void suggest_followsTitleChangedBySave() {
+        Book book = repo.findById(3L).orElseThrow();
+        repo.save(new Book(3L, "Insurgent", book.getAuthor(), book.isAvailable()));
+        assertTrue(repo.suggest("diverg", 10).isEmpty());
+        assertEquals(List.of("Insurgent"), repo.suggest("insur", 10));
+    }
+
+    // ---------------------------------------------------------------
+    // findPage / forEach
+    // ---------------------------------------------------------------
+
+    @Test
+    void findPage_walksCatalogueWithCursor() {
+        List<Book> first = repo.findPage(null, 5);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), first.stream().map(Book::getId).toList());
+
+        List<Book> second = repo.findPage(5L, 5);
+        assertEquals(6L, second.get(0).getId());
+
+        List<Book> last = repo.findPage(10L, 5);
+        assertEquals(2, last.size(), "Only books 11 and 12 remain");
+        assertTrue(repo.findPage(12L, 5).isEmpty());
+    }
+
+    @Test
+    void findPage_rejectsUnknownCursor() {
+        assertThrows(IllegalArgumentException.class, () -> repo.findPage(999L, 5));
+    }
+
+    @Test
+    void forEach_visitsEveryBookInOrder() {
+        List<Long> ids = new ArrayList<>();
+        repo.forEach(book -> ids.add(book.getId()));
+        assertEquals(repo.findAll().stream().map(Book::getId).toList(), ids);
+    }
+
+    @Test
+    void counts_followInsertsAndAvailabilityChanges() {
+        assertEquals(12, repo.count());
+        assertEquals(12, repo.countAvailable());
+
+        Book book = repo.findById(3L).orElseThrow();
+        book.setAvailable(false);
+        repo.save(book);
+        repo.save(book); // saving the same state again does not count twice
+        repo.saveAll(List.of(new Book(13L, "Legend", "Marie Lu", false),
+                             new Book(14L, "Matched", "Ally Condie", true)));
+
+        assertEquals(14, repo.count());
+        assertEquals(12, repo.countAvailable());
+    }
+
+    @Test
+    void changesSince_returnsEachChangedBookOnceInItsCurrentState() {
+        long start = repo.changeSequence();
+
+        Book book = repo.findById(2L).orElseThrow();
+        book.setAvailable(false);
+        repo.save(book);
+        repo.saveAll(List.of(new Book(50L, "Scythe", "Neal Shusterman", true)));
+        book.setAvailable(true);
+        repo.save(book);
+        repo.findById(3L);        // reads are not changes
+        repo.searchByTitle("sea");
+
+        BookChanges changes = repo.changesSince(start, 100);
+        assertFalse(changes.isResync());
+        assertFalse(changes.isMore());
+        assertEquals(start + 3, changes.getSequence());
+        assertEquals(repo.changeSequence(), changes.getSequence());
+        assertEquals(List.of(2L, 50L), changes.getChanges().stream().map(Book::getId).toList());
+        assertTrue(changes.getChanges().get(0).isAvailable());
+
+        assertTrue(repo.changesSince(changes.getSequence(), 100).getChanges().isEmpty());
+    }
+
+    @Test
+    void changesSince_pagesByLimitAndResyncsUnknownCursors() {
+        long start = repo.changeSequence();
+        for (long id = 1; id <= 3; id++) {
+            repo.save(repo.findById(id).orElseThrow());
+        }
+
+        BookChanges first = repo.changesSince(start, 2);
+        assertTrue(first.isMore());
+        assertEquals(List.of(1L, 2L), first.getChanges().stream().map(Book::getId).toList());
+        BookChanges rest = repo.changesSince(first.getSequence(), 2);
+        assertFalse(rest.isMore());
+        assertEquals(List.of(3L), rest.getChanges().stream().map(Book::getId).toList());
+
+        // Older than anything this repository issued (an earlier run), or from the future
+        BookChanges resync = repo.changesSince(0, 10);
+        assertTrue(resync.isResync());
+        assertTrue(resync.getChanges().isEmpty());
+        assertEquals(repo.changeSequence(), resync.getSequence());
+        assertTrue(repo.changesSince(repo.changeSequence() + 1, 10).isResync());
+    }
+
+    @Test
+    void changesSince_cursorOverwrittenByALargeImportMustResync() {
+        long start = repo.changeSequence();
+        List<Book> feed = new ArrayList<>();
+        for (long id = 1000; id < 1000 + 70_000; id++) {
+            feed.add(new Book(id, "Volume " + id, "Writer", true));
+        }
+        repo.importAll(feed);
+
+        assertTrue(repo.changesSince(start, 10).isResync());
+        assertEquals(List.of(70_999L), repo.changesSince(repo.changeSequence() - 1, 10)
+                .getChanges().stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void version_increasesWithEveryWriteAndOnlyThen() {
+        long start = repo.version();
+        repo.findAll();
+        repo.searchByTitle("Hunger");
+        assertEquals(start, repo.version(), "reads must not change the version");
+
+        Book book = repo.findById(3L).orElseThrow();
+        book.setAvailable(false);
+        repo.save(book);
+        long afterSave = repo.version();
+        assertTrue(afterSave > start);
+
+        repo.importAll(List.of(new Book(13L, "Legend", "Marie Lu", true)));
+        assertTrue(repo.version() > afterSave);
+
+        long beforeNoOps = repo.version();
+        repo.saveAll(List.of());
+        repo.save(new Book(999L, "Unknown", "Nobody", true));
+        assertEquals(beforeNoOps, repo.version());
+    }
+
+    // ---------------------------------------------------------------
+    // findRandomAvailable
+    // ---------------------------------------------------------------
+
+    @Test
+    void findRandomAvailable_returnsDistinctAvailableBooks() {
+        for (int round = 0; round < 50; round++) {
+            List<Book> picks = repo.findRandomAvailable(3);
+            assertEquals(3, picks.size());
+            assertEquals(3, picks.stream().map(Book::getId).distinct().count());
+        }
+    }
+
+    @Test
+    void findRandomAvailable_excludesBooksSavedAsBorrowed() {
+        // Borrow all but two books
+        for (long id = 1; id <= 10; id++) {
+            Book book = repo.findById(id).orElseThrow();
+            book.setAvailable(false);
+            repo.save(book);
+        }
+        List<Book> picks = repo.findRandomAvailable(3);
+        assertEquals(2, picks.size(), "Only two books are still available");
+        assertTrue(picks.stream().allMatch(Book::isAvailable));
+    }
+
+    @Test
+    void findRandomAvailable_includesBookSavedAsAvailableAgain() {
+        for (long id = 1; id <= 12; id++) {
+            Book book = repo.findById(id).orElseThrow();
+            book.setAvailable(id == 5L);
+            repo.save(book);
+        }
+        List<Book> picks = repo.findRandomAvailable(3);
+        assertEquals(1, picks.size());
+        assertEquals(5L, picks.get(0).getId());
+    }
+
+    // ---------------------------------------------------------------
+    // Mapped mode
+    // ---------------------------------------------------------------
+
+    @TempDir
+    Path dir;
+
+    /** A repository serving the seeded books from a mapped catalogue file. */
+    private BookRepository mappedRepo() throws Exception {
+        Path file = dir.resolve("catalogue.bin");
+        CatalogueFile.write(file, repo.findAll());
+        return new BookRepository(MappedCatalogue.open(file));
+    }
+
+    @Test
+    void mapped_findByIdMaterialisesOnceAndCaches() throws Exception {
+        BookRepository mapped = mappedRepo();
+
+        Book first = mapped.findById(8L).orElseThrow();
+        assertEquals("Holes", first.getTitle());
+        assertSame(first, mapped.findById(8L).orElseThrow(),
+                "Borrowing claims a book by CAS, so every caller must get the same instance");
+        assertTrue(mapped.findById(99L).isEmpty());
+    }
+
+    @Test
+    void mapped_searchesMatchHeapMode_beforeAndAfterIndexing() throws Exception {
+        BookRepository mapped = mappedRepo();
+        List<Long> expected = repo.searchByTitle("the").stream().map(Book::getId).toList();
+
+        // Depending on timing this is served by the scan or by the index
+        assertEquals(expected, mapped.searchByTitle("the").stream().map(Book::getId).toList());
+
+        mapped.awaitIndexes();
+        assertEquals(expected, mapped.searchByTitle("the").stream().map(Book::getId).toList());
+        assertEquals(1, mapped.searchByAuthor("rowling").size());
+        assertEquals(repo.suggest("har", 5), mapped.suggest("har", 5));
+    }
+
+    @Test
+    void mapped_saveAndInsertBehaveAsInHeapMode() throws Exception {
+        BookRepository mapped = mappedRepo();
+        Book book = mapped.findById(3L).orElseThrow();
+        assertTrue(book.compareAndSetAvailable(true, false));
+        mapped.save(book);
+        mapped.saveAll(List.of(new Book(500L, "Scythe", "Neal Shusterman", true)));
+        mapped.awaitIndexes();
+
+        assertEquals(List.of(3L), mapped.query(null, null, false).stream().map(Book::getId).toList());
+        assertEquals(13, mapped.findAll().size());
+        assertEquals(13, mapped.count());
+        assertEquals(12, mapped.countAvailable());
+        assertEquals("Scythe", mapped.searchByTitle("scythe").get(0).getTitle());
+        assertEquals(List.of(500L), mapped.findPage(12L, 5).stream().map(Book::getId).toList());
+    }
+}
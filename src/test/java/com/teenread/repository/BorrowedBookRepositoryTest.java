@@ -5,6 +5,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -70,6 +71,49 @@ class BorrowedBookRepositoryTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    void countOverdue_countsActiveLoansDueBeforeToday() {
+        LocalDate today = LocalDate.now();
+        BorrowedBook late = new BorrowedBook(1L, "A", "B", today.minusDays(3));
+        repo.save(late);
+        repo.save(new BorrowedBook(2L, "C", "D", today.minusDays(1)));
+        repo.save(new BorrowedBook(3L, "E", "F", today));
+        repo.save(new BorrowedBook(4L, "G", "H", today.plusDays(14)));
+
+        assertEquals(2, repo.countOverdue(today));
+        assertEquals(0, repo.countOverdue(today.minusDays(3)));
+        repo.remove(late);
+        assertEquals(1, repo.countOverdue(today));
+        assertEquals(3, repo.countOverdue(today.plusDays(15)));
+    }
+
+    @Test
+    void remove_dropsDueDatesWithoutActiveLoans() throws Exception {
+        LocalDate past = LocalDate.now().minusDays(30);
+        int threads = 4;
+        int perThread = 2_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = t * (long) perThread;
+            workers.add(new Thread(() -> {
+                for (long i = 0; i < perThread; i++) {
+                    // Every loan due the same few days, so the days empty and refill constantly
+                    BorrowedBook loan = new BorrowedBook(base + i, "T", "A", past.plusDays(i % 3));
+                    repo.save(loan);
+                    repo.remove(loan);
+                }
+            }));
+        }
+        repo.save(new BorrowedBook(-1L, "Kept", "A", past));
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(1, repo.countOverdue(LocalDate.now()));
+        assertEquals(1, repo.dueDayCount());
+    }
+
     @Test
     void count_incrementsWithEachSave() {
         assertEquals(0, repo.count());
@@ -78,4 +122,125 @@ class BorrowedBookRepositoryTest {
         repo.save(new BorrowedBook(2L, "C", "D", LocalDate.now()));
         assertEquals(2, repo.count());
     }
-}
\ No newline at end of file
+
+    @Test
+    void versionOf_changesOnlyWithThatUsersLoans() {
+        assertEquals(0, repo.versionOf("alice"));
+        BorrowedBook wonder = new BorrowedBook(1L, "Wonder", "R.J. Palacio", LocalDate.now(), "alice");
+        repo.save(wonder);
+        long afterBorrow = repo.versionOf("alice");
+        assertTrue(afterBorrow > 0);
+
+        repo.save(new BorrowedBook(2L, "Holes", "Louis Sachar", LocalDate.now(), "bob"));
+        assertEquals(afterBorrow, repo.versionOf("alice"), "bob's loans do not change alice's list");
+
+        repo.remove(wonder);
+        assertTrue(repo.versionOf("alice") > afterBorrow);
+        long afterReturn = repo.versionOf("alice");
+        repo.remove(wonder); // already ended: no change
+        assertEquals(afterReturn, repo.versionOf("alice"));
+    }
+
+    // ---------------------------------------------------------------
+    // Per-user index
+    // ---------------------------------------------------------------
+
+    @Test
+    void findByUserId_returnsOnlyThatUsersRecordsInBorrowOrder() {
+        repo.save(new BorrowedBook(1L, "Wonder", "R.J. Palacio", LocalDate.now(), "alice"));
+        repo.save(new BorrowedBook(2L, "Holes",  "Louis Sachar", LocalDate.now(), "bob"));
+        repo.save(new BorrowedBook(3L, "Hatchet", "Gary Paulsen", LocalDate.now(), "alice"));
+
+        List<BorrowedBook> alice = repo.findByUserId("alice");
+        assertEquals(2, alice.size());
+        assertEquals(1L, alice.get(0).getBookId());
+        assertEquals(3L, alice.get(1).getBookId());
+        assertEquals(1, repo.findByUserId("bob").size());
+    }
+
+    @Test
+    void findByUserId_unknownUserReturnsEmptyList() {
+        assertTrue(repo.findByUserId("nobody").isEmpty());
+    }
+
+    @Test
+    void findByUserId_returnsDefensiveCopy() {
+        repo.save(new BorrowedBook(1L, "Wonder", "R.J. Palacio", LocalDate.now(), "alice"));
+        repo.findByUserId("alice").clear();
+        assertEquals(1, repo.findByUserId("alice").size());
+    }
+
+    @Test
+    void save_withoutUserIsFiledUnderGuest() {
+        BorrowedBook record = new BorrowedBook(1L, "Wonder", "R.J. Palacio", LocalDate.now(), null);
+        repo.save(record);
+        assertEquals(1, repo.findByUserId(BorrowedBook.GUEST_USER).size());
+    }
+
+    @Test
+    void findByBookId_returnsEmptyForNullId() {
+        assertFalse(repo.findByBookId(null).isPresent());
+    }
+
+    @Test
+    void remove_endsTheLoanInBothIndexes() {
+        BorrowedBook loan = new BorrowedBook(1L, "Holes", "Louis Sachar", LocalDate.now(), "alice");
+        repo.save(loan);
+
+        assertTrue(repo.remove(loan));
+
+        assertTrue(repo.findByBookId(1L).isEmpty());
+        assertTrue(repo.findByUserId("alice").isEmpty());
+        assertEquals(0, repo.count());
+    }
+
+    @Test
+    void remove_dropsUsersWithoutLoansButNeverReusesAVersion() {
+        BorrowedBook first = new BorrowedBook(1L, "Holes", "Louis Sachar", LocalDate.now(), "alice");
+        repo.save(first);
+        long borrowed = repo.versionOf("alice");
+        repo.save(new BorrowedBook(2L, "Wonder", "R.J. Palacio", LocalDate.now(), "bob"));
+        assertEquals(2, repo.userCount());
+
+        repo.remove(first);
+
+        assertEquals(1, repo.userCount(), "alice has no loans left");
+        long emptied = repo.versionOf("alice");
+        assertTrue(emptied > borrowed);
+        assertNotEquals(0, emptied, "the empty list must not reuse the version of a never-borrowed one");
+        assertEquals(emptied, repo.versionOf("carol"));
+    }
+
+    @Test
+    void returnRacingTheBorrow_neverLeavesAGhostLoan() throws Exception {
+        int rounds = 20_000;
+        Thread returner = new Thread(() -> {
+            for (long id = 1; id <= rounds; id++) {
+                Optional<BorrowedBook> loan;
+                while ((loan = repo.findByBookId(id)).isEmpty()) {
+                    Thread.onSpinWait();
+                }
+                assertTrue(repo.remove(loan.get()));
+            }
+        });
+        returner.start();
+        for (long id = 1; id <= rounds; id++) {
+            repo.save(new BorrowedBook(id, "Book " + id, "Author", LocalDate.now(), "alice"));
+        }
+        returner.join(30_000);
+
+        assertFalse(returner.isAlive());
+        assertEquals(0, repo.count());
+        assertEquals(List.of(), repo.findByUserId("alice"), "every returned loan leaves My Books");
+        assertEquals(0, repo.userCount());
+    }
+
+    @Test
+    void remove_isFalseForALoanThatIsNoLongerActive() {
+        BorrowedBook loan = new BorrowedBook(1L, "Holes", "Louis Sachar", LocalDate.now(), "alice");
+        repo.save(loan);
+        repo.remove(loan);
+
+        assertFalse(repo.remove(loan));
+    }
+}
@@ -0,0 +1,135 @@
+package com.teenread.repository;
+
+import com.teenread.model.BorrowedBook;
+import com.teenread.model.LoanHistoryEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LoanHistoryRepository.
+ */
+class LoanHistoryRepositoryTest {
+
+    private static final LocalDate DUE = LocalDate.of(2025, 3, 10);
+
+    private static BorrowedBook loan(long bookId, String userId) {
+        return new BorrowedBook(bookId, "Title " + bookId, "Author", DUE, userId);
+    }
+
+    @Test
+    void append_recordsAReadableEntry() {
+        LoanHistoryRepository history = new LoanHistoryRepository(100);
+
+        history.append(loan(7L, "alice"), DUE.plusDays(1));
+
+        List<LoanHistoryEntry> entries = history.findByUserId("alice", 10);
+        assertEquals(1, entries.size());
+        LoanHistoryEntry entry = entries.get(0);
+        assertEquals(7L, entry.getBookId());
+        assertEquals("alice", entry.getUserId());
+        assertEquals(DUE, entry.getDueDate());
+        assertEquals(DUE.plusDays(1), entry.getReturnDate());
+        assertTrue(entry.isLate());
+    }
+
+    @Test
+    void findByUserId_returnsOnlyThatUsersEntriesNewestFirst() {
+        LoanHistoryRepository history = new LoanHistoryRepository(100);
+        history.append(loan(1L, "alice"), DUE);
+        history.append(loan(2L, "bob"), DUE);
+        history.append(loan(3L, "alice"), DUE);
+
+        List<LoanHistoryEntry> entries = history.findByUserId("alice", 10);
+
+        assertEquals(List.of(3L, 1L), entries.stream().map(LoanHistoryEntry::getBookId).toList());
+        assertFalse(entries.get(0).isLate());
+    }
+
+    @Test
+    void findByUserId_stopsAtTheLimit() {
+        LoanHistoryRepository history = new LoanHistoryRepository(100);
+        for (long id = 1; id <= 5; id++) {
+            history.append(loan(id, "alice"), DUE);
+        }
+
+        assertEquals(2, history.findByUserId("alice", 2).size());
+        assertTrue(history.findByUserId("nobody", 2).isEmpty());
+    }
+
+    @Test
+    void append_evictsTheOldestChunkOnceFull() {
+        LoanHistoryRepository history = new LoanHistoryRepository(LoanHistoryRepository.CHUNK_SIZE);
+        int total = LoanHistoryRepository.CHUNK_SIZE + 3;
+        for (long id = 1; id <= total; id++) {
+            history.append(loan(id, "alice"), DUE);
+        }
+
+        // Only the newest (partial) chunk survives; the full first chunk was dropped
+        assertEquals(3, history.size());
+        assertEquals(total, history.totalAppended());
+        assertEquals(total, history.findByUserId("alice", 1).get(0).getBookId());
+    }
+
+    @Test
+    void append_forgetsUsersWhoseRecordsWereAllEvicted() {
+        LoanHistoryRepository history = new LoanHistoryRepository(LoanHistoryRepository.CHUNK_SIZE);
+        for (long id = 1; id <= LoanHistoryRepository.CHUNK_SIZE; id++) {
+            history.append(loan(id, "user-" + id), DUE);
+        }
+        assertEquals(LoanHistoryRepository.CHUNK_SIZE, history.userCount());
+
+        history.append(loan(0L, "alice"), DUE);
+
+        assertEquals(1, history.userCount());
+        assertTrue(history.findByUserId("user-1", 10).isEmpty());
+        List<LoanHistoryEntry> all = new ArrayList<>();
+        history.forEach(all::add);
+        assertEquals(List.of("alice"), all.stream().map(LoanHistoryEntry::getUserId).toList());
+    }
+
+    @Test
+    void findByUserId_readsConsistentlyWhileAppendsEvict() throws Exception {
+        LoanHistoryRepository history = new LoanHistoryRepository(LoanHistoryRepository.CHUNK_SIZE * 2);
+        int total = LoanHistoryRepository.CHUNK_SIZE * 10;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (long id = 1; id <= total; id++) {
+                history.append(loan(id, id % 2 == 0 ? "alice" : "user-" + id), DUE);
+            }
+        });
+        Thread reader = new Thread(() -> {
+            try {
+                while (writer.isAlive()) {
+                    long previous = Long.MAX_VALUE;
+                    for (LoanHistoryEntry entry : history.findByUserId("alice", 500)) {
+                        assertEquals("alice", entry.getUserId());
+                        assertEquals(0, entry.getBookId() % 2);
+                        assertTrue(entry.getBookId() < previous);
+                        previous = entry.getBookId();
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(total, history.findByUserId("alice", 1).get(0).getBookId());
+        assertEquals(1 + LoanHistoryRepository.CHUNK_SIZE, history.userCount());
+    }
+
+    @Test
+    void constructor_rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new LoanHistoryRepository(0));
+    }
+}
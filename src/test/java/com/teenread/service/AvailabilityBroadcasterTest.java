@@ -0,0 +1,178 @@
+package com.teenread.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenread.model.Book;
+import com.teenread.repository.BookRepository;
+import com.teenread.service.AvailabilityBroadcaster.Kind;
+import com.teenread.service.AvailabilityBroadcaster.Update;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AvailabilityBroadcaster – coalescing, fan-out, slow
+ * subscribers and catch-up from the change feed.
+ */
+class AvailabilityBroadcasterTest {
+
+    private final BookRepository books = new BookRepository();
+    private AvailabilityBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.stop();
+        }
+    }
+
+    @Test
+    void publish_burstIsCoalescedIntoOneUpdateForEverySubscriber() throws Exception {
+        broadcaster = started(50);
+        List<Update> first = new CopyOnWriteArrayList<>();
+        List<Update> second = new CopyOnWriteArrayList<>();
+        Disposable a = broadcaster.updates().subscribe(first::add);
+        Disposable b = broadcaster.updates().subscribe(second::add);
+        assertEquals(2, broadcaster.subscriberCount());
+
+        setAvailable(1L, false);
+        broadcaster.publish(1L);
+        setAvailable(1L, true);          // borrowed and returned within the window
+        broadcaster.publish(1L);
+        setAvailable(2L, false);
+        broadcaster.publish(2L);
+
+        waitFor(() -> !first.isEmpty() && !second.isEmpty());
+        Thread.sleep(200);               // no second update follows
+        assertEquals(1, first.size());
+        Update update = first.get(0);
+        assertSame(update, second.get(0), "encoded once, shared by all subscribers");
+        assertEquals(Kind.CHANGES, update.kind());
+        assertEquals(books.changeSequence(), update.sequence());
+        assertTrue(update.json().contains("{\"id\":1,\"available\":true}"), update.json());
+        assertTrue(update.json().contains("{\"id\":2,\"available\":false}"), update.json());
+
+        a.dispose();
+        b.dispose();
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void flush_sendsTheSavedStateWhateverOrderChangesWereReportedIn() {
+        broadcaster = started(3_600_000); // flushed by hand below
+        List<Update> received = new CopyOnWriteArrayList<>();
+        broadcaster.updates().subscribe(received::add);
+
+        // A return saves, then a new borrow saves and reports first;
+        // the return's report arrives last
+        setAvailable(3L, true);
+        setAvailable(3L, false);
+        broadcaster.publish(3L);
+        broadcaster.flush();
+        broadcaster.publish(3L);
+        broadcaster.flush();
+
+        assertEquals(2, received.size());
+        for (Update update : received) {
+            assertTrue(update.json().contains("{\"id\":3,\"available\":false}"), update.json());
+        }
+    }
+
+    @Test
+    void updates_subscriberTooFarBehindIsDetached() {
+        broadcaster = started(3_600_000); // flushed by hand below
+        AtomicInteger received = new AtomicInteger();
+        AtomicBoolean completed = new AtomicBoolean();
+        BaseSubscriber<Update> stalled = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // Requests nothing: a client that stopped reading
+            }
+
+            @Override
+            protected void hookOnNext(Update update) {
+                received.incrementAndGet();
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                completed.set(true);
+            }
+        };
+        broadcaster.updates().subscribe(stalled);
+        List<Update> healthy = new CopyOnWriteArrayList<>();
+        broadcaster.updates().subscribe(healthy::add);
+
+        for (long id = 1; id <= AvailabilityBroadcaster.MAX_QUEUED_UPDATES + 1; id++) {
+            broadcaster.publish(id);
+            broadcaster.flush();
+        }
+
+        // Dropped from the fan-out; the others are unaffected
+        assertEquals(1, broadcaster.subscriberCount());
+        assertEquals(AvailabilityBroadcaster.MAX_QUEUED_UPDATES + 1, healthy.size());
+
+        // If it ever reads again it gets what was queued, then the end of the stream
+        stalled.requestUnbounded();
+        assertEquals(AvailabilityBroadcaster.MAX_QUEUED_UPDATES, received.get());
+        assertTrue(completed.get());
+    }
+
+    @Test
+    void catchUp_replaysMissedChangesOrAsksForResync() {
+        broadcaster = new AvailabilityBroadcaster(books, new ObjectMapper(), 100, 25);
+        long since = books.changeSequence();
+        Book book = books.findById(4L).orElseThrow();
+        book.setAvailable(false);
+        books.save(book);
+
+        Update missed = broadcaster.catchUp(since);
+        assertEquals(Kind.CHANGES, missed.kind());
+        assertEquals(books.changeSequence(), missed.sequence());
+        assertEquals("{\"sequence\":" + missed.sequence() + ",\"changes\":[{\"id\":4,\"available\":false}]}",
+                missed.json());
+
+        assertEquals(Kind.RESYNC, broadcaster.catchUp(0).kind());
+        assertEquals("{\"sequence\":" + books.changeSequence() + ",\"changes\":[]}", broadcaster.current().json());
+    }
+
+    @Test
+    void disabled_ignoresPublish() {
+        AvailabilityBroadcaster disabled = AvailabilityBroadcaster.disabled();
+        disabled.publish(1L);
+        assertEquals(0, disabled.subscriberCount());
+    }
+
+    // ---------------------------------------------------------------
+    // Helpers
+    // ---------------------------------------------------------------
+
+    private void setAvailable(long id, boolean available) {
+        Book book = books.findById(id).orElseThrow();
+        book.setAvailable(available);
+        books.save(book);
+    }
+
+    private AvailabilityBroadcaster started(long coalesceMillis) {
+        AvailabilityBroadcaster started = new AvailabilityBroadcaster(books, new ObjectMapper(), coalesceMillis, 3600);
+        started.start();
+        return started;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 
 package com.teenread.service;
 
+import com.teenread.audit.AuditLog;
 import com.teenread.model.Book;
+import com.teenread.model.BookChanges;
+import com.teenread.model.BookPage;
 import com.teenread.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +32,9 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private AuditLog auditLog;
+
     @InjectMocks
     private BookService bookService;
 
@@ -79,6 +85,13 @@ class BookServiceTest {
         verify(bookRepository).searchByTitle("Harry");
     }
 
+    @Test
+    void searchByTitle_isAudited() {
+        when(bookRepository.searchByTitle("Harry")).thenReturn(Collections.singletonList(book2));
+        bookService.searchByTitle("  Harry  ");
+        verify(auditLog).searchedTitle("Harry", 1);
+    }
+
     @Test
     void searchByTitle_returnsEmptyListForNoMatch() {
         when(bookRepository.searchByTitle("xyz")).thenReturn(Collections.emptyList());
@@ -112,4 +125,110 @@ class BookServiceTest {
         assertEquals(2, result.size());
         verify(bookRepository).searchByTitle("H");
     }
-}
\ No newline at end of file
+
+    // ---------------------------------------------------------------
+    // searchByAuthor / query
+    // ---------------------------------------------------------------
+
+    @Test
+    void searchByAuthor_trimsAndDelegates() {
+        when(bookRepository.searchByAuthor("Collins")).thenReturn(Collections.singletonList(book1));
+        assertEquals(1, bookService.searchByAuthor("  Collins ").size());
+        verify(bookRepository).searchByAuthor("Collins");
+    }
+
+    @Test
+    void searchByAuthor_throwsForBlankKeyword() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.searchByAuthor(" "));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void query_treatsBlankCriteriaAsAbsent() {
+        when(bookRepository.query(null, "Rowling", true)).thenReturn(Collections.singletonList(book2));
+        assertEquals(1, bookService.query("  ", " Rowling ", true).size());
+        verify(bookRepository).query(null, "Rowling", true);
+    }
+
+    @Test
+    void query_throwsWhenNoCriteriaGiven() {
+        // Edge case: all criteria missing would otherwise return the full catalogue
+        assertThrows(IllegalArgumentException.class, () -> bookService.query(null, "", null));
+        verifyNoInteractions(bookRepository);
+    }
+
+    // ---------------------------------------------------------------
+    // suggest
+    // ---------------------------------------------------------------
+
+    @Test
+    void suggest_completesLastWordOfInput() {
+        when(bookRepository.suggest("ga", 5)).thenReturn(List.of("Games"));
+        assertEquals(List.of("Games"), bookService.suggest("hunger ga", 5));
+    }
+
+    @Test
+    void suggest_blankOrFinishedWordReturnsEmptyWithoutLookup() {
+        // Edge cases: called on every keystroke, so these must not throw
+        assertTrue(bookService.suggest(null, 5).isEmpty());
+        assertTrue(bookService.suggest("   ", 5).isEmpty());
+        assertTrue(bookService.suggest("hunger ", 5).isEmpty());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void suggest_capsLimitAtRepositoryCacheSize() {
+        when(bookRepository.suggest("h", 10)).thenReturn(List.of());
+        bookService.suggest("h", 500);
+        verify(bookRepository).suggest("h", 10);
+    }
+
+    // ---------------------------------------------------------------
+    // getPage
+    // ---------------------------------------------------------------
+
+    @Test
+    void getPage_fullPageReturnsCursorOfLastBook() {
+        when(bookRepository.findPage(null, 2)).thenReturn(Arrays.asList(book1, book2));
+        BookPage page = bookService.getPage(null, 2);
+        assertEquals(2, page.getBooks().size());
+        assertEquals(2L, page.getNextAfterId());
+    }
+
+    @Test
+    void getPage_shortPageHasNoNextCursor() {
+        when(bookRepository.findPage(1L, 2)).thenReturn(Collections.singletonList(book2));
+        assertNull(bookService.getPage(1L, 2).getNextAfterId());
+    }
+
+    @Test
+    void getPage_capsLimitAndRejectsNonPositive() {
+        when(bookRepository.findPage(null, BookService.MAX_PAGE_SIZE)).thenReturn(Collections.emptyList());
+        bookService.getPage(null, 1_000_000);
+        verify(bookRepository).findPage(null, BookService.MAX_PAGE_SIZE);
+
+        assertThrows(IllegalArgumentException.class, () -> bookService.getPage(null, 0));
+    }
+
+    // ---------------------------------------------------------------
+    // getChanges
+    // ---------------------------------------------------------------
+
+    @Test
+    void getChanges_withoutCursorIsResyncAtCurrentSequence() {
+        when(bookRepository.changeSequence()).thenReturn(42L);
+        BookChanges changes = bookService.getChanges(null, 10);
+        assertTrue(changes.isResync());
+        assertEquals(42L, changes.getSequence());
+        verify(bookRepository, never()).changesSince(anyLong(), anyInt());
+    }
+
+    @Test
+    void getChanges_capsLimitAndRejectsNonPositive() {
+        BookChanges none = new BookChanges(7L, false, false, Collections.emptyList());
+        when(bookRepository.changesSince(7L, BookService.MAX_CHANGES)).thenReturn(none);
+        assertSame(none, bookService.getChanges(7L, 1_000_000));
+
+        assertThrows(IllegalArgumentException.class, () -> bookService.getChanges(7L, 0));
+    }
+}
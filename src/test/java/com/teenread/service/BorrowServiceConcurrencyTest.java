@@ -0,0 +1,257 @@
+package com.teenread.service;
+
+import com.teenread.model.Book;
+import com.teenread.model.BorrowedBook;
+import com.teenread.persistence.PersistenceService;
+import com.teenread.repository.BookRepository;
+import com.teenread.repository.BorrowedBookRepository;
+import com.teenread.repository.LoanHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Multi-threaded stress tests for BorrowService.borrowBook (US3).
+ *
+ * Uses the real in-memory repositories (no mocks) so the atomic availability
+ * claim is exercised exactly as it runs under concurrent Tomcat requests.
+ */
+class BorrowServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS  = 50;
+
+    private BookRepository bookRepository;
+    private BorrowedBookRepository borrowedBookRepository;
+    private BorrowService borrowService;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository         = new BookRepository();
+        borrowedBookRepository = new BorrowedBookRepository();
+        LoanHistoryRepository history = new LoanHistoryRepository(1000);
+        borrowService          = new BorrowService(bookRepository, borrowedBookRepository, history,
+                new PersistenceService(bookRepository, borrowedBookRepository, history, false, "data", 300));
+        ReflectionTestUtils.setField(borrowService, "dueDays", 14);
+    }
+
+    @Test
+    void borrowBook_sameBookFromManyThreads_hasExactlyOneWinner() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            setUp();
+            AtomicInteger winners = new AtomicInteger();
+            AtomicInteger losers  = new AtomicInteger();
+
+            runConcurrently(() -> {
+                try {
+                    borrowService.borrowBook(1L);
+                    winners.incrementAndGet();
+                } catch (IllegalStateException alreadyBorrowed) {
+                    losers.incrementAndGet();
+                }
+            });
+
+            assertEquals(1, winners.get(), "Exactly one thread may borrow the book");
+            assertEquals(THREADS - 1, losers.get());
+            assertEquals(1, borrowedBookRepository.count(), "Only one borrow record allowed");
+            assertFalse(bookRepository.findById(1L).orElseThrow().isAvailable());
+        }
+    }
+
+    @Test
+    void borrowBook_everyBookFromManyThreads_hasExactlyOneWinnerPerBook() throws Exception {
+        List<Book> catalogue = bookRepository.findAll();
+        ConcurrentHashMap<Long, AtomicInteger> winsPerBook = new ConcurrentHashMap<>();
+
+        // Every thread tries to borrow every book, starting at a different offset
+        AtomicInteger threadNo = new AtomicInteger();
+        runConcurrently(() -> {
+            int offset = threadNo.getAndIncrement();
+            for (int i = 0; i < catalogue.size(); i++) {
+                Long bookId = catalogue.get((i + offset) % catalogue.size()).getId();
+                try {
+                    BorrowedBook record = borrowService.borrowBook(bookId);
+                    winsPerBook.computeIfAbsent(record.getBookId(), id -> new AtomicInteger())
+                            .incrementAndGet();
+                } catch (IllegalStateException alreadyBorrowed) {
+                    // Expected for every thread but the winner
+                }
+            }
+        });
+
+        assertEquals(catalogue.size(), winsPerBook.size(), "Every book must be borrowed once");
+        winsPerBook.forEach((bookId, wins) ->
+                assertEquals(1, wins.get(), "Book " + bookId + " had more than one winner"));
+        assertEquals(catalogue.size(), borrowedBookRepository.count());
+        assertTrue(bookRepository.findAll().stream().noneMatch(Book::isAvailable));
+    }
+
+    @Test
+    void borrowBook_whileTheCatalogueIsReimported_hasExactlyOneWinnerPerBook() throws Exception {
+        // Widen the window between the claim and save(), as a WAL fsync does
+        LoanHistoryRepository history = new LoanHistoryRepository(1000);
+        borrowService = new BorrowService(bookRepository, borrowedBookRepository, history,
+                new PersistenceService(bookRepository, borrowedBookRepository, history, false, "data", 300) {
+                    @Override
+                    public void logBorrow(BorrowedBook loan) {
+                        LockSupport.parkNanos(200_000);
+                    }
+                });
+        ReflectionTestUtils.setField(borrowService, "dueDays", 14);
+
+        List<Book> catalogue = bookRepository.findAll();
+        List<Book> feed = new ArrayList<>();
+        catalogue.forEach(book -> feed.add(new Book(book.getId(), book.getTitle() + " (new edition)",
+                book.getAuthor(), true)));
+        ConcurrentHashMap<Long, AtomicInteger> winsPerBook = new ConcurrentHashMap<>();
+
+        // One thread keeps re-importing every book as available while the rest borrow
+        AtomicInteger threadNo = new AtomicInteger();
+        runConcurrently(() -> {
+            int thread = threadNo.getAndIncrement();
+            if (thread == 0) {
+                for (int i = 0; i < 2000; i++) {
+                    bookRepository.importAll(feed);
+                }
+                return;
+            }
+            for (int i = 0; i < catalogue.size(); i++) {
+                Long bookId = catalogue.get((i + thread) % catalogue.size()).getId();
+                try {
+                    BorrowedBook record = borrowService.borrowBook(bookId, "reader-" + thread);
+                    winsPerBook.computeIfAbsent(record.getBookId(), id -> new AtomicInteger())
+                            .incrementAndGet();
+                } catch (IllegalStateException alreadyBorrowed) {
+                    // Expected for every thread but the winner
+                }
+            }
+        });
+
+        winsPerBook.forEach((bookId, wins) ->
+                assertEquals(1, wins.get(), "Book " + bookId + " had more than one winner"));
+        assertEquals(winsPerBook.size(), borrowedBookRepository.count(), "No loan may be lost");
+        assertTrue(bookRepository.findAll().stream().noneMatch(Book::isAvailable));
+    }
+
+    @Test
+    void borrowAndReturn_onVirtualThreadsWithPersistence_neverPinsCarrier(@TempDir Path dataDir) throws Exception {
+        // The durable path parks in the WAL group commit and takes the
+        // repository and history locks; none of that may happen inside a
+        // monitor, or each waiting request would hold its carrier thread.
+        int readers = 500;
+        List<Book> catalogue = new ArrayList<>();
+        for (long id = 1; id <= readers; id++) {
+            catalogue.add(new Book(id, "Book " + id, "Author " + (id % 7), true));
+        }
+        BookRepository books = new BookRepository(catalogue);
+        BorrowedBookRepository loans = new BorrowedBookRepository();
+        LoanHistoryRepository history = new LoanHistoryRepository(10_000);
+        PersistenceService persistence = new PersistenceService(books, loans, history,
+                true, dataDir.toString(), 3600);
+        persistence.start();
+        BorrowService service = new BorrowService(books, loans, history, persistence);
+        ReflectionTestUtils.setField(service, "dueDays", 14);
+
+        // Warm up on a platform thread so class loading is not recorded
+        service.borrowBook(1L, "warm-up");
+        service.returnBook(1L, "warm-up");
+
+        List<String> pinnedInApplication = new CopyOnWriteArrayList<>();
+        try (RecordingStream events = new RecordingStream()) {
+            events.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            events.onEvent("jdk.VirtualThreadPinned", event -> {
+                if (inApplicationCode(event)) {
+                    pinnedInApplication.add(event.toString());
+                }
+            });
+            events.startAsync();
+
+            try (ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (long id = 1; id <= readers; id++) {
+                    long bookId = id;
+                    futures.add(virtualThreads.submit(() -> {
+                        service.borrowBook(bookId, "reader-" + bookId);
+                        return service.returnBook(bookId, "reader-" + bookId);
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            }
+            events.stop();
+        } finally {
+            persistence.stop();
+        }
+
+        assertEquals(List.of(), pinnedInApplication, "Virtual threads pinned inside application code");
+        assertEquals(0, loans.count());
+        assertEquals(readers, books.countAvailable());
+    }
+
+    // ---------------------------------------------------------------
+    // Helpers
+    // ---------------------------------------------------------------
+
+    /** @return true if the event's stack passes through com.teenread code */
+    private static boolean inApplicationCode(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return false;
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith("com.teenread.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the task on THREADS threads released at the same instant by a
+     * start gate, then waits for all of them and rethrows any failure.
+     */
+    private void runConcurrently(Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            assertTrue(ready.await(10, TimeUnit.SECONDS));
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
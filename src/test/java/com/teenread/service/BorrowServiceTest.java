@@ -1,9 +1,15 @@
 package com.teenread.service;
 
+import com.teenread.audit.AuditLog;
+import com.teenread.metrics.Meters;
 import com.teenread.model.Book;
 import com.teenread.model.BorrowedBook;
+import com.teenread.persistence.PersistenceService;
 import com.teenread.repository.BookRepository;
 import com.teenread.repository.BorrowedBookRepository;
+import com.teenread.repository.LoanHistoryRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,11 +18,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -37,6 +46,18 @@ class BorrowServiceTest {
     @Mock
     private BorrowedBookRepository borrowedBookRepository;
 
+    @Mock
+    private LoanHistoryRepository loanHistoryRepository;
+
+    @Mock
+    private PersistenceService persistenceService;
+
+    @Mock
+    private AuditLog auditLog;
+
+    @Mock
+    private AvailabilityBroadcaster broadcaster;
+
     @InjectMocks
     private BorrowService borrowService;
 
@@ -69,6 +90,8 @@ class BorrowServiceTest {
         verify(bookRepository).save(argThat(b -> !b.isAvailable()));
         // Borrow record must be persisted
         verify(borrowedBookRepository).save(any(BorrowedBook.class));
+        // and audited (queued, not written on this thread)
+        verify(auditLog).borrowed(result);
     }
 
     @Test
@@ -80,6 +103,8 @@ class BorrowServiceTest {
 
         // The book object passed to save must have available=false
         verify(bookRepository).save(argThat(b -> !b.isAvailable()));
+        // ...and other readers are told
+        verify(broadcaster).publish(2L);
     }
 
     @Test
@@ -123,6 +148,23 @@ class BorrowServiceTest {
                 () -> borrowService.borrowBook(1L));
         assertTrue(ex.getMessage().contains("already borrowed"));
         verify(borrowedBookRepository, never()).save(any());
+        verifyNoInteractions(broadcaster);
+    }
+
+    @Test
+    void borrowBook_countsConflictInMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            Book book = new Book(1L, "The Giver", "Lois Lowry", false);
+            when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+            assertThrows(IllegalStateException.class, () -> borrowService.borrowBook(1L));
+
+            assertEquals(1.0, registry.get(Meters.BORROW_CONFLICTS).tag("operation", "borrow").counter().count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
     }
 
     // ---------------------------------------------------------------
@@ -130,18 +172,163 @@ class BorrowServiceTest {
     // ---------------------------------------------------------------
 
     @Test
-    void getMyBooks_returnsAllBorrowRecords() {
-        BorrowedBook r1 = new BorrowedBook(1L, "Wonder", "R.J. Palacio", LocalDate.now());
-        BorrowedBook r2 = new BorrowedBook(2L, "Holes",  "Louis Sachar", LocalDate.now());
-        when(borrowedBookRepository.findAll()).thenReturn(java.util.Arrays.asList(r1, r2));
+    void getMyBooks_returnsTheUsersBorrowRecords() {
+        BorrowedBook r1 = new BorrowedBook(1L, "Wonder", "R.J. Palacio", LocalDate.now(), "alice");
+        BorrowedBook r2 = new BorrowedBook(2L, "Holes",  "Louis Sachar", LocalDate.now(), "alice");
+        when(borrowedBookRepository.findByUserId("alice")).thenReturn(java.util.Arrays.asList(r1, r2));
 
-        java.util.List<BorrowedBook> result = borrowService.getMyBooks();
+        java.util.List<BorrowedBook> result = borrowService.getMyBooks("alice");
         assertEquals(2, result.size());
+        verify(borrowedBookRepository, never()).findAll();
     }
 
     @Test
     void getMyBooks_returnsEmptyListWhenNoBooksAreBorrowed() {
-        when(borrowedBookRepository.findAll()).thenReturn(java.util.Collections.emptyList());
+        when(borrowedBookRepository.findByUserId(BorrowedBook.GUEST_USER))
+                .thenReturn(java.util.Collections.emptyList());
         assertTrue(borrowService.getMyBooks().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMyBooks_blankUserMeansGuest() {
+        when(borrowedBookRepository.findByUserId(BorrowedBook.GUEST_USER))
+                .thenReturn(java.util.Collections.emptyList());
+        borrowService.getMyBooks("  ");
+        verify(borrowedBookRepository).findByUserId(BorrowedBook.GUEST_USER);
+    }
+
+    @Test
+    void getMyBooks_throwsForMalformedUserId() {
+        // Edge case: ids are logged and used as index keys, so reject odd input
+        assertThrows(IllegalArgumentException.class, () -> borrowService.getMyBooks("bob; drop"));
+        assertThrows(IllegalArgumentException.class, () -> borrowService.getMyBooks("x".repeat(65)));
+        verifyNoInteractions(borrowedBookRepository);
+    }
+
+    // ---------------------------------------------------------------
+    // borrowBook – user ownership
+    // ---------------------------------------------------------------
+
+    @Test
+    void borrowBook_recordsTheBorrowingUser() {
+        Book book = new Book(4L, "The Maze Runner", "James Dashner", true);
+        when(bookRepository.findById(4L)).thenReturn(Optional.of(book));
+
+        BorrowedBook result = borrowService.borrowBook(4L, " alice ");
+
+        assertEquals("alice", result.getUserId());
+        verify(borrowedBookRepository).save(argThat(r -> "alice".equals(r.getUserId())));
+    }
+
+    @Test
+    void borrowBook_withoutUserBelongsToGuest() {
+        Book book = new Book(4L, "The Maze Runner", "James Dashner", true);
+        when(bookRepository.findById(4L)).thenReturn(Optional.of(book));
+
+        assertEquals(BorrowedBook.GUEST_USER, borrowService.borrowBook(4L).getUserId());
+    }
+
+    // ---------------------------------------------------------------
+    // returnBook
+    // ---------------------------------------------------------------
+
+    @Test
+    void returnBook_freesTheBookAndMovesTheLoanToHistory() {
+        Book book = new Book(5L, "Holes", "Louis Sachar", false);
+        BorrowedBook loan = new BorrowedBook(5L, "Holes", "Louis Sachar",
+                LocalDate.now().plusDays(3), "alice");
+        when(borrowedBookRepository.findByBookId(5L)).thenReturn(Optional.of(loan));
+        when(borrowedBookRepository.remove(loan)).thenReturn(true);
+        when(bookRepository.findById(5L)).thenReturn(Optional.of(book));
+
+        BorrowedBook result = borrowService.returnBook(5L, "alice");
+
+        assertSame(loan, result);
+        assertTrue(book.isAvailable());
+        verify(bookRepository).save(book);
+        verify(loanHistoryRepository).append(loan, LocalDate.now());
+        verify(broadcaster).publish(5L);
+    }
+
+    @Test
+    void returnBook_throwsWhenBookIsNotBorrowed() {
+        when(borrowedBookRepository.findByBookId(5L)).thenReturn(Optional.empty());
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> borrowService.returnBook(5L, null));
+        assertTrue(ex.getMessage().contains("not currently borrowed"));
+        verifyNoInteractions(loanHistoryRepository);
+    }
+
+    @Test
+    void returnBook_throwsWhenBorrowedBySomeoneElse() {
+        BorrowedBook loan = new BorrowedBook(5L, "Holes", "Louis Sachar", LocalDate.now(), "bob");
+        when(borrowedBookRepository.findByBookId(5L)).thenReturn(Optional.of(loan));
+
+        assertThrows(IllegalStateException.class, () -> borrowService.returnBook(5L, "alice"));
+        verify(borrowedBookRepository, never()).remove(any());
+        verify(bookRepository, never()).save(any());
+        verify(auditLog).returnRefused(5L, "alice");
+    }
+
+    @Test
+    void returnBook_throwsWhenAConcurrentReturnWon() {
+        BorrowedBook loan = new BorrowedBook(5L, "Holes", "Louis Sachar", LocalDate.now(), "alice");
+        when(borrowedBookRepository.findByBookId(5L)).thenReturn(Optional.of(loan));
+        when(borrowedBookRepository.remove(loan)).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> borrowService.returnBook(5L, "alice"));
+        verify(bookRepository, never()).save(any());
+        verifyNoInteractions(loanHistoryRepository);
+    }
+
+    @Test
+    void returnBook_throwsForNullBookId() {
+        assertThrows(IllegalArgumentException.class, () -> borrowService.returnBook(null, "alice"));
+    }
+
+    @Test
+    void getHistory_rejectsOutOfRangeLimit() {
+        assertThrows(IllegalArgumentException.class, () -> borrowService.getHistory("alice", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> borrowService.getHistory("alice", BorrowService.MAX_HISTORY + 1));
+    }
+
+    // ---------------------------------------------------------------
+    // Persistence failures
+    // ---------------------------------------------------------------
+
+    @Test
+    void borrowBook_releasesTheBookWhenTheBorrowCannotBeLogged() {
+        Book book = new Book(6L, "Hatchet", "Gary Paulsen", true);
+        when(bookRepository.findById(6L)).thenReturn(Optional.of(book));
+        doThrow(new UncheckedIOException(new IOException("disk full")))
+                .when(persistenceService).logBorrow(any());
+
+        assertThrows(UncheckedIOException.class, () -> borrowService.borrowBook(6L, "alice"));
+
+        assertTrue(book.isAvailable());
+        verify(borrowedBookRepository, never()).save(any());
+        // Saved back so the catalogue version moves past the briefly visible claim
+        verify(bookRepository).save(book);
+        // Never announced, so nothing to take back
+        verifyNoInteractions(broadcaster);
+    }
+
+    @Test
+    void returnBook_keepsTheLoanWhenTheReturnCannotBeLogged() {
+        Book book = new Book(6L, "Hatchet", "Gary Paulsen", false);
+        BorrowedBook loan = new BorrowedBook(6L, "Hatchet", "Gary Paulsen", LocalDate.now(), "alice");
+        when(borrowedBookRepository.findByBookId(6L)).thenReturn(Optional.of(loan));
+        when(borrowedBookRepository.remove(loan)).thenReturn(true);
+        doThrow(new UncheckedIOException(new IOException("disk full")))
+                .when(persistenceService).logReturn(eq(loan), any());
+
+        assertThrows(UncheckedIOException.class, () -> borrowService.returnBook(6L, "alice"));
+
+        verify(borrowedBookRepository).save(loan);
+        assertFalse(book.isAvailable());
+        verifyNoInteractions(loanHistoryRepository);
+        verifyNoInteractions(broadcaster);
+    }
+}
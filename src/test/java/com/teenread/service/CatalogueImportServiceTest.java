@@ -0,0 +1,135 @@
+package com.teenread.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenread.importer.CatalogueFormat;
+import com.teenread.model.Book;
+import com.teenread.model.ImportResult;
+import com.teenread.persistence.PersistenceService;
+import com.teenread.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CatalogueImportService, importing into a real (seeded)
+ * BookRepository with the persistence log mocked out.
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogueImportServiceTest {
+
+    @Mock
+    private PersistenceService persistenceService;
+
+    private BookRepository bookRepository;
+    private CatalogueImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = new BookRepository();
+        importService = new CatalogueImportService(bookRepository, persistenceService, new ObjectMapper(), 4);
+    }
+
+    private static InputStream feed(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void csv_addsNewBooksAndUpdatesKnownOnes() {
+        ImportResult result = importService.importCatalogue(feed("""
+                id,title,author
+                100,Scythe,Neal Shusterman
+
+                8,Holes (Anniversary Edition),Louis Sachar
+                """), CatalogueFormat.CSV);
+
+        assertEquals(2, result.getRows(), "Blank lines are not rows");
+        assertEquals(2, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertEquals(13, bookRepository.findAll().size());
+        assertEquals("Scythe", bookRepository.findById(100L).orElseThrow().getTitle());
+        assertEquals(1, bookRepository.searchByTitle("anniversary").size());
+    }
+
+    @Test
+    void import_keepsAvailabilityOfBorrowedBooks() {
+        Book borrowed = bookRepository.findById(3L).orElseThrow();
+        borrowed.compareAndSetAvailable(true, false);
+        bookRepository.save(borrowed);
+
+        importService.importCatalogue(feed("""
+                {"id":3,"title":"Divergent (Movie Tie-in)","author":"Veronica Roth","available":true}
+                """), CatalogueFormat.NDJSON);
+
+        Book book = bookRepository.findById(3L).orElseThrow();
+        assertEquals("Divergent (Movie Tie-in)", book.getTitle());
+        assertFalse(book.isAvailable(), "Availability belongs to the loan, not the feed");
+    }
+
+    @Test
+    void badRows_areSkippedAndReportedWithLineNumbers() {
+        ImportResult result = importService.importCatalogue(feed("""
+                id,title,author
+                200,Legend,Marie Lu
+                oops,Bad,Row
+                201,,No Title
+                202,Uglies,Scott Westerfeld
+                """), CatalogueFormat.CSV);
+
+        assertEquals(4, result.getRows());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(2, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("line 3: "));
+        assertTrue(result.getErrors().get(1).startsWith("line 4: "));
+        assertTrue(bookRepository.findById(202L).isPresent());
+    }
+
+    @Test
+    void largeFeed_isImportedInOrderAcrossBatches() {
+        int rows = CatalogueImportService.BATCH_SIZE * 5 + 17;
+        StringBuilder csv = new StringBuilder("id,title,author\n");
+        for (int i = 1; i <= rows; i++) {
+            csv.append(1000 + i).append(",Imported Title ").append(i).append(",Author ").append(i % 97).append('\n');
+        }
+        // A later row for the same id wins
+        csv.append("1001,Last Write Wins,Someone\n");
+
+        ImportResult result = importService.importCatalogue(feed(csv.toString()), CatalogueFormat.CSV);
+
+        assertEquals(rows + 1, result.getRows());
+        assertEquals(12 + rows, bookRepository.findAll().size());
+        assertEquals("Last Write Wins", bookRepository.findById(1001L).orElseThrow().getTitle());
+        assertEquals(List.of(1000L + rows),
+                bookRepository.searchByTitle("Imported Title " + rows).stream().map(Book::getId).toList());
+        // Catalogue order follows feed order
+        assertEquals(1001L, bookRepository.findPage(12L, 1).get(0).getId());
+        verify(persistenceService, times(6)).logBooksSaved(anyCollection());
+    }
+
+    @Test
+    void csvHeaderMissingColumns_isRejectedBeforeAnythingIsImported() {
+        assertThrows(IllegalArgumentException.class, () ->
+                importService.importCatalogue(feed("isbn,name\n1,x\n"), CatalogueFormat.CSV));
+        assertEquals(12, bookRepository.findAll().size());
+    }
+
+    @Test
+    void logFailure_stopsTheImportBeforeTheBatchIsVisible() {
+        doThrow(new IllegalStateException("disk full")).when(persistenceService).logBooksSaved(anyCollection());
+
+        assertThrows(IllegalStateException.class, () ->
+                importService.importCatalogue(feed("id,title,author\n300,Scythe,Neal Shusterman\n"), CatalogueFormat.CSV));
+        assertTrue(bookRepository.findById(300L).isEmpty());
+    }
+}
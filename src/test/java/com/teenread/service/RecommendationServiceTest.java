@@ -23,6 +23,9 @@ import static org.mockito.Mockito.*;
  * Sprint 2 retro improvement:
  *   Edge cases (empty catalogue, fewer books than count, all borrowed) written
  *   and verified BEFORE the RecommendationController is implemented.
+ *
+ * The random draw itself (availability filtering, distinctness) is covered
+ * in BookRepositoryTest; these tests cover how the service uses it.
  */
 @ExtendWith(MockitoExtension.class)
 class RecommendationServiceTest {
@@ -45,15 +48,12 @@ class RecommendationServiceTest {
 
     @Test
     void getRecommendations_returnsUpToCountAvailableBooks() {
-        // 5 available books in the catalogue
         List<Book> books = Arrays.asList(
                 new Book(1L, "A", "Author", true),
                 new Book(2L, "B", "Author", true),
-                new Book(3L, "C", "Author", true),
-                new Book(4L, "D", "Author", true),
-                new Book(5L, "E", "Author", true)
+                new Book(3L, "C", "Author", true)
         );
-        when(bookRepository.findAll()).thenReturn(books);
+        when(bookRepository.findRandomAvailable(3)).thenReturn(books);
 
         List<Book> recs = recommendationService.getRecommendations();
 
@@ -62,21 +62,10 @@ class RecommendationServiceTest {
     }
 
     @Test
-    void getRecommendations_onlyIncludesAvailableBooks() {
-        // Mix of available and borrowed
-        List<Book> books = Arrays.asList(
-                new Book(1L, "Available", "A", true),
-                new Book(2L, "Borrowed",  "B", false),
-                new Book(3L, "Available2","C", true)
-        );
-        when(bookRepository.findAll()).thenReturn(books);
-        ReflectionTestUtils.setField(recommendationService, "recommendationCount", 3);
-
-        List<Book> recs = recommendationService.getRecommendations();
-
-        // Only 2 available books exist – should return both, not throw
-        assertTrue(recs.size() <= 2);
-        assertTrue(recs.stream().allMatch(Book::isAvailable));
+    void getRecommendations_neverCopiesTheCatalogue() {
+        when(bookRepository.findRandomAvailable(3)).thenReturn(Collections.emptyList());
+        recommendationService.getRecommendations();
+        verify(bookRepository, never()).findAll();
     }
 
     // ---------------------------------------------------------------
@@ -85,7 +74,7 @@ class RecommendationServiceTest {
 
     @Test
     void getRecommendations_returnsEmptyListWhenNoBooksAvailable() {
-        when(bookRepository.findAll()).thenReturn(Collections.emptyList());
+        when(bookRepository.findRandomAvailable(3)).thenReturn(Collections.emptyList());
         List<Book> recs = recommendationService.getRecommendations();
         assertTrue(recs.isEmpty());
     }
@@ -97,7 +86,7 @@ class RecommendationServiceTest {
                 new Book(1L, "Only One",  "A", true),
                 new Book(2L, "Only Two",  "B", true)
         );
-        when(bookRepository.findAll()).thenReturn(books);
+        when(bookRepository.findRandomAvailable(3)).thenReturn(books);
 
         List<Book> recs = recommendationService.getRecommendations();
 
@@ -105,30 +94,15 @@ class RecommendationServiceTest {
         assertEquals(2, recs.size());
     }
 
-    @Test
-    void getRecommendations_returnsEmptyWhenAllBooksAreBorrowed() {
-        List<Book> books = Arrays.asList(
-                new Book(1L, "Borrowed1", "A", false),
-                new Book(2L, "Borrowed2", "B", false)
-        );
-        when(bookRepository.findAll()).thenReturn(books);
-
-        List<Book> recs = recommendationService.getRecommendations();
-        assertTrue(recs.isEmpty());
-    }
-
     @Test
     void getRecommendations_respectsDifferentCountConfiguration() {
         // Change count to 1
         ReflectionTestUtils.setField(recommendationService, "recommendationCount", 1);
-        List<Book> books = Arrays.asList(
-                new Book(1L, "A", "X", true),
-                new Book(2L, "B", "Y", true),
-                new Book(3L, "C", "Z", true)
-        );
-        when(bookRepository.findAll()).thenReturn(books);
+        when(bookRepository.findRandomAvailable(1))
+                .thenReturn(Collections.singletonList(new Book(2L, "B", "Y", true)));
 
         List<Book> recs = recommendationService.getRecommendations();
         assertEquals(1, recs.size());
+        verify(bookRepository).findRandomAvailable(1);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+package com.teenread.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenread.json.BookJsonCache;
+import com.teenread.model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for CatalogueFile (writer) and MappedCatalogue (reader).
+ */
+class MappedCatalogueTest {
+
+    @TempDir
+    Path dir;
+
+    private MappedCatalogue writeAndOpen(List<Book> books) throws IOException {
+        Path file = dir.resolve("catalogue.bin");
+        CatalogueFile.write(file, books);
+        return MappedCatalogue.open(file);
+    }
+
+    @Test
+    void roundTrip_keepsEveryField() throws IOException {
+        MappedCatalogue catalogue = writeAndOpen(List.of(
+                new Book(1L, "Holes", "Louis Sachar", true),
+                new Book(2L, "Wonder", "R.J. Palacio", false)));
+
+        assertEquals(2, catalogue.size());
+        assertEquals(2L, catalogue.id(1));
+        assertEquals("Wonder", catalogue.title(1));
+        assertEquals("R.J. Palacio", catalogue.author(1));
+        assertTrue(catalogue.available(0));
+        assertFalse(catalogue.available(1));
+
+        Book book = catalogue.book(0, false);
+        assertEquals("Holes", book.getTitle());
+        assertFalse(book.isAvailable(), "Availability comes from the caller, not the file");
+    }
+
+    @Test
+    void book_readsTextFromTheMappingWithoutInterningIt() throws IOException {
+        // Writing interns the text, so patch the file to hold a title nothing has interned
+        String written = "mapped-only " + System.nanoTime();
+        String unseen = "M" + written.substring(1);
+        Path file = dir.resolve("unseen.bin");
+        CatalogueFile.write(file, List.of(new Book(1L, written, "Louis Sachar", true)));
+        Files.writeString(file, Files.readString(file, StandardCharsets.ISO_8859_1).replace(written, unseen),
+                StandardCharsets.ISO_8859_1);
+        MappedCatalogue catalogue = MappedCatalogue.open(file);
+        int interned = Book.TITLES.size();
+
+        Book book = catalogue.book(0, true);
+        assertEquals(unseen, book.getTitle());
+        String json = new ObjectMapper().registerModule(new BookJsonCache(16)).writeValueAsString(List.of(book));
+        assertTrue(json.contains(unseen), json);
+        assertEquals(interned, Book.TITLES.size(), "listing and serialising must not intern");
+
+        // Saving or lending the book needs an id: interned then, once
+        int titleId = book.titleId();
+        assertEquals(unseen, Book.TITLES.get(titleId));
+        assertEquals(titleId, book.titleId());
+        assertEquals(interned + 1, Book.TITLES.size());
+        assertEquals(unseen, book.getTitle());
+    }
+
+    @Test
+    void write_sortsById_soSlotOfCanBinarySearch() throws IOException {
+        MappedCatalogue catalogue = writeAndOpen(List.of(
+                new Book(30L, "C", "c", true),
+                new Book(10L, "A", "a", true),
+                new Book(20L, "B", "b", true)));
+
+        assertEquals(0, catalogue.slotOf(10L));
+        assertEquals(2, catalogue.slotOf(30L));
+        assertEquals("B", catalogue.title(catalogue.slotOf(20L)));
+        assertEquals(-1, catalogue.slotOf(15L));
+        assertEquals(-1, catalogue.slotOf(99L));
+    }
+
+    @Test
+    void roundTrip_keepsNonAsciiText() throws IOException {
+        MappedCatalogue catalogue = writeAndOpen(List.of(
+                new Book(1L, "Ödön és a sárkány 🐉", "Zoë Ñuñez", true)));
+
+        assertEquals("Ödön és a sárkány 🐉", catalogue.title(0));
+        assertEquals("Zoë Ñuñez", catalogue.author(0));
+    }
+
+    @Test
+    void emptyCatalogue_opens() throws IOException {
+        MappedCatalogue catalogue = writeAndOpen(List.of());
+
+        assertEquals(0, catalogue.size());
+        assertEquals(-1, catalogue.slotOf(1L));
+    }
+
+    @Test
+    void write_rejectsDuplicateIds() {
+        assertThrows(IllegalArgumentException.class, () -> CatalogueFile.write(dir.resolve("dup.bin"), List.of(
+                new Book(1L, "A", "a", true),
+                new Book(1L, "B", "b", true))));
+    }
+
+    @Test
+    void open_rejectsIdsOutOfOrder() throws IOException {
+        Path file = dir.resolve("unsorted.bin");
+        CatalogueFile.write(file, List.of(new Book(1L, "A", "a", true), new Book(2L, "B", "b", true)));
+        byte[] bytes = Files.readAllBytes(file);
+        int records = recordsOffset(bytes);
+        // Swap the ids of the two records
+        byte[] first = Arrays.copyOfRange(bytes, records, records + 8);
+        System.arraycopy(bytes, records + CatalogueFile.RECORD_SIZE, bytes, records, 8);
+        System.arraycopy(first, 0, bytes, records + CatalogueFile.RECORD_SIZE, 8);
+        Files.write(file, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> MappedCatalogue.open(file));
+        assertTrue(e.getMessage().startsWith("Corrupt or truncated"), e.getMessage());
+    }
+
+    @Test
+    void open_rejectsTextOutsideTheArena() throws IOException {
+        Path file = dir.resolve("text.bin");
+        CatalogueFile.write(file, List.of(new Book(1L, "A", "a", true)));
+        byte[] bytes = Files.readAllBytes(file);
+        // Point the title past the end of the arena
+        ByteBuffer.wrap(bytes).putInt(recordsOffset(bytes) + 8, 1_000_000);
+        Files.write(file, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> MappedCatalogue.open(file));
+        assertTrue(e.getMessage().startsWith("Corrupt or truncated"), e.getMessage());
+    }
+
+    /** Records offset from the header (magic, version, count, reserved, arena offset/length, records offset). */
+    private static int recordsOffset(byte[] bytes) {
+        return (int) ByteBuffer.wrap(bytes).getLong(32);
+    }
+
+    @Test
+    void open_rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("notes.txt");
+        Files.writeString(file, "definitely not a catalogue, but long enough for a header .......");
+
+        assertThrows(IOException.class, () -> MappedCatalogue.open(file));
+    }
+}